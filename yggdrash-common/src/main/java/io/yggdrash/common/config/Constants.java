@@ -60,6 +60,23 @@ public final class Constants {
     public static final String YGGDRASH_KEY_PATH = "yggdrash.key.path";
     public static final String YGGDRASH_KEY_PASSWORD = "yggdrash.key.password";
     public static final String YGGDRASH_DATABASE_PATH = "yggdrash.database.path";
+    public static final String YGGDRASH_DATABASE_BLOCK_CACHE_SIZE = "yggdrash.database.blockCache.size";
+    public static final String YGGDRASH_DATABASE_BLOCK_CACHE_BRANCH = "yggdrash.database.blockCache.branch";
+    public static final String YGGDRASH_DATABASE_STATE_CACHE_SIZE = "yggdrash.database.stateCache.size";
+    public static final String YGGDRASH_DATABASE_CACHE_SIZE = "yggdrash.database.leveldb.cacheSize";
+    public static final String YGGDRASH_DATABASE_WRITE_BUFFER_SIZE = "yggdrash.database.leveldb.writeBufferSize";
+    public static final String YGGDRASH_DATABASE_APPEND_ONLY = "yggdrash.database.appendOnly";
+    public static final String YGGDRASH_DATABASE_BLOCK_FILE_SEGMENT_SIZE = "yggdrash.database.blockFile.segmentSize";
+    public static final String YGGDRASH_DATABASE_TX_REFERENCES = "yggdrash.database.txReferences";
+    public static final String YGGDRASH_DATABASE_ADDRESS_INDEX = "yggdrash.database.addressIndex";
+    public static final String YGGDRASH_DATABASE_STATE_HISTORY_RETENTION = "yggdrash.database.stateHistory.retention";
+    public static final String YGGDRASH_DATABASE_TX_POOL_SIZE = "yggdrash.database.txPool.size";
+    public static final String YGGDRASH_DATABASE_PRUNING = "yggdrash.database.pruning";
+    public static final String YGGDRASH_DATABASE_PRUNING_BRANCH = "yggdrash.database.pruning.branch";
+    public static final String YGGDRASH_DATABASE_PRUNING_BATCH_SIZE = "yggdrash.database.pruning.batchSize";
+    public static final String YGGDRASH_DATABASE_PRUNING_INTERVAL = "yggdrash.database.pruning.interval";
+    public static final String YGGDRASH_DATABASE_SNAPSHOT_PATH = "yggdrash.database.snapshot.path";
+    public static final String YGGDRASH_DATABASE_SNAPSHOT_IMPORT = "yggdrash.database.snapshot.import";
     public static final String YGGDRASH_ADMIN_MODE = "yggdrash.admin.mode";
     public static final String YGGDRASH_ADMIN_PATH = "yggdrash.admin.path";
     public static final String YGGDRASH_ADMIN_IP = "yggdrash.admin.ip";
@@ -74,6 +91,9 @@ public final class Constants {
     public static final String NODE_KEY_PASSWORD = "yggdrash.node.key.password";
     public static final String NODE_GRPC_HOST = "yggdrash.node.grpc.host";
     public static final String NODE_GRPC_PORT = "yggdrash.node.grpc.port";
+    public static final String NODE_TX_INGEST_VERIFY_THREADS = "yggdrash.node.txIngest.verifyThreads";
+    public static final String NODE_TX_INGEST_CAPACITY = "yggdrash.node.txIngest.capacity";
+    public static final String NODE_SYNC_VERIFY_THREADS = "yggdrash.node.sync.verifyThreads";
 
     public static final String VALIDATOR_PATH = "yggdrash.validator.path";
     public static final String VALIDATOR_INFO = "yggdrash.validator.info";
@@ -103,6 +123,7 @@ public final class Constants {
         }
 
         public static final long BLOCK_SYNC_SIZE = 3 * 1024 * 1024L; // 3MB
+        public static final long TX_POOL_SIZE = 64 * 1024 * 1024L; // 64MB of pending txs per branch
     }
 
     public final class Key {
@@ -1,18 +1,49 @@
 package io.yggdrash.common.store;
 
 import com.google.common.primitives.Longs;
+import com.google.common.primitives.UnsignedBytes;
 import com.google.gson.JsonObject;
+import io.yggdrash.common.store.datasource.DbIterator;
 import io.yggdrash.common.store.datasource.DbSource;
+import io.yggdrash.common.utils.JsonBinaryCodec;
 import io.yggdrash.common.utils.JsonUtil;
 import io.yggdrash.common.utils.SerializationUtil;
 import io.yggdrash.contract.core.store.ReadWriterStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public class StateStore implements ReadWriterStore<String, JsonObject> {
 
-    private final DbSource<byte[], byte[]> db;
-    private long dbSize = 0L;
+    private static final Logger log = LoggerFactory.getLogger(StateStore.class);
+    /**
+     * Order of the keys in the database, which compares their bytes unsigned. Values merged over a scan
+     * must be ordered with it rather than the order of String.
+     */
+    public static final Comparator<String> KEY_ORDER =
+            (a, b) -> UnsignedBytes.lexicographicalComparator().compare(a.getBytes(), b.getBytes());
     private static final byte[] DATABASE_SIZE = "DATABASE_SIZE".getBytes();
+    // Set when every value is stored with JsonBinaryCodec
+    private static final byte[] STATE_VERSION = "STATE_VERSION".getBytes();
+    private static final byte[] VERSION = new byte[] {JsonBinaryCodec.VERSION_1};
+    private static final int MIGRATION_BATCH_SIZE = 1000;
 
+    private final DbSource<byte[], byte[]> db;
+    private final Object lock = new Object();
+    private long dbSize = 0L;
+    private volatile Consumer<Collection<String>> writeListener = keys -> { };
 
     public StateStore(DbSource<byte[], byte[]> dbSource) {
         this.db = dbSource.init();
@@ -20,22 +51,72 @@ public class StateStore implements ReadWriterStore<String, JsonObject> {
         if (db.get(DATABASE_SIZE) != null) {
             dbSize = Longs.fromByteArray(db.get(DATABASE_SIZE));
         }
+
+        if (db.get(STATE_VERSION) != null) {
+            return;
+        }
+        if (dbSize == 0) {
+            db.put(STATE_VERSION, VERSION);
+        } else {
+            // Rewritten before the chain starts, a block committed meanwhile could be overwritten
+            migrateLegacyValues();
+        }
     }
 
     public long getStateSize() {
         return dbSize;
     }
+
+    /**
+     * Reads the state size of the last committed write again, e.g. after the block writes are rolled back.
+     */
+    public void reload() {
+        synchronized (lock) {
+            byte[] size = db.get(DATABASE_SIZE);
+            this.dbSize = size == null ? 0L : Longs.fromByteArray(size);
+        }
+    }
+
+    /**
+     * Sets the listener told of the keys written by put and putAll, which invalidates the values cached
+     * over this store. It is called after the write, outside of the lock of the store.
+     */
+    public void setWriteListener(Consumer<Collection<String>> writeListener) {
+        this.writeListener = writeListener;
+    }
     
     @Override
     public void put(String key, JsonObject value) {
-        // Check exist
-        if (db.get(key.getBytes()) == null) {
-            this.dbSize++;
-            byte[] dbSizeByteArray = Longs.toByteArray(this.dbSize);
-            db.put(DATABASE_SIZE, dbSizeByteArray);
+        synchronized (lock) {
+            // Check exist
+            if (db.get(key.getBytes()) == null) {
+                this.dbSize++;
+                byte[] dbSizeByteArray = Longs.toByteArray(this.dbSize);
+                db.put(DATABASE_SIZE, dbSizeByteArray);
+            }
+            db.put(key.getBytes(), JsonBinaryCodec.encode(value));
+        }
+        writeListener.accept(Collections.singleton(key));
+    }
+
+    /**
+     * Writes the values in one batch. The caller already knows which keys are new,
+     * so the existence of each key is not read again to maintain the state size.
+     *
+     * @param values values to write
+     * @param addedCount number of keys not stored yet
+     */
+    public void putAll(Map<String, JsonObject> values, long addedCount) {
+        Map<byte[], byte[]> rows = new HashMap<>();
+        values.forEach((key, value) -> rows.put(key.getBytes(), JsonBinaryCodec.encode(value)));
+        synchronized (lock) {
+            if (addedCount > 0) {
+                this.dbSize += addedCount;
+                rows.put(DATABASE_SIZE, Longs.toByteArray(this.dbSize));
+            }
+            db.updateByBatch(rows);
         }
-        byte[] tempValue = SerializationUtil.serializeJson(value);
-        db.put(key.getBytes(), tempValue);
+        writeListener.accept(values.keySet());
     }
 
     @Override
@@ -44,10 +125,142 @@ public class StateStore implements ReadWriterStore<String, JsonObject> {
         if (result == null) {
             return null;
         }
-        String tempValue = SerializationUtil.deserializeString(result);
+        return toJsonObject(result);
+    }
+
+    @Override
+    public Map<String, JsonObject> scan(String from, String to, boolean reverse) {
+        byte[] fromKey = from == null ? null : from.getBytes();
+        byte[] toKey = to == null ? null : to.getBytes();
+        return toMap(db.scan(fromKey, toKey, reverse));
+    }
+
+    @Override
+    public Map<String, JsonObject> prefix(String prefix) {
+        return toMap(db.prefix(prefix.getBytes()));
+    }
+
+    /**
+     * Passes each value to the consumer in key order while the rows are read, so they are not held in memory
+     * together. Only the keys equal to an excluded key are left out, not the keys starting with it.
+     */
+    public void forEach(Set<String> excludedKeys, BiConsumer<String, JsonObject> consumer) {
+        try (DbIterator<byte[], byte[]> rows = db.scan(null, null, false)) {
+            rows.forEachRemaining(row -> {
+                String key = new String(row.getKey());
+                if (!isReserved(row.getKey()) && !excludedKeys.contains(key)) {
+                    consumer.accept(key, toJsonObject(row.getValue()));
+                }
+            });
+        }
+    }
+
+    /**
+     * Iterates every value in key order while the rows are read. A LevelDB source iterates the snapshot of
+     * the database taken when the iterator is opened, so the values written meanwhile are not seen.
+     *
+     * @return iterator which must be closed
+     */
+    public DbIterator<String, JsonObject> iterator() {
+        DbIterator<byte[], byte[]> rows = db.scan(null, null, false);
+        return new DbIterator<String, JsonObject>() {
+            private Map.Entry<byte[], byte[]> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && rows.hasNext()) {
+                    Map.Entry<byte[], byte[]> row = rows.next();
+                    if (!isReserved(row.getKey())) {
+                        next = row;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Map.Entry<String, JsonObject> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<byte[], byte[]> row = next;
+                next = null;
+                return new AbstractMap.SimpleImmutableEntry<>(new String(row.getKey()), toJsonObject(row.getValue()));
+            }
+
+            @Override
+            public void close() {
+                rows.close();
+            }
+        };
+    }
+
+    private Map<String, JsonObject> toMap(DbIterator<byte[], byte[]> iterator) {
+        Map<String, JsonObject> result = new LinkedHashMap<>();
+        try (DbIterator<byte[], byte[]> rows = iterator) {
+            rows.forEachRemaining(row -> {
+                if (!isReserved(row.getKey())) {
+                    result.put(new String(row.getKey()), toJsonObject(row.getValue()));
+                }
+            });
+        }
+        return result;
+    }
+
+    private JsonObject toJsonObject(byte[] value) {
+        if (JsonBinaryCodec.isEncoded(value)) {
+            return JsonBinaryCodec.decode(value).getAsJsonObject();
+        }
+        // JSON text written before the binary format
+        String tempValue = SerializationUtil.deserializeString(value);
         return JsonUtil.parseJsonObject(tempValue);
     }
 
+    private boolean isReserved(byte[] key) {
+        return Arrays.equals(DATABASE_SIZE, key) || Arrays.equals(STATE_VERSION, key);
+    }
+
+    /**
+     * Rewrites the values stored as JSON text with the binary format.
+     */
+    private void migrateLegacyValues() {
+        long migrated = 0;
+        byte[] from = null;
+        try {
+            while (true) {
+                int count = 0;
+                byte[] last = null;
+                Map<byte[], byte[]> rows = new HashMap<>();
+                synchronized (lock) {
+                    try (DbIterator<byte[], byte[]> iterator = db.scan(from, null, false)) {
+                        while (count < MIGRATION_BATCH_SIZE && iterator.hasNext()) {
+                            Map.Entry<byte[], byte[]> row = iterator.next();
+                            last = row.getKey();
+                            count++;
+                            if (!isReserved(last) && !JsonBinaryCodec.isEncoded(row.getValue())) {
+                                rows.put(last, JsonBinaryCodec.encode(toJsonObject(row.getValue())));
+                            }
+                        }
+                    }
+                    if (!rows.isEmpty()) {
+                        db.updateByBatch(rows);
+                        migrated += rows.size();
+                    }
+                }
+                if (count < MIGRATION_BATCH_SIZE) {
+                    db.put(STATE_VERSION, VERSION);
+                    if (migrated > 0) {
+                        log.info("State values migrated to binary format. count={}", migrated);
+                    }
+                    break;
+                }
+                // the smallest key after the last one
+                from = Arrays.copyOf(last, last.length + 1);
+            }
+        } catch (RuntimeException e) {
+            log.warn("State migration stopped. {}", e.getMessage());
+        }
+    }
+
     @Override
     public boolean contains(String key) {
         return db.get(key.getBytes()) != null;
@@ -55,7 +268,9 @@ public class StateStore implements ReadWriterStore<String, JsonObject> {
 
     @Override
     public void close() {
-        db.close();
+        synchronized (lock) {
+            db.close();
+        }
     }
 
 
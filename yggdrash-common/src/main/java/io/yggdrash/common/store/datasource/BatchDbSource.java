@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.common.store.datasource;
+
+import org.iq80.leveldb.Options;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * DbSource decorator that buffers writes while its UnitOfWork is active on the current thread.
+ * Buffered rows are visible to the reads of that thread and are flushed with updateByBatch() on commit.
+ */
+class BatchDbSource implements DbSource<byte[], byte[]> {
+
+    private final DbSource<byte[], byte[]> origin;
+    private final UnitOfWork unitOfWork;
+    private final NavigableMap<byte[], byte[]> pending = new TreeMap<>(DbIterators.KEY_COMPARATOR);
+
+    BatchDbSource(DbSource<byte[], byte[]> origin, UnitOfWork unitOfWork) {
+        this.origin = origin;
+        this.unitOfWork = unitOfWork;
+    }
+
+    @Override
+    public DbSource<byte[], byte[]> init() {
+        origin.init();
+        return this;
+    }
+
+    @Override
+    public DbSource<byte[], byte[]> init(Options options) {
+        origin.init(options);
+        return this;
+    }
+
+    @Override
+    public byte[] get(byte[] key) {
+        if (!unitOfWork.isActive()) {
+            return origin.get(key);
+        }
+        synchronized (pending) {
+            if (pending.containsKey(key)) {
+                return pending.get(key);
+            }
+        }
+        return origin.get(key);
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        if (!unitOfWork.isActive()) {
+            origin.put(key, value);
+            return;
+        }
+        synchronized (pending) {
+            pending.put(key, value);
+        }
+    }
+
+    @Override
+    public void delete(byte[] key) {
+        if (!unitOfWork.isActive()) {
+            origin.delete(key);
+            return;
+        }
+        synchronized (pending) {
+            pending.put(key, null);
+        }
+    }
+
+    @Override
+    public void compact() {
+        origin.compact();
+    }
+
+    @Override
+    public void updateByBatch(Map<byte[], byte[]> rows) {
+        if (!unitOfWork.isActive()) {
+            origin.updateByBatch(rows);
+            return;
+        }
+        synchronized (pending) {
+            pending.putAll(rows);
+        }
+    }
+
+    /**
+     * While the unit of work is active, pending rows are merged over the rows of the origin.
+     */
+    @Override
+    public DbIterator<byte[], byte[]> scan(byte[] from, byte[] to, boolean reverse) {
+        if (!unitOfWork.isActive()) {
+            return origin.scan(from, to, reverse);
+        }
+        NavigableMap<byte[], byte[]> pendingRows;
+        synchronized (pending) {
+            NavigableMap<byte[], byte[]> range = DbIterators.subMap(pending, from, to);
+            if (range.isEmpty()) {
+                return origin.scan(from, to, reverse);
+            }
+            pendingRows = new TreeMap<>(range);
+        }
+        return DbIterators.merge(origin.scan(from, to, reverse), pendingRows, reverse);
+    }
+
+    @Override
+    public DbIterator<byte[], byte[]> prefix(byte[] prefix) {
+        return scan(prefix, DbIterators.prefixEnd(prefix), false);
+    }
+
+    @Override
+    public void close() {
+        origin.close();
+    }
+
+    int pendingSize() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Adds the pending rows to the batch of the database they are written to.
+     * Namespaces of a shared database share one batch.
+     */
+    void collect(Map<DbSource<byte[], byte[]>, Map<byte[], byte[]>> batches) {
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            if (origin instanceof NamespacedDbSource) {
+                NamespacedDbSource namespace = (NamespacedDbSource) origin;
+                batches.computeIfAbsent(namespace.getShared().getPhysical(), db -> new HashMap<>())
+                        .putAll(namespace.toRows(pending));
+            } else {
+                batches.computeIfAbsent(origin, db -> new HashMap<>()).putAll(pending);
+            }
+        }
+    }
+
+    void discard() {
+        synchronized (pending) {
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,562 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.common.store.datasource;
+
+import io.yggdrash.common.exception.FailedOperationException;
+import org.iq80.leveldb.Options;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only DbSource for write-once data such as blocks, transactions and receipts.
+ * Records are appended to segment files and every key is indexed in memory with the position of its value,
+ * so a read is a single positional read. A sealed segment gets a hint file with its index entries,
+ * which is loaded on restart instead of reading the whole segment.
+ * Overwritten and deleted values are reclaimed by compact(), which merges the live values of the sealed segments.
+ */
+public class BitcaskDbSource implements DbSource<byte[], byte[]> {
+    private static final Logger log = LoggerFactory.getLogger(BitcaskDbSource.class);
+
+    private static final String DATA_SUFFIX = ".data";
+    private static final String HINT_SUFFIX = ".hint";
+    // crc, key length, value length
+    private static final int HEADER_LENGTH = 12;
+    private static final int TOMBSTONE = -1;
+    private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final int COMPACTION_BATCH_SIZE = 1000;
+
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private final Path path;
+    private final long segmentSize;
+    private final NavigableMap<byte[], Location> index = new ConcurrentSkipListMap<>(DbIterators.KEY_COMPARATOR);
+    private final Map<Integer, FileChannel> segments = new ConcurrentHashMap<>();
+    // index entries of the active segment including deletes, written to its hint file when it is sealed
+    private final List<HintEntry> activeHints = new ArrayList<>();
+
+    private FileChannel active;
+    private int activeId;
+    private long activeSize;
+    private boolean alive;
+
+    public BitcaskDbSource(String dbPath, String name) {
+        this(dbPath, name, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public BitcaskDbSource(String dbPath, String name, long segmentSize) {
+        this.path = Paths.get(dbPath, name);
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public DbSource<byte[], byte[]> init() {
+        closeLock.writeLock().lock();
+        try {
+            if (alive) {
+                return this;
+            }
+            log.info("Initialize db: {}", path);
+            Files.createDirectories(path);
+            List<Integer> ids = segmentIds();
+            for (int i = 0; i < ids.size(); i++) {
+                int id = ids.get(i);
+                segments.put(id, FileChannel.open(dataFile(id), StandardOpenOption.READ, StandardOpenOption.WRITE));
+                load(id, i == ids.size() - 1);
+            }
+            if (ids.isEmpty()) {
+                openSegment(0);
+            } else {
+                activeId = ids.get(ids.size() - 1);
+                active = segments.get(activeId);
+                activeSize = active.size();
+            }
+            alive = true;
+        } catch (IOException e) {
+            log.error("Failed to open {}: {}", path, e.getMessage());
+            throw new FailedOperationException("Can't initialize db");
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Options are for LevelDB and not used.
+     */
+    @Override
+    public DbSource<byte[], byte[]> init(Options options) {
+        return init();
+    }
+
+    @Override
+    public byte[] get(byte[] key) {
+        closeLock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            return location == null ? null : read(location);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        append(new byte[][] {key}, new byte[][] {value}, false);
+    }
+
+    @Override
+    public void delete(byte[] key) {
+        append(new byte[][] {key}, new byte[][] {null}, false);
+    }
+
+    /**
+     * Rows are appended with a single write and synced once.
+     */
+    @Override
+    public void updateByBatch(Map<byte[], byte[]> rows) {
+        byte[][] keys = new byte[rows.size()][];
+        byte[][] values = new byte[rows.size()][];
+        int i = 0;
+        for (Map.Entry<byte[], byte[]> row : rows.entrySet()) {
+            keys[i] = row.getKey();
+            values[i] = row.getValue();
+            i++;
+        }
+        append(keys, values, true);
+    }
+
+    @Override
+    public DbIterator<byte[], byte[]> scan(byte[] from, byte[] to, boolean reverse) {
+        NavigableMap<byte[], Location> range = DbIterators.subMap(index, from, to);
+        Iterator<Map.Entry<byte[], Location>> iterator =
+                (reverse ? range.descendingMap() : range).entrySet().iterator();
+        // The index is iterated while it changes, a key deleted since it was iterated is skipped
+        return new DbIterator<byte[], byte[]>() {
+            private Map.Entry<byte[], byte[]> nextRow;
+
+            @Override
+            public boolean hasNext() {
+                while (nextRow == null && iterator.hasNext()) {
+                    byte[] key = iterator.next().getKey();
+                    byte[] value = get(key);
+                    if (value != null) {
+                        nextRow = new AbstractMap.SimpleImmutableEntry<>(key, value);
+                    }
+                }
+                return nextRow != null;
+            }
+
+            @Override
+            public Map.Entry<byte[], byte[]> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<byte[], byte[]> row = nextRow;
+                nextRow = null;
+                return row;
+            }
+
+            @Override
+            public void close() {
+                // nothing to release, values are read on demand
+            }
+        };
+    }
+
+    @Override
+    public DbIterator<byte[], byte[]> prefix(byte[] prefix) {
+        return scan(prefix, DbIterators.prefixEnd(prefix), false);
+    }
+
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (!alive) {
+                return;
+            }
+            log.debug("Close db: {}", path);
+            active.force(false);
+            writeHint(activeId, activeSize, activeHints);
+            for (FileChannel channel : segments.values()) {
+                channel.close();
+            }
+            segments.clear();
+            index.clear();
+            activeHints.clear();
+            alive = false;
+        } catch (IOException e) {
+            log.error("Failed to close {}: {}", path, e.getMessage());
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the live values of every sealed segment to the active segment, then deletes the sealed segments.
+     * Merging all of them at once keeps a deleted key deleted, as no older segment with its value is left.
+     * Values are copied in small batches, so writes are blocked only while a batch is appended.
+     */
+    @Override
+    public void compact() {
+        Set<Integer> merged = new HashSet<>();
+        synchronized (this) {
+            closeLock.readLock().lock();
+            try {
+                if (!alive) {
+                    return;
+                }
+                // the active segment is sealed, so that its deletes are merged too
+                sealActiveSegment();
+                merged.addAll(segments.keySet());
+                merged.remove(activeId);
+            } catch (IOException e) {
+                log.error("Failed to seal {}: {}", path, e.getMessage());
+                throw new FailedOperationException(e);
+            } finally {
+                closeLock.readLock().unlock();
+            }
+        }
+
+        long copied = 0;
+        List<Map.Entry<byte[], Location>> batch = new ArrayList<>();
+        for (Map.Entry<byte[], Location> row : index.entrySet()) {
+            if (merged.contains(row.getValue().segmentId)) {
+                batch.add(row);
+            }
+            if (batch.size() >= COMPACTION_BATCH_SIZE) {
+                copied += copyLiveValues(batch);
+                batch.clear();
+            }
+        }
+        copied += copyLiveValues(batch);
+
+        closeLock.writeLock().lock();
+        try {
+            // in segment order, so a delete is never dropped before the value it deletes
+            List<Integer> ids = new ArrayList<>(merged);
+            Collections.sort(ids);
+            for (int id : ids) {
+                FileChannel channel = segments.remove(id);
+                if (channel != null) {
+                    channel.close();
+                }
+                Files.deleteIfExists(dataFile(id));
+                Files.deleteIfExists(hintFile(id));
+            }
+            log.info("Compacted {}: merged segments={} copied values={}", path, ids.size(), copied);
+        } catch (IOException e) {
+            log.error("Failed to delete the merged segments of {}: {}", path, e.getMessage());
+            throw new FailedOperationException(e);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends the values which were not overwritten or deleted since they were listed.
+     */
+    private synchronized int copyLiveValues(List<Map.Entry<byte[], Location>> rows) {
+        List<byte[]> keys = new ArrayList<>();
+        List<byte[]> values = new ArrayList<>();
+        closeLock.readLock().lock();
+        try {
+            if (!alive) {
+                throw new FailedOperationException("Compaction stopped, " + path + " is closed");
+            }
+            for (Map.Entry<byte[], Location> row : rows) {
+                if (index.get(row.getKey()) == row.getValue()) {
+                    keys.add(row.getKey());
+                    values.add(read(row.getValue()));
+                }
+            }
+            if (!keys.isEmpty()) {
+                append(keys.toArray(new byte[0][]), values.toArray(new byte[0][]), true);
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return keys.size();
+    }
+
+    private synchronized void append(byte[][] keys, byte[][] values, boolean sync) {
+        closeLock.readLock().lock();
+        try {
+            int length = 0;
+            for (int i = 0; i < keys.length; i++) {
+                length += HEADER_LENGTH + keys[i].length + (values[i] == null ? 0 : values[i].length);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            long[] valueOffsets = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                valueOffsets[i] = activeSize + buffer.position() + HEADER_LENGTH + keys[i].length;
+                writeRecord(buffer, keys[i], values[i]);
+            }
+            buffer.flip();
+            long position = activeSize;
+            while (buffer.hasRemaining()) {
+                position += active.write(buffer, position);
+            }
+            if (sync) {
+                active.force(false);
+            }
+            activeSize = position;
+
+            for (int i = 0; i < keys.length; i++) {
+                int valueLength = values[i] == null ? TOMBSTONE : values[i].length;
+                HintEntry entry = new HintEntry(keys[i], valueOffsets[i], valueLength);
+                activeHints.add(entry);
+                apply(activeId, entry);
+            }
+            if (activeSize >= segmentSize) {
+                sealActiveSegment();
+            }
+        } catch (IOException e) {
+            log.error("Failed to write on {}: {}", path, e.getMessage());
+            throw new FailedOperationException(e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    private static void writeRecord(ByteBuffer buffer, byte[] key, byte[] value) {
+        int start = buffer.position();
+        buffer.putInt(0);
+        buffer.putInt(key.length);
+        buffer.putInt(value == null ? TOMBSTONE : value.length);
+        buffer.put(key);
+        if (value != null) {
+            buffer.put(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), start + Integer.BYTES, buffer.position() - start - Integer.BYTES);
+        buffer.putInt(start, (int) crc.getValue());
+    }
+
+    private void apply(int segmentId, HintEntry entry) {
+        if (entry.valueLength == TOMBSTONE) {
+            index.remove(entry.key);
+        } else {
+            index.put(entry.key, new Location(segmentId, entry.valueOffset, entry.valueLength));
+        }
+    }
+
+    private void sealActiveSegment() throws IOException {
+        active.force(false);
+        writeHint(activeId, activeSize, activeHints);
+        activeHints.clear();
+        openSegment(activeId + 1);
+    }
+
+    private void openSegment(int id) throws IOException {
+        FileChannel channel = FileChannel.open(dataFile(id),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segments.put(id, channel);
+        active = channel;
+        activeId = id;
+        activeSize = 0;
+    }
+
+    private byte[] read(Location location) {
+        ByteBuffer buffer = ByteBuffer.allocate(location.valueLength);
+        FileChannel channel = segments.get(location.segmentId);
+        try {
+            long position = location.valueOffset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("Unexpected end of segment " + location.segmentId);
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            log.error("Failed to read on {}: {}", path, e.getMessage());
+            throw new FailedOperationException(e);
+        }
+        return buffer.array();
+    }
+
+    private void load(int id, boolean isActive) throws IOException {
+        long dataLength = Files.size(dataFile(id));
+        List<HintEntry> hints = readHint(id, dataLength);
+        if (hints == null) {
+            hints = scanSegment(id, isActive);
+        }
+        hints.forEach(entry -> apply(id, entry));
+        if (isActive) {
+            activeHints.addAll(hints);
+            // the hint of the active segment becomes stale with the next write
+            Files.deleteIfExists(hintFile(id));
+        }
+    }
+
+    /**
+     * Reads the records of a segment without a valid hint file.
+     * A torn record at the end of the active segment is truncated.
+     */
+    private List<HintEntry> scanSegment(int id, boolean isActive) throws IOException {
+        List<HintEntry> hints = new ArrayList<>();
+        FileChannel channel = segments.get(id);
+        long size = channel.size();
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dataFile(id))))) {
+            while (position < size) {
+                int crc = in.readInt();
+                int keyLength = in.readInt();
+                int valueLength = in.readInt();
+                long recordLength = (long) HEADER_LENGTH + keyLength + Math.max(valueLength, 0);
+                if (keyLength < 0 || valueLength < TOMBSTONE || position + recordLength > size) {
+                    break;
+                }
+                byte[] key = new byte[keyLength];
+                in.readFully(key);
+                byte[] value = new byte[Math.max(valueLength, 0)];
+                in.readFully(value);
+
+                CRC32 check = new CRC32();
+                check.update(ByteBuffer.allocate(Integer.BYTES * 2).putInt(keyLength).putInt(valueLength).array());
+                check.update(key);
+                check.update(value);
+                if ((int) check.getValue() != crc) {
+                    break;
+                }
+                hints.add(new HintEntry(key, position + HEADER_LENGTH + keyLength, valueLength));
+                position += recordLength;
+            }
+        } catch (EOFException e) {
+            // torn header, handled below
+        }
+        if (position < size) {
+            log.warn("Segment {} of {} is damaged after {}", id, path, position);
+            if (isActive) {
+                channel.truncate(position);
+            }
+        }
+        return hints;
+    }
+
+    private void writeHint(int id, long dataLength, List<HintEntry> hints) throws IOException {
+        Path temp = Paths.get(hintFile(id) + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeLong(dataLength);
+            for (HintEntry entry : hints) {
+                out.writeInt(entry.key.length);
+                out.write(entry.key);
+                out.writeLong(entry.valueOffset);
+                out.writeInt(entry.valueLength);
+            }
+        }
+        Files.move(temp, hintFile(id), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<HintEntry> readHint(int id, long dataLength) throws IOException {
+        Path hintFile = hintFile(id);
+        if (!hintFile.toFile().exists()) {
+            return null;
+        }
+        List<HintEntry> hints = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(hintFile)))) {
+            if (in.readLong() != dataLength) {
+                return null;
+            }
+            while (in.available() > 0) {
+                byte[] key = new byte[in.readInt()];
+                in.readFully(key);
+                hints.add(new HintEntry(key, in.readLong(), in.readInt()));
+            }
+        } catch (EOFException e) {
+            log.warn("Hint file {} of {} is damaged", id, path);
+            return null;
+        }
+        return hints;
+    }
+
+    private List<Integer> segmentIds() {
+        List<Integer> ids = new ArrayList<>();
+        File[] files = path.toFile().listFiles((dir, fileName) -> fileName.endsWith(DATA_SUFFIX));
+        if (files != null) {
+            Arrays.stream(files)
+                    .map(file -> file.getName().substring(0, file.getName().length() - DATA_SUFFIX.length()))
+                    .map(Integer::valueOf)
+                    .sorted()
+                    .forEach(ids::add);
+        }
+        return ids;
+    }
+
+    private Path dataFile(int id) {
+        return path.resolve(String.format("%08d%s", id, DATA_SUFFIX));
+    }
+
+    private Path hintFile(int id) {
+        return path.resolve(String.format("%08d%s", id, HINT_SUFFIX));
+    }
+
+    private static class Location {
+        private final int segmentId;
+        private final long valueOffset;
+        private final int valueLength;
+
+        Location(int segmentId, long valueOffset, int valueLength) {
+            this.segmentId = segmentId;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+        }
+    }
+
+    private static class HintEntry {
+        private final byte[] key;
+        private final long valueOffset;
+        private final int valueLength;
+
+        HintEntry(byte[] key, long valueOffset, int valueLength) {
+            this.key = key;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.common.store.datasource;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Ordered iterator over the rows of a DbSource. It must be closed after use.
+ */
+public interface DbIterator<K, V> extends Iterator<Map.Entry<K, V>>, AutoCloseable {
+
+    @Override
+    void close();
+}
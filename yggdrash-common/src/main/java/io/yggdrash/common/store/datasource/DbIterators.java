@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.common.store.datasource;
+
+import com.google.common.primitives.UnsignedBytes;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+
+final class DbIterators {
+
+    static final Comparator<byte[]> KEY_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+
+    private DbIterators() {
+    }
+
+    static DbIterator<byte[], byte[]> of(Iterator<Map.Entry<byte[], byte[]>> iterator) {
+        return new DbIterator<byte[], byte[]>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Map.Entry<byte[], byte[]> next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+                // nothing to release
+            }
+        };
+    }
+
+    /**
+     * Merges rows over the rows of the iterator without reading them ahead. Both are in the same order,
+     * a merged row replaces the row of the same key and a null value deletes it.
+     *
+     * @param iterator rows of the database
+     * @param rows rows to merge
+     * @param reverse whether the iterator is from the last key
+     */
+    static DbIterator<byte[], byte[]> merge(DbIterator<byte[], byte[]> iterator, NavigableMap<byte[], byte[]> rows,
+                                            boolean reverse) {
+        Comparator<byte[]> order = reverse ? KEY_COMPARATOR.reversed() : KEY_COMPARATOR;
+        Iterator<Map.Entry<byte[], byte[]>> merged = (reverse ? rows.descendingMap() : rows).entrySet().iterator();
+        return new DbIterator<byte[], byte[]>() {
+            private Map.Entry<byte[], byte[]> nextRow;
+            private Map.Entry<byte[], byte[]> nextMerged;
+            private Map.Entry<byte[], byte[]> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null) {
+                    if (nextRow == null && iterator.hasNext()) {
+                        nextRow = iterator.next();
+                    }
+                    if (nextMerged == null && merged.hasNext()) {
+                        nextMerged = merged.next();
+                    }
+                    if (nextRow == null && nextMerged == null) {
+                        return false;
+                    }
+                    int compared = nextRow == null ? 1
+                            : nextMerged == null ? -1 : order.compare(nextRow.getKey(), nextMerged.getKey());
+                    if (compared < 0) {
+                        next = nextRow;
+                        nextRow = null;
+                        continue;
+                    }
+                    if (compared == 0) {
+                        nextRow = null;
+                    }
+                    if (nextMerged.getValue() != null) {
+                        next = nextMerged;
+                    }
+                    nextMerged = null;
+                }
+                return true;
+            }
+
+            @Override
+            public Map.Entry<byte[], byte[]> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<byte[], byte[]> result = next;
+                next = null;
+                return result;
+            }
+
+            @Override
+            public void close() {
+                iterator.close();
+            }
+        };
+    }
+
+    /**
+     * Returns the first key which is greater than every key starting with the prefix,
+     * or null if there is no such key.
+     */
+    static byte[] prefixEnd(byte[] prefix) {
+        byte[] end = prefix.clone();
+        for (int i = end.length - 1; i >= 0; i--) {
+            if (end[i] != (byte) 0xff) {
+                end[i]++;
+                byte[] result = new byte[i + 1];
+                System.arraycopy(end, 0, result, 0, i + 1);
+                return result;
+            }
+        }
+        return null;
+    }
+
+    static boolean isBefore(byte[] key, byte[] to) {
+        return to == null || KEY_COMPARATOR.compare(key, to) < 0;
+    }
+
+    static <V> NavigableMap<byte[], V> subMap(NavigableMap<byte[], V> map, byte[] from, byte[] to) {
+        NavigableMap<byte[], V> result = map;
+        if (from != null) {
+            result = result.tailMap(from, true);
+        }
+        if (to != null) {
+            result = result.headMap(to, false);
+        }
+        return result;
+    }
+}
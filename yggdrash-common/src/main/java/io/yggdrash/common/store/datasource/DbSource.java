@@ -18,6 +18,8 @@ package io.yggdrash.common.store.datasource;
 
 import org.iq80.leveldb.Options;
 
+import java.util.Map;
+
 public interface DbSource<K, V> {
     DbSource<K, V> init();
 
@@ -30,4 +32,35 @@ public interface DbSource<K, V> {
     void close();
 
     void delete(K key);
+
+    /**
+     * Writes all rows at once. A row with a null value is deleted.
+     *
+     * @param rows rows to write
+     */
+    void updateByBatch(Map<K, V> rows);
+
+    /**
+     * Iterates rows in key order. from is inclusive, to is exclusive and a null bound is open.
+     *
+     * @param from first key
+     * @param to end key
+     * @param reverse iterate from the last key to the first key
+     * @return iterator which must be closed
+     */
+    DbIterator<K, V> scan(K from, K to, boolean reverse);
+
+    /**
+     * Iterates rows whose key starts with the prefix in key order.
+     *
+     * @param prefix key prefix
+     * @return iterator which must be closed
+     */
+    DbIterator<K, V> prefix(K prefix);
+
+    /**
+     * Reclaims the space of the deleted and overwritten rows, e.g. after old rows were pruned.
+     * It may take long and is meant to run in background.
+     */
+    void compact();
 }
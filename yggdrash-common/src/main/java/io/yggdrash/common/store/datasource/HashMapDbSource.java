@@ -16,24 +16,29 @@
 
 package io.yggdrash.common.store.datasource;
 
+import io.yggdrash.common.exception.FailedOperationException;
+import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 import org.iq80.leveldb.Options;
 
+import java.util.AbstractMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 public class HashMapDbSource implements DbSource<byte[], byte[]> {
-    private Map<String, byte[]> db;
+    // Lower case hex keys keep the unsigned byte order of the origin keys
+    private NavigableMap<String, byte[]> db;
 
     @Override
     public DbSource<byte[], byte[]> init() {
-        db = new ConcurrentHashMap<>();
+        db = new ConcurrentSkipListMap<>();
         return this;
     }
 
     @Override
     public DbSource<byte[], byte[]> init(Options options) {
-        db = new ConcurrentHashMap<>();
+        db = new ConcurrentSkipListMap<>();
         return this;
     }
 
@@ -56,4 +61,51 @@ public class HashMapDbSource implements DbSource<byte[], byte[]> {
     public void delete(byte[] key) {
         db.remove(Hex.encodeHexString(key));
     }
+
+    @Override
+    public void compact() {
+        // nothing to reclaim, deleted rows are removed from the map
+    }
+
+    @Override
+    public void updateByBatch(Map<byte[], byte[]> rows) {
+        rows.forEach((key, value) -> {
+            if (value == null) {
+                delete(key);
+            } else {
+                put(key, value);
+            }
+        });
+    }
+
+    @Override
+    public DbIterator<byte[], byte[]> scan(byte[] from, byte[] to, boolean reverse) {
+        NavigableMap<String, byte[]> rows = db;
+        if (from != null) {
+            rows = rows.tailMap(Hex.encodeHexString(from), true);
+        }
+        if (to != null) {
+            rows = rows.headMap(Hex.encodeHexString(to), false);
+        }
+        if (reverse) {
+            rows = rows.descendingMap();
+        }
+        return DbIterators.of(rows.entrySet().stream()
+                .<Map.Entry<byte[], byte[]>>map(row ->
+                        new AbstractMap.SimpleImmutableEntry<>(decodeKey(row.getKey()), row.getValue()))
+                .iterator());
+    }
+
+    @Override
+    public DbIterator<byte[], byte[]> prefix(byte[] prefix) {
+        return scan(prefix, DbIterators.prefixEnd(prefix), false);
+    }
+
+    private byte[] decodeKey(String key) {
+        try {
+            return Hex.decodeHex(key);
+        } catch (DecoderException e) {
+            throw new FailedOperationException(e);
+        }
+    }
 }
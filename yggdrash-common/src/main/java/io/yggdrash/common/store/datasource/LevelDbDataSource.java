@@ -19,7 +19,10 @@ package io.yggdrash.common.store.datasource;
 import io.yggdrash.common.exception.FailedOperationException;
 import io.yggdrash.common.utils.FileUtil;
 import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
 import org.iq80.leveldb.WriteBatch;
 import org.iq80.leveldb.impl.Iq80DBFactory;
 import org.slf4j.Logger;
@@ -29,13 +32,20 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class LevelDbDataSource implements DbSource<byte[], byte[]> {
 
     private static final Logger log = LoggerFactory.getLogger(LevelDbDataSource.class);
+    // rows of a reverse scan held in memory at once
+    static final int REVERSE_CHUNK_SIZE = 1000;
 
     private final ReadWriteLock resetDbLock = new ReentrantReadWriteLock();
     private final String name;
@@ -118,7 +128,8 @@ public class LevelDbDataSource implements DbSource<byte[], byte[]> {
         }
     }
 
-    void updateByBatch(Map<byte[], byte[]> rows) {
+    @Override
+    public void updateByBatch(Map<byte[], byte[]> rows) {
         resetDbLock.readLock().lock();
         try (WriteBatch batch = db.createWriteBatch()) {
             rows.forEach((key, value) -> {
@@ -130,12 +141,32 @@ public class LevelDbDataSource implements DbSource<byte[], byte[]> {
             });
             db.write(batch);
         } catch (IOException e) {
-            log.debug(e.getMessage());
+            log.error("Failed to write batch on {}: {}", name, e.getMessage());
+            throw new FailedOperationException(e);
+        } finally {
+            resetDbLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * iq80 LevelDB can not iterate backwards, so a reverse scan reads its range forward in chunks
+     * from the last one. See ReverseLevelDbIterator.
+     */
+    @Override
+    public DbIterator<byte[], byte[]> scan(byte[] from, byte[] to, boolean reverse) {
+        resetDbLock.readLock().lock();
+        try {
+            return reverse ? new ReverseLevelDbIterator(from, to) : new LevelDbIterator(db.iterator(), from, to);
         } finally {
             resetDbLock.readLock().unlock();
         }
     }
 
+    @Override
+    public DbIterator<byte[], byte[]> prefix(byte[] prefix) {
+        return scan(prefix, DbIterators.prefixEnd(prefix), false);
+    }
+
     void reset() {
         close();
         FileUtil.recursiveDelete(getDbPath());
@@ -167,8 +198,119 @@ public class LevelDbDataSource implements DbSource<byte[], byte[]> {
         }
     }
 
+    /**
+     * iq80 LevelDB does not implement a manual range compaction. The deleted rows are reclaimed
+     * by its background compaction as the levels grow.
+     */
+    @Override
+    public void compact() {
+        log.debug("Compaction of {} is left to the background compaction", name);
+    }
+
     private boolean isAlive() {
         return alive;
     }
 
+
+    /**
+     * Walks the range forward once to keep the first key of every chunk, then reads the chunks
+     * from the last one. Only a chunk of rows and the first keys are held in memory, and every pass
+     * reads the same snapshot of the database.
+     */
+    private class ReverseLevelDbIterator implements DbIterator<byte[], byte[]> {
+        private final Snapshot snapshot;
+        private final ReadOptions readOptions;
+        private final List<byte[]> chunkStarts = new ArrayList<>();
+        private byte[] chunkEnd;
+        private Iterator<Map.Entry<byte[], byte[]>> chunk = Collections.emptyIterator();
+
+        ReverseLevelDbIterator(byte[] from, byte[] to) {
+            this.snapshot = db.getSnapshot();
+            this.readOptions = new ReadOptions().snapshot(snapshot);
+            this.chunkEnd = to;
+            try (DbIterator<byte[], byte[]> rows = new LevelDbIterator(db.iterator(readOptions), from, to)) {
+                for (int i = 0; rows.hasNext(); i++) {
+                    byte[] key = rows.next().getKey();
+                    if (i % REVERSE_CHUNK_SIZE == 0) {
+                        chunkStarts.add(key);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!chunk.hasNext() && !chunkStarts.isEmpty()) {
+                byte[] chunkStart = chunkStarts.remove(chunkStarts.size() - 1);
+                List<Map.Entry<byte[], byte[]>> rows = new ArrayList<>();
+                resetDbLock.readLock().lock();
+                try (DbIterator<byte[], byte[]> iterator =
+                             new LevelDbIterator(db.iterator(readOptions), chunkStart, chunkEnd)) {
+                    iterator.forEachRemaining(rows::add);
+                } finally {
+                    resetDbLock.readLock().unlock();
+                }
+                Collections.reverse(rows);
+                chunk = rows.iterator();
+                chunkEnd = chunkStart;
+            }
+            return chunk.hasNext();
+        }
+
+        @Override
+        public Map.Entry<byte[], byte[]> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.next();
+        }
+
+        @Override
+        public void close() {
+            chunkStarts.clear();
+            chunk = Collections.emptyIterator();
+            try {
+                snapshot.close();
+            } catch (IOException e) {
+                log.debug("Failed to release snapshot: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static class LevelDbIterator implements DbIterator<byte[], byte[]> {
+        private final DBIterator iterator;
+        private final byte[] to;
+
+        LevelDbIterator(DBIterator iterator, byte[] from, byte[] to) {
+            this.iterator = iterator;
+            this.to = to;
+            if (from == null) {
+                iterator.seekToFirst();
+            } else {
+                iterator.seek(from);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext() && DbIterators.isBefore(iterator.peekNext().getKey(), to);
+        }
+
+        @Override
+        public Map.Entry<byte[], byte[]> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return iterator.next();
+        }
+
+        @Override
+        public void close() {
+            try {
+                iterator.close();
+            } catch (IOException e) {
+                log.debug("Failed to close iterator: {}", e.getMessage());
+            }
+        }
+    }
 }
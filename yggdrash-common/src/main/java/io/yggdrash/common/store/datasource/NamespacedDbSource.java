@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.common.store.datasource;
+
+import io.yggdrash.common.exception.FailedOperationException;
+import org.iq80.leveldb.Options;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Key-prefix namespace of a SharedDbSource. Keys are stored as (prefix + key)
+ * and the prefix is removed from the keys it returns.
+ */
+class NamespacedDbSource implements DbSource<byte[], byte[]> {
+
+    private final SharedDbSource shared;
+    private final byte[] prefix;
+
+    NamespacedDbSource(SharedDbSource shared, byte[] prefix) {
+        this.shared = shared;
+        this.prefix = prefix;
+    }
+
+    /**
+     * The database is opened with the options of the shared database.
+     */
+    @Override
+    public DbSource<byte[], byte[]> init() {
+        shared.open(this);
+        return this;
+    }
+
+    /**
+     * A namespace can't have options of its own, they are set for the shared database as a whole.
+     */
+    @Override
+    public DbSource<byte[], byte[]> init(Options options) {
+        throw new FailedOperationException(
+                "Options of a namespace are not supported, they are set for the shared database");
+    }
+
+    @Override
+    public byte[] get(byte[] key) {
+        return db().get(toKey(key));
+    }
+
+    @Override
+    public void put(byte[] key, byte[] value) {
+        db().put(toKey(key), value);
+    }
+
+    @Override
+    public void delete(byte[] key) {
+        db().delete(toKey(key));
+    }
+
+    /**
+     * Every namespace shares the physical database, which is compacted as a whole.
+     */
+    @Override
+    public void compact() {
+        db().compact();
+    }
+
+    @Override
+    public void updateByBatch(Map<byte[], byte[]> rows) {
+        db().updateByBatch(toRows(rows));
+    }
+
+    @Override
+    public DbIterator<byte[], byte[]> scan(byte[] from, byte[] to, boolean reverse) {
+        byte[] start = from == null ? prefix : toKey(from);
+        byte[] end = to == null ? DbIterators.prefixEnd(prefix) : toKey(to);
+        DbIterator<byte[], byte[]> iterator = db().scan(start, end, reverse);
+        return new DbIterator<byte[], byte[]>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Map.Entry<byte[], byte[]> next() {
+                Map.Entry<byte[], byte[]> row = iterator.next();
+                byte[] key = Arrays.copyOfRange(row.getKey(), prefix.length, row.getKey().length);
+                return new AbstractMap.SimpleImmutableEntry<>(key, row.getValue());
+            }
+
+            @Override
+            public void close() {
+                iterator.close();
+            }
+        };
+    }
+
+    @Override
+    public DbIterator<byte[], byte[]> prefix(byte[] keyPrefix) {
+        return scan(keyPrefix, DbIterators.prefixEnd(keyPrefix), false);
+    }
+
+    @Override
+    public void close() {
+        shared.release(this);
+    }
+
+    SharedDbSource getShared() {
+        return shared;
+    }
+
+    Map<byte[], byte[]> toRows(Map<byte[], byte[]> rows) {
+        Map<byte[], byte[]> result = new HashMap<>();
+        rows.forEach((key, value) -> result.put(toKey(key), value));
+        return result;
+    }
+
+    private byte[] toKey(byte[] key) {
+        byte[] result = Arrays.copyOf(prefix, prefix.length + key.length);
+        System.arraycopy(key, 0, result, prefix.length, key.length);
+        return result;
+    }
+
+    private DbSource<byte[], byte[]> db() {
+        return shared.getPhysical();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.common.store.datasource;
+
+import io.yggdrash.common.utils.FileUtil;
+import org.iq80.leveldb.Options;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * One physical database shared by several stores, each store in its own key-prefix namespace.
+ * The database is opened with the shared options when the first namespace is initialized
+ * and closed when every namespace is closed.
+ */
+public class SharedDbSource {
+    private static final Logger log = LoggerFactory.getLogger(SharedDbSource.class);
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    private final DbSource<byte[], byte[]> physical;
+    private final Options options;
+    private final Set<NamespacedDbSource> opened = new HashSet<>();
+
+    public SharedDbSource(DbSource<byte[], byte[]> physical, Options options) {
+        this.physical = physical;
+        this.options = options;
+    }
+
+    /**
+     * Returns a store of the namespace. The name must be unique in this database.
+     *
+     * @param name namespace name
+     * @return store which prefixes every key with the namespace
+     */
+    public DbSource<byte[], byte[]> namespace(String name) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] prefix = new byte[nameBytes.length + 1];
+        prefix[0] = (byte) nameBytes.length;
+        System.arraycopy(nameBytes, 0, prefix, 1, nameBytes.length);
+        return new NamespacedDbSource(this, prefix);
+    }
+
+    /**
+     * Moves the rows of a store that used to be its own LevelDB into the namespace,
+     * then deletes the old database.
+     *
+     * @param namespace store of the namespace
+     * @param dbPath path of the old database
+     * @param name name of the old database
+     */
+    public void importLevelDb(DbSource<byte[], byte[]> namespace, String dbPath, String name) {
+        Path legacyPath = Paths.get(dbPath, name);
+        if (!legacyPath.toFile().isDirectory()) {
+            return;
+        }
+        LevelDbDataSource legacy = new LevelDbDataSource(dbPath, name);
+        legacy.init();
+        long count = copy(legacy, namespace::updateByBatch);
+        legacy.close();
+        FileUtil.recursiveDelete(legacyPath);
+        log.info("Imported {} rows of {} into the shared database", count, name);
+    }
+
+    /**
+     * Moves the rows of a namespace to a store outside of this database,
+     * e.g. when the store of the namespace is switched to another engine.
+     *
+     * @param name namespace name
+     * @param target store which takes the rows
+     */
+    public void exportNamespace(String name, DbSource<byte[], byte[]> target) {
+        DbSource<byte[], byte[]> namespace = namespace(name).init();
+        try {
+            long count = copy(namespace, rows -> {
+                target.updateByBatch(rows);
+                Map<byte[], byte[]> deletes = new HashMap<>();
+                rows.keySet().forEach(key -> deletes.put(key, null));
+                namespace.updateByBatch(deletes);
+            });
+            if (count > 0) {
+                log.info("Exported {} rows of {} from the shared database", count, name);
+            }
+        } finally {
+            namespace.close();
+        }
+    }
+
+    private static long copy(DbSource<byte[], byte[]> source, Consumer<Map<byte[], byte[]>> writer) {
+        long count = 0;
+        Map<byte[], byte[]> rows = new HashMap<>();
+        try (DbIterator<byte[], byte[]> iterator = source.scan(null, null, false)) {
+            while (iterator.hasNext()) {
+                Map.Entry<byte[], byte[]> row = iterator.next();
+                rows.put(row.getKey(), row.getValue());
+                if (rows.size() >= IMPORT_BATCH_SIZE) {
+                    count += rows.size();
+                    writer.accept(rows);
+                    rows = new HashMap<>();
+                }
+            }
+        }
+        if (!rows.isEmpty()) {
+            count += rows.size();
+            writer.accept(rows);
+        }
+        return count;
+    }
+
+    DbSource<byte[], byte[]> getPhysical() {
+        return physical;
+    }
+
+    synchronized void open(NamespacedDbSource namespace) {
+        if (opened.isEmpty()) {
+            physical.init(options);
+        }
+        opened.add(namespace);
+    }
+
+    synchronized void release(NamespacedDbSource namespace) {
+        if (opened.remove(namespace) && opened.isEmpty()) {
+            physical.close();
+        }
+    }
+}
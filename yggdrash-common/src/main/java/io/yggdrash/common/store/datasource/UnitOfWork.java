@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.common.store.datasource;
+
+import io.yggdrash.common.exception.FailedOperationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Groups the writes of several DbSources into a single commit.
+ * Between begin() and commit() every put/delete of the thread which began it is buffered,
+ * and commit() writes one batch per physical database in registration order.
+ * Writes of other threads go to the origin as they are, and the buffered rows are only visible to the owner.
+ * Namespaces of a SharedDbSource are committed atomically.
+ * In-memory changes which must follow the buffered writes are deferred with afterCommit().
+ */
+public class UnitOfWork {
+    private static final Logger log = LoggerFactory.getLogger(UnitOfWork.class);
+
+    private final List<BatchDbSource> sources = new CopyOnWriteArrayList<>();
+    private final List<Runnable> rollbackListeners = new CopyOnWriteArrayList<>();
+    // touched by the owner only
+    private final List<Runnable> commitActions = new ArrayList<>();
+    private volatile Thread owner;
+
+    /**
+     * Registers a source to this unit of work.
+     * Sources are flushed in the order they are registered.
+     *
+     * @param dbSource origin source
+     * @return source which must be used instead of the origin
+     */
+    public DbSource<byte[], byte[]> register(DbSource<byte[], byte[]> dbSource) {
+        BatchDbSource batchDbSource = new BatchDbSource(dbSource, this);
+        sources.add(batchDbSource);
+        return batchDbSource;
+    }
+
+    /**
+     * Registers an action run when the buffered writes are discarded,
+     * e.g. to drop caches holding values of the discarded writes.
+     */
+    public void onRollback(Runnable listener) {
+        rollbackListeners.add(listener);
+    }
+
+    /**
+     * Runs an action once the buffered writes are committed, or at once if no unit of work is active.
+     * The action is dropped if the writes are rolled back, e.g. to keep caches and counters of the stores
+     * in line with the database.
+     */
+    public void afterCommit(Runnable action) {
+        if (isActive()) {
+            commitActions.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Whether the writes of the current thread are buffered
+     */
+    public boolean isActive() {
+        return owner == Thread.currentThread();
+    }
+
+    public synchronized void begin() {
+        if (owner != null) {
+            throw new FailedOperationException("UnitOfWork is already started");
+        }
+        owner = Thread.currentThread();
+    }
+
+    public synchronized void commit() {
+        if (!isActive()) {
+            return;
+        }
+        List<Runnable> actions = new ArrayList<>(commitActions);
+        commitActions.clear();
+        try {
+            int rows = 0;
+            Map<DbSource<byte[], byte[]>, Map<byte[], byte[]>> batches = new LinkedHashMap<>();
+            for (BatchDbSource source : sources) {
+                rows += source.pendingSize();
+                source.collect(batches);
+            }
+            // Sources sharing a physical database are written with a single batch
+            batches.forEach(DbSource::updateByBatch);
+            sources.forEach(BatchDbSource::discard);
+            log.trace("commit databases={} rows={}", batches.size(), rows);
+        } catch (RuntimeException e) {
+            log.error("UnitOfWork commit failed. {}", e.getMessage());
+            sources.forEach(BatchDbSource::discard);
+            rollbackListeners.forEach(Runnable::run);
+            throw e;
+        } finally {
+            owner = null;
+        }
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                log.warn("UnitOfWork commit action failed. {}", e.getMessage());
+            }
+        }
+    }
+
+    public synchronized void rollback() {
+        if (!isActive()) {
+            return;
+        }
+        commitActions.clear();
+        sources.forEach(BatchDbSource::discard);
+        rollbackListeners.forEach(Runnable::run);
+        owner = null;
+    }
+}
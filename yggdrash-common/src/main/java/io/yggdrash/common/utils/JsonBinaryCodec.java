@@ -0,0 +1,224 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.common.utils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.internal.LazilyParsedNumber;
+import io.yggdrash.common.exception.FailedOperationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Versioned binary encoding of JsonElement.
+ * The first byte is the format version, which never collides with the '{' of a JSON text.
+ * Every element is a one byte tag followed by its payload, lengths and integers are varints.
+ */
+public final class JsonBinaryCodec {
+    public static final byte VERSION_1 = 0x01;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_TRUE = 1;
+    private static final byte TAG_FALSE = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_NUMBER = 4;
+    private static final byte TAG_STRING = 5;
+    private static final byte TAG_ARRAY = 6;
+    private static final byte TAG_OBJECT = 7;
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private JsonBinaryCodec() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length > 0 && data[0] == VERSION_1;
+    }
+
+    public static byte[] encode(JsonElement json) {
+        Output out = new Output();
+        out.write(VERSION_1);
+        writeElement(out, json);
+        return out.toByteArray();
+    }
+
+    public static JsonElement decode(byte[] data) {
+        if (!isEncoded(data)) {
+            throw new FailedOperationException("Unknown binary json format");
+        }
+        Input in = new Input(data, 1);
+        return readElement(in);
+    }
+
+    private static void writeElement(Output out, JsonElement json) {
+        if (json == null || json.isJsonNull()) {
+            out.write(TAG_NULL);
+        } else if (json.isJsonObject()) {
+            out.write(TAG_OBJECT);
+            JsonObject object = json.getAsJsonObject();
+            out.writeVarLong(object.size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                out.writeString(entry.getKey());
+                writeElement(out, entry.getValue());
+            }
+        } else if (json.isJsonArray()) {
+            out.write(TAG_ARRAY);
+            JsonArray array = json.getAsJsonArray();
+            out.writeVarLong(array.size());
+            for (JsonElement element : array) {
+                writeElement(out, element);
+            }
+        } else {
+            writePrimitive(out, json.getAsJsonPrimitive());
+        }
+    }
+
+    private static void writePrimitive(Output out, JsonPrimitive primitive) {
+        if (primitive.isBoolean()) {
+            out.write(primitive.getAsBoolean() ? TAG_TRUE : TAG_FALSE);
+        } else if (primitive.isNumber()) {
+            String text = primitive.getAsString();
+            if (isLong(text)) {
+                out.write(TAG_LONG);
+                long value = Long.parseLong(text);
+                out.writeVarLong((value << 1) ^ (value >> 63));
+            } else {
+                // keeps the exact text of decimals and big numbers
+                out.write(TAG_NUMBER);
+                out.writeString(text);
+            }
+        } else {
+            out.write(TAG_STRING);
+            out.writeString(primitive.getAsString());
+        }
+    }
+
+    private static boolean isLong(String text) {
+        int start = text.startsWith("-") ? 1 : 0;
+        int length = text.length() - start;
+        if (length == 0 || length > MAX_LONG_DIGITS || (text.charAt(start) == '0' && length > 1)) {
+            return false;
+        }
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return !"-0".equals(text);
+    }
+
+    private static JsonElement readElement(Input in) {
+        byte tag = in.read();
+        switch (tag) {
+            case TAG_NULL:
+                return JsonNull.INSTANCE;
+            case TAG_TRUE:
+                return new JsonPrimitive(true);
+            case TAG_FALSE:
+                return new JsonPrimitive(false);
+            case TAG_LONG:
+                long zigzag = in.readVarLong();
+                return new JsonPrimitive((zigzag >>> 1) ^ -(zigzag & 1));
+            case TAG_NUMBER:
+                return new JsonPrimitive(new LazilyParsedNumber(in.readString()));
+            case TAG_STRING:
+                return new JsonPrimitive(in.readString());
+            case TAG_ARRAY:
+                JsonArray array = new JsonArray();
+                for (long i = in.readVarLong(); i > 0; i--) {
+                    array.add(readElement(in));
+                }
+                return array;
+            case TAG_OBJECT:
+                JsonObject object = new JsonObject();
+                for (long i = in.readVarLong(); i > 0; i--) {
+                    String key = in.readString();
+                    object.add(key, readElement(in));
+                }
+                return object;
+            default:
+                throw new FailedOperationException("Unknown binary json tag " + tag);
+        }
+    }
+
+    private static class Output extends ByteArrayOutputStream {
+
+        Output() {
+            super(64);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        byte read() {
+            if (position >= data.length) {
+                throw new FailedOperationException("Unexpected end of binary json");
+            }
+            return data[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                byte b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new FailedOperationException("Malformed varint in binary json");
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > data.length) {
+                throw new FailedOperationException("Unexpected end of binary json");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
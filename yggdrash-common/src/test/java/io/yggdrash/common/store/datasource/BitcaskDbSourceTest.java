@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.common.store.datasource;
+
+import io.yggdrash.common.utils.FileUtil;
+import org.assertj.core.api.Assertions;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BitcaskDbSourceTest {
+    private static final String dbPath = "testOutput";
+
+    @AfterClass
+    public static void destroy() {
+        FileUtil.recursiveDelete(Paths.get(dbPath));
+    }
+
+    @Test
+    public void shouldReadAfterReopen() {
+        // small segments to seal some of them with hint files
+        BitcaskDbSource ds = new BitcaskDbSource(dbPath, "reopen-test", 256);
+        ds.init();
+        for (int i = 0; i < 100; i++) {
+            ds.put(key(i), value(i));
+        }
+        ds.delete(key(10));
+        ds.put(key(20), value(200));
+        ds.close();
+
+        ds.init();
+        Assertions.assertThat(ds.get(key(0))).isEqualTo(value(0));
+        Assertions.assertThat(ds.get(key(99))).isEqualTo(value(99));
+        Assertions.assertThat(ds.get(key(10))).isNull();
+        Assertions.assertThat(ds.get(key(20))).isEqualTo(value(200));
+        ds.close();
+    }
+
+    @Test
+    public void shouldTruncateTornRecord() throws IOException {
+        BitcaskDbSource ds = new BitcaskDbSource(dbPath, "torn-test");
+        ds.init();
+        ds.put(key(1), value(1));
+        ds.put(key(2), value(2));
+        ds.close();
+
+        // drop the hint file and cut the last record as if the process died while writing it
+        FileUtil.recursiveDelete(Paths.get(dbPath, "torn-test", "00000000.hint"));
+        try (FileChannel channel = FileChannel.open(Paths.get(dbPath, "torn-test", "00000000.data"),
+                StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        ds.init();
+        Assertions.assertThat(ds.get(key(1))).isEqualTo(value(1));
+        Assertions.assertThat(ds.get(key(2))).isNull();
+        ds.put(key(3), value(3));
+        Assertions.assertThat(ds.get(key(3))).isEqualTo(value(3));
+        ds.close();
+    }
+
+    @Test
+    public void shouldScanInKeyOrder() {
+        BitcaskDbSource ds = new BitcaskDbSource(dbPath, "scan-test");
+        ds.init();
+        Map<byte[], byte[]> rows = new HashMap<>();
+        rows.put("b".getBytes(), new byte[] {2});
+        rows.put("a".getBytes(), new byte[] {1});
+        rows.put("c".getBytes(), new byte[] {3});
+        ds.updateByBatch(rows);
+
+        List<String> keys = new ArrayList<>();
+        try (DbIterator<byte[], byte[]> iterator = ds.scan("b".getBytes(), null, true)) {
+            iterator.forEachRemaining(row -> keys.add(new String(row.getKey())));
+        }
+        Assertions.assertThat(keys).containsExactly("c", "b");
+        ds.close();
+    }
+
+    @Test
+    public void shouldSkipKeysDeletedWhileScanning() {
+        BitcaskDbSource ds = new BitcaskDbSource(dbPath, "scan-delete-test");
+        ds.init();
+        for (int i = 0; i < 3; i++) {
+            ds.put(key(i), value(i));
+        }
+
+        List<String> values = new ArrayList<>();
+        try (DbIterator<byte[], byte[]> iterator = ds.scan(null, null, false)) {
+            ds.delete(key(0));
+            iterator.forEachRemaining(row -> values.add(new String(row.getValue())));
+        }
+        Assertions.assertThat(values).containsExactly("value1", "value2");
+        ds.close();
+    }
+
+    @Test
+    public void shouldKeepLiveValuesAfterCompaction() {
+        BitcaskDbSource ds = new BitcaskDbSource(dbPath, "compact-test", 256);
+        ds.init();
+        for (int i = 0; i < 100; i++) {
+            ds.put(key(i), value(i));
+        }
+        for (int i = 0; i < 90; i++) {
+            ds.delete(key(i));
+        }
+        ds.put(key(95), value(950));
+        long before = dataSize("compact-test");
+
+        ds.compact();
+        Assertions.assertThat(dataSize("compact-test")).isLessThan(before);
+        Assertions.assertThat(ds.get(key(10))).isNull();
+        Assertions.assertThat(ds.get(key(90))).isEqualTo(value(90));
+        Assertions.assertThat(ds.get(key(95))).isEqualTo(value(950));
+        ds.close();
+
+        // deleted keys stay deleted after reopen, the segments with their values are gone
+        ds.init();
+        Assertions.assertThat(ds.get(key(10))).isNull();
+        Assertions.assertThat(ds.get(key(95))).isEqualTo(value(950));
+        List<String> keys = new ArrayList<>();
+        try (DbIterator<byte[], byte[]> iterator = ds.scan(null, null, false)) {
+            iterator.forEachRemaining(row -> keys.add(new String(row.getKey())));
+        }
+        Assertions.assertThat(keys).hasSize(10);
+        ds.close();
+    }
+
+    private static long dataSize(String name) {
+        File[] files = Paths.get(dbPath, name).toFile().listFiles((dir, fileName) -> fileName.endsWith(".data"));
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    private static byte[] key(int i) {
+        return ("key" + i).getBytes();
+    }
+
+    private static byte[] value(int i) {
+        return ("value" + i).getBytes();
+    }
+}
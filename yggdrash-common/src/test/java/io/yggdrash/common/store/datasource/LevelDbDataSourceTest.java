@@ -16,13 +16,16 @@
 
 package io.yggdrash.common.store.datasource;
 
+import com.google.common.primitives.Ints;
 import io.yggdrash.common.utils.FileUtil;
 import org.assertj.core.api.Assertions;
 import org.junit.AfterClass;
 import org.junit.Test;
 
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -79,6 +82,62 @@ public class LevelDbDataSourceTest {
         Assertions.assertThat(foundValue).isEqualTo(value);
     }
 
+    @Test
+    public void shouldScanInKeyOrder() {
+        LevelDbDataSource ds = new LevelDbDataSource(dbPath, "scan-test");
+        ds.init();
+        for (byte i = 5; i > 0; i--) {
+            ds.put(new byte[] {i}, new byte[] {i});
+        }
+
+        Assertions.assertThat(scanKeys(ds.scan(new byte[] {2}, new byte[] {5}, false)))
+                .containsExactly((byte) 2, (byte) 3, (byte) 4);
+        Assertions.assertThat(scanKeys(ds.scan(null, new byte[] {3}, true)))
+                .containsExactly((byte) 2, (byte) 1);
+    }
+
+    @Test
+    public void shouldScanBackwardsInChunks() {
+        LevelDbDataSource ds = new LevelDbDataSource(dbPath, "reverse-test");
+        ds.init();
+        int count = LevelDbDataSource.REVERSE_CHUNK_SIZE * 2 + 10;
+        Map<byte[], byte[]> rows = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            rows.put(Ints.toByteArray(i), Ints.toByteArray(i));
+        }
+        ds.updateByBatch(rows);
+
+        List<Integer> keys = new ArrayList<>();
+        try (DbIterator<byte[], byte[]> iterator = ds.scan(Ints.toByteArray(5), null, true)) {
+            // rows written after the scan started are not seen
+            ds.put(Ints.toByteArray(count), Ints.toByteArray(count));
+            iterator.forEachRemaining(row -> keys.add(Ints.fromByteArray(row.getKey())));
+        }
+        Assertions.assertThat(keys).hasSize(count - 5);
+        Assertions.assertThat(keys.get(0)).isEqualTo(count - 1);
+        Assertions.assertThat(keys.get(keys.size() - 1)).isEqualTo(5);
+        Assertions.assertThat(keys).isSortedAccordingTo((a, b) -> Integer.compare(b, a));
+    }
+
+    @Test
+    public void shouldScanPrefix() {
+        LevelDbDataSource ds = new LevelDbDataSource(dbPath, "prefix-test");
+        ds.init();
+        ds.put("a/1".getBytes(), randomBytes(8));
+        ds.put("a/2".getBytes(), randomBytes(8));
+        ds.put("b/1".getBytes(), randomBytes(8));
+
+        Assertions.assertThat(scanKeys(ds.prefix("a/".getBytes()))).hasSize(2);
+    }
+
+    private List<Byte> scanKeys(DbIterator<byte[], byte[]> iterator) {
+        List<Byte> keys = new ArrayList<>();
+        try (DbIterator<byte[], byte[]> rows = iterator) {
+            rows.forEachRemaining(row -> keys.add(row.getKey()[0]));
+        }
+        return keys;
+    }
+
     private byte[] putDummyRow(LevelDbDataSource ds, byte[] key) {
         byte[] value = randomBytes(32);
         ds.put(key, value);
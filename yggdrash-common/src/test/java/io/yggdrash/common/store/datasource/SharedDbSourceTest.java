@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.common.store.datasource;
+
+import io.yggdrash.common.exception.FailedOperationException;
+import org.assertj.core.api.Assertions;
+import org.iq80.leveldb.Options;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SharedDbSourceTest {
+    private static final byte[] KEY = "key".getBytes();
+
+    private DbSource<byte[], byte[]> physical;
+    private DbSource<byte[], byte[]> blocks;
+    private DbSource<byte[], byte[]> state;
+
+    @Before
+    public void setUp() {
+        physical = new HashMapDbSource();
+        SharedDbSource shared = new SharedDbSource(physical, new Options());
+        blocks = shared.namespace("blocks").init();
+        state = shared.namespace("state").init();
+    }
+
+    @Test
+    public void namespacesShouldNotShareKeys() {
+        blocks.put(KEY, "block".getBytes());
+        state.put(KEY, "state".getBytes());
+
+        Assertions.assertThat(blocks.get(KEY)).isEqualTo("block".getBytes());
+        Assertions.assertThat(state.get(KEY)).isEqualTo("state".getBytes());
+
+        state.delete(KEY);
+        Assertions.assertThat(state.get(KEY)).isNull();
+        Assertions.assertThat(blocks.get(KEY)).isEqualTo("block".getBytes());
+    }
+
+    @Test(expected = FailedOperationException.class)
+    public void shouldRejectOptionsOfNamespace() {
+        new SharedDbSource(physical, new Options()).namespace("receipt").init(new Options());
+    }
+
+    @Test
+    public void shouldScanOnlyTheNamespace() {
+        blocks.put("a".getBytes(), new byte[] {1});
+        blocks.put("b".getBytes(), new byte[] {2});
+        state.put("a".getBytes(), new byte[] {3});
+
+        List<String> keys = new ArrayList<>();
+        try (DbIterator<byte[], byte[]> iterator = blocks.scan(null, null, true)) {
+            iterator.forEachRemaining(row -> keys.add(new String(row.getKey())));
+        }
+        Assertions.assertThat(keys).containsExactly("b", "a");
+    }
+
+    @Test
+    public void unitOfWorkShouldWriteNamespacesAtOnce() {
+        UnitOfWork unitOfWork = new UnitOfWork();
+        DbSource<byte[], byte[]> batchBlocks = unitOfWork.register(blocks);
+        DbSource<byte[], byte[]> batchState = unitOfWork.register(state);
+
+        unitOfWork.begin();
+        batchBlocks.put(KEY, "block".getBytes());
+        batchState.put(KEY, "state".getBytes());
+        Assertions.assertThat(blocks.get(KEY)).isNull();
+
+        unitOfWork.commit();
+        Assertions.assertThat(blocks.get(KEY)).isEqualTo("block".getBytes());
+        Assertions.assertThat(state.get(KEY)).isEqualTo("state".getBytes());
+        try (DbIterator<byte[], byte[]> iterator = physical.scan(null, null, false)) {
+            int rows = 0;
+            while (iterator.hasNext()) {
+                iterator.next();
+                rows++;
+            }
+            Assertions.assertThat(rows).isEqualTo(2);
+        }
+    }
+}
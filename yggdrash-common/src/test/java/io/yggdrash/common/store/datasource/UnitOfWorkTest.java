@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.common.store.datasource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class UnitOfWorkTest {
+    private static final byte[] KEY = "key".getBytes();
+    private static final byte[] VALUE = "value".getBytes();
+
+    private UnitOfWork unitOfWork;
+    private DbSource<byte[], byte[]> origin;
+    private DbSource<byte[], byte[]> ds;
+
+    @Before
+    public void setUp() {
+        unitOfWork = new UnitOfWork();
+        origin = new HashMapDbSource().init();
+        ds = unitOfWork.register(origin).init();
+    }
+
+    @Test
+    public void shouldWriteThroughWhenNotStarted() {
+        ds.put(KEY, VALUE);
+        Assertions.assertThat(origin.get(KEY)).isEqualTo(VALUE);
+    }
+
+    @Test
+    public void shouldBeFlushedOnCommit() {
+        unitOfWork.begin();
+        ds.put(KEY, VALUE);
+
+        Assertions.assertThat(ds.get(KEY)).isEqualTo(VALUE);
+        Assertions.assertThat(origin.get(KEY)).isNull();
+
+        unitOfWork.commit();
+        Assertions.assertThat(origin.get(KEY)).isEqualTo(VALUE);
+        Assertions.assertThat(unitOfWork.isActive()).isFalse();
+    }
+
+    @Test
+    public void shouldBeDiscardedOnRollback() {
+        origin.put(KEY, VALUE);
+        unitOfWork.begin();
+        ds.delete(KEY);
+        Assertions.assertThat(ds.get(KEY)).isNull();
+
+        unitOfWork.rollback();
+        Assertions.assertThat(ds.get(KEY)).isEqualTo(VALUE);
+    }
+
+    @Test
+    public void shouldRunActionsOnlyAfterCommit() {
+        List<String> actions = new ArrayList<>();
+        unitOfWork.begin();
+        unitOfWork.afterCommit(() -> actions.add("rolledBack"));
+        unitOfWork.rollback();
+
+        unitOfWork.begin();
+        unitOfWork.afterCommit(() -> actions.add("committed"));
+        Assertions.assertThat(actions).isEmpty();
+        unitOfWork.commit();
+        unitOfWork.afterCommit(() -> actions.add("direct"));
+
+        Assertions.assertThat(actions).containsExactly("committed", "direct");
+    }
+
+    @Test
+    public void shouldNotBufferWritesOfOtherThreads() throws InterruptedException {
+        byte[] otherKey = "other".getBytes();
+        unitOfWork.begin();
+        ds.put(KEY, VALUE);
+
+        AtomicReference<byte[]> read = new AtomicReference<>(VALUE);
+        Thread other = new Thread(() -> {
+            ds.put(otherKey, VALUE);
+            read.set(ds.get(KEY));
+        });
+        other.start();
+        other.join();
+        // rows buffered by the owner are not visible to other threads
+        Assertions.assertThat(read.get()).isNull();
+        Assertions.assertThat(origin.get(otherKey)).isEqualTo(VALUE);
+
+        unitOfWork.rollback();
+        Assertions.assertThat(ds.get(KEY)).isNull();
+        Assertions.assertThat(ds.get(otherKey)).isEqualTo(VALUE);
+    }
+
+    @Test
+    public void shouldMergePendingRowsInScanOrder() {
+        origin.put(new byte[] {1}, VALUE);
+        origin.put(new byte[] {3}, VALUE);
+        origin.put(new byte[] {5}, VALUE);
+        unitOfWork.begin();
+        ds.put(new byte[] {2}, VALUE);
+        ds.delete(new byte[] {3});
+        ds.put(new byte[] {(byte) 0x80}, VALUE);
+
+        Assertions.assertThat(scanKeys(ds.scan(null, null, false))).containsExactly(1, 2, 5, 0x80);
+        Assertions.assertThat(scanKeys(ds.scan(new byte[] {2}, null, true))).containsExactly(0x80, 5, 2);
+        unitOfWork.rollback();
+    }
+
+    private static List<Integer> scanKeys(DbIterator<byte[], byte[]> iterator) {
+        List<Integer> keys = new ArrayList<>();
+        try (DbIterator<byte[], byte[]> rows = iterator) {
+            rows.forEachRemaining(row -> keys.add(row.getKey()[0] & 0xff));
+        }
+        return keys;
+    }
+}
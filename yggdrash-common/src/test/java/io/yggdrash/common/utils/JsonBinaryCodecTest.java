@@ -0,0 +1,28 @@
+package io.yggdrash.common.utils;
+
+import com.google.gson.JsonObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JsonBinaryCodecTest {
+
+    @Test
+    public void encodeAndDecode() {
+        JsonObject json = JsonUtil.parseJsonObject("{\"balance\":\"1000000000000000000000\",\"nonce\":-7,"
+                + "\"big\":123456789012345678901234567890,\"rate\":0.25,\"active\":true,\"memo\":null,"
+                + "\"list\":[1,\"트랜잭션\",{\"a\":[]}]}");
+
+        byte[] data = JsonBinaryCodec.encode(json);
+        Assert.assertTrue(JsonBinaryCodec.isEncoded(data));
+        Assert.assertTrue(data.length < SerializationUtil.serializeJson(json).length);
+
+        JsonObject decoded = JsonBinaryCodec.decode(data).getAsJsonObject();
+        Assert.assertEquals(json, decoded);
+        Assert.assertEquals(json.toString(), decoded.toString());
+    }
+
+    @Test
+    public void jsonTextIsNotEncoded() {
+        Assert.assertFalse(JsonBinaryCodec.isEncoded(SerializationUtil.serializeJson(new JsonObject())));
+    }
+}
@@ -74,11 +74,19 @@ public class ReceiptImpl implements Receipt {
         this.blockId = blockId;
     }
 
+    public void setBlockSize(Long blockSize) {
+        this.blockSize = blockSize;
+    }
+
     @Override
     public void setBlockHeight(Long blockHeight) {
         this.blockHeight = blockHeight;
     }
 
+    public void setTxSize(Long txSize) {
+        this.txSize = txSize;
+    }
+
     @Override
     public void setTxId(String txId) {
         this.txId = txId;
@@ -1,5 +1,25 @@
 package io.yggdrash.contract.core.store;
 
+import java.util.Map;
+
 public interface ReadStore<K, V> {
     V get(K key);
+
+    /**
+     * Returns entries in key order. from is inclusive, to is exclusive and a null bound is open.
+     *
+     * @param from first key
+     * @param to end key
+     * @param reverse order from the last key to the first key
+     * @return ordered entries
+     */
+    Map<K, V> scan(K from, K to, boolean reverse);
+
+    /**
+     * Returns entries whose key starts with the prefix in key order.
+     *
+     * @param prefix key prefix
+     * @return ordered entries
+     */
+    Map<K, V> prefix(K prefix);
 }
@@ -9,16 +9,39 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 
+import static io.yggdrash.common.config.Constants.NODE_SYNC_VERIFY_THREADS;
+import static io.yggdrash.common.config.Constants.NODE_TX_INGEST_CAPACITY;
+import static io.yggdrash.common.config.Constants.NODE_TX_INGEST_VERIFY_THREADS;
 import static io.yggdrash.common.config.Constants.VALIDATOR_DATABASE_PATH;
 import static io.yggdrash.common.config.Constants.VALIDATOR_PATH;
 import static io.yggdrash.common.config.Constants.YGGDRASH_ADMIN_PATH;
 import static io.yggdrash.common.config.Constants.YGGDRASH_BRANCH_PATH;
 import static io.yggdrash.common.config.Constants.YGGDRASH_CONTRACT_PATH;
 import static io.yggdrash.common.config.Constants.YGGDRASH_CONTRACT_URL;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_ADDRESS_INDEX;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_APPEND_ONLY;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_BLOCK_CACHE_BRANCH;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_BLOCK_CACHE_SIZE;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_BLOCK_FILE_SEGMENT_SIZE;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_CACHE_SIZE;
 import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_PATH;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_PRUNING;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_PRUNING_BATCH_SIZE;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_PRUNING_BRANCH;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_PRUNING_INTERVAL;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_SNAPSHOT_IMPORT;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_SNAPSHOT_PATH;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_STATE_CACHE_SIZE;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_STATE_HISTORY_RETENTION;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_TX_POOL_SIZE;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_TX_REFERENCES;
+import static io.yggdrash.common.config.Constants.YGGDRASH_DATABASE_WRITE_BUFFER_SIZE;
 import static io.yggdrash.common.config.Constants.YGGDRASH_KEY_PASSWORD;
 import static io.yggdrash.common.config.Constants.YGGDRASH_KEY_PATH;
 import static io.yggdrash.common.config.Constants.YGGDRASH_NETWORK_ID;
@@ -147,6 +170,139 @@ public class DefaultConfig {
         }
     }
 
+    public long getBlockCacheSize(String branchId) {
+        String branchPath = YGGDRASH_DATABASE_BLOCK_CACHE_BRANCH + "." + branchId;
+        if (config.hasPath(branchPath)) {
+            return config.getBytes(branchPath);
+        } else if (config.hasPath(YGGDRASH_DATABASE_BLOCK_CACHE_SIZE)) {
+            return config.getBytes(YGGDRASH_DATABASE_BLOCK_CACHE_SIZE);
+        }
+        return 0L;
+    }
+
+    public long getStateCacheSize() {
+        return config.getBytes(YGGDRASH_DATABASE_STATE_CACHE_SIZE);
+    }
+
+    public long getDatabaseCacheSize() {
+        return config.getBytes(YGGDRASH_DATABASE_CACHE_SIZE);
+    }
+
+    public long getDatabaseWriteBufferSize() {
+        return config.getBytes(YGGDRASH_DATABASE_WRITE_BUFFER_SIZE);
+    }
+
+    public long getBlockFileSegmentSize() {
+        if (config.hasPath(YGGDRASH_DATABASE_BLOCK_FILE_SEGMENT_SIZE)) {
+            return config.getBytes(YGGDRASH_DATABASE_BLOCK_FILE_SEGMENT_SIZE);
+        }
+        return 0L;
+    }
+
+    public boolean isAddressIndex() {
+        return config.hasPath(YGGDRASH_DATABASE_ADDRESS_INDEX) && config.getBoolean(YGGDRASH_DATABASE_ADDRESS_INDEX);
+    }
+
+    public long getStateHistoryRetention() {
+        if (config.hasPath(YGGDRASH_DATABASE_STATE_HISTORY_RETENTION)) {
+            return config.getLong(YGGDRASH_DATABASE_STATE_HISTORY_RETENTION);
+        }
+        return 0L;
+    }
+
+    public long getTxPoolSize() {
+        if (config.hasPath(YGGDRASH_DATABASE_TX_POOL_SIZE)) {
+            return config.getBytes(YGGDRASH_DATABASE_TX_POOL_SIZE);
+        }
+        return Constants.Limit.TX_POOL_SIZE;
+    }
+
+    /**
+     * Number of recent blocks of which the history is kept, the branch setting comes first (0 = all).
+     *
+     * @param branchId branch id
+     * @param kind receipts, logs or blockBodies
+     */
+    public long getPruningRetention(String branchId, String kind) {
+        String branchPath = YGGDRASH_DATABASE_PRUNING_BRANCH + "." + branchId + "." + kind;
+        if (config.hasPath(branchPath)) {
+            return config.getLong(branchPath);
+        } else if (config.hasPath(YGGDRASH_DATABASE_PRUNING + "." + kind)) {
+            return config.getLong(YGGDRASH_DATABASE_PRUNING + "." + kind);
+        }
+        return 0L;
+    }
+
+    public int getPruningBatchSize() {
+        if (config.hasPath(YGGDRASH_DATABASE_PRUNING_BATCH_SIZE)) {
+            return config.getInt(YGGDRASH_DATABASE_PRUNING_BATCH_SIZE);
+        }
+        return 100;
+    }
+
+    public long getPruningInterval() {
+        if (config.hasPath(YGGDRASH_DATABASE_PRUNING_INTERVAL)) {
+            return config.getDuration(YGGDRASH_DATABASE_PRUNING_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        return 1000L;
+    }
+
+    /**
+     * Directory of the state snapshots exported by the admin command.
+     */
+    public String getSnapshotPath() {
+        return config.getString(YGGDRASH_DATABASE_SNAPSHOT_PATH);
+    }
+
+    /**
+     * State snapshot file loaded into an empty branch when it is created, or null.
+     */
+    public String getSnapshotImport() {
+        if (config.hasPath(YGGDRASH_DATABASE_SNAPSHOT_IMPORT)
+                && !config.getString(YGGDRASH_DATABASE_SNAPSHOT_IMPORT).isEmpty()) {
+            return config.getString(YGGDRASH_DATABASE_SNAPSHOT_IMPORT);
+        }
+        return null;
+    }
+
+    /**
+     * Threads verifying the signatures of the received txs, 0 for the number of processors.
+     */
+    public int getTxIngestVerifyThreads() {
+        if (config.hasPath(NODE_TX_INGEST_VERIFY_THREADS)) {
+            return config.getInt(NODE_TX_INGEST_VERIFY_THREADS);
+        }
+        return 0;
+    }
+
+    public int getTxIngestCapacity() {
+        if (config.hasPath(NODE_TX_INGEST_CAPACITY)) {
+            return config.getInt(NODE_TX_INGEST_CAPACITY);
+        }
+        return 10000;
+    }
+
+    /**
+     * Threads verifying the signatures of the synced blocks, 0 for the number of processors.
+     */
+    public int getSyncVerifyThreads() {
+        if (config.hasPath(NODE_SYNC_VERIFY_THREADS)) {
+            return config.getInt(NODE_SYNC_VERIFY_THREADS);
+        }
+        return 0;
+    }
+
+    public boolean isTxReferences() {
+        return config.hasPath(YGGDRASH_DATABASE_TX_REFERENCES) && config.getBoolean(YGGDRASH_DATABASE_TX_REFERENCES);
+    }
+
+    public List<String> getAppendOnlyStores() {
+        if (config.hasPath(YGGDRASH_DATABASE_APPEND_ONLY)) {
+            return config.getStringList(YGGDRASH_DATABASE_APPEND_ONLY);
+        }
+        return Collections.emptyList();
+    }
+
     public String getContractPath() {
         return config.getString(YGGDRASH_CONTRACT_PATH);
     }
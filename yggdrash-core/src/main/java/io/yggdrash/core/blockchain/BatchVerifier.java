@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ * Licensed under the Apache License, Version 2.0 (the “License”);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an “AS IS” BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package io.yggdrash.core.blockchain;
+
+import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.util.VerifierUtils;
+import io.yggdrash.core.consensus.ConsensusBlock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Verifies the signatures of the blocks and their txs on a ForkJoin pool, so that the blocks received
+ * by the sync are not verified one signature after another by the thread adding them.
+ * The address of each tx is recovered as well, which is kept by the tx for the execution of the block.
+ * The result is given with the block to the blockchain, which does not verify the signatures again.
+ * The verifier is shared by its users and closed by its owner.
+ */
+public class BatchVerifier {
+    private static final Logger log = LoggerFactory.getLogger(BatchVerifier.class);
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param threads threads verifying the signatures, 0 for the number of processors
+     */
+    public BatchVerifier(int threads) {
+        this.pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    public Result verify(ConsensusBlock block) {
+        return verify(Collections.singletonList(block)).get(0);
+    }
+
+    /**
+     * Verifies every signature of the blocks at once.
+     *
+     * @return the result of each block in the order of the blocks
+     */
+    public List<Result> verify(List<? extends ConsensusBlock> blocks) {
+        return pool.submit(() -> blocks.parallelStream().map(this::verifyBlock).collect(Collectors.toList()))
+                .join();
+    }
+
+    public void close() {
+        pool.shutdown();
+    }
+
+    private Result verifyBlock(ConsensusBlock block) {
+        if (VerifierUtils.isGenesis(block.getHeader())) {
+            // Genesis block and its txs are not signed
+            return new Result(block.getIndex(), block.getHash(), true, Collections.emptyList());
+        }
+        boolean signature = verifySignature(block);
+        List<Transaction> txs = block.getBody().getTransactionList();
+        List<Sha3Hash> invalidTxs = txs.parallelStream()
+                .map(tx -> verifySignature(tx) ? null : tx.getHash())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new Result(block.getIndex(), block.getHash(), signature, invalidTxs);
+    }
+
+    private static boolean verifySignature(Block block) {
+        try {
+            return VerifierUtils.verifySignature(block);
+        } catch (RuntimeException e) {
+            log.debug("Invalid block signature. {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean verifySignature(Transaction tx) {
+        try {
+            if (!VerifierUtils.verifySignature(tx)) {
+                return false;
+            }
+            tx.getAddress();
+            return true;
+        } catch (RuntimeException e) {
+            log.debug("Invalid tx signature. {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Signature verification of a block and its txs
+     */
+    public static class Result {
+        private final long index;
+        private final Sha3Hash hash;
+        private final boolean blockSignature;
+        private final List<Sha3Hash> invalidTxs;
+
+        Result(long index, Sha3Hash hash, boolean blockSignature, List<Sha3Hash> invalidTxs) {
+            this.index = index;
+            this.hash = hash;
+            this.blockSignature = blockSignature;
+            this.invalidTxs = invalidTxs;
+        }
+
+        public long getIndex() {
+            return index;
+        }
+
+        public Sha3Hash getHash() {
+            return hash;
+        }
+
+        public boolean isBlockSignatureValid() {
+            return blockSignature;
+        }
+
+        /**
+         * Hashes of the txs with an invalid signature
+         */
+        public List<Sha3Hash> getInvalidTxs() {
+            return invalidTxs;
+        }
+
+        public boolean isValid() {
+            return blockSignature && invalidTxs.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Result{index=" + index + ", hash=" + hash + ", blockSignature=" + blockSignature
+                    + ", invalidTxs=" + invalidTxs + "}";
+        }
+    }
+}
@@ -32,8 +32,19 @@ public interface BlockChain<T, V> extends ConsensusBlockChain<T, V> {
 
     Map<String, List<String>> addBlock(ConsensusBlock<T> block, boolean broadcast); // return errorLogs
 
+    /**
+     * Adds a block whose signatures are verified beforehand, as told by the result of the verification.
+     */
+    Map<String, List<String>> addBlock(ConsensusBlock<T> block, boolean broadcast,
+                                       BatchVerifier.Result signatures); // return errorLogs
+
     Map<String, List<String>> addTransaction(Transaction tx); // return errorLogs
 
+    /**
+     * Adds a tx whose duplication, timestamp, format and signature are already verified.
+     */
+    Map<String, List<String>> addVerifiedTransaction(Transaction tx); // return errorLogs
+
     ContractManager getContractManager();
 
     List<BranchContract> getBranchContracts();
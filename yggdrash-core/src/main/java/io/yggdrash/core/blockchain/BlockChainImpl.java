@@ -5,6 +5,7 @@ import io.yggdrash.common.contract.BranchContract;
 import io.yggdrash.common.contract.ContractVersion;
 import io.yggdrash.common.contract.vo.dpoa.ValidatorSet;
 import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.common.store.datasource.UnitOfWork;
 import io.yggdrash.common.util.VerifierUtils;
 import io.yggdrash.contract.core.ContractEvent;
 import io.yggdrash.contract.core.ExecuteStatus;
@@ -129,31 +130,48 @@ public class BlockChainImpl<T, V> implements BlockChain<T, V> {
 
     @Override
     public Map<String, List<String>> addBlock(ConsensusBlock<T> nextBlock, boolean broadcast) {
+        return addBlock(nextBlock, broadcast, null);
+    }
+
+    @Override
+    public Map<String, List<String>> addBlock(ConsensusBlock<T> nextBlock, boolean broadcast,
+                                              BatchVerifier.Result signatures) {
         try {
             lock.lock();
 
-            int verificationCode = blockChainManager.verify(nextBlock);
+            int verificationCode = blockChainManager.verify(nextBlock, signatures);
             if (verificationCode != BusinessError.VALID.toValue()) {
                 log.debug("Add Block failed. Index : {}, ErrorLogs : {}",
                         nextBlock.getIndex(), BusinessError.getErrorLogsMap(verificationCode).values());
                 return BusinessError.getErrorLogsMap(verificationCode);
             }
-            // Add best Block
-            branchStore.setBestBlock(nextBlock);
-
-            // Run Block Transactions
-            // TODO run block execute move to other process (or thread)
-            // TODO last execute block will invoke
-            if (nextBlock.getIndex() > branchStore.getLastExecuteBlockIndex()) {
-                BlockRuntimeResult result = contractManager.executeTxs(nextBlock); //TODO Exception
-                // Save Result
-                contractManager.commitBlockResult(result);
-                branchStore.setLastExecuteBlock(nextBlock);
-            }
+            // Every store mutation of the block is collected and flushed at once
+            UnitOfWork unitOfWork = blockChainManager.getUnitOfWork();
+            unitOfWork.begin();
+            try {
+                // Add best Block
+                branchStore.setBestBlock(nextBlock);
+
+                // Run Block Transactions
+                // TODO run block execute move to other process (or thread)
+                // TODO last execute block will invoke
+                BlockRuntimeResult result = null;
+                if (nextBlock.getIndex() > branchStore.getLastExecuteBlockIndex()) {
+                    result = contractManager.executeTxs(nextBlock); //TODO Exception
+                    // Save Result
+                    contractManager.commitBlockResult(result);
+                    branchStore.setLastExecuteBlock(nextBlock);
+                }
 
-            // BlockChainManager add nextBlock to the blockStore, set the lastConfirmedBlock to nextBlock,
-            // and then batch the transactions.
-            blockChainManager.addBlock(nextBlock);
+                // BlockChainManager batches the transactions and adds nextBlock to the blockStore. The txs to store
+                // are taken from the result in memory, and the lastConfirmedBlock is set once they are committed.
+                blockChainManager.addBlock(nextBlock, result);
+                unitOfWork.commit();
+            } catch (RuntimeException e) {
+                log.warn("Add Block failed. Index : {}, {}", nextBlock.getIndex(), e.getMessage());
+                unitOfWork.rollback();
+                throw e;
+            }
 
             // TODO Check this work well (Test required)
             BlockRuntimeResult endBlockResult = contractManager.endBlock(nextBlock);
@@ -205,22 +223,31 @@ public class BlockChainImpl<T, V> implements BlockChain<T, V> {
     public Map<String, List<String>> addTransaction(Transaction tx, boolean broadcast) {
         int verifyResult = blockChainManager.verify(tx);
         if (verifyResult == BusinessError.VALID.toValue()) {
-            TransactionRuntimeResult txResult = contractManager.executeTx(tx); //checkTx
-            if (txResult.getReceipt().getStatus() != ExecuteStatus.ERROR) {
-                blockChainManager.addTransaction(tx);
+            return checkTransaction(tx, broadcast);
+        } else {
+            return BusinessError.getErrorLogsMap(verifyResult);
+        }
+    }
 
-                if (!listenerList.isEmpty() && broadcast) {
-                    listenerList.forEach(listener -> listener.receivedTransaction(tx));
-                }
+    @Override
+    public Map<String, List<String>> addVerifiedTransaction(Transaction tx) {
+        return checkTransaction(tx, true);
+    }
 
-                return new HashMap<>();
-            } else {
-                Map<String, List<String>> applicationError = new HashMap<>();
-                applicationError.put("SystemError", txResult.getReceipt().getLog());
-                return applicationError;
+    private Map<String, List<String>> checkTransaction(Transaction tx, boolean broadcast) {
+        TransactionRuntimeResult txResult = contractManager.executeTx(tx); //checkTx
+        if (txResult.getReceipt().getStatus() != ExecuteStatus.ERROR) {
+            blockChainManager.addTransaction(tx);
+
+            if (!listenerList.isEmpty() && broadcast) {
+                listenerList.forEach(listener -> listener.receivedTransaction(tx));
             }
+
+            return new HashMap<>();
         } else {
-            return BusinessError.getErrorLogsMap(verifyResult);
+            Map<String, List<String>> applicationError = new HashMap<>();
+            applicationError.put("SystemError", txResult.getReceipt().getLog());
+            return applicationError;
         }
     }
 
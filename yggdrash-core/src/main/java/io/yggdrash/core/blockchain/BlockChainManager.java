@@ -12,9 +12,13 @@
 
 package io.yggdrash.core.blockchain;
 
+import com.google.common.cache.CacheStats;
 import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.store.datasource.UnitOfWork;
 import io.yggdrash.contract.core.Receipt;
 import io.yggdrash.core.consensus.ConsensusBlock;
+import io.yggdrash.core.runtime.result.BlockRuntimeResult;
+import io.yggdrash.core.store.TxPool;
 
 import java.util.Collection;
 import java.util.List;
@@ -27,10 +31,26 @@ public interface BlockChainManager<T> {
 
     int verify(ConsensusBlock<T> block);
 
+    /**
+     * Verifies the block with the signatures verified beforehand, which are not verified again.
+     *
+     * @param block block to verify
+     * @param signatures signatures of the block and its txs, or null to verify them here
+     */
+    int verify(ConsensusBlock<T> block, BatchVerifier.Result signatures);
+
     int verify(Transaction transaction);
 
     void addBlock(ConsensusBlock<T> nextBlock);
 
+    /**
+     * Stores the block with the txs which did not fail, as told by the execution result.
+     *
+     * @param nextBlock block to store
+     * @param result execution result of the block, or null if it was executed before
+     */
+    void addBlock(ConsensusBlock<T> nextBlock, BlockRuntimeResult result);
+
     void addTransaction(Transaction tx);
 
     void updateTxCache(Block block);
@@ -43,6 +63,14 @@ public interface BlockChainManager<T> {
 
     Transaction getTxByHash(Sha3Hash hash);
 
+    TxLocation getTxLocation(Sha3Hash hash);
+
+    Transaction getTxByIndex(long blockIndex, int txIndex);
+
+    Transaction getTxByBlockHash(Sha3Hash blockHash, int txIndex);
+
+    List<Sha3Hash> getTxHashesByAddress(String address, long fromBlock, int fromTxIndex, int limit);
+
     Collection<Transaction> getRecentTxs();
 
     List<Transaction> getUnconfirmedTxs();
@@ -59,6 +87,11 @@ public interface BlockChainManager<T> {
 
     long countOfBlocks();
 
+    /**
+     * Returns the highest height whose block keeps only its header and consensus proof, or -1.
+     */
+    long getPrunedBodyIndex();
+
     boolean containsBlockHash(Sha3Hash blockHash);
 
     boolean containsTxHash(Sha3Hash txHash);
@@ -67,5 +100,11 @@ public interface BlockChainManager<T> {
 
     boolean contains(Transaction transaction);
 
+    UnitOfWork getUnitOfWork();
+
+    CacheStats getBlockCacheStats();
+
+    TxPool.Stats getTxPoolStats();
+
     void close();
 }
@@ -12,18 +12,23 @@
 
 package io.yggdrash.core.blockchain;
 
+import com.google.common.cache.CacheStats;
 import io.yggdrash.common.Sha3Hash;
 import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.common.store.datasource.UnitOfWork;
 import io.yggdrash.common.util.VerifierUtils;
 import io.yggdrash.contract.core.ExecuteStatus;
 import io.yggdrash.contract.core.Receipt;
 import io.yggdrash.core.consensus.ConsensusBlock;
 import io.yggdrash.core.exception.errorcode.BusinessError;
+import io.yggdrash.core.runtime.result.BlockRuntimeResult;
 import io.yggdrash.core.store.BlockChainStore;
 import io.yggdrash.core.store.BranchStore;
 import io.yggdrash.core.store.ConsensusBlockStore;
 import io.yggdrash.core.store.ReceiptStore;
 import io.yggdrash.core.store.TransactionStore;
+import io.yggdrash.core.store.TxIndexStore;
+import io.yggdrash.core.store.TxPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +47,7 @@ public class BlockChainManagerImpl<T> implements BlockChainManager<T> {
     private final ConsensusBlockStore<T> blockStore;
     private final TransactionStore transactionStore;
     private final ReceiptStore receiptStore;
+    private final TxIndexStore txIndexStore;
     private final BlockChainStore blockChainStore;
     private final ReentrantLock lock = new ReentrantLock();
 
@@ -52,6 +58,7 @@ public class BlockChainManagerImpl<T> implements BlockChainManager<T> {
         this.blockStore = blockChainStore.getConsensusBlockStore();
         this.transactionStore = blockChainStore.getTransactionStore();
         this.receiptStore = blockChainStore.getReceiptStore();
+        this.txIndexStore = blockChainStore.getTxIndexStore();
         this.blockChainStore = blockChainStore;
     }
 
@@ -71,12 +78,15 @@ public class BlockChainManagerImpl<T> implements BlockChainManager<T> {
             // load recent 1000 block
             // Start Block and End Block
             long bestBlock = branchStore.getBestBlock();
+            indexTxLocations(bestBlock);
             long loadStart = bestBlock > 1000 ? bestBlock - 1000 : 0;
+            // A branch loaded from a state snapshot has no blocks below the snapshot block
+            loadStart = Math.max(loadStart, branchStore.getSnapshotBlockIndex());
             for (long i = loadStart; i <= bestBlock; i++) { // TODO Consider block verification (genesis, prevHash ...)
                 // Load recent block and update cache
                 ConsensusBlock<T> block = getBlockByIndex(i);
-                // TODO Node can be shutdown before blockStore.addBlock()
-                // addBlock(): branchStore.setBestBlock() -> executeTransactions() -> blockStore.addBlock()
+                // Node can be shutdown between the state flush and the block flush of the unit of work
+                // addBlock(): stores are flushed by build order and blockStore is the last one
                 if (block == null) {
                     long prevIdx = i - 1;
                     ConsensusBlock<T> curBestBlock = getBlockByIndex(prevIdx);
@@ -114,6 +124,11 @@ public class BlockChainManagerImpl<T> implements BlockChainManager<T> {
 
     @Override
     public int verify(ConsensusBlock<T> block) {
+        return verify(block, null);
+    }
+
+    @Override
+    public int verify(ConsensusBlock<T> block, BatchVerifier.Result signatures) {
         int check = BusinessError.VALID.toValue();
 
         //GenesisBlock skips the newBlock verification
@@ -122,7 +137,7 @@ public class BlockChainManagerImpl<T> implements BlockChainManager<T> {
                 return BusinessError.UNKNOWN_BLOCK_HEIGHT.toValue(); // Immediate return if invalid blockHeight
             }
 
-            check |= verifyNewBlock(block);
+            check |= verifyNewBlock(block, signatures);
         }
 
         check |= BusinessError.addCode(verifyDuplicated(block), BusinessError.DUPLICATED);
@@ -135,16 +150,28 @@ public class BlockChainManagerImpl<T> implements BlockChainManager<T> {
         return check;
     }
 
-    private int verifyNewBlock(ConsensusBlock<T> nextBlock) {
+    private int verifyNewBlock(ConsensusBlock<T> nextBlock, BatchVerifier.Result signatures) {
         int check = BusinessError.VALID.toValue();
 
         check |= BusinessError.addCode(verifyBlockHash(nextBlock), BusinessError.INVALID_BLOCK_HASH);
 
-        check |= BusinessError.addCode(VerifierUtils.verifySignature(nextBlock), BusinessError.UNTRUSTED);
+        // A block with a tx of an invalid signature is untrusted, whether it is synced or agreed by the consensus
+        boolean trusted = signatures != null && signatures.getHash().equals(nextBlock.getHash())
+                ? signatures.isValid() : verifySignatures(nextBlock);
+        check |= BusinessError.addCode(trusted, BusinessError.UNTRUSTED);
 
         return check;
     }
 
+    private boolean verifySignatures(ConsensusBlock<T> nextBlock) {
+        if (!VerifierUtils.verifySignature(nextBlock)) {
+            return false;
+        }
+        // The txs known by the node were verified when they were added
+        return nextBlock.getBody().getTransactionList().stream()
+                .allMatch(tx -> transactionStore.contains(tx.getHash()) || VerifierUtils.verifySignature(tx));
+    }
+
     private boolean verifyDuplicated(Transaction transaction) {
         return !transactionStore.contains(transaction.getHash());
     }
@@ -163,27 +190,76 @@ public class BlockChainManagerImpl<T> implements BlockChainManager<T> {
 
     @Override
     public void addBlock(ConsensusBlock<T> nextBlock) {
+        addBlock(nextBlock, null);
+    }
+
+    @Override
+    public void addBlock(ConsensusBlock<T> nextBlock, BlockRuntimeResult result) {
         try {
             lock.lock();
             // A block may contain txs not received by txApi and those txs also have to be stored in the storage
+            Set<String> txIds = result != null
+                    ? txIdsWithoutError(result.getReceipts()) : storedTxIdsWithoutError(nextBlock);
+            List<Transaction> blockTxs = new ArrayList<>();
             for (Transaction tx : nextBlock.getBody().getTransactionList()) {
-                if (receiptStore.contains(tx.getHash().toString())
-                        && receiptStore.get(tx.getHash().toString()).getStatus() != ExecuteStatus.ERROR) {
-                    addTransaction(tx);
+                if (txIds.contains(tx.getHash().toString())) {
+                    blockTxs.add(tx);
                 }
             }
 
+            txIndexStore.putBlock(nextBlock);
+            // Stored before the block, which refers to the stored txs by hash
+            batchTxs(nextBlock, blockTxs);
             // Store Block Index and Block Data
             this.blockStore.addBlock(nextBlock);
-            setLastConfirmedBlock(nextBlock);
-
-            batchTxs(nextBlock);
+            // The head moves once the block is stored, a rolled back block keeps the previous head
+            getUnitOfWork().afterCommit(() -> setLastConfirmedBlock(nextBlock));
         } finally {
             lock.unlock();
         }
     }
 
-    private void batchTxs(ConsensusBlock<T> block) {
+    /**
+     * Indexes the tx locations of the blocks committed before the index existed.
+     */
+    private void indexTxLocations(long bestBlock) {
+        long indexed = txIndexStore.getIndexedHeight();
+        if (indexed >= bestBlock) {
+            return;
+        }
+        log.info("Index tx locations of blocks {} to {}", indexed + 1, bestBlock);
+        for (long i = indexed + 1; i <= bestBlock; i++) {
+            ConsensusBlock<T> block = getBlockByIndex(i);
+            if (block == null) {
+                break;
+            }
+            txIndexStore.putBlock(block);
+        }
+    }
+
+    /**
+     * Reads the receipts of a block executed before, at once if they were stored with the block.
+     */
+    private Set<String> storedTxIdsWithoutError(ConsensusBlock<T> block) {
+        List<Receipt> receipts = receiptStore.getBlockReceipts(block.getIndex());
+        if (!receipts.isEmpty()) {
+            return txIdsWithoutError(receipts);
+        }
+        return block.getBody().getTransactionList().stream()
+                .map(tx -> tx.getHash().toString())
+                .filter(txId -> receiptStore.contains(txId)
+                        && receiptStore.get(txId).getStatus() != ExecuteStatus.ERROR)
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> txIdsWithoutError(List<Receipt> receipts) {
+        return receipts.stream()
+                .filter(receipt -> receipt.getTxId() != null && receipt.getStatus() != ExecuteStatus.ERROR)
+                .map(Receipt::getTxId)
+                .collect(Collectors.toSet());
+    }
+
+    private void batchTxs(ConsensusBlock<T> block, List<Transaction> blockTxs) {
         if (block == null || block.getBlock() == null || block.getBody().getTransactionList() == null) {
             return;
         }
@@ -191,7 +267,8 @@ public class BlockChainManagerImpl<T> implements BlockChainManager<T> {
         Set<Sha3Hash> keys = block.getBlock().getBody().getTransactionList().stream()
                 .map(Transaction::getHash).collect(Collectors.toSet());
 
-        transactionStore.batch(keys);
+        // the pending pool may have evicted them, they are stored by the block anyway
+        transactionStore.batch(keys, blockTxs);
     }
 
     @Override
@@ -248,6 +325,53 @@ public class BlockChainManagerImpl<T> implements BlockChainManager<T> {
         return transactionStore.get(hash);
     }
 
+    @Override
+    public TxLocation getTxLocation(Sha3Hash hash) {
+        return txIndexStore.get(hash);
+    }
+
+    /**
+     * Gets the transaction at the position of the block. The block is decoded only if the tx was not stored,
+     * e.g. a tx that failed.
+     */
+    @Override
+    public Transaction getTxByIndex(long blockIndex, int txIndex) {
+        Sha3Hash txHash = txIndexStore.getTxHash(blockIndex, txIndex);
+        Transaction tx = txHash == null ? null : transactionStore.get(txHash);
+        if (tx != null) {
+            return tx;
+        }
+        return getTxOfBlock(getBlockByIndex(blockIndex), txIndex);
+    }
+
+    /**
+     * Gets the transaction at the position of the block through the height of the block in the tx index.
+     * A block indexed before its hash was is decoded.
+     */
+    @Override
+    public Transaction getTxByBlockHash(Sha3Hash blockHash, int txIndex) {
+        long blockIndex = txIndexStore.getBlockIndex(blockHash);
+        if (blockIndex >= 0) {
+            return getTxByIndex(blockIndex, txIndex);
+        }
+        return getTxOfBlock(blockStore.contains(blockHash) ? getBlockByHash(blockHash) : null, txIndex);
+    }
+
+    private Transaction getTxOfBlock(ConsensusBlock<T> block, int txIndex) {
+        if (block == null || txIndex < 0 || txIndex >= block.getBody().getCount()) {
+            return null;
+        }
+        return block.getBody().getTransactionList().get(txIndex);
+    }
+
+    /**
+     * Gets the txs sent or received by the address. Empty unless the address index is enabled.
+     */
+    @Override
+    public List<Sha3Hash> getTxHashesByAddress(String address, long fromBlock, int fromTxIndex, int limit) {
+        return txIndexStore.getTxHashesByAddress(address, fromBlock, fromTxIndex, limit);
+    }
+
     @Override
     public Collection<Transaction> getRecentTxs() {
         return transactionStore.getRecentTxs();
@@ -288,6 +412,11 @@ public class BlockChainManagerImpl<T> implements BlockChainManager<T> {
         return blockStore.size();
     }
 
+    @Override
+    public long getPrunedBodyIndex() {
+        return branchStore.getPrunedBlockIndex(BranchStore.BlockchainMetaInfo.PRUNED_BLOCK_BODIES);
+    }
+
     @Override
     public long countOfTxs() {
         return transactionStore.countOfTxs();
@@ -313,10 +442,26 @@ public class BlockChainManagerImpl<T> implements BlockChainManager<T> {
         return transactionStore.contains(transaction.getHash());
     }
 
+    @Override
+    public UnitOfWork getUnitOfWork() {
+        return blockChainStore.getUnitOfWork();
+    }
+
+    @Override
+    public CacheStats getBlockCacheStats() {
+        return blockStore.getCacheStats();
+    }
+
+    @Override
+    public TxPool.Stats getTxPoolStats() {
+        return transactionStore.getPendingPoolStats();
+    }
+
     @Override
     public void close() {
         this.blockStore.close();
         this.transactionStore.close();
         this.receiptStore.close();
+        this.txIndexStore.close();
     }
 }
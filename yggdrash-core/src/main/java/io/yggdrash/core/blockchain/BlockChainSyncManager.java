@@ -31,11 +31,14 @@ public class BlockChainSyncManager implements SyncManager {
     private NodeStatus nodeStatus;
     private BranchGroup branchGroup;
     private PeerNetwork peerNetwork;
+    private BatchVerifier batchVerifier;
 
-    public BlockChainSyncManager(NodeStatus nodeStatus, PeerNetwork peerNetwork, BranchGroup branchGroup) {
+    public BlockChainSyncManager(NodeStatus nodeStatus, PeerNetwork peerNetwork, BranchGroup branchGroup,
+                                 BatchVerifier batchVerifier) {
         this.nodeStatus = nodeStatus;
         this.branchGroup = branchGroup;
         this.peerNetwork = peerNetwork;
+        this.batchVerifier = batchVerifier;
     }
 
     @Override
@@ -73,11 +76,15 @@ public class BlockChainSyncManager implements SyncManager {
                     ((ConsensusBlock) blockList.toArray()[blockList.size() - 1]).getBlock().getIndex(),
                     peerHandler.getPeer().getYnodeUri());
 
-            for (ConsensusBlock block : blockList) {
+            // The signatures of the received blocks are verified in parallel before adding them one by one,
+            // the blockchain verifies the rest of each block with the result
+            List<BatchVerifier.Result> results = batchVerifier.verify(blockList);
+            for (int i = 0; i < blockList.size(); i++) {
                 // Handling exception if the block was not added properly
-                Map<String, List<String>> errorLogs = blockChain.addBlock(block, false);
+                Map<String, List<String>> errorLogs = blockChain.addBlock(blockList.get(i), false, results.get(i));
                 if (errorLogs.size() > 0) {
-                    log.warn("ErrorLogs: {}", errorLogs);
+                    log.warn("ErrorLogs: {}, signatures={}, from={}", errorLogs, results.get(i),
+                            peerHandler.getPeer().getYnodeUri());
                     return true;
                 }
             }
@@ -20,18 +20,23 @@ import com.google.gson.JsonObject;
 import io.yggdrash.common.Sha3Hash;
 import io.yggdrash.common.contract.ContractVersion;
 import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.common.store.datasource.DbIterator;
 import io.yggdrash.contract.core.Receipt;
 import io.yggdrash.core.blockchain.osgi.ContractConstants;
 import io.yggdrash.core.consensus.ConsensusBlock;
 import io.yggdrash.core.exception.DuplicatedException;
 import io.yggdrash.core.exception.NonExistObjectException;
 import io.yggdrash.core.exception.errorcode.SystemError;
+import io.yggdrash.core.store.StateSnapshot;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class BranchGroup {
 
@@ -74,17 +79,24 @@ public class BranchGroup {
     }
 
     public Map<String, List<String>> addTransaction(Transaction tx) {
+        int verifyResult = verifyBranch(tx);
+        if (verifyResult == SystemError.VALID.toValue()) {
+            return branches.get(tx.getBranchId()).addTransaction(tx);
+        }
+        return SystemError.getErrorLogsMap(verifyResult);
+    }
+
+    /**
+     * Checks that the branch and the contract of the tx exist.
+     */
+    int verifyBranch(Transaction tx) {
         // TxBody format has not been fixed yet. The following validation is required until the TxBody is fixed.
         String version = !tx.getBody().getBody().has("contractVersion")
                 || (!tx.getBody().getBody().get("contractVersion").isJsonPrimitive()
                 || !tx.getBody().getBody().get("contractVersion").getAsJsonPrimitive().isString())
                 ? "" : tx.getBody().getBody().get("contractVersion").getAsString();
 
-        int verifyResult = verify(tx.getBranchId(), version);
-        if (verifyResult == SystemError.VALID.toValue()) {
-            return branches.get(tx.getBranchId()).addTransaction(tx);
-        }
-        return SystemError.getErrorLogsMap(verifyResult);
+        return verify(tx.getBranchId(), version);
     }
 
     public long getLastIndex(BranchId branchId) {
@@ -109,6 +121,30 @@ public class BranchGroup {
         return isBranchExist(branchId) ? branches.get(branchId).getBlockChainManager().getTxByHash(hash) : null;
     }
 
+    public TxLocation getTxLocation(BranchId branchId, String id) {
+        return isBranchExist(branchId)
+                ? branches.get(branchId).getBlockChainManager().getTxLocation(new Sha3Hash(id)) : null;
+    }
+
+    public Transaction getTxByIndex(BranchId branchId, long blockIndex, int txIndex) {
+        return isBranchExist(branchId)
+                ? branches.get(branchId).getBlockChainManager().getTxByIndex(blockIndex, txIndex) : null;
+    }
+
+    public Transaction getTxByBlockHash(BranchId branchId, String blockHash, int txIndex) {
+        return isBranchExist(branchId)
+                ? branches.get(branchId).getBlockChainManager().getTxByBlockHash(new Sha3Hash(blockHash), txIndex)
+                : null;
+    }
+
+    public List<Sha3Hash> getTxHashesByAddress(BranchId branchId, String address, long fromBlock, int fromTxIndex,
+                                               int limit) {
+        return isBranchExist(branchId)
+                ? branches.get(branchId).getBlockChainManager()
+                .getTxHashesByAddress(address, fromBlock, fromTxIndex, limit)
+                : Collections.emptyList();
+    }
+
     Map<String, List<String>> addBlock(ConsensusBlock block) {
         return addBlock(block, true);
     }
@@ -154,6 +190,58 @@ public class BranchGroup {
         }
     }
 
+    /**
+     * Queries the contract against the state after the block of the height was executed.
+     */
+    public Object query(BranchId branchId, String contractVersion, String method, JsonObject params,
+                        long atHeight) {
+        if (!isBranchExist(branchId)) {
+            throw new NonExistObjectException(branchId.toString() + " branch");
+        }
+        BlockChain chain = branches.get(branchId);
+        if (!chain.getContractManager().isStateAvailable(atHeight)) {
+            throw new NonExistObjectException("State at height " + atHeight);
+        }
+        try {
+            return chain.getContractManager().query(contractVersion, method, params, atHeight);
+        } catch (Exception e) {
+            throw new FailedOperationException(e);
+        }
+    }
+
+    /**
+     * Writes the state snapshot of the branch after the block of the height, which must be the last block.
+     * The chain is locked only while the state is opened, blocks are added while the snapshot is written.
+     *
+     * @return number of the state rows written
+     */
+    public long exportSnapshot(BranchId branchId, long height, OutputStream out) {
+        if (!isBranchExist(branchId)) {
+            throw new NonExistObjectException(branchId.toString() + " branch");
+        }
+        BlockChain chain = branches.get(branchId);
+        ConsensusBlock block;
+        Sha3Hash stateRoot;
+        DbIterator<String, JsonObject> state;
+        ReentrantLock lock = chain.getLock();
+        lock.lock();
+        try {
+            block = chain.getBlockChainManager().getLastConfirmedBlock();
+            if (block.getIndex() != height) {
+                throw new NonExistObjectException("State snapshot at height " + height);
+            }
+            stateRoot = chain.getContractManager().getStateRoot();
+            state = chain.getContractManager().openStateSnapshot();
+        } finally {
+            lock.unlock();
+        }
+        try (DbIterator<String, JsonObject> values = state) {
+            return StateSnapshot.write(out, values, stateRoot, chain.getGenesisBlock(), block);
+        } catch (IOException e) {
+            throw new FailedOperationException(e);
+        }
+    }
+
     public long countOfTxs(BranchId branchId) {
         return isBranchExist(branchId) ? branches.get(branchId).getBlockChainManager().countOfTxs() : 0L;
     }
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.yggdrash.core.blockchain;
+
+import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.store.datasource.UnitOfWork;
+import io.yggdrash.contract.core.Receipt;
+import io.yggdrash.core.consensus.ConsensusBlock;
+import io.yggdrash.core.store.BlockChainStore;
+import io.yggdrash.core.store.BranchStore;
+import io.yggdrash.core.store.ReceiptStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Deletes the receipts, the logs and the tx bodies of the blocks older than the retention policy of the branch.
+ * A pruned block keeps its header and consensus proof, a pruned tx keeps its hash so it is never replayed.
+ * The genesis block is never pruned.
+ * Blocks are pruned in batches under the lock of the chain, each batch is written at once with the unit of work,
+ * and the stores are compacted after a large number of blocks have been pruned.
+ */
+public class HistoryPruner {
+    private static final Logger log = LoggerFactory.getLogger(HistoryPruner.class);
+
+    static final long COMPACT_AFTER_BLOCKS = 10_000;
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+
+    private final BlockChain<?, ?> blockChain;
+    private final BlockChainStore store;
+    private final RetentionPolicy policy;
+
+    private ScheduledExecutorService executor;
+    private long prunedSinceCompaction;
+
+    public HistoryPruner(BlockChain<?, ?> blockChain, BlockChainStore store, RetentionPolicy policy) {
+        this.blockChain = blockChain;
+        this.store = store;
+        this.policy = policy;
+    }
+
+    /**
+     * Prunes a batch of blocks in the background at a fixed delay, which limits the write rate of the pruner.
+     *
+     * @param batchSize max number of blocks of each kind pruned at once
+     * @param intervalMillis delay between the batches
+     */
+    public synchronized void start(int batchSize, long intervalMillis) {
+        if (executor != null || policy.isArchive()) {
+            return;
+        }
+        String name = "pruner-" + blockChain.getBranchId();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> run(batchSize), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("History pruning of {} started. {}", blockChain.getBranchId(), policy);
+    }
+
+    /**
+     * Stops the background pruning and waits for the batch being pruned, so the stores can be closed.
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("History pruning of {} did not stop in time", blockChain.getBranchId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    private void run(int batchSize) {
+        try {
+            int pruned = prune(batchSize);
+            prunedSinceCompaction += pruned;
+            // compact once the pruner has caught up, not while the old history is deleted
+            if (pruned == 0 && prunedSinceCompaction >= COMPACT_AFTER_BLOCKS) {
+                compact();
+                prunedSinceCompaction = 0;
+            }
+        } catch (Exception e) {
+            log.warn("History pruning of {} failed. {}", blockChain.getBranchId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Prunes the blocks out of the retention which are not pruned yet.
+     *
+     * @param batchSize max number of blocks of each kind pruned at once
+     * @return number of blocks pruned
+     */
+    public int prune(int batchSize) {
+        ReentrantLock lock = blockChain.getLock();
+        lock.lock();
+        try {
+            long lastIndex = blockChain.getBlockChainManager().getLastIndex();
+            UnitOfWork unitOfWork = store.getUnitOfWork();
+            unitOfWork.begin();
+            try {
+                // logs first, their terms are read from the receipts
+                int pruned = prune(BranchStore.BlockchainMetaInfo.PRUNED_LOGS, policy.getLogBlocks(),
+                        lastIndex, batchSize, this::pruneLogs);
+                pruned += prune(BranchStore.BlockchainMetaInfo.PRUNED_RECEIPTS, policy.getReceiptBlocks(),
+                        lastIndex, batchSize, this::pruneReceipts);
+                pruned += prune(BranchStore.BlockchainMetaInfo.PRUNED_BLOCK_BODIES, policy.getBlockBodyBlocks(),
+                        lastIndex, batchSize, this::pruneBody);
+                unitOfWork.commit();
+                return pruned;
+            } catch (RuntimeException e) {
+                unitOfWork.rollback();
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void compact() {
+        log.debug("Compacting the stores of {}", blockChain.getBranchId());
+        store.getReceiptStore().compact();
+        store.getLogStore().compact();
+        store.getTransactionStore().compact();
+        store.getConsensusBlockStore().compact();
+    }
+
+    private int prune(BranchStore.BlockchainMetaInfo target, long retention, long lastIndex, int batchSize,
+                      LongConsumer pruner) {
+        if (retention <= 0) {
+            return 0;
+        }
+        BranchStore branchStore = store.getBranchStore();
+        long from = Math.max(branchStore.getPrunedBlockIndex(target) + 1, 1);
+        long to = Math.min(lastIndex - retention, from + batchSize - 1);
+        if (to < from) {
+            return 0;
+        }
+        for (long index = from; index <= to; index++) {
+            pruner.accept(index);
+        }
+        branchStore.setPrunedBlockIndex(target, to);
+        log.trace("Pruned {} of {} to {}", target, blockChain.getBranchId(), to);
+        return (int) (to - from + 1);
+    }
+
+    private void pruneLogs(long index) {
+        Set<String> terms = new HashSet<>();
+        for (Receipt receipt : getReceipts(index)) {
+            if (!receipt.getLog().isEmpty()) {
+                terms.addAll(LogFilter.termsOf(receipt));
+            }
+        }
+        store.getLogStore().deleteBlock(index, terms);
+    }
+
+    private void pruneReceipts(long index) {
+        Set<String> keys = new HashSet<>();
+        for (Receipt receipt : store.getReceiptStore().getBlockReceipts(index)) {
+            if (receipt.getTxId() != null) {
+                keys.add(receipt.getTxId());
+            }
+            if (receipt.getBlockId() != null) {
+                // receipt of the versioning contract at the end of the block
+                keys.add(receipt.getBlockId());
+            }
+        }
+        // receipts stored before the block bundles
+        getTxHashes(index).forEach(hash -> keys.add(hash.toString()));
+        store.getReceiptStore().deleteBlockReceipts(index, keys);
+    }
+
+    private void pruneBody(long index) {
+        // the hashes are read before the body is stripped, the txs are kept if the block is not
+        Collection<Sha3Hash> txHashes = getTxHashes(index);
+        if (store.getConsensusBlockStore().pruneBody(index)) {
+            store.getTransactionStore().pruneBodies(txHashes);
+        }
+    }
+
+    private List<Receipt> getReceipts(long index) {
+        ReceiptStore receiptStore = store.getReceiptStore();
+        List<Receipt> receipts = receiptStore.getBlockReceipts(index);
+        if (!receipts.isEmpty()) {
+            return receipts;
+        }
+        List<Receipt> txReceipts = new ArrayList<>();
+        for (Sha3Hash hash : getTxHashes(index)) {
+            if (receiptStore.contains(hash.toString())) {
+                txReceipts.add(receiptStore.get(hash.toString()));
+            }
+        }
+        return txReceipts;
+    }
+
+    private Collection<Sha3Hash> getTxHashes(long index) {
+        List<Sha3Hash> hashes = new ArrayList<>();
+        ConsensusBlock<?> block = store.getConsensusBlockStore().getBlockByIndex(index);
+        if (block != null) {
+            block.getBody().getTransactionList().forEach(tx -> hashes.add(tx.getHash()));
+        }
+        return hashes;
+    }
+}
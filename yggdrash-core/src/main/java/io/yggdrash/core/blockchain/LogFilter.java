@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ * Licensed under the Apache License, Version 2.0 (the “License”);
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an “AS IS” BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package io.yggdrash.core.blockchain;
+
+import io.yggdrash.contract.core.ContractEvent;
+import io.yggdrash.contract.core.Receipt;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Conditions of a log search. A log matches if its receipt has every given condition,
+ * a null condition matches any log. At most the limit of the first matched logs are returned.
+ */
+public class LogFilter {
+    /**
+     * Most logs returned by one search, a wider search is split by its block range
+     */
+    public static final int MAX_LIMIT = 1000;
+
+    private static final String CONTRACT = "c:";
+    private static final String TOPIC = "t:";
+    private static final String ADDRESS = "a:";
+
+    private final String contract;
+    private final String topic;
+    private final String address;
+    private final long fromBlock;
+    private final long toBlock;
+    private final int limit;
+
+    public LogFilter(String contract, String topic, String address, long fromBlock, long toBlock) {
+        this(contract, topic, address, fromBlock, toBlock, MAX_LIMIT);
+    }
+
+    /**
+     * @param contract contract version
+     * @param topic method of the tx or type of the contract event
+     * @param address issuer of the tx
+     * @param fromBlock start block index
+     * @param toBlock end block index (inclusive)
+     * @param limit most logs to return, up to MAX_LIMIT
+     */
+    public LogFilter(String contract, String topic, String address, long fromBlock, long toBlock, int limit) {
+        this.contract = contract;
+        this.topic = topic;
+        this.address = address;
+        this.fromBlock = fromBlock;
+        this.toBlock = toBlock;
+        this.limit = Math.min(Math.max(limit, 0), MAX_LIMIT);
+    }
+
+    public String getContract() {
+        return contract;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public long getFromBlock() {
+        return fromBlock;
+    }
+
+    public long getToBlock() {
+        return toBlock;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Index terms of the conditions. The address comes first as it usually matches the fewest logs.
+     */
+    List<String> getTerms() {
+        List<String> terms = new ArrayList<>();
+        if (address != null) {
+            terms.add(ADDRESS + address);
+        }
+        if (contract != null) {
+            terms.add(CONTRACT + contract);
+        }
+        if (topic != null) {
+            terms.add(TOPIC + topic);
+        }
+        return terms;
+    }
+
+    /**
+     * Index terms of the logs of the receipt
+     */
+    static Set<String> termsOf(Receipt receipt) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (receipt.getIssuer() != null) {
+            terms.add(ADDRESS + receipt.getIssuer());
+        }
+        if (receipt.getContractVersion() != null) {
+            terms.add(CONTRACT + receipt.getContractVersion());
+        }
+        if (receipt.getMethod() != null) {
+            terms.add(TOPIC + receipt.getMethod());
+        }
+        if (receipt.getEvents() != null) {
+            for (ContractEvent event : receipt.getEvents()) {
+                if (event.getContractVersion() != null) {
+                    terms.add(CONTRACT + event.getContractVersion());
+                }
+                if (event.getType() != null) {
+                    terms.add(TOPIC + event.getType().name());
+                }
+            }
+        }
+        return terms;
+    }
+}
@@ -12,20 +12,26 @@
 
 package io.yggdrash.core.blockchain;
 
+import io.yggdrash.contract.core.Receipt;
 import io.yggdrash.core.store.LogStore;
 import io.yggdrash.core.store.ReceiptStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.LongStream;
+import java.util.Map;
+import java.util.Set;
 
 public class LogIndexer {
     private static final Logger log = LoggerFactory.getLogger(LogIndexer.class);
     private static final String keyFormat = "%s/%d";
     private static final String keySeparator = "/";
+    // A binary entry starts with zero, a text entry ("txId/indexOfReceipt") with a printable character
+    private static final byte BINARY_ENTRY = 0;
 
     private final LogStore logStore; //<logIndex : txId + indexOfReceipt>
     private final ReceiptStore receiptStore; //<txHash : txReceipt>
@@ -37,11 +43,33 @@ public class LogIndexer {
 
     public void put(String txId, int size) { //TODO check log duplicated
         log.trace("put logs : txId = {}, size = {}", txId, size);
-        IntStream.range(0, size).mapToObj(i -> String.format(keyFormat, txId, i)).forEach(logStore::put);
+        for (int i = 0; i < size; i++) {
+            logStore.put(toEntry(txId, i));
+        }
+    }
+
+    /**
+     * Appends the logs of the receipts of a block at once, indexed by their filter terms.
+     *
+     * @param blockIndex height of the block
+     * @param receipts receipt key and the receipt, in execution order
+     */
+    public void put(long blockIndex, Map<String, Receipt> receipts) {
+        List<byte[]> entries = new ArrayList<>();
+        List<Set<String>> terms = new ArrayList<>();
+        receipts.forEach((receiptKey, receipt) -> {
+            Set<String> receiptTerms = LogFilter.termsOf(receipt);
+            for (int i = 0; i < receipt.getLog().size(); i++) {
+                entries.add(toEntry(receiptKey, i));
+                terms.add(receiptTerms);
+            }
+        });
+        logStore.putAll(blockIndex, entries, terms);
     }
 
     public String get(long logIndex) { //TODO check log contained
-        return logStore.get(logIndex);
+        LogKey logKey = toLogKey(logStore.get(logIndex));
+        return String.format(keyFormat, logKey.receiptKey, logKey.indexOfReceipt);
     }
 
     public Log getLog(long logIndex) {
@@ -49,19 +77,96 @@ public class LogIndexer {
             return Log.createBy(logIndex, "", "Log not exists");
         }
 
-        String val = get(logIndex);
-        int separator = val.indexOf(keySeparator);
-        String txId = val.substring(0, separator);
-        int indexOfReceipt = Integer.parseInt(val.substring(separator + 1));
-        String log = receiptStore.get(txId).getLog().get(indexOfReceipt);
-
-        return Log.createBy(logIndex, txId, log);
+        byte[] entry = logStore.get(logIndex);
+        if (entry == null) {
+            // pruned with the history of its block
+            return Log.createBy(logIndex, "", "Log not exists");
+        }
+        return toLog(logIndex, toLogKey(entry), new HashMap<>());
     }
 
-    public List<Log> getLogs(long from, long offset) {
+    /**
+     * Reads the logs of the range with one scan. A receipt is read and decoded once for the logs it holds.
+     *
+     * @param from start index
+     * @param to end index (inclusive)
+     * @return logs ordered by index
+     */
+    public List<Log> getLogs(long from, long to) {
         long start = from < 0 ? 0 : from;
-        long end = offset > curIndex() ? curIndex() : offset;
-        return LongStream.rangeClosed(start, end).mapToObj(this::getLog).collect(Collectors.toList());
+        long end = to > curIndex() ? curIndex() : to;
+        Map<String, Receipt> receipts = new HashMap<>();
+        List<Log> logs = new ArrayList<>();
+        logStore.get(start, end).forEach((logIndex, entry) -> logs.add(toLog(logIndex, toLogKey(entry), receipts)));
+        return logs;
+    }
+
+    /**
+     * Reads the logs matching the filter from the term index, so that the cost follows the number of matches
+     * of the first term. The other terms are checked with the Bloom filter of the block before the receipt is read.
+     * The scan stops at the limit of the filter.
+     *
+     * @param filter search conditions
+     * @return matched logs ordered by index, at most the limit of the filter
+     */
+    public List<Log> getLogs(LogFilter filter) {
+        List<String> terms = filter.getTerms();
+        if (filter.getLimit() == 0) {
+            return new ArrayList<>();
+        }
+        if (terms.isEmpty()) {
+            long[] range = logStore.getLogRange(filter.getFromBlock(), filter.getToBlock());
+            return range == null ? new ArrayList<>()
+                    : getLogs(range[0], Math.min(range[1], range[0] + filter.getLimit() - 1));
+        }
+        List<String> otherTerms = terms.subList(1, terms.size());
+        Map<Long, Boolean> blocks = new HashMap<>();
+        Map<String, Receipt> receipts = new HashMap<>();
+        List<Log> logs = new ArrayList<>();
+        logStore.forEachLogIndex(terms.get(0), filter.getFromBlock(), filter.getToBlock(),
+                (logIndex, blockIndex) -> {
+                    if (!otherTerms.isEmpty()
+                            && !blocks.computeIfAbsent(blockIndex, b -> logStore.mightContain(b, otherTerms))) {
+                        return true;
+                    }
+                    LogKey logKey = toLogKey(logStore.get(logIndex));
+                    Receipt receipt = receipts.computeIfAbsent(logKey.receiptKey, receiptStore::get);
+                    if (LogFilter.termsOf(receipt).containsAll(otherTerms)) {
+                        logs.add(toLog(logIndex, logKey, receipts));
+                    }
+                    return logs.size() < filter.getLimit();
+                });
+        return logs;
+    }
+
+    private Log toLog(long logIndex, LogKey logKey, Map<String, Receipt> receipts) {
+        Receipt receipt = receipts.computeIfAbsent(logKey.receiptKey, receiptStore::get);
+        String log = receipt.getLog().get(logKey.indexOfReceipt);
+
+        return Log.createBy(logIndex, logKey.receiptKey, log);
+    }
+
+    /**
+     * A hash receipt key is written in binary: zero, the stored receipt key and the index of the log.
+     */
+    private static byte[] toEntry(String receiptKey, int indexOfReceipt) {
+        if (!ReceiptStore.isHashKey(receiptKey)) {
+            return String.format(keyFormat, receiptKey, indexOfReceipt).getBytes();
+        }
+        byte[] key = ReceiptStore.toKey(receiptKey);
+        return ByteBuffer.allocate(1 + key.length + Integer.BYTES)
+                .put(BINARY_ENTRY).put(key).putInt(indexOfReceipt).array();
+    }
+
+    private static LogKey toLogKey(byte[] entry) {
+        if (entry[0] == BINARY_ENTRY) {
+            byte[] key = Arrays.copyOfRange(entry, 1, entry.length - Integer.BYTES);
+            int indexOfReceipt = ByteBuffer.wrap(entry, entry.length - Integer.BYTES, Integer.BYTES).getInt();
+            return new LogKey(ReceiptStore.fromHashKey(key), indexOfReceipt);
+        }
+        String val = new String(entry);
+        int separator = val.lastIndexOf(keySeparator);
+        return new LogKey(val.substring(0, separator), Integer.parseInt(val.substring(separator + 1)));
     }
 
     public long curIndex() {
@@ -76,4 +181,14 @@ public class LogIndexer {
         log.debug("close logStore");
         logStore.close();
     }
-}
\ No newline at end of file
+
+    private static class LogKey {
+        private final String receiptKey;
+        private final int indexOfReceipt;
+
+        LogKey(String receiptKey, int indexOfReceipt) {
+            this.receiptKey = receiptKey;
+            this.indexOfReceipt = indexOfReceipt;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.yggdrash.core.blockchain;
+
+/**
+ * Number of recent blocks of which a branch keeps the receipts, the logs and the tx bodies.
+ * 0 keeps the whole history, an archive node keeps everything.
+ * The logs point to the receipts, so they are never kept longer than the receipts.
+ */
+public class RetentionPolicy {
+    public static final RetentionPolicy ARCHIVE = new RetentionPolicy(0, 0, 0);
+
+    private final long receiptBlocks;
+    private final long logBlocks;
+    private final long blockBodyBlocks;
+
+    public RetentionPolicy(long receiptBlocks, long logBlocks, long blockBodyBlocks) {
+        this.receiptBlocks = Math.max(receiptBlocks, 0);
+        this.logBlocks = Math.max(logBlocks, 0);
+        this.blockBodyBlocks = Math.max(blockBodyBlocks, 0);
+    }
+
+    public long getReceiptBlocks() {
+        return receiptBlocks;
+    }
+
+    public long getLogBlocks() {
+        if (receiptBlocks > 0 && (logBlocks == 0 || logBlocks > receiptBlocks)) {
+            return receiptBlocks;
+        }
+        return logBlocks;
+    }
+
+    public long getBlockBodyBlocks() {
+        return blockBodyBlocks;
+    }
+
+    public boolean isArchive() {
+        return receiptBlocks == 0 && logBlocks == 0 && blockBodyBlocks == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "receipts=" + receiptBlocks + ", logs=" + getLogBlocks() + ", blockBodies=" + blockBodyBlocks;
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.blockchain;
+
+import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.core.exception.errorcode.BusinessError;
+import io.yggdrash.core.exception.errorcode.SystemError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Admits the txs received from the peers and the API in stages, so the threads receiving them are not held by
+ * the verification.
+ * <ul>
+ *     <li>decode: hashes the tx and checks its branch and contract</li>
+ *     <li>dedupe: drops a tx already stored or in the pipeline</li>
+ *     <li>verify: checks the timestamp, the format and the signature on a pool of threads</li>
+ *     <li>check: executes the txs and adds them to the pending pool, on a thread of each branch</li>
+ * </ul>
+ * Each branch holds up to the capacity of txs in the pipeline, and the txs submitted over it wait without
+ * a thread until a tx of the branch leaves, so submitting never blocks. The queues of the stages never fill
+ * up, a busy branch only holds its own txs and the txs of the other branches are still admitted.
+ */
+public class TxIngestPipeline {
+    private static final Logger log = LoggerFactory.getLogger(TxIngestPipeline.class);
+    private static final int CHECK_BATCH_SIZE = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final BranchGroup branchGroup;
+    private final int capacity;
+    private final Map<BranchId, Admission> admissions = new ConcurrentHashMap<>();
+    private final Set<Sha3Hash> inFlight = ConcurrentHashMap.newKeySet();
+    private final Stage decode;
+    private final Stage dedupe;
+    private final Stage verify;
+    private final Map<BranchId, Stage> checks = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * @param branchGroup branches of the txs
+     * @param verifyThreads threads verifying the signatures, 0 for the number of processors
+     * @param capacity txs of a branch held by the pipeline, and the txs waiting for them
+     */
+    public TxIngestPipeline(BranchGroup branchGroup, int verifyThreads, int capacity) {
+        this.branchGroup = branchGroup;
+        this.capacity = capacity;
+        int threads = verifyThreads > 0 ? verifyThreads : Runtime.getRuntime().availableProcessors();
+        // bounded by the capacity of each branch
+        this.verify = new Stage("verify", threads, 0, 1, this::verify);
+        this.dedupe = new Stage("dedupe", 1, 0, 1, this::dedupe);
+        this.decode = new Stage("decode", 1, 0, 1, this::decode);
+    }
+
+    /**
+     * Queues a tx without waiting. A tx over the capacity of its branch waits until a tx of the branch leaves,
+     * and is rejected if as many txs are waiting already.
+     *
+     * @return the error logs of the tx once it is admitted or rejected, empty if admitted
+     */
+    public CompletableFuture<Map<String, List<String>>> submit(Transaction tx) {
+        // the txs of the unknown branches share their capacity, they are rejected by the decode stage
+        BranchId branchId = branchGroup.getBranch(tx.getBranchId()) != null ? tx.getBranchId() : BranchId.NULL;
+        Job job = new Job(tx, admissions.computeIfAbsent(branchId, id -> new Admission()));
+        if (job.admission.admit(job)) {
+            // closed meanwhile, the stage fails the job at once rather than queueing it
+            decode.put(job);
+        }
+        return job.future;
+    }
+
+    /**
+     * Queues a tx and waits until it is admitted or rejected.
+     *
+     * @return the error logs of the tx, empty if admitted
+     */
+    public Map<String, List<String>> add(Transaction tx) {
+        try {
+            return submit(tx).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FailedOperationException(e);
+        } catch (ExecutionException e) {
+            throw new FailedOperationException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the counters of each stage, the check stages of the branches are counted together.
+     */
+    public List<StageStats> getStats() {
+        int queueDepth = 0;
+        long count = 0;
+        long latency = 0;
+        for (Stage stage : checks.values()) {
+            queueDepth += stage.queue.size();
+            count += stage.processedCount.sum();
+            latency += stage.latencyNanos.sum();
+        }
+        StageStats check = new StageStats("check", queueDepth, count,
+                TimeUnit.NANOSECONDS.toMicros(count > 0 ? latency / count : 0));
+        return Arrays.asList(decode.getStats(), dedupe.getStats(), verify.getStats(), check);
+    }
+
+    /**
+     * Stops the workers of every stage, then fails the txs left in the queues and the txs waiting for them.
+     * A tx submitted meanwhile is failed by the stage it is queued to.
+     */
+    public void close() {
+        closed = true;
+        List<Stage> stages = new ArrayList<>(Arrays.asList(decode, dedupe, verify));
+        stages.addAll(checks.values());
+        stages.forEach(Stage::stop);
+        stages.forEach(Stage::failQueued);
+        admissions.values().forEach(Admission::failWaiting);
+    }
+
+    private void decode(Job job) {
+        job.tx.getHash();
+        int result = branchGroup.verifyBranch(job.tx);
+        if (result != SystemError.VALID.toValue()) {
+            finish(job, SystemError.getErrorLogsMap(result));
+        } else {
+            dedupe.put(job);
+        }
+    }
+
+    private void dedupe(Job job) {
+        if (!inFlight.add(job.tx.getHash())) {
+            finish(job, BusinessError.getErrorLogsMap(BusinessError.DUPLICATED.toValue()));
+            return;
+        }
+        job.claimed = true;
+        if (branchGroup.getBranch(job.tx.getBranchId()).getBlockChainManager().contains(job.tx)) {
+            finish(job, BusinessError.getErrorLogsMap(BusinessError.DUPLICATED.toValue()));
+        } else {
+            verify.put(job);
+        }
+    }
+
+    private void verify(Job job) {
+        int result = branchGroup.getBranch(job.tx.getBranchId()).getBlockChainManager().verify(job.tx);
+        if (result != BusinessError.VALID.toValue()) {
+            finish(job, BusinessError.getErrorLogsMap(result));
+        } else {
+            getCheck(job.tx.getBranchId()).put(job);
+        }
+    }
+
+    /**
+     * The txs of a branch are executed one by one by its own worker. It takes up to the batch size of the queued
+     * txs when it wakes up, which only saves the hand-offs of the queue: each tx is still executed on its own.
+     */
+    private Stage getCheck(BranchId branchId) {
+        return checks.computeIfAbsent(branchId,
+                id -> new Stage("check-" + id, 1, capacity, CHECK_BATCH_SIZE, this::check));
+    }
+
+    private void check(Job job) {
+        finish(job, branchGroup.getBranch(job.tx.getBranchId()).addVerifiedTransaction(job.tx));
+    }
+
+    private void finish(Job job, Map<String, List<String>> errorLogs) {
+        release(job);
+        job.future.complete(errorLogs);
+    }
+
+    private void fail(Job job, Throwable cause) {
+        if (job.future.isDone()) {
+            return;
+        }
+        release(job);
+        job.future.completeExceptionally(cause);
+    }
+
+    private void release(Job job) {
+        if (job.claimed) {
+            inFlight.remove(job.tx.getHash());
+        }
+        Job next = job.admission.release();
+        if (next != null) {
+            decode.put(next);
+        }
+    }
+
+    private static class Job {
+        private final Transaction tx;
+        private final Admission admission;
+        private final CompletableFuture<Map<String, List<String>>> future = new CompletableFuture<>();
+        private long queuedAt;
+        private boolean claimed;
+
+        Job(Transaction tx, Admission admission) {
+            this.tx = tx;
+            this.admission = admission;
+        }
+    }
+
+    /**
+     * Txs of a branch held by the pipeline, and the txs waiting for one of them to leave.
+     */
+    private class Admission {
+        private final Deque<Job> waiting = new ArrayDeque<>();
+        private int held;
+
+        /**
+         * @return whether the job enters the pipeline now, otherwise it waits or it is failed
+         */
+        synchronized boolean admit(Job job) {
+            if (closed) {
+                job.future.completeExceptionally(new FailedOperationException("Tx pipeline is closed"));
+                return false;
+            }
+            if (held < capacity) {
+                held++;
+                return true;
+            }
+            if (waiting.size() < capacity) {
+                waiting.add(job);
+            } else {
+                job.future.completeExceptionally(new FailedOperationException("Tx pipeline is full"));
+            }
+            return false;
+        }
+
+        /**
+         * Passes the place of a job leaving the pipeline on.
+         *
+         * @return the waiting job taking the place, or null
+         */
+        synchronized Job release() {
+            Job next = closed ? null : waiting.poll();
+            if (next == null) {
+                held--;
+            }
+            return next;
+        }
+
+        synchronized void failWaiting() {
+            waiting.forEach(job -> job.future.completeExceptionally(
+                    new FailedOperationException("Tx pipeline is closed")));
+            waiting.clear();
+        }
+    }
+
+    /**
+     * Threads taking the txs of a queue, up to the batch size at once.
+     */
+    private class Stage {
+        private final String name;
+        private final BlockingQueue<Job> queue;
+        private final int batchSize;
+        private final Consumer<Job> handler;
+        private final List<Thread> workers = new ArrayList<>();
+        private final LongAdder processedCount = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+
+        /**
+         * @param queueSize size of the queue, 0 if the queue is bounded by the admissions
+         */
+        Stage(String name, int threads, int queueSize, int batchSize, Consumer<Job> handler) {
+            this.name = name;
+            this.queue = queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) : new LinkedBlockingQueue<>();
+            this.batchSize = batchSize;
+            this.handler = handler;
+            for (int i = 0; i < threads; i++) {
+                Thread worker = new Thread(this::run, "tx-" + name + "-" + i);
+                worker.setDaemon(true);
+                worker.start();
+                workers.add(worker);
+            }
+        }
+
+        void put(Job job) {
+            if (closed) {
+                fail(job, new FailedOperationException("Tx pipeline is closed"));
+                return;
+            }
+            job.queuedAt = System.nanoTime();
+            try {
+                queue.put(job);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(job, e);
+                return;
+            }
+            if (closed) {
+                // queued after the pipeline was closed, no worker takes it
+                failQueued();
+            }
+        }
+
+        private void run() {
+            List<Job> jobs = new ArrayList<>(batchSize);
+            while (!closed) {
+                try {
+                    jobs.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                queue.drainTo(jobs, batchSize - 1);
+                for (Job job : jobs) {
+                    // read before the job is queued to the next stage
+                    long queuedAt = job.queuedAt;
+                    try {
+                        handler.accept(job);
+                    } catch (RuntimeException e) {
+                        log.debug("Tx {} failed. {}", name, e.getMessage());
+                        fail(job, e);
+                    }
+                    latencyNanos.add(System.nanoTime() - queuedAt);
+                }
+                processedCount.add(jobs.size());
+                jobs.clear();
+            }
+        }
+
+        StageStats getStats() {
+            long count = processedCount.sum();
+            long latency = count > 0 ? latencyNanos.sum() / count : 0;
+            return new StageStats(name, queue.size(), count, TimeUnit.NANOSECONDS.toMicros(latency));
+        }
+
+        void stop() {
+            workers.forEach(Thread::interrupt);
+            for (Thread worker : workers) {
+                try {
+                    worker.join(CLOSE_TIMEOUT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        void failQueued() {
+            List<Job> left = new ArrayList<>();
+            queue.drainTo(left);
+            left.forEach(job -> fail(job, new FailedOperationException("Tx pipeline is closed")));
+        }
+    }
+
+    /**
+     * Counters of a stage since the pipeline was created.
+     */
+    public static final class StageStats {
+        private final String name;
+        private final int queueDepth;
+        private final long processedCount;
+        private final long averageLatencyMicros;
+
+        StageStats(String name, int queueDepth, long processedCount, long averageLatencyMicros) {
+            this.name = name;
+            this.queueDepth = queueDepth;
+            this.processedCount = processedCount;
+            this.averageLatencyMicros = averageLatencyMicros;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public long getProcessedCount() {
+            return processedCount;
+        }
+
+        /**
+         * Average time from the queue of the stage to the next one, waiting for a full next queue included.
+         */
+        public long getAverageLatencyMicros() {
+            return averageLatencyMicros;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.blockchain;
+
+import io.yggdrash.common.Sha3Hash;
+
+/**
+ * Block which includes a transaction and the position of the transaction in its body
+ */
+public class TxLocation {
+    private final long blockIndex;
+    private final Sha3Hash blockHash;
+    private final int txIndex;
+
+    public TxLocation(long blockIndex, Sha3Hash blockHash, int txIndex) {
+        this.blockIndex = blockIndex;
+        this.blockHash = blockHash;
+        this.txIndex = txIndex;
+    }
+
+    public long getBlockIndex() {
+        return blockIndex;
+    }
+
+    public Sha3Hash getBlockHash() {
+        return blockHash;
+    }
+
+    public int getTxIndex() {
+        return txIndex;
+    }
+}
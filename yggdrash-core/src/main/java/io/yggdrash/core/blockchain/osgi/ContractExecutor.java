@@ -1,8 +1,8 @@
 package io.yggdrash.core.blockchain.osgi;
 
 import com.google.gson.JsonObject;
+import io.yggdrash.common.Sha3Hash;
 import io.yggdrash.common.crypto.HashUtil;
-import io.yggdrash.common.store.StateStore;
 import io.yggdrash.contract.core.ExecuteStatus;
 import io.yggdrash.contract.core.Receipt;
 import io.yggdrash.contract.core.ReceiptAdapter;
@@ -21,6 +21,7 @@ import io.yggdrash.core.runtime.result.BlockRuntimeResult;
 import io.yggdrash.core.runtime.result.TransactionRuntimeResult;
 import io.yggdrash.core.store.ContractStore;
 import io.yggdrash.core.store.ReceiptStore;
+import io.yggdrash.core.store.StateCache;
 import io.yggdrash.core.store.StoreAdapter;
 import org.apache.commons.codec.binary.Base64;
 import org.osgi.framework.Bundle;
@@ -32,6 +33,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -122,6 +124,28 @@ public class ContractExecutor {
         return null;
     }
 
+    /**
+     * Queries the contract against the state after the block of the height was executed.
+     * The query waits for the block being executed, so it never sees the values of uncommitted txs.
+     */
+    Object query(Map<String, Object> serviceMap, String contractVersion, String methodName, JsonObject params,
+                 long atHeight) {
+        locker.lock();
+        try {
+            Object service = getService(serviceMap, contractVersion);
+            Method method = getMethod(service, contractVersion, ContractMethodType.QUERY, methodName);
+
+            return contractStore.getHistoricalStateStore().readAt(atHeight,
+                    () -> invokeMethod(service, method, params));
+        } catch (Exception e) {
+            log.error("Query at {} failed. {}", atHeight, e.getMessage());
+        } finally {
+            locker.unlock();
+        }
+
+        return null;
+    }
+
     TransactionRuntimeResult executeTx(Map<String, Object> serviceMap, Transaction tx) {
         locker.lock();
         while (!isTx) {
@@ -159,45 +183,54 @@ public class ContractExecutor {
     BlockRuntimeResult executeTxs(Map<String, Object> serviceMap, ConsensusBlock nextBlock) {
         locker.lock();
         isTx = false;
-        // Set Coupler Contract and contractCache
-        coupler.setContract(serviceMap, contractCache);
+        try {
+            // Set Coupler Contract and contractCache
+            coupler.setContract(serviceMap, contractCache);
 
-        List<Transaction> txList = nextBlock.getBody().getTransactionList();
+            List<Transaction> txList = nextBlock.getBody().getTransactionList();
 
-        if (nextBlock.getIndex() == 0) {
-            //TODO first transaction is genesis
-            //TODO init method don't call any more
-            //@Genesis check
-        }
+            if (nextBlock.getIndex() == 0) {
+                //TODO first transaction is genesis
+                //TODO init method don't call any more
+                //@Genesis check
+            }
 
-        BlockRuntimeResult blockRuntimeResult = new BlockRuntimeResult(nextBlock);
+            BlockRuntimeResult blockRuntimeResult = new BlockRuntimeResult(nextBlock);
 
-        for (Transaction tx : txList) {
+            for (Transaction tx : txList) {
 
-            // get all exceptions
-            Receipt receipt = createReceipt(tx);
-            receipt.setBlockId(nextBlock.getHash().toString());
-            receipt.setBlockHeight(nextBlock.getIndex());
-            receipt.setBranchId(nextBlock.getBranchId().toString());
+                // get all exceptions
+                Receipt receipt = createReceipt(tx);
+                receipt.setBlockId(nextBlock.getHash().toString());
+                receipt.setBlockHeight(nextBlock.getIndex());
+                receipt.setBranchId(nextBlock.getBranchId().toString());
 
-            Set<Map.Entry<String, JsonObject>> result = null;
-            try {
-                result = invokeTx(serviceMap, tx, receipt);
-            } catch (ExecutorException e) {
-                exceptionHandler(e, receipt);
-            }
+                Set<Map.Entry<String, JsonObject>> result = null;
+                try {
+                    result = invokeTx(serviceMap, tx, receipt);
+                } catch (ExecutorException e) {
+                    exceptionHandler(e, receipt);
+                }
 
-            blockRuntimeResult.addReceipt(receipt);
-            if (!receipt.getStatus().equals(ExecuteStatus.ERROR)) {
-                blockRuntimeResult.setBlockResult(result);
-            } else {
-                log.warn("Error TxId={}, TxLog={}", receipt.getTxId(), receipt.getLog());
+                blockRuntimeResult.addReceipt(receipt);
+                if (!receipt.getStatus().equals(ExecuteStatus.ERROR)) {
+                    blockRuntimeResult.setBlockResult(result);
+                } else {
+                    log.warn("Error TxId={}, TxLog={}", receipt.getTxId(), receipt.getLog());
+                }
             }
-        }
 
-        contractStore.getTmpStateStore().close(); // clear(revert) tmpStateStore
-        locker.unlock();
-        return blockRuntimeResult;
+            contractStore.getTmpStateStore().close(); // clear(revert) tmpStateStore
+            return blockRuntimeResult;
+        } catch (RuntimeException e) {
+            // the block is rolled back, commitBlockResult is not called
+            contractStore.getTmpStateStore().close();
+            isTx = true;
+            isBlockExecuting.signal();
+            throw e;
+        } finally {
+            locker.unlock();
+        }
     }
 
     BlockRuntimeResult endBlock(Map<String, Object> serviceMap, ConsensusBlock addedBlock) {
@@ -284,33 +317,46 @@ public class ContractExecutor {
 
     void commitBlockResult(BlockRuntimeResult result) {
         locker.lock();
-        ReceiptStore receiptStore = contractStore.getReceiptStore();
-
-        String versioningContractVersion = "0000000000000001";
-        for (Receipt receipt : result.getReceipts()) {
-            if (receipt.getContractVersion().equals(versioningContractVersion)) { //VersioningContract
-                // Store receipt and logs
-                receiptStore.put(receipt.getBlockId(), receipt); // endBlock
-                logIndexer.put(receipt.getBlockId(), receipt.getLog().size());
-
-                // TODO event 발생은 blockChainImpl 에서 !! -> blockChainImpl
-            } else {
-                // Store receipt and logs
-                receiptStore.put(receipt.getTxId(), receipt);
-                logIndexer.put(receipt.getTxId(), receipt.getLog().size());
+        try {
+            ReceiptStore receiptStore = contractStore.getReceiptStore();
+
+            String versioningContractVersion = "0000000000000001";
+            // Logs of the block are appended and indexed at once
+            Map<String, Receipt> blockReceipts = new LinkedHashMap<>();
+            for (Receipt receipt : result.getReceipts()) {
+                if (receipt.getContractVersion().equals(versioningContractVersion)) { //VersioningContract
+                    // Store receipt and logs
+                    receiptStore.put(receipt.getBlockId(), receipt); // endBlock
+                    blockReceipts.put(receipt.getBlockId(), receipt);
+
+                    // TODO event 발생은 blockChainImpl 에서 !! -> blockChainImpl
+                } else {
+                    // Store receipt and logs
+                    receiptStore.put(receipt.getTxId(), receipt);
+                    blockReceipts.put(receipt.getTxId(), receipt);
+                }
             }
+            logIndexer.put(result.getOriginBlock().getIndex(), blockReceipts);
+            receiptStore.putBlockReceipts(result.getOriginBlock().getIndex(), result.getReceipts());
 
-            // Reflect changed values
+            // Reflect changed values and write them once per block
             Map<String, JsonObject> changes = result.getBlockResult();
             if (!changes.isEmpty()) {
-                StateStore stateStore = contractStore.getStateStore();
-                changes.forEach(stateStore::put);
+                StateCache stateCache = contractStore.getStateCache();
+                changes.forEach(stateCache::put);
+                stateCache.flush();
             }
-
+            // Only the changed keys are applied to the state trie
+            Sha3Hash stateRoot = contractStore.getStateTrie().update(result.getOriginBlock().getIndex(), changes);
+            log.trace("stateRoot={} changes={}", stateRoot, changes.size());
+            // Versions of the changed values for the queries at a height
+            contractStore.getStateHistory().put(result.getOriginBlock().getIndex(), changes);
+        } finally {
+            // executeTx waits for the block even if its result failed to be written
+            isTx = true;
+            isBlockExecuting.signal();
+            locker.unlock();
         }
-        isTx = true;
-        isBlockExecuting.signal();
-        locker.unlock();
     }
 
     private static Receipt createReceipt(ConsensusBlock consensusBlock, int index) { //for endBlock
@@ -1,13 +1,16 @@
 package io.yggdrash.core.blockchain.osgi;
 
 import com.google.gson.JsonObject;
+import io.yggdrash.common.Sha3Hash;
 import io.yggdrash.common.config.DefaultConfig;
 import io.yggdrash.common.contract.BranchContract;
 import io.yggdrash.common.contract.ContractVersion;
+import io.yggdrash.common.store.datasource.DbIterator;
 import io.yggdrash.contract.core.ContractEvent;
 import io.yggdrash.contract.core.channel.ContractEventType;
 import io.yggdrash.core.blockchain.BranchId;
 import io.yggdrash.core.blockchain.Log;
+import io.yggdrash.core.blockchain.LogFilter;
 import io.yggdrash.core.blockchain.LogIndexer;
 import io.yggdrash.core.blockchain.SystemProperties;
 import io.yggdrash.core.blockchain.Transaction;
@@ -259,13 +262,24 @@ public class ContractManager implements ContractEventListener {
         return contractStore.getStateStore().getStateSize();
     }
 
+    /**
+     * State root after the block of the height is executed, null if it is not recorded.
+     */
+    public Sha3Hash getStateRoot(long height) {
+        return contractStore.getStateTrie().getRoot(height);
+    }
+
     // Log Indexer Services
     public Log getLog(long index) {
         return logIndexer.getLog(index);
     }
 
-    public List<Log> getLogs(long start, long offset) {
-        return logIndexer.getLogs(start, offset);
+    public List<Log> getLogs(long from, long to) {
+        return logIndexer.getLogs(from, to);
+    }
+
+    public List<Log> getLogs(LogFilter filter) {
+        return logIndexer.getLogs(filter);
     }
 
     public long getCurLogIndex() {
@@ -277,6 +291,34 @@ public class ContractManager implements ContractEventListener {
         return contractExecutor.query(serviceMap, contractVersion, methodName, params);
     }
 
+    public Object query(String contractVersion, String methodName, JsonObject params, long atHeight) {
+        return contractExecutor.query(serviceMap, contractVersion, methodName, params, atHeight);
+    }
+
+    /**
+     * Returns true if the state at the height can be queried.
+     */
+    public boolean isStateAvailable(long atHeight) {
+        return contractStore.getStateHistory().isAvailable(atHeight);
+    }
+
+    /**
+     * Opens the state after the last executed block for a snapshot. The caller holds the lock of the chain
+     * only while it is opened, the iterator keeps reading the same state while blocks are added.
+     *
+     * @return iterator of the state which must be closed
+     */
+    public DbIterator<String, JsonObject> openStateSnapshot() {
+        return contractStore.getStateStore().iterator();
+    }
+
+    /**
+     * State root after the last executed block.
+     */
+    public Sha3Hash getStateRoot() {
+        return contractStore.getStateTrie().getRoot();
+    }
+
     public BlockRuntimeResult endBlock(ConsensusBlock addedBlock) {
         return contractExecutor.endBlock(serviceMap, addedBlock);
     }
@@ -104,6 +104,13 @@ public class BlockServiceConsumer<T> implements BlockConsumer<T> {
         if (offset < 0) {
             offset = 0;
         }
+        // a pruned block can not be verified and executed by the peer
+        long prunedIndex = blockChain.getBlockChainManager().getPrunedBodyIndex();
+        if (offset <= prunedIndex) {
+            log.debug("Blocks of branchId={} are pruned to {}, syncBlock from {} is refused",
+                    branchId, prunedIndex, offset);
+            return;
+        }
 
         long bodyLengthSum = 0;
 
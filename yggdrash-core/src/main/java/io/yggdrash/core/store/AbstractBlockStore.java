@@ -16,42 +16,231 @@
 
 package io.yggdrash.core.store;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import io.yggdrash.common.Sha3Hash;
 import io.yggdrash.common.config.Constants;
 import io.yggdrash.common.crypto.HashUtil;
+import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.common.store.datasource.DbIterator;
 import io.yggdrash.common.store.datasource.DbSource;
 import io.yggdrash.common.utils.ByteUtil;
 import io.yggdrash.core.consensus.ConsensusBlock;
 import io.yggdrash.core.exception.NonExistObjectException;
-import org.iq80.leveldb.CompressionType;
-import org.iq80.leveldb.Options;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 import static io.yggdrash.common.config.Constants.LEVELDB_SIZE_KEY;
 
 public abstract class AbstractBlockStore<T> implements ConsensusBlockStore<T> {
     private static final Logger log = LoggerFactory.getLogger(AbstractBlockStore.class);
+    private static final long DEFAULT_CACHE_SIZE = 32 * 1024 * 1024;
+    private static final int INDEX_CACHE_ENTRIES = 100_000;
+    private static final byte[] BLOCK_FILE_TAIL_KEY = "BLOCK_FILE_TAIL".getBytes();
 
     protected final DbSource<byte[], byte[]> db;
     private long size;
 
+    // Decoded blocks weighted by serialized size, and height to block hash
+    private volatile Cache<Sha3Hash, ConsensusBlock<T>> blockCache;
+    private volatile Cache<Long, Sha3Hash> indexCache;
+    private final HashFilter hashFilter;
+    private SegmentedBlockFile blockFile;
+    private TxReferenceCodec txReferences;
+    private TxReferenceCodec bodylessCodec;
+
     protected final ReentrantLock lock = new ReentrantLock();
 
     protected AbstractBlockStore(DbSource<byte[], byte[]> dbSource) {
-        Options options = new Options();
-        options.createIfMissing(true);
-        options.compressionType(CompressionType.NONE);
-        options.blockSize(10 * 1024 * 1024);
-        options.writeBufferSize(10 * 1024 * 1024);
-        options.cacheSize(0);
-        options.paranoidChecks(true);
-        options.verifyChecksums(true);
-        options.maxOpenFiles(32);
-        this.db = dbSource.init(options);
+        // Opened with the options of the database it is a part of, e.g. the shared branch database
+        this.db = dbSource.init();
+        BlockIndexKey.migrate(db, AbstractBlockStore::legacyBlockIndexKey);
         this.size = loadSize();
+        this.hashFilter = new HashFilter(db, "blocks");
+        setCacheSize(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Resizes the block cache. The cached blocks are dropped.
+     *
+     * @param maxBytes sum of the serialized block size to keep in memory, 0 disables the cache
+     */
+    @Override
+    public void setCacheSize(long maxBytes) {
+        this.blockCache = CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(maxBytes, 0))
+                .weigher((Sha3Hash key, ConsensusBlock<T> block) -> block.getSerializedSize())
+                .recordStats()
+                .build();
+        this.indexCache = CacheBuilder.newBuilder()
+                .maximumSize(maxBytes > 0 ? INDEX_CACHE_ENTRIES : 0)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Appends the binary of new blocks to the block file and keeps only their location in the database.
+     * Blocks stored before are still read from the database.
+     *
+     * @param blockFile segment files of this store
+     */
+    @Override
+    public void setBlockFile(SegmentedBlockFile blockFile) {
+        lock.lock();
+        try {
+            this.blockFile = blockFile.init();
+            seekCommittedTail();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void seekCommittedTail() {
+        byte[] tail = db.get(BLOCK_FILE_TAIL_KEY);
+        blockFile.seek(tail == null ? SegmentedBlockFile.Location.EMPTY_TAIL : SegmentedBlockFile.Location.of(tail));
+    }
+
+    /**
+     * Stores new blocks with the hashes of their txs, the tx bodies are read from the transaction store
+     * when a block is loaded. Blocks stored before keep their bodies.
+     *
+     * @param transactionStore store of the txs of this branch
+     */
+    @Override
+    public void setTxReferences(TransactionStore transactionStore) {
+        this.txReferences = new TxReferenceCodec(embeddedBlockPaths(), transactionStore);
+    }
+
+    /**
+     * Paths of field numbers to the blocks embedded in the consensus block, whose bodies are stored
+     * as tx references. The block of every consensus block is its first field.
+     */
+    protected List<int[]> embeddedBlockPaths() {
+        return Collections.singletonList(new int[] {1});
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return blockCache.stats().plus(indexCache.stats());
+    }
+
+    /**
+     * Read-through lookup of a block. The decoded block is cached and shared by the callers,
+     * so it must not be modified.
+     *
+     * @param key block hash
+     * @param decoder decodes the stored binary, the buffer may be a slice of the block file
+     * @return decoded block
+     */
+    @SuppressWarnings("unchecked")
+    protected <B extends ConsensusBlock<T>> B getBlock(Sha3Hash key, Function<ByteBuffer, B> decoder) {
+        ConsensusBlock<T> cached = blockCache.getIfPresent(key);
+        if (cached != null) {
+            return (B) cached;
+        }
+        byte[] foundValue;
+        lock.lock();
+        try {
+            foundValue = db.get(key.getBytes());
+        } finally {
+            lock.unlock();
+        }
+        if (foundValue == null) {
+            throw new NonExistObjectException(key.toString());
+        }
+        B block = decoder.apply(toBinary(foundValue));
+        blockCache.put(key, block);
+        return block;
+    }
+
+    private ByteBuffer toBinary(byte[] value) {
+        ByteBuffer binary;
+        if (!SegmentedBlockFile.Location.isLocation(value)) {
+            binary = ByteBuffer.wrap(value);
+        } else if (blockFile == null) {
+            throw new FailedOperationException("Block is in the block file which is not opened");
+        } else {
+            binary = blockFile.read(SegmentedBlockFile.Location.of(value));
+        }
+        if (!TxReferenceCodec.isCompact(binary)) {
+            return binary;
+        }
+        return txReferences != null ? txReferences.decode(binary) : bodylessCodec().decode(binary);
+    }
+
+    private TxReferenceCodec bodylessCodec() {
+        if (bodylessCodec == null) {
+            bodylessCodec = new TxReferenceCodec(embeddedBlockPaths(), null);
+        }
+        return bodylessCodec;
+    }
+
+    /**
+     * Replaces the stored block with its header and consensus proof, the txs of the block are not read any more.
+     * A block in the block file is written again to the database, its space in the file is not reclaimed.
+     *
+     * @param index height of the block
+     * @return false if the block is not stored or its body cannot be read
+     */
+    @Override
+    public boolean pruneBody(long index) {
+        Sha3Hash blockHash;
+        lock.lock();
+        try {
+            byte[] foundHash = db.get(blockIndexKey(index));
+            if (foundHash == null) {
+                return false;
+            }
+            blockHash = Sha3Hash.createByHashed(foundHash);
+            byte[] foundValue = db.get(foundHash);
+            if (foundValue == null
+                    || (SegmentedBlockFile.Location.isLocation(foundValue) && blockFile == null)) {
+                return false;
+            }
+            ByteBuffer binary = SegmentedBlockFile.Location.isLocation(foundValue)
+                    ? blockFile.read(SegmentedBlockFile.Location.of(foundValue)) : ByteBuffer.wrap(foundValue);
+            db.put(foundHash, bodylessCodec().stripBodies(binary));
+        } finally {
+            lock.unlock();
+        }
+        blockCache.invalidate(blockHash);
+        return true;
+    }
+
+    @Override
+    public void compact() {
+        db.compact();
+    }
+
+    /**
+     * The caches are filled by the reads of the thread writing a block, which see its uncommitted rows.
+     * The block file is written from the committed tail again, over the binaries of the rolled back blocks.
+     */
+    @Override
+    public void rollback() {
+        blockCache.invalidateAll();
+        indexCache.invalidateAll();
+        long committedSize = loadSize();
+        lock.lock();
+        try {
+            size = committedSize;
+            if (blockFile != null) {
+                seekCommittedTail();
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     @Override
@@ -60,21 +249,34 @@ public abstract class AbstractBlockStore<T> implements ConsensusBlockStore<T> {
             return;
         }
 
-        byte[] bytes = value.toBinary();
-        if (bytes.length > Constants.MAX_MEMORY) {
+        byte[] bytes = txReferences != null ? txReferences.encode(value.toBinary()) : value.toBinary();
+        if (blockFile == null && bytes.length > Constants.MAX_MEMORY) {
             log.debug("block binary {} > {}", bytes.length, Constants.MAX_MEMORY);
             return;
         }
+        putBinary(key, bytes);
+    }
+
+    private void putBinary(Sha3Hash key, byte[] bytes) {
         lock.lock();
         try {
             if (!contains(key)) {
-                log.trace("put (key: {})(blockHash {})", key, value.getHash());
-                db.put(key.getBytes(), bytes);
+                log.trace("put (key: {})", key);
+                if (blockFile != null) {
+                    // The location and the tail are committed with the block index
+                    db.put(key.getBytes(), blockFile.append(bytes).toBinary());
+                    db.put(BLOCK_FILE_TAIL_KEY, blockFile.getTail().toBinary());
+                } else {
+                    db.put(key.getBytes(), bytes);
+                }
+                hashFilter.put(key.getBytes());
                 size++;
                 db.put(LEVELDB_SIZE_KEY, ByteUtil.longToBytes(size));
             }
-        } catch (Exception e) {
-            log.debug(e.getMessage());
+        } catch (RuntimeException e) {
+            // Thrown to the writer of the block, which rolls its unit of work back
+            log.warn("Failed to put block {}: {}", key, e.getMessage());
+            throw e instanceof FailedOperationException ? e : new FailedOperationException(e);
         } finally {
             lock.unlock();
         }
@@ -89,7 +291,8 @@ public abstract class AbstractBlockStore<T> implements ConsensusBlockStore<T> {
         // TODO: check syncronizing about blockchain data, this is a defence code about leveldb exceptions.
         boolean result = false;
         try {
-            if (db.get(key.getBytes()) != null) {
+            if (blockCache.asMap().containsKey(key)
+                    || (hashFilter.mightContain(key.getBytes()) && db.get(key.getBytes()) != null)) {
                 result = true;
             }
         } catch (Exception e) {
@@ -99,6 +302,34 @@ public abstract class AbstractBlockStore<T> implements ConsensusBlockStore<T> {
         return result;
     }
 
+    /**
+     * Returns the blocks in the order of their hash. The blocks of a height range are read with the height index.
+     */
+    @Override
+    public Map<Sha3Hash, ConsensusBlock<T>> scan(Sha3Hash from, Sha3Hash to, boolean reverse) {
+        return getBlocks(db.scan(from == null ? null : from.getBytes(), to == null ? null : to.getBytes(), reverse));
+    }
+
+    @Override
+    public Map<Sha3Hash, ConsensusBlock<T>> prefix(Sha3Hash prefix) {
+        return getBlocks(db.prefix(prefix.getBytes()));
+    }
+
+    private Map<Sha3Hash, ConsensusBlock<T>> getBlocks(DbIterator<byte[], byte[]> iterator) {
+        List<Sha3Hash> hashes = new ArrayList<>();
+        try (DbIterator<byte[], byte[]> rows = iterator) {
+            rows.forEachRemaining(row -> {
+                // the height index and the meta rows are not blocks
+                if (row.getKey().length == Constants.HASH_LENGTH && !Arrays.equals(row.getKey(), LEVELDB_SIZE_KEY)) {
+                    hashes.add(Sha3Hash.createByHashed(row.getKey()));
+                }
+            });
+        }
+        Map<Sha3Hash, ConsensusBlock<T>> result = new LinkedHashMap<>();
+        hashes.forEach(hash -> result.put(hash, get(hash)));
+        return result;
+    }
+
     @Override
     public long size() {
         lock.lock();
@@ -113,6 +344,12 @@ public abstract class AbstractBlockStore<T> implements ConsensusBlockStore<T> {
     public void close() {
         lock.lock();
         try {
+            blockCache.invalidateAll();
+            indexCache.invalidateAll();
+            if (blockFile != null) {
+                blockFile.close();
+            }
+            hashFilter.save();
             db.close();
         } finally {
             lock.unlock();
@@ -129,23 +366,46 @@ public abstract class AbstractBlockStore<T> implements ConsensusBlockStore<T> {
         byte[] indexKey = blockIndexKey(index);
         // store block index
         lock.lock();
-        db.put(indexKey, block.getHash().getBytes());
-        // store block data
-        put(block.getHash(), block);
-        lock.unlock();
+        try {
+            db.put(indexKey, block.getHash().getBytes());
+            // store block data
+            put(block.getHash(), block);
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * Stores a block given as its binary with the tx bodies, such as a block of a state snapshot.
+     * The block is decoded when it is read.
+     */
     @Override
-    public ConsensusBlock<T> getBlockByIndex(long index) {
-        byte[] indexKey = blockIndexKey(index);
+    public void addBlock(long index, Sha3Hash hash, byte[] binary) {
         lock.lock();
-        byte[] blockHash = db.get(indexKey);
-        lock.unlock();
+        try {
+            db.put(blockIndexKey(index), hash.getBytes());
+            putBinary(hash, binary);
+        } finally {
+            lock.unlock();
+        }
+    }
 
+    @Override
+    public ConsensusBlock<T> getBlockByIndex(long index) {
+        Sha3Hash blockHash = indexCache.getIfPresent(index);
         if (blockHash == null) {
-            throw new NonExistObjectException(String.valueOf(index));
+            byte[] indexKey = blockIndexKey(index);
+            lock.lock();
+            byte[] foundValue = db.get(indexKey);
+            lock.unlock();
+
+            if (foundValue == null) {
+                throw new NonExistObjectException(String.valueOf(index));
+            }
+            blockHash = Sha3Hash.createByHashed(foundValue);
+            indexCache.put(index, blockHash);
         }
-        return get(Sha3Hash.createByHashed(blockHash));
+        return get(blockHash);
     }
 
     private long loadSize() {
@@ -161,6 +421,10 @@ public abstract class AbstractBlockStore<T> implements ConsensusBlockStore<T> {
     }
 
     private byte[] blockIndexKey(long index) {
+        return BlockIndexKey.of(index);
+    }
+
+    private static byte[] legacyBlockIndexKey(long index) {
         String blockIndexKey = "BLOCK_INDEX_" + index;
         return HashUtil.sha3(blockIndexKey.getBytes());
     }
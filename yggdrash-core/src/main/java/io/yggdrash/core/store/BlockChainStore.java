@@ -1,6 +1,7 @@
 package io.yggdrash.core.store;
 
 import io.yggdrash.common.store.StateStore;
+import io.yggdrash.common.store.datasource.UnitOfWork;
 
 public class BlockChainStore {
     private final TransactionStore transactionStore;
@@ -10,21 +11,31 @@ public class BlockChainStore {
     private final BranchStore branchStore;
     private final ContractStore contractStore;
     private final LogStore logStore;
+    private final TxIndexStore txIndexStore;
+    private final UnitOfWork unitOfWork;
 
     public BlockChainStore(TransactionStore transactionStore,
                            ReceiptStore receiptStore,
                            StateStore stateStore,
+                           StateCache stateCache,
+                           StateTrie stateTrie,
+                           StateHistoryStore stateHistory,
                            ConsensusBlockStore consensusBlockStore,
                            BranchStore branchStore,
-                           LogStore logStore) {
+                           LogStore logStore,
+                           TxIndexStore txIndexStore,
+                           UnitOfWork unitOfWork) {
         this.transactionStore = transactionStore;
         this.receiptStore = receiptStore;
         this.stateStore = stateStore;
         this.consensusBlockStore = consensusBlockStore;
         this.branchStore = branchStore;
         this.logStore = logStore;
+        this.txIndexStore = txIndexStore;
+        this.unitOfWork = unitOfWork;
 
-        contractStore = new ContractStore(branchStore, stateStore, receiptStore);
+        contractStore = new ContractStore(branchStore, stateStore, stateCache, stateTrie, stateHistory,
+                receiptStore);
     }
 
     public TransactionStore getTransactionStore() {
@@ -54,4 +65,12 @@ public class BlockChainStore {
     public LogStore getLogStore() {
         return logStore;
     }
+
+    public TxIndexStore getTxIndexStore() {
+        return txIndexStore;
+    }
+
+    public UnitOfWork getUnitOfWork() {
+        return unitOfWork;
+    }
 }
@@ -1,18 +1,51 @@
 package io.yggdrash.core.store;
 
+import io.yggdrash.common.config.Constants.Limit;
+import io.yggdrash.common.contract.vo.PrefixKeyEnum;
 import io.yggdrash.common.store.StateStore;
+import io.yggdrash.common.store.datasource.BitcaskDbSource;
 import io.yggdrash.common.store.datasource.DbSource;
 import io.yggdrash.common.store.datasource.HashMapDbSource;
 import io.yggdrash.common.store.datasource.LevelDbDataSource;
+import io.yggdrash.common.store.datasource.SharedDbSource;
+import io.yggdrash.common.store.datasource.UnitOfWork;
 import io.yggdrash.contract.core.store.ReadWriterStore;
 import io.yggdrash.core.blockchain.BranchId;
+import org.iq80.leveldb.Options;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 
 public class BlockChainStoreBuilder {
+    private static final long DEFAULT_STATE_CACHE_SIZE = 64 * 1024 * 1024;
+    static final String BRANCH_NAMESPACE = "branch";
+    /**
+     * Keys of the branch metadata in the state store. The namespace is prepended without a separator,
+     * so the keys are matched exactly: a contract key may start with the namespace too.
+     */
+    static final Set<String> BRANCH_KEYS = branchKeys();
+    private static final long DEFAULT_DATABASE_CACHE_SIZE = 32 * 1024 * 1024;
+    private static final long DEFAULT_WRITE_BUFFER_SIZE = 8 * 1024 * 1024;
+
     BranchId branchId;
     private BlockStoreFactory blockStoreFactory;
     private String consensusAlgorithm;
     private boolean isProductionMode;
     private String databasePath;
+    private Long blockCacheSize;
+    private long blockFileSegmentSize;
+    private boolean txReferences;
+    private boolean addressIndex;
+    private long stateHistoryRetention;
+    private long txPoolSize = Limit.TX_POOL_SIZE;
+    private long stateCacheSize = DEFAULT_STATE_CACHE_SIZE;
+    private long databaseCacheSize = DEFAULT_DATABASE_CACHE_SIZE;
+    private long writeBufferSize = DEFAULT_WRITE_BUFFER_SIZE;
+    private final Set<String> appendOnlyStores = new HashSet<>();
+    private SharedDbSource sharedDbSource;
+    private final UnitOfWork unitOfWork = new UnitOfWork();
 
 
     private BlockChainStoreBuilder(BranchId branchId) {
@@ -29,6 +62,89 @@ public class BlockChainStoreBuilder {
         return this;
     }
 
+    public BlockChainStoreBuilder withBlockCacheSize(long blockCacheSize) {
+        this.blockCacheSize = blockCacheSize;
+        return this;
+    }
+
+
+    /**
+     * Stores block binaries in memory-mapped segment files instead of the database.
+     *
+     * @param segmentSize size of a segment file, 0 keeps the blocks in the database
+     */
+    public BlockChainStoreBuilder withBlockFile(long segmentSize) {
+        this.blockFileSegmentSize = segmentSize;
+        return this;
+    }
+
+    /**
+     * Stores new blocks with the hashes of their txs instead of the tx bodies.
+     *
+     * @param txReferences true if the tx bodies are kept only by the transaction store
+     */
+    public BlockChainStoreBuilder withTxReferences(boolean txReferences) {
+        this.txReferences = txReferences;
+        return this;
+    }
+
+    /**
+     * Indexes the committed txs by the address of the sender and the recipients.
+     *
+     * @param addressIndex true to write the address index with the blocks
+     */
+    public BlockChainStoreBuilder withAddressIndex(boolean addressIndex) {
+        this.addressIndex = addressIndex;
+        return this;
+    }
+
+    /**
+     * Keeps the versions of the state values, so the contracts can be queried at a past block height.
+     *
+     * @param retention number of recent blocks whose state is kept, 0 keeps only the latest state
+     */
+    public BlockChainStoreBuilder withStateHistory(long retention) {
+        this.stateHistoryRetention = retention;
+        return this;
+    }
+
+    /**
+     * Bounds the pending txs of the branch.
+     *
+     * @param txPoolSize total size of the pending txs
+     */
+    public BlockChainStoreBuilder withTxPoolSize(long txPoolSize) {
+        this.txPoolSize = txPoolSize;
+        return this;
+    }
+
+    public BlockChainStoreBuilder withStateCacheSize(long stateCacheSize) {
+        this.stateCacheSize = stateCacheSize;
+        return this;
+    }
+
+    /**
+     * Memory of the branch database, shared by every store of the branch.
+     *
+     * @param databaseCacheSize block cache size
+     * @param writeBufferSize memtable size
+     */
+    public BlockChainStoreBuilder withDatabaseMemory(long databaseCacheSize, long writeBufferSize) {
+        this.databaseCacheSize = databaseCacheSize;
+        this.writeBufferSize = writeBufferSize;
+        return this;
+    }
+
+    /**
+     * Stores written to their own append-only log instead of the branch database.
+     * Meant for data which is written once and never deleted, such as blocks, txs and receipt.
+     *
+     * @param storeNames names of the stores
+     */
+    public BlockChainStoreBuilder withAppendOnlyStores(Collection<String> storeNames) {
+        this.appendOnlyStores.addAll(storeNames);
+        return this;
+    }
 
     public BlockChainStoreBuilder setBlockStoreFactory(BlockStoreFactory blockStoreFactory) {
         this.blockStoreFactory = blockStoreFactory;
@@ -46,11 +162,34 @@ public class BlockChainStoreBuilder {
 
 
     private DbSource<byte[], byte[]> getDbSource(String name) {
-        if (isProductionMode) {
-            return new LevelDbDataSource(databasePath, name);
+        DbSource<byte[], byte[]> dbSource;
+        if (isProductionMode && appendOnlyStores.contains(name)) {
+            // Not a part of the branch database batch, the unit of work writes it as a batch of its own
+            SharedDbSource branchDb = getSharedDbSource();
+            dbSource = new BitcaskDbSource(databasePath, branchId + "/appendOnly/" + name).init();
+            branchDb.exportNamespace(name, dbSource);
+            branchDb.importLevelDb(dbSource, databasePath, branchId + "/" + name);
+        } else if (isProductionMode) {
+            // Every store is a namespace of the branch database
+            SharedDbSource branchDb = getSharedDbSource();
+            dbSource = branchDb.namespace(name).init();
+            branchDb.importLevelDb(dbSource, databasePath, branchId + "/" + name);
         } else {
-            return new HashMapDbSource();
+            dbSource = new HashMapDbSource();
+        }
+        // Every store of the branch joins the same unit of work
+        return unitOfWork.register(dbSource);
+    }
+
+    private SharedDbSource getSharedDbSource() {
+        if (sharedDbSource == null) {
+            Options options = new Options();
+            options.createIfMissing(true);
+            options.cacheSize(databaseCacheSize);
+            options.writeBufferSize((int) writeBufferSize);
+            sharedDbSource = new SharedDbSource(new LevelDbDataSource(databasePath, branchId + "/store"), options);
         }
+        return sharedDbSource;
     }
 
     private BranchStore buildBranchStore(ReadWriterStore store) {
@@ -59,43 +198,107 @@ public class BlockChainStoreBuilder {
     }
 
     private TransactionStore buildTransactionStore() {
-        return new TransactionStore(getDbSource(branchId + "/txs"));
+        return new TransactionStore(getDbSource("txs"), new TxPool(txPoolSize));
+    }
+
+    private static Set<String> branchKeys() {
+        Set<String> keys = new HashSet<>();
+        for (BranchStore.BlockchainMetaInfo meta : BranchStore.BlockchainMetaInfo.values()) {
+            keys.add(BRANCH_NAMESPACE + meta);
+        }
+        keys.add(BRANCH_NAMESPACE + PrefixKeyEnum.VALIDATORS.toValue());
+        return Collections.unmodifiableSet(keys);
     }
 
     private StateStore buildStateStore() {
-        return new StateStore(getDbSource(branchId + "/state"));
+        return new StateStore(getDbSource("state"));
+    }
+
+    private StateTrie buildStateTrie(StateStore stateStore, BranchStore branchStore) {
+        StateTrie stateTrie = new StateTrie(getDbSource("trie"));
+        if (stateTrie.isEmpty() && stateStore.getStateSize() > 0) {
+            // The state was written before the trie, the branch meta data is not a part of it
+            stateTrie.update(branchStore.getLastExecuteBlockIndex(),
+                    consumer -> stateStore.forEach(BRANCH_KEYS, consumer));
+        }
+        return stateTrie;
+    }
+
+    private StateHistoryStore buildStateHistory(StateStore stateStore, BranchStore branchStore) {
+        StateHistoryStore stateHistory = new StateHistoryStore(getDbSource("stateHistory"), stateHistoryRetention);
+        if (stateHistory.isEnabled() && stateHistory.isEmpty() && stateStore.getStateSize() > 0) {
+            // The state was written before the versions, it becomes the first version
+            stateHistory.putFirst(branchStore.getLastExecuteBlockIndex(),
+                    consumer -> stateStore.forEach(BRANCH_KEYS, consumer));
+        }
+        return stateHistory;
     }
 
     private ReceiptStore buildReceiptStore() {
-        return new ReceiptStore(getDbSource(branchId + "/receipt"));
+        return new ReceiptStore(getDbSource("receipt"));
+    }
+
+    private TxIndexStore buildTxIndexStore() {
+        return new TxIndexStore(getDbSource("txIndex"), addressIndex);
     }
 
     private LogStore buildLogStore() {
-        return new LogStore(getDbSource(branchId + "/log"));
+        return new LogStore(getDbSource("log"));
     }
 
     public ConsensusBlockStore buildBlockStore() {
-        DbSource dbSource = getDbSource(branchId + "/blocks");
-        return blockStoreFactory.create(consensusAlgorithm, dbSource);
+        DbSource dbSource = getDbSource("blocks");
+        ConsensusBlockStore blockStore = blockStoreFactory.create(consensusAlgorithm, dbSource);
+        if (blockCacheSize != null) {
+            blockStore.setCacheSize(blockCacheSize);
+        }
+        if (isProductionMode && blockFileSegmentSize > 0) {
+            blockStore.setBlockFile(
+                    new SegmentedBlockFile(databasePath, branchId + "/blockFile", blockFileSegmentSize));
+        }
+        return blockStore;
     }
 
     public BlockChainStore build() {
+        // The branch database commits every store in one batch. Other sources are flushed in build order,
+        // so the block store is built last: if the node stops between flushes, the block is missing.
         TransactionStore txStore = buildTransactionStore();
+        // the pool and the counters follow the committed txs
+        txStore.setUnitOfWork(unitOfWork);
         ReceiptStore receiptStore = buildReceiptStore();
+        LogStore logStore = buildLogStore();
+        unitOfWork.onRollback(logStore::reload);
+        TxIndexStore txIndexStore = buildTxIndexStore();
         StateStore stateStore = buildStateStore();
-        ConsensusBlockStore blockStore = buildBlockStore();
+        unitOfWork.onRollback(stateStore::reload);
         // State Store and Branch Store is merged
-        StoreAdapter adapter = new StoreAdapter(stateStore, "branch");
+        StoreAdapter adapter = new StoreAdapter(stateStore, BRANCH_NAMESPACE);
+        StateCache stateCache = new StateCache(stateStore, stateCacheSize);
+        // Cached values of a rolled back block must not outlive it
+        unitOfWork.onRollback(stateCache::invalidateAll);
         BranchStore branchStore = buildBranchStore(adapter);
-        LogStore logStore = buildLogStore();
+        StateTrie stateTrie = buildStateTrie(stateStore, branchStore);
+        unitOfWork.onRollback(stateTrie::reload);
+        StateHistoryStore stateHistory = buildStateHistory(stateStore, branchStore);
+        unitOfWork.onRollback(stateHistory::reload);
+        ConsensusBlockStore blockStore = buildBlockStore();
+        unitOfWork.onRollback(blockStore::rollback);
+        if (txReferences) {
+            blockStore.setTxReferences(txStore);
+        }
 
         BlockChainStore blockChainStore = new BlockChainStore(
                 txStore,
                 receiptStore,
                 stateStore,
+                stateCache,
+                stateTrie,
+                stateHistory,
                 blockStore,
                 branchStore,
-                logStore
+                logStore,
+                txIndexStore,
+                unitOfWork
         );
 
         return blockChainStore;
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import io.yggdrash.common.store.datasource.DbIterator;
+import io.yggdrash.common.store.datasource.DbSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Block height index key. A one byte tag followed by the big-endian height,
+ * so that contiguous heights are stored next to each other and can be range scanned.
+ */
+public final class BlockIndexKey {
+    private static final Logger log = LoggerFactory.getLogger(BlockIndexKey.class);
+
+    private static final byte PREFIX = 'I';
+    private static final int KEY_LENGTH = 1 + Long.BYTES;
+    private static final byte[] VERSION_KEY = "BLOCK_INDEX_VERSION".getBytes();
+    private static final byte[] VERSION = new byte[] {1};
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
+    private BlockIndexKey() {
+    }
+
+    public static byte[] of(long index) {
+        return ByteBuffer.allocate(KEY_LENGTH).put(PREFIX).putLong(index).array();
+    }
+
+    public static long indexOf(byte[] key) {
+        return ByteBuffer.wrap(key, 1, Long.BYTES).getLong();
+    }
+
+    /**
+     * Returns the values of the heights in the range in height order.
+     *
+     * @param db block index store
+     * @param from first height, null for the genesis
+     * @param to end height (exclusive), null for the last height
+     * @param reverse order from the last height
+     */
+    public static Map<Long, byte[]> scan(DbSource<byte[], byte[]> db, Long from, Long to, boolean reverse) {
+        byte[] fromKey = of(from == null ? 0 : Math.max(from, 0));
+        byte[] toKey = to == null ? new byte[] {PREFIX + 1} : of(Math.max(to, 0));
+        Map<Long, byte[]> result = new LinkedHashMap<>();
+        try (DbIterator<byte[], byte[]> rows = db.scan(fromKey, toKey, reverse)) {
+            rows.forEachRemaining(row -> {
+                // other keys may start with the tag
+                if (row.getKey().length == KEY_LENGTH) {
+                    result.put(indexOf(row.getKey()), row.getValue());
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Rewrites the legacy height index of the store to sequential keys.
+     * It runs once per store and resumes from the first height not migrated yet.
+     *
+     * @param db block index store
+     * @param legacyKey legacy key of the height
+     */
+    public static void migrate(DbSource<byte[], byte[]> db, LongFunction<byte[]> legacyKey) {
+        if (db.get(VERSION_KEY) != null) {
+            return;
+        }
+
+        long index = 0;
+        while (db.get(of(index)) != null) {
+            index++;
+        }
+
+        long start = index;
+        Map<byte[], byte[]> rows = new HashMap<>();
+        byte[] legacy = legacyKey.apply(index);
+        byte[] value = db.get(legacy);
+        while (value != null) {
+            rows.put(of(index), value);
+            rows.put(legacy, null);
+            if (rows.size() >= MIGRATION_BATCH_SIZE * 2) {
+                db.updateByBatch(rows);
+                rows.clear();
+            }
+            index++;
+            legacy = legacyKey.apply(index);
+            value = db.get(legacy);
+        }
+        rows.put(VERSION_KEY, VERSION);
+        db.updateByBatch(rows);
+
+        if (index > start) {
+            log.info("Block index migrated. height {} ~ {}", start, index - 1);
+        }
+    }
+}
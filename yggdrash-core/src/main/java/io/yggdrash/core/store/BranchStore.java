@@ -33,6 +33,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -58,6 +59,16 @@ public class BranchStore implements ReadWriterStore<String, JsonObject>, BranchS
         return this.store.get(key);
     }
 
+    @Override
+    public Map<String, JsonObject> scan(String from, String to, boolean reverse) {
+        return this.store.scan(from, to, reverse);
+    }
+
+    @Override
+    public Map<String, JsonObject> prefix(String prefix) {
+        return this.store.prefix(prefix);
+    }
+
     @Override
     public boolean contains(String key) {
         return this.store.contains(key);
@@ -118,6 +129,45 @@ public class BranchStore implements ReadWriterStore<String, JsonObject>, BranchS
         store.put(BlockchainMetaInfo.LAST_EXECUTE_BLOCK.toString(), lastExecuteBlock);
     }
 
+    /**
+     * Returns the highest block height whose history of the target was pruned, or -1.
+     *
+     * @param target PRUNED_RECEIPTS, PRUNED_LOGS or PRUNED_BLOCK_BODIES
+     */
+    public long getPrunedBlockIndex(BlockchainMetaInfo target) {
+        return reStoreToLong(target.toString(), -1);
+    }
+
+    public void setPrunedBlockIndex(BlockchainMetaInfo target, long index) {
+        storeLongValue(target.toString(), index);
+    }
+
+    /**
+     * Returns the height of the state snapshot the branch was loaded from, or -1.
+     * The blocks between the genesis and the snapshot block are not stored.
+     */
+    public long getSnapshotBlockIndex() {
+        return reStoreToLong(BlockchainMetaInfo.SNAPSHOT_BLOCK_INDEX.toString(), -1);
+    }
+
+    void setSnapshotBlockIndex(long index) {
+        storeLongValue(BlockchainMetaInfo.SNAPSHOT_BLOCK_INDEX.toString(), index);
+    }
+
+    /**
+     * Returns the hash of the snapshot block being imported, which is kept once the import is done, or null.
+     */
+    public String getSnapshotImport() {
+        JsonObject value = this.store.get(BlockchainMetaInfo.SNAPSHOT_IMPORT.toString());
+        return value == null ? null : value.get("value").getAsString();
+    }
+
+    void setSnapshotImport(String blockHash) {
+        JsonObject value = new JsonObject();
+        value.addProperty("value", blockHash);
+        this.store.put(BlockchainMetaInfo.SNAPSHOT_IMPORT.toString(), value);
+    }
+
     private Long reStoreToLong(String key, long defaultValue) {
         JsonObject value = this.store.get(key);
         if (value != null) {
@@ -288,6 +338,11 @@ public class BranchStore implements ReadWriterStore<String, JsonObject>, BranchS
         BRANCH_ID,
         GENESIS_BLOCK,
         VALIDATORS,
-        BRANCH_CONTRACTS
+        BRANCH_CONTRACTS,
+        PRUNED_RECEIPTS,
+        PRUNED_LOGS,
+        PRUNED_BLOCK_BODIES,
+        SNAPSHOT_BLOCK_INDEX,
+        SNAPSHOT_IMPORT
     }
 }
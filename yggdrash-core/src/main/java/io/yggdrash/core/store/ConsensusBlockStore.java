@@ -16,6 +16,7 @@
 
 package io.yggdrash.core.store;
 
+import com.google.common.cache.CacheStats;
 import io.yggdrash.common.Sha3Hash;
 import io.yggdrash.contract.core.store.ReadWriterStore;
 import io.yggdrash.core.consensus.ConsensusBlock;
@@ -26,5 +27,32 @@ public interface ConsensusBlockStore<T> extends ReadWriterStore<Sha3Hash, Consen
 
     void addBlock(ConsensusBlock<T> block);
 
+    void addBlock(long index, Sha3Hash hash, byte[] binary);
+
     ConsensusBlock<T> getBlockByIndex(long index);
+
+    void setCacheSize(long maxBytes);
+
+    void setBlockFile(SegmentedBlockFile blockFile);
+
+    void setTxReferences(TransactionStore transactionStore);
+
+    /**
+     * Keeps only the header and the consensus proof of the block, when the history of old blocks is pruned.
+     *
+     * @return false if the block is not stored or its body cannot be read
+     */
+    boolean pruneBody(long index);
+
+    void compact();
+
+    /**
+     * Drops the blocks read from the writes of a block which was rolled back.
+     */
+    void rollback();
+
+    /**
+     * Hit/miss statistics of the block and height lookups served from memory.
+     */
+    CacheStats getCacheStats();
 }
@@ -22,14 +22,23 @@ public class ContractStore {
 
     private BranchStore branchStore;
     private StateStore stateStore;
+    private StateCache stateCache;
+    private StateTrie stateTrie;
+    private StateHistoryStore stateHistory;
+    private HistoricalStateStore historicalStateStore;
     private ReceiptStore receiptStore;
     private TempStateStore tmpStateStore;
 
-    public ContractStore(BranchStore branchStore, StateStore stateStore, ReceiptStore receiptStore) {
+    public ContractStore(BranchStore branchStore, StateStore stateStore, StateCache stateCache,
+                         StateTrie stateTrie, StateHistoryStore stateHistory, ReceiptStore receiptStore) {
         this.branchStore = branchStore;
         this.stateStore = stateStore;
+        this.stateCache = stateCache;
+        this.stateTrie = stateTrie;
+        this.stateHistory = stateHistory;
         this.receiptStore = receiptStore;
-        this.tmpStateStore = new TempStateStore(stateStore);
+        this.historicalStateStore = new HistoricalStateStore(stateCache, stateHistory);
+        this.tmpStateStore = new TempStateStore(historicalStateStore);
     }
 
     public BranchStore getBranchStore() {
@@ -40,6 +49,22 @@ public class ContractStore {
         return this.stateStore;
     }
 
+    public StateCache getStateCache() {
+        return this.stateCache;
+    }
+
+    public StateTrie getStateTrie() {
+        return this.stateTrie;
+    }
+
+    public StateHistoryStore getStateHistory() {
+        return this.stateHistory;
+    }
+
+    public HistoricalStateStore getHistoricalStateStore() {
+        return this.historicalStateStore;
+    }
+
     public TempStateStore getTmpStateStore() {
         return this.tmpStateStore;
     }
@@ -58,6 +83,8 @@ public class ContractStore {
         this.branchStore.close();
         this.stateStore.close();
         this.tmpStateStore.close();
+        this.stateCache.close();
+        this.stateHistory.close();
         this.receiptStore.close();
     }
 
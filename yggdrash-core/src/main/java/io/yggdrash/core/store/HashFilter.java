@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import io.yggdrash.common.store.datasource.DbIterator;
+import io.yggdrash.common.store.datasource.DbSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bloom filter of the keys of a store, consulted before the database so a key surely missing is never read.
+ * The filter is saved to the store when it is closed and dropped once loaded, so after a crash
+ * it is rebuilt from the keys of the store. Until it is ready, every key might be contained.
+ */
+public class HashFilter {
+    private static final Logger log = LoggerFactory.getLogger(HashFilter.class);
+    static final byte[] FILTER_KEY = "HASH_FILTER".getBytes();
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_EXPECTED_KEYS = 1_000_000;
+
+    private final DbSource<byte[], byte[]> db;
+    private final String name;
+    // keys put while the filter is rebuilt
+    private final List<byte[]> pendingKeys = new ArrayList<>();
+    private volatile BloomFilter<byte[]> filter;
+    private volatile boolean ready;
+    private long expectedKeys;
+
+    /**
+     * @param db store of the keys, initialized
+     * @param name name of the store in the logs
+     */
+    public HashFilter(DbSource<byte[], byte[]> db, String name) {
+        this.db = db;
+        this.name = name;
+        if (!load()) {
+            Thread rebuild = new Thread(this::rebuild, "hash-filter-" + name);
+            rebuild.setDaemon(true);
+            rebuild.start();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return false if the key is surely not in the store
+     */
+    public boolean mightContain(byte[] key) {
+        return !ready || filter.mightContain(key);
+    }
+
+    /**
+     * Adds a key written to the store.
+     */
+    public void put(byte[] key) {
+        if (!ready) {
+            synchronized (pendingKeys) {
+                if (!ready) {
+                    pendingKeys.add(key);
+                    return;
+                }
+            }
+        }
+        filter.put(key);
+    }
+
+    /**
+     * Writes the filter to the store, to be loaded when the store is opened again.
+     */
+    public void save() {
+        if (!ready) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeLong(expectedKeys);
+            filter.writeTo(data);
+            data.flush();
+            db.put(FILTER_KEY, out.toByteArray());
+        } catch (IOException e) {
+            log.warn("Hash filter of {} is not saved. {}", name, e.getMessage());
+        }
+    }
+
+    private boolean load() {
+        byte[] saved = db.get(FILTER_KEY);
+        if (saved == null) {
+            return false;
+        }
+        // a filter saved before a crash would miss the keys written after it
+        db.delete(FILTER_KEY);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(saved))) {
+            long expected = in.readLong();
+            BloomFilter<byte[]> loaded = BloomFilter.readFrom(in, Funnels.byteArrayFunnel());
+            if (loaded.approximateElementCount() > expected) {
+                // full, the false positive rate has grown
+                this.expectedKeys = loaded.approximateElementCount() * 2;
+                return false;
+            }
+            this.expectedKeys = expected;
+            this.filter = loaded;
+            this.ready = true;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Hash filter of {} is not loaded. {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Adds every key of the store. If there are more keys than expected, they are added again to a larger filter.
+     */
+    void rebuild() {
+        long expected = Math.max(expectedKeys, MIN_EXPECTED_KEYS);
+        try {
+            while (true) {
+                BloomFilter<byte[]> rebuilt = BloomFilter.create(Funnels.byteArrayFunnel(), expected,
+                        FALSE_POSITIVE_RATE);
+                long count = 0;
+                try (DbIterator<byte[], byte[]> rows = db.scan(null, null, false)) {
+                    while (rows.hasNext()) {
+                        rebuilt.put(rows.next().getKey());
+                        count++;
+                    }
+                }
+                if (count <= expected) {
+                    synchronized (pendingKeys) {
+                        if (ready) {
+                            return;
+                        }
+                        pendingKeys.forEach(rebuilt::put);
+                        pendingKeys.clear();
+                        this.expectedKeys = expected;
+                        this.filter = rebuilt;
+                        this.ready = true;
+                    }
+                    log.info("Hash filter of {} is rebuilt. keys={}", name, count);
+                    return;
+                }
+                expected = count * 2;
+            }
+        } catch (RuntimeException e) {
+            // lookups keep reading the database
+            log.warn("Hash filter of {} is not rebuilt. {}", name, e.getMessage());
+        }
+    }
+}
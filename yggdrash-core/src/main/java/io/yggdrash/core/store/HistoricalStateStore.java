@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.yggdrash.core.store;
+
+import com.google.gson.JsonObject;
+import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.contract.core.store.ReadWriterStore;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * State seen by the contracts. It is the latest state, unless the current thread reads at a block height,
+ * then the values come from the state versions and the store is read only.
+ */
+public class HistoricalStateStore implements ReadWriterStore<String, JsonObject> {
+    private final ReadWriterStore<String, JsonObject> latest;
+    private final StateHistoryStore history;
+    private final ThreadLocal<Long> height = new ThreadLocal<>();
+
+    public HistoricalStateStore(ReadWriterStore<String, JsonObject> latest, StateHistoryStore history) {
+        this.latest = latest;
+        this.history = history;
+    }
+
+    /**
+     * Runs the reader against the state at the height on the current thread.
+     *
+     * @param atHeight block height
+     * @param reader reads the state through this store
+     * @return result of the reader
+     */
+    public <T> T readAt(long atHeight, Callable<T> reader) throws Exception {
+        if (!history.isAvailable(atHeight)) {
+            throw new FailedOperationException(String.format("State at height %d is not available (%d ~ %d)",
+                    atHeight, history.getOldestHeight(), history.getLastHeight()));
+        }
+        height.set(atHeight);
+        try {
+            return reader.call();
+        } finally {
+            height.remove();
+        }
+    }
+
+    /**
+     * @return whether the current thread reads the state at a block height
+     */
+    public boolean isReadingAt() {
+        return height.get() != null;
+    }
+
+    @Override
+    public void put(String key, JsonObject value) {
+        if (height.get() != null) {
+            throw new FailedOperationException("The state at a height is read only");
+        }
+        latest.put(key, value);
+    }
+
+    @Override
+    public JsonObject get(String key) {
+        Long atHeight = height.get();
+        return atHeight == null ? latest.get(key) : history.get(key, atHeight);
+    }
+
+    @Override
+    public boolean contains(String key) {
+        Long atHeight = height.get();
+        return atHeight == null ? latest.contains(key) : history.contains(key, atHeight);
+    }
+
+    @Override
+    public Map<String, JsonObject> scan(String from, String to, boolean reverse) {
+        Long atHeight = height.get();
+        return atHeight == null ? latest.scan(from, to, reverse) : history.scan(from, to, reverse, atHeight);
+    }
+
+    @Override
+    public Map<String, JsonObject> prefix(String prefix) {
+        Long atHeight = height.get();
+        return atHeight == null ? latest.prefix(prefix) : history.prefix(prefix, atHeight);
+    }
+
+    @Override
+    public void close() {
+        latest.close();
+    }
+}
@@ -12,15 +12,46 @@
 
 package io.yggdrash.core.store;
 
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
 import com.google.common.primitives.Longs;
+import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.common.store.datasource.DbIterator;
 import io.yggdrash.common.store.datasource.DbSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
 
+/**
+ * Log entries by sequential log index. An entry points to a log line of a receipt,
+ * its format is decided by the LogIndexer.
+ * The logs of a block are also indexed by their filter terms, and the block keeps the range of its logs
+ * with a Bloom filter of their terms. These rows start with a letter, so they never fall in the range
+ * of the log index keys.
+ */
 public class LogStore {
     private static final Logger log = LoggerFactory.getLogger(LogStore.class);
+    private static final byte[] INDEX_KEY = "index".getBytes();
+    private static final byte TERM_PREFIX = 'T';
+    private static final byte BLOCK_PREFIX = 'B';
+    private static final byte[] EMPTY = new byte[0];
+    private static final double BLOOM_FPP = 0.01;
+    // Highest block or log index of a range, so that the end key of its scan does not overflow
+    private static final long MAX_INDEX = Long.MAX_VALUE - 1;
+
     private final DbSource<byte[], byte[]> db;
     private long index;
 
@@ -31,21 +62,161 @@ public class LogStore {
     }
 
     public long getIndex() {
-        byte[] originIndex = db.get("index".getBytes());
+        byte[] originIndex = db.get(INDEX_KEY);
         return originIndex != null ? ByteBuffer.wrap(originIndex).getLong() : 0;
     }
 
     private void putIndex() {
-        db.put("index".getBytes(), Longs.toByteArray(index));
+        db.put(INDEX_KEY, Longs.toByteArray(index));
     }
 
-    public void put(String value) {
-        db.put(Longs.toByteArray(index++), value.getBytes());
+    public synchronized void put(byte[] value) {
+        db.put(Longs.toByteArray(index++), value);
         putIndex();
     }
 
-    public String get(long index) {
-        return new String(db.get(Longs.toByteArray(index)));
+    /**
+     * Appends the entries of a block with their filter terms, with one batch.
+     *
+     * @param blockIndex height of the block
+     * @param values entries in log index order
+     * @param terms filter terms of each entry
+     */
+    public synchronized void putAll(long blockIndex, List<byte[]> values, List<? extends Collection<String>> terms) {
+        long firstIndex = index;
+        Map<byte[], byte[]> rows = new HashMap<>();
+        Set<String> blockTerms = new HashSet<>();
+        for (int i = 0; i < values.size(); i++) {
+            long logIndex = index++;
+            rows.put(Longs.toByteArray(logIndex), values.get(i));
+            for (String term : terms.get(i)) {
+                rows.put(termKey(term, blockIndex, logIndex), EMPTY);
+                blockTerms.add(term);
+            }
+        }
+        rows.put(blockKey(blockIndex), toBlockLogs(firstIndex, values.size(), blockTerms));
+        rows.put(INDEX_KEY, Longs.toByteArray(index));
+        db.updateByBatch(rows);
+    }
+
+    /**
+     * Reads the index counter again, e.g. after the entries of a block were rolled back.
+     */
+    public synchronized void reload() {
+        this.index = getIndex();
+    }
+
+    public byte[] get(long index) {
+        return db.get(Longs.toByteArray(index));
+    }
+
+    /**
+     * Get logs from the start index to the end index (inclusive) with one range scan
+     * @param from start index
+     * @param to end index
+     * @return logs ordered by index
+     */
+    public Map<Long, byte[]> get(long from, long to) {
+        Map<Long, byte[]> logs = new LinkedHashMap<>();
+        long start = Math.max(from, 0);
+        long end = Math.min(to, MAX_INDEX);
+        if (start > end) {
+            return logs;
+        }
+        try (DbIterator<byte[], byte[]> iterator
+                     = db.scan(Longs.toByteArray(start), Longs.toByteArray(end + 1), false)) {
+            iterator.forEachRemaining(row -> logs.put(Longs.fromByteArray(row.getKey()), row.getValue()));
+        }
+        return logs;
+    }
+
+    /**
+     * Passes the logs of the term in the blocks to the visitor in log index order, scanning only the matched rows.
+     * The scan stops when the visitor returns false.
+     *
+     * @param term filter term
+     * @param fromBlock start block index
+     * @param toBlock end block index (inclusive)
+     * @param visitor takes the log index and the block index of each log
+     */
+    public void forEachLogIndex(String term, long fromBlock, long toBlock, BiPredicate<Long, Long> visitor) {
+        long start = Math.max(fromBlock, 0);
+        long end = Math.min(toBlock, MAX_INDEX);
+        if (start > end) {
+            return;
+        }
+        try (DbIterator<byte[], byte[]> iterator
+                     = db.scan(termKey(term, start), termKey(term, end + 1), false)) {
+            while (iterator.hasNext()) {
+                byte[] rowKey = iterator.next().getKey();
+                ByteBuffer key = ByteBuffer.wrap(rowKey, rowKey.length - 2 * Long.BYTES, 2 * Long.BYTES);
+                long blockIndex = key.getLong();
+                if (!visitor.test(key.getLong(), blockIndex)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the first and the last log index of the blocks, or null if they have no log.
+     */
+    public long[] getLogRange(long fromBlock, long toBlock) {
+        ByteBuffer first = firstBlockLogs(fromBlock, toBlock, false);
+        ByteBuffer last = firstBlockLogs(fromBlock, toBlock, true);
+        if (first == null || last == null) {
+            return null;
+        }
+        long start = first.getLong();
+        long end = last.getLong() + last.getInt() - 1;
+        return start <= end ? new long[] {start, end} : null;
+    }
+
+    /**
+     * Checks the Bloom filter of the block. A false result means no log of the block has all the terms,
+     * a block stored without the filter might contain them.
+     */
+    public boolean mightContain(long blockIndex, Collection<String> terms) {
+        byte[] blockLogs = db.get(blockKey(blockIndex));
+        if (blockLogs == null) {
+            return true;
+        }
+        BloomFilter<CharSequence> bloom = readBloom(blockLogs);
+        return terms.stream().allMatch(bloom::mightContain);
+    }
+
+    /**
+     * Deletes the logs of a block, their term rows and the Bloom filter of the block with one batch.
+     * The log index counter is kept, the indexes of the deleted logs are not reused.
+     *
+     * @param blockIndex height of the block
+     * @param terms filter terms of the logs of the block
+     */
+    public void deleteBlock(long blockIndex, Collection<String> terms) {
+        Map<byte[], byte[]> rows = new HashMap<>();
+        byte[] blockLogs = db.get(blockKey(blockIndex));
+        if (blockLogs != null) {
+            ByteBuffer range = ByteBuffer.wrap(blockLogs);
+            long firstIndex = range.getLong();
+            int size = range.getInt();
+            for (long logIndex = firstIndex; logIndex < firstIndex + size; logIndex++) {
+                rows.put(Longs.toByteArray(logIndex), null);
+            }
+            rows.put(blockKey(blockIndex), null);
+        }
+        for (String term : terms) {
+            try (DbIterator<byte[], byte[]> iterator
+                         = db.scan(termKey(term, blockIndex), termKey(term, blockIndex + 1), false)) {
+                iterator.forEachRemaining(row -> rows.put(row.getKey(), null));
+            }
+        }
+        if (!rows.isEmpty()) {
+            db.updateByBatch(rows);
+        }
+    }
+
+    public void compact() {
+        db.compact();
     }
 
     public long size() {
@@ -61,4 +232,57 @@ public class LogStore {
         log.debug("Close LogStore. Current Log Index : {}", index);
         this.db.close();
     }
-}
\ No newline at end of file
+
+    private ByteBuffer firstBlockLogs(long fromBlock, long toBlock, boolean reverse) {
+        long start = Math.max(fromBlock, 0);
+        long end = Math.min(toBlock, MAX_INDEX);
+        if (start > end) {
+            return null;
+        }
+        try (DbIterator<byte[], byte[]> iterator
+                     = db.scan(blockKey(start), blockKey(end + 1), reverse)) {
+            return iterator.hasNext() ? ByteBuffer.wrap(iterator.next().getValue()) : null;
+        }
+    }
+
+    private static byte[] toBlockLogs(long firstIndex, int size, Set<String> terms) {
+        BloomFilter<CharSequence> bloom = BloomFilter.create(
+                Funnels.stringFunnel(StandardCharsets.UTF_8), Math.max(terms.size(), 1), BLOOM_FPP);
+        terms.forEach(bloom::put);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(firstIndex).putInt(size).array(), 0,
+                Long.BYTES + Integer.BYTES);
+        try {
+            bloom.writeTo(out);
+        } catch (IOException e) {
+            throw new FailedOperationException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static BloomFilter<CharSequence> readBloom(byte[] blockLogs) {
+        int offset = Long.BYTES + Integer.BYTES;
+        try {
+            return BloomFilter.readFrom(new ByteArrayInputStream(blockLogs, offset, blockLogs.length - offset),
+                    Funnels.stringFunnel(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new FailedOperationException(e);
+        }
+    }
+
+    // T + term length + term + block index + log index
+    private static byte[] termKey(String term, long blockIndex, long logIndex) {
+        byte[] prefix = termKey(term, blockIndex);
+        return ByteBuffer.allocate(prefix.length + Long.BYTES).put(prefix).putLong(logIndex).array();
+    }
+
+    private static byte[] termKey(String term, long blockIndex) {
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + Integer.BYTES + bytes.length + Long.BYTES)
+                .put(TERM_PREFIX).putInt(bytes.length).put(bytes).putLong(blockIndex).array();
+    }
+
+    private static byte[] blockKey(long blockIndex) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(BLOCK_PREFIX).putLong(blockIndex).array();
+    }
+}
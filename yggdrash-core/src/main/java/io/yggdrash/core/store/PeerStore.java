@@ -17,6 +17,7 @@
 package io.yggdrash.core.store;
 
 import io.yggdrash.common.crypto.HashUtil;
+import io.yggdrash.common.store.datasource.DbIterator;
 import io.yggdrash.common.store.datasource.DbSource;
 import io.yggdrash.common.utils.ByteUtil;
 import io.yggdrash.common.utils.SerializationUtil;
@@ -29,12 +30,16 @@ import org.slf4j.LoggerFactory;
 import org.spongycastle.util.encoders.Hex;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class PeerStore implements ReadWriterStore<PeerId, Peer> {
 
     private static final Logger log = LoggerFactory.getLogger(PeerStore.class);
     private static final byte[] TOTAL_SIZE = SerializationUtil.serializeString("TOTAL_SIZE");
+    // sha3omit12 of the ynode URI, the index keys are full hashes
+    private static final int PEER_ID_LENGTH = 20;
 
     private final DbSource<byte[], byte[]> db;
     private long peerSize;
@@ -70,6 +75,28 @@ public class PeerStore implements ReadWriterStore<PeerId, Peer> {
         return null;
     }
 
+    @Override
+    public Map<PeerId, Peer> scan(PeerId from, PeerId to, boolean reverse) {
+        return toPeers(db.scan(from == null ? null : from.getBytes(), to == null ? null : to.getBytes(), reverse));
+    }
+
+    @Override
+    public Map<PeerId, Peer> prefix(PeerId prefix) {
+        return toPeers(db.prefix(prefix.getBytes()));
+    }
+
+    private Map<PeerId, Peer> toPeers(DbIterator<byte[], byte[]> iterator) {
+        Map<PeerId, Peer> result = new LinkedHashMap<>();
+        try (DbIterator<byte[], byte[]> rows = iterator) {
+            rows.forEachRemaining(row -> {
+                if (row.getKey().length == PEER_ID_LENGTH) {
+                    result.put(PeerId.of(row.getKey()), Peer.valueOf(row.getValue()));
+                }
+            });
+        }
+        return result;
+    }
+
     @Override
     public boolean contains(PeerId key) {
         return db.get(key.getBytes()) != null;
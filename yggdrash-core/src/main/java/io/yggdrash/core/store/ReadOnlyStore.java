@@ -19,6 +19,8 @@ package io.yggdrash.core.store;
 import io.yggdrash.common.exception.FailedOperationException;
 import io.yggdrash.contract.core.store.ReadWriterStore;
 
+import java.util.Map;
+
 public class ReadOnlyStore<K, V> implements ReadWriterStore<K, V> {
     private final ReadWriterStore<K, V> stateStore;
 
@@ -36,6 +38,16 @@ public class ReadOnlyStore<K, V> implements ReadWriterStore<K, V> {
         return stateStore.get(key);
     }
 
+    @Override
+    public Map<K, V> scan(K from, K to, boolean reverse) {
+        return stateStore.scan(from, to, reverse);
+    }
+
+    @Override
+    public Map<K, V> prefix(K prefix) {
+        return stateStore.prefix(prefix);
+    }
+
     @Override
     public boolean contains(K key) {
         return stateStore.contains(key);
@@ -1,11 +1,40 @@
 package io.yggdrash.core.store;
 
 import com.google.gson.Gson;
+import com.google.protobuf.Int64Value;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.yggdrash.common.exception.FailedOperationException;
 import io.yggdrash.common.store.datasource.DbSource;
+import io.yggdrash.contract.core.ContractEventSet;
+import io.yggdrash.contract.core.ExecuteStatus;
 import io.yggdrash.contract.core.Receipt;
 import io.yggdrash.contract.core.ReceiptImpl;
+import io.yggdrash.proto.Proto;
+import org.spongycastle.util.encoders.Hex;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Receipts in protobuf, keyed by the raw tx hash. The receipts of a block are also stored together
+ * under its height, so that they are read at once.
+ * Receipts written before in JSON under the hex string of the key are still read.
+ */
 public class ReceiptStore {
+    // tx hash, or block hash followed by the index of the block receipt
+    private static final Pattern HASH_KEY = Pattern.compile("([0-9a-f]{64})([0-9]{1,9})?");
+    private static final int HASH_LENGTH = 32;
+    private static final byte BLOCK_PREFIX = 'H';
+
     private final DbSource<byte[], byte[]> db;
     private final Gson gson = new Gson();
 
@@ -14,32 +43,187 @@ public class ReceiptStore {
     }
 
     public void put(Receipt receipt) {
-        // Receipt to ByteArray
-        String receiptJson = gson.toJson(receipt);
-        db.put(receipt.getTxId().getBytes(), receiptJson.getBytes());
+        put(receipt.getTxId(), receipt);
     }
 
     public void put(String hash, Receipt receipt) {
-        String receiptJson = gson.toJson(receipt);
-        db.put(hash.getBytes(), receiptJson.getBytes());
+        db.put(toKey(hash), toProto(receipt).toByteArray());
+    }
+
+    /**
+     * Stores the receipts of a block in execution order.
+     *
+     * @param blockIndex height of the block
+     * @param receipts receipts of the txs and the block
+     */
+    public void putBlockReceipts(long blockIndex, List<Receipt> receipts) {
+        Proto.ReceiptList.Builder builder = Proto.ReceiptList.newBuilder();
+        receipts.forEach(receipt -> builder.addReceipts(toProto(receipt)));
+        db.put(blockKey(blockIndex), builder.build().toByteArray());
     }
 
     public Receipt get(String key) {
-        byte[] receipt = db.get(key.getBytes());
-        if (receipt != null) {
-            // Receipt from ByteArray
-            String receiptJson = new String(receipt);
-            return gson.fromJson(receiptJson, ReceiptImpl.class);
+        byte[] receipt = db.get(toKey(key));
+        if (receipt == null) {
+            receipt = db.get(key.getBytes());
+        }
+        if (receipt == null) {
+            return new ReceiptImpl();
+        } else if (receipt.length > 0 && receipt[0] == '{') {
+            // JSON receipt written before protobuf
+            return gson.fromJson(new String(receipt), ReceiptImpl.class);
+        }
+        return toReceipt(parse(receipt));
+    }
+
+    /**
+     * Returns the receipts of a block, or an empty list if they were stored before the bundles.
+     */
+    public List<Receipt> getBlockReceipts(long blockIndex) {
+        byte[] receipts = db.get(blockKey(blockIndex));
+        if (receipts == null) {
+            return Collections.emptyList();
+        }
+        try {
+            List<Receipt> result = new ArrayList<>();
+            Proto.ReceiptList.parseFrom(receipts).getReceiptsList().forEach(r -> result.add(toReceipt(r)));
+            return result;
+        } catch (InvalidProtocolBufferException e) {
+            throw new FailedOperationException(e);
         }
-        return new ReceiptImpl();
     }
 
     // key -> txHash or blockHash + index
     public boolean contains(String key) {
-        return db.get(key.getBytes()) != null;
+        return db.get(toKey(key)) != null || db.get(key.getBytes()) != null;
+    }
+
+    /**
+     * Deletes the receipts of a block with one batch.
+     *
+     * @param blockIndex height of the block
+     * @param keys tx hashes and block receipt keys of the block
+     */
+    public void deleteBlockReceipts(long blockIndex, Collection<String> keys) {
+        Map<byte[], byte[]> rows = new HashMap<>();
+        for (String key : keys) {
+            rows.put(toKey(key), null);
+            if (isHashKey(key)) {
+                // JSON receipt written before protobuf
+                rows.put(key.getBytes(), null);
+            }
+        }
+        rows.put(blockKey(blockIndex), null);
+        db.updateByBatch(rows);
+    }
+
+    public void compact() {
+        db.compact();
     }
 
     public void close() {
         this.db.close();
     }
+
+    public static boolean isHashKey(String key) {
+        return HASH_KEY.matcher(key).matches();
+    }
+
+    /**
+     * A hash key is stored as its 32 raw bytes, with the index as 4 more bytes for a block receipt.
+     * Other keys are stored as they are.
+     */
+    public static byte[] toKey(String key) {
+        Matcher matcher = HASH_KEY.matcher(key);
+        if (!matcher.matches()) {
+            return key.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] hash = Hex.decode(matcher.group(1));
+        if (matcher.group(2) == null) {
+            return hash;
+        }
+        return ByteBuffer.allocate(hash.length + Integer.BYTES)
+                .put(hash).putInt(Integer.parseInt(matcher.group(2))).array();
+    }
+
+    /**
+     * Returns the hash key of the stored key, the reverse of toKey() for a hash key.
+     */
+    public static String fromHashKey(byte[] key) {
+        String hash = Hex.toHexString(Arrays.copyOf(key, HASH_LENGTH));
+        if (key.length == HASH_LENGTH) {
+            return hash;
+        }
+        return hash + ByteBuffer.wrap(key, HASH_LENGTH, Integer.BYTES).getInt();
+    }
+
+    private static byte[] blockKey(long blockIndex) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(BLOCK_PREFIX).putLong(blockIndex).array();
+    }
+
+    private static Proto.Receipt parse(byte[] receipt) {
+        try {
+            return Proto.Receipt.parseFrom(receipt);
+        } catch (InvalidProtocolBufferException e) {
+            throw new FailedOperationException(e);
+        }
+    }
+
+    private Proto.Receipt toProto(Receipt receipt) {
+        Proto.Receipt.Builder builder = Proto.Receipt.newBuilder()
+                .setIssuer(nullToEmpty(receipt.getIssuer()))
+                .setBranchId(nullToEmpty(receipt.getBranchId()))
+                .setBlockId(nullToEmpty(receipt.getBlockId()))
+                .setTxId(nullToEmpty(receipt.getTxId()))
+                .setContractVersion(nullToEmpty(receipt.getContractVersion()))
+                .setMethod(nullToEmpty(receipt.getMethod()))
+                .addAllLog(receipt.getLog())
+                .setStatus(receipt.getStatus().name());
+        if (receipt.getBlockSize() != null) {
+            builder.setBlockSize(Int64Value.newBuilder().setValue(receipt.getBlockSize()).build());
+        }
+        if (receipt.getBlockHeight() != null) {
+            builder.setBlockHeight(Int64Value.newBuilder().setValue(receipt.getBlockHeight()).build());
+        }
+        if (receipt.getTxSize() != null) {
+            builder.setTxSize(Int64Value.newBuilder().setValue(receipt.getTxSize()).build());
+        }
+        if (receipt.getEvents() != null && !receipt.getEvents().isEmpty()) {
+            builder.setEvents(gson.toJson(new ContractEventSet(new ArrayList<>(receipt.getEvents()))));
+        }
+        return builder.build();
+    }
+
+    private Receipt toReceipt(Proto.Receipt proto) {
+        ReceiptImpl receipt = new ReceiptImpl();
+        receipt.setIssuer(emptyToNull(proto.getIssuer()));
+        receipt.setBranchId(emptyToNull(proto.getBranchId()));
+        receipt.setBlockId(emptyToNull(proto.getBlockId()));
+        receipt.setTxId(emptyToNull(proto.getTxId()));
+        receipt.setContractVersion(emptyToNull(proto.getContractVersion()));
+        receipt.setMethod(emptyToNull(proto.getMethod()));
+        proto.getLogList().forEach(receipt::addLog);
+        receipt.setStatus(ExecuteStatus.valueOf(proto.getStatus()));
+        if (proto.hasBlockSize()) {
+            receipt.setBlockSize(proto.getBlockSize().getValue());
+        }
+        if (proto.hasBlockHeight()) {
+            receipt.setBlockHeight(proto.getBlockHeight().getValue());
+        }
+        if (proto.hasTxSize()) {
+            receipt.setTxSize(proto.getTxSize().getValue());
+        }
+        if (!proto.getEvents().isEmpty()) {
+            receipt.setEvent(gson.fromJson(proto.getEvents(), ContractEventSet.class));
+        }
+        return receipt;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
 }
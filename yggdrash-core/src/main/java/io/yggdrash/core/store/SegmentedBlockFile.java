@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import io.yggdrash.common.exception.FailedOperationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Block binaries appended to memory-mapped segment files.
+ * A block is addressed by its (segment, offset, length) location and read as a slice of the mapped segment,
+ * without copying it to the heap. A block larger than the segment size gets a segment of its own.
+ * The file does not know which blocks are committed, the block store keeps the locations and the tail.
+ */
+public class SegmentedBlockFile {
+    private static final Logger log = LoggerFactory.getLogger(SegmentedBlockFile.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path path;
+    private final long segmentSize;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+
+    private int tailSegment = -1;
+    private long tailOffset;
+
+    public SegmentedBlockFile(String dbPath, String name, long segmentSize) {
+        this.path = Paths.get(dbPath, name);
+        this.segmentSize = segmentSize;
+    }
+
+    public synchronized SegmentedBlockFile init() {
+        if (!segments.isEmpty()) {
+            return this;
+        }
+        try {
+            Files.createDirectories(path);
+            int id = 0;
+            while (segmentFile(id).toFile().exists()) {
+                map(id, 0);
+                id++;
+            }
+        } catch (IOException e) {
+            log.error("Failed to open {}: {}", path, e.getMessage());
+            throw new FailedOperationException("Can't initialize block file");
+        }
+        return this;
+    }
+
+    /**
+     * Moves the write position to the end of the last committed block.
+     * Blocks written after it are overwritten.
+     *
+     * @param tail location returned by getTail(), or EMPTY_TAIL
+     */
+    public synchronized void seek(Location tail) {
+        this.tailSegment = tail.segment;
+        this.tailOffset = tail.offset;
+    }
+
+    public synchronized Location getTail() {
+        return new Location(tailSegment, tailOffset, 0);
+    }
+
+    public synchronized Location append(byte[] bytes) {
+        try {
+            if (tailSegment < 0 || tailOffset + bytes.length > segments.get(tailSegment).capacity()) {
+                tailSegment++;
+                tailOffset = 0;
+                map(tailSegment, Math.max(segmentSize, bytes.length));
+            }
+        } catch (IOException e) {
+            log.error("Failed to map segment {} of {}: {}", tailSegment, path, e.getMessage());
+            throw new FailedOperationException(e);
+        }
+        MappedByteBuffer segment = segments.get(tailSegment);
+        ByteBuffer buffer = segment.duplicate();
+        buffer.position((int) tailOffset);
+        buffer.put(bytes);
+        // On disk before the location is committed, only the pages written since the last force are flushed
+        segment.force();
+        Location location = new Location(tailSegment, tailOffset, bytes.length);
+        tailOffset += bytes.length;
+        return location;
+    }
+
+    /**
+     * Returns a read-only slice of the mapped segment. It is valid until the file is closed.
+     */
+    public ByteBuffer read(Location location) {
+        if (location.segment >= segments.size()) {
+            throw new FailedOperationException("Segment " + location.segment + " is not in " + path);
+        }
+        ByteBuffer buffer = segments.get(location.segment).duplicate();
+        buffer.position((int) location.offset);
+        buffer.limit((int) location.offset + location.length);
+        return buffer.slice().asReadOnlyBuffer();
+    }
+
+    public synchronized void close() {
+        segments.forEach(MappedByteBuffer::force);
+        segments.clear();
+        tailSegment = -1;
+        tailOffset = 0;
+    }
+
+    /**
+     * Maps the segment file, growing it to the minimum size. A segment left by blocks which were
+     * never committed is mapped again and overwritten.
+     */
+    private void map(int id, long minimumSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(id),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    Math.max(channel.size(), minimumSize));
+            if (id < segments.size()) {
+                segments.set(id, segment);
+            } else {
+                segments.add(segment);
+            }
+        }
+    }
+
+    private Path segmentFile(int id) {
+        return path.resolve(String.format("%08d%s", id, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Position of a block binary. It is stored in place of the binary with a leading zero byte,
+     * which never starts a protobuf message.
+     */
+    public static class Location {
+        /**
+         * Tail of a file without any block
+         */
+        public static final Location EMPTY_TAIL = new Location(-1, 0, 0);
+        private static final int BINARY_LENGTH = 1 + Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+        private final int segment;
+        private final long offset;
+        private final int length;
+
+        Location(int segment, long offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public static boolean isLocation(byte[] value) {
+            return value.length == BINARY_LENGTH && value[0] == 0;
+        }
+
+        public static Location of(byte[] value) {
+            ByteBuffer buffer = ByteBuffer.wrap(value, 1, BINARY_LENGTH - 1);
+            return new Location(buffer.getInt(), buffer.getLong(), buffer.getInt());
+        }
+
+        public byte[] toBinary() {
+            return ByteBuffer.allocate(BINARY_LENGTH).put((byte) 0).putInt(segment).putLong(offset).putInt(length)
+                    .array();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.gson.JsonObject;
+import io.yggdrash.common.store.StateStore;
+import io.yggdrash.common.utils.JsonBinaryCodec;
+import io.yggdrash.contract.core.store.ReadWriterStore;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Branch level write-back cache of decoded state values.
+ * Values put are kept dirty until flush(), which writes them to the StateStore in one batch.
+ * Absent keys are cached too, so a new account does not hit the database on every read.
+ * Values are copied in and out, because contracts may modify the objects they hold.
+ * Values written to the StateStore by others, e.g. the BranchStore or a snapshot import, are invalidated.
+ */
+public class StateCache implements ReadWriterStore<String, JsonObject> {
+    private final StateStore stateStore;
+    private final Cache<String, Optional<JsonObject>> cache;
+    private final Map<String, JsonObject> dirty = new LinkedHashMap<>();
+    private long addedCount;
+
+    public StateCache(StateStore stateStore, long maxBytes) {
+        this.stateStore = stateStore;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(maxBytes, 0))
+                .weigher((String key, Optional<JsonObject> value) -> weigh(key, value))
+                .recordStats()
+                .build();
+        stateStore.setWriteListener(this::invalidate);
+    }
+
+    private static int weigh(String key, Optional<JsonObject> value) {
+        return key.length() + value.map(v -> JsonBinaryCodec.encode(v).length).orElse(0);
+    }
+
+    @Override
+    public synchronized void put(String key, JsonObject value) {
+        if (!dirty.containsKey(key) && !lookup(key).isPresent()) {
+            addedCount++;
+        }
+        JsonObject copied = value.deepCopy();
+        dirty.put(key, copied);
+        cache.put(key, Optional.of(copied));
+    }
+
+    @Override
+    public synchronized JsonObject get(String key) {
+        JsonObject value = dirty.containsKey(key) ? dirty.get(key) : lookup(key).orElse(null);
+        return value == null ? null : value.deepCopy();
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        return dirty.containsKey(key) || lookup(key).isPresent();
+    }
+
+    private Optional<JsonObject> lookup(String key) {
+        Optional<JsonObject> value = cache.getIfPresent(key);
+        if (value == null) {
+            value = Optional.ofNullable(stateStore.get(key));
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized Map<String, JsonObject> scan(String from, String to, boolean reverse) {
+        Map<String, JsonObject> values = stateStore.scan(from, to, reverse);
+        if (dirty.isEmpty()) {
+            return values;
+        }
+        Map<String, JsonObject> result =
+                new TreeMap<>(reverse ? StateStore.KEY_ORDER.reversed() : StateStore.KEY_ORDER);
+        result.putAll(values);
+        dirty.forEach((key, value) -> {
+            if ((from == null || StateStore.KEY_ORDER.compare(key, from) >= 0)
+                    && (to == null || StateStore.KEY_ORDER.compare(key, to) < 0)) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public synchronized Map<String, JsonObject> prefix(String prefix) {
+        Map<String, JsonObject> values = stateStore.prefix(prefix);
+        if (dirty.isEmpty()) {
+            return values;
+        }
+        Map<String, JsonObject> result = new TreeMap<>(StateStore.KEY_ORDER);
+        result.putAll(values);
+        dirty.forEach((key, value) -> {
+            if (key.startsWith(prefix)) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Writes the dirty values to the StateStore. It is called once per block.
+     */
+    public synchronized void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        stateStore.putAll(dirty, addedCount);
+        dirty.clear();
+        addedCount = 0;
+    }
+
+    /**
+     * Drops the cached values of the keys written to the StateStore. Dirty values are kept, they are
+     * newer and the keys written by flush() are dirty until it returns.
+     */
+    synchronized void invalidate(Collection<String> keys) {
+        for (String key : keys) {
+            if (!dirty.containsKey(key)) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Drops every cached and dirty value, e.g. when the block writes are rolled back.
+     */
+    public synchronized void invalidateAll() {
+        dirty.clear();
+        addedCount = 0;
+        cache.invalidateAll();
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void close() {
+        invalidateAll();
+    }
+}
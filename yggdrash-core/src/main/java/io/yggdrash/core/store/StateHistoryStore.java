@@ -0,0 +1,321 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.yggdrash.core.store;
+
+import com.google.common.primitives.Longs;
+import com.google.gson.JsonObject;
+import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.common.store.datasource.DbIterator;
+import io.yggdrash.common.store.datasource.DbSource;
+import io.yggdrash.common.utils.JsonBinaryCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Versions of the state values by block height.
+ * A version is stored under the state key followed by the inverted height, so the newest version of a key
+ * comes first and the value at a height is the first row from (key, height) on.
+ * The keys changed by each block are kept until the block leaves the retention window,
+ * then the versions of those keys which are older than it are deleted.
+ */
+public class StateHistoryStore {
+    private static final byte VERSION_PREFIX = 'V';
+    private static final byte CHANGES_PREFIX = 'H';
+    private static final byte KEY_END = 0;
+    private static final byte[] FIRST_HEIGHT_KEY = "firstHeight".getBytes();
+    private static final byte[] LAST_HEIGHT_KEY = "lastHeight".getBytes();
+    private static final byte[] DELETED = new byte[0];
+    private static final int FIRST_VERSION_BATCH_SIZE = 1000;
+
+    private final DbSource<byte[], byte[]> db;
+    private final long retention;
+    private long firstHeight;
+    private long lastHeight;
+
+    /**
+     * @param db source of the versions
+     * @param retention number of blocks whose state can be queried, 0 disables the versions
+     */
+    public StateHistoryStore(DbSource<byte[], byte[]> db, long retention) {
+        this.db = db.init();
+        this.retention = Math.max(retention, 0);
+        reload();
+    }
+
+    /**
+     * Reads the heights of the last committed update again, e.g. after the block writes are rolled back.
+     */
+    public synchronized void reload() {
+        byte[] first = db.get(FIRST_HEIGHT_KEY);
+        byte[] last = db.get(LAST_HEIGHT_KEY);
+        this.firstHeight = first == null ? -1 : Longs.fromByteArray(first);
+        this.lastHeight = last == null ? -1 : Longs.fromByteArray(last);
+    }
+
+    public boolean isEnabled() {
+        return retention > 0;
+    }
+
+    public synchronized boolean isEmpty() {
+        return lastHeight < 0;
+    }
+
+    /**
+     * Returns the lowest height that can be queried, or -1 if no version is stored.
+     */
+    public synchronized long getOldestHeight() {
+        if (lastHeight < 0) {
+            return -1;
+        }
+        return Math.max(firstHeight, lastHeight - retention + 1);
+    }
+
+    public synchronized long getLastHeight() {
+        return lastHeight;
+    }
+
+    public synchronized boolean isAvailable(long height) {
+        return lastHeight >= 0 && height >= getOldestHeight() && height <= lastHeight;
+    }
+
+    /**
+     * Writes the changed values of a block as its versions, and deletes the versions which are not
+     * reachable from the retention window any more. A null value removes the key from the height on.
+     * If blocks were skipped since the last height, the versions before the height are incomplete,
+     * so the history starts over from the height.
+     *
+     * @param height block height of the changes
+     * @param changes changed state values
+     */
+    public synchronized void put(long height, Map<String, JsonObject> changes) {
+        if (!isEnabled() || height <= lastHeight) {
+            return;
+        }
+        Map<byte[], byte[]> rows = new HashMap<>();
+        changes.forEach((key, value) ->
+                rows.put(versionKey(key, height), value == null ? DELETED : JsonBinaryCodec.encode(value)));
+        if (!changes.isEmpty()) {
+            rows.put(changesKey(height), encodeKeys(changes.keySet()));
+        }
+        prune(height - retention + 1, rows);
+        boolean restarted = firstHeight < 0 || height > lastHeight + 1;
+        if (restarted) {
+            rows.put(FIRST_HEIGHT_KEY, Longs.toByteArray(height));
+        }
+        rows.put(LAST_HEIGHT_KEY, Longs.toByteArray(height));
+        db.updateByBatch(rows);
+        if (restarted) {
+            firstHeight = height;
+        }
+        lastHeight = height;
+    }
+
+    /**
+     * Writes the whole state at the height as the first version, in batches while the source passes the values.
+     * No version is older, so the keys are not listed for the pruning as the changes of a block are.
+     *
+     * @param height block height of the state
+     * @param source passes each value of the state to the given consumer
+     */
+    public synchronized void putFirst(long height, Consumer<BiConsumer<String, JsonObject>> source) {
+        if (!isEnabled() || !isEmpty()) {
+            return;
+        }
+        Map<byte[], byte[]> rows = new HashMap<>();
+        source.accept((key, value) -> {
+            rows.put(versionKey(key, height), JsonBinaryCodec.encode(value));
+            if (rows.size() >= FIRST_VERSION_BATCH_SIZE) {
+                db.updateByBatch(rows);
+                rows.clear();
+            }
+        });
+        rows.put(FIRST_HEIGHT_KEY, Longs.toByteArray(height));
+        rows.put(LAST_HEIGHT_KEY, Longs.toByteArray(height));
+        db.updateByBatch(rows);
+        firstHeight = height;
+        lastHeight = height;
+    }
+
+    /**
+     * Deletes the versions older than the version of each key at the oldest height.
+     * The blocks up to the oldest height are never pruned twice, their list of changed keys is deleted.
+     */
+    private void prune(long oldestHeight, Map<byte[], byte[]> rows) {
+        if (oldestHeight <= 0) {
+            return;
+        }
+        List<Map.Entry<byte[], byte[]>> blocks = new ArrayList<>();
+        try (DbIterator<byte[], byte[]> iterator = db.scan(
+                changesKey(0), changesKey(oldestHeight + 1), false)) {
+            iterator.forEachRemaining(blocks::add);
+        }
+        for (Map.Entry<byte[], byte[]> block : blocks) {
+            long height = ByteBuffer.wrap(block.getKey(), 1, Long.BYTES).getLong();
+            for (String key : decodeKeys(block.getValue())) {
+                try (DbIterator<byte[], byte[]> versions = db.scan(versionKey(key, height - 1), keyEnd(key), false)) {
+                    versions.forEachRemaining(version -> rows.put(version.getKey(), null));
+                }
+            }
+            rows.put(block.getKey(), null);
+        }
+    }
+
+    /**
+     * Returns the value of the key after the block of the height was executed.
+     *
+     * @param key state key
+     * @param height block height
+     * @return the value, or null if the key did not exist
+     */
+    public JsonObject get(String key, long height) {
+        checkAvailable(height);
+        try (DbIterator<byte[], byte[]> iterator = db.scan(versionKey(key, height), keyEnd(key), false)) {
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            return toJsonObject(iterator.next().getValue());
+        }
+    }
+
+    public boolean contains(String key, long height) {
+        return get(key, height) != null;
+    }
+
+    /**
+     * Returns the values of the keys in [from, to) at the height. A null bound is open.
+     */
+    public Map<String, JsonObject> scan(String from, String to, boolean reverse, long height) {
+        checkAvailable(height);
+        byte[] fromKey = from == null ? new byte[] {VERSION_PREFIX} : prefixed(VERSION_PREFIX, from);
+        byte[] toKey = to == null ? new byte[] {VERSION_PREFIX + 1} : prefixed(VERSION_PREFIX, to);
+        Map<String, JsonObject> values = valuesAt(db.scan(fromKey, toKey, false), height);
+        if (!reverse) {
+            return values;
+        }
+        List<String> keys = new ArrayList<>(values.keySet());
+        Collections.reverse(keys);
+        Map<String, JsonObject> result = new LinkedHashMap<>();
+        keys.forEach(key -> result.put(key, values.get(key)));
+        return result;
+    }
+
+    public Map<String, JsonObject> prefix(String prefix, long height) {
+        checkAvailable(height);
+        return valuesAt(db.prefix(prefixed(VERSION_PREFIX, prefix)), height);
+    }
+
+    public void close() {
+        db.close();
+    }
+
+    private void checkAvailable(long height) {
+        if (!isAvailable(height)) {
+            throw new FailedOperationException(String.format("State at height %d is not available (%d ~ %d)",
+                    height, getOldestHeight(), getLastHeight()));
+        }
+    }
+
+    /**
+     * Takes the first version at or below the height of each key, the rows are in key order.
+     */
+    private static Map<String, JsonObject> valuesAt(DbIterator<byte[], byte[]> iterator, long height) {
+        Map<String, JsonObject> result = new LinkedHashMap<>();
+        String found = null;
+        try (DbIterator<byte[], byte[]> rows = iterator) {
+            while (rows.hasNext()) {
+                Map.Entry<byte[], byte[]> row = rows.next();
+                byte[] versionKey = row.getKey();
+                int keyLength = versionKey.length - 1 - 1 - Long.BYTES;
+                String key = new String(versionKey, 1, keyLength, StandardCharsets.UTF_8);
+                long versionHeight = Long.MAX_VALUE - ByteBuffer.wrap(versionKey, versionKey.length - Long.BYTES,
+                        Long.BYTES).getLong();
+                if (key.equals(found) || versionHeight > height) {
+                    continue;
+                }
+                found = key;
+                JsonObject value = toJsonObject(row.getValue());
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static JsonObject toJsonObject(byte[] value) {
+        return value.length == 0 ? null : JsonBinaryCodec.decode(value).getAsJsonObject();
+    }
+
+    private static byte[] prefixed(byte prefix, String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + keyBytes.length).put(prefix).put(keyBytes).array();
+    }
+
+    private static byte[] versionKey(String key, long height) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + keyBytes.length + 1 + Long.BYTES)
+                .put(VERSION_PREFIX).put(keyBytes).put(KEY_END).putLong(Long.MAX_VALUE - height).array();
+    }
+
+    /**
+     * End of the versions of the key, the key end byte is the lowest so no other key sorts in between.
+     */
+    private static byte[] keyEnd(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + keyBytes.length + 1)
+                .put(VERSION_PREFIX).put(keyBytes).put((byte) (KEY_END + 1)).array();
+    }
+
+    private static byte[] changesKey(long height) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(CHANGES_PREFIX).putLong(height).array();
+    }
+
+    private static byte[] encodeKeys(Collection<String> keys) {
+        List<byte[]> encoded = new ArrayList<>();
+        int length = 0;
+        for (String key : keys) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            encoded.add(keyBytes);
+            length += Integer.BYTES + keyBytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        encoded.forEach(keyBytes -> buffer.putInt(keyBytes.length).put(keyBytes));
+        return buffer.array();
+    }
+
+    private static List<String> decodeKeys(byte[] value) {
+        List<String> keys = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        while (buffer.hasRemaining()) {
+            byte[] keyBytes = new byte[buffer.getInt()];
+            buffer.get(keyBytes);
+            keys.add(new String(keyBytes, StandardCharsets.UTF_8));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,409 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.yggdrash.core.store;
+
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Longs;
+import com.google.gson.JsonObject;
+import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.contract.vo.dpoa.ValidatorSet;
+import io.yggdrash.common.crypto.HashUtil;
+import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.common.store.StateStore;
+import io.yggdrash.common.store.datasource.UnitOfWork;
+import io.yggdrash.common.utils.JsonBinaryCodec;
+import io.yggdrash.common.utils.JsonUtil;
+import io.yggdrash.core.blockchain.BranchId;
+import io.yggdrash.core.consensus.ConsensusBlock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+import static io.yggdrash.core.store.BlockChainStoreBuilder.BRANCH_KEYS;
+import static io.yggdrash.core.store.BlockChainStoreBuilder.BRANCH_NAMESPACE;
+
+/**
+ * Stream file of the state of a branch after a block, which brings up a node without replaying the blocks.
+ * <pre>
+ * file   = magic version header chunk* end
+ * header = branch id, height, block hash and state root in JSON
+ * chunk  = type(1) rows(4) length(4) payload sha3(payload)
+ * row    = keyLength(4) key valueLength(4) value
+ * end    = END(1) rows of every chunk(8) sha3 chain of the chunk checksums
+ * </pre>
+ * The genesis block and the snapshot block with its consensus proof come first, then the state rows in key order.
+ * The branch metadata is a part of the state, except the block pointers which the import sets at last.
+ */
+public class StateSnapshot {
+    private static final Logger log = LoggerFactory.getLogger(StateSnapshot.class);
+
+    private static final byte[] MAGIC = "YGGSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 1;
+    private static final byte END = 0;
+    private static final byte BLOCK = 1;
+    private static final byte STATE = 2;
+    private static final int CHECKSUM_LENGTH = 32;
+    private static final int MAX_CHUNK_LENGTH = 256 * 1024 * 1024;
+    static final int CHUNK_ROWS = 1000;
+
+    // Written by the import once every row is loaded, so a partly loaded branch is never taken as loaded
+    private static final Set<String> BLOCK_POINTERS = new HashSet<>();
+
+    static {
+        for (BranchStore.BlockchainMetaInfo meta : new BranchStore.BlockchainMetaInfo[] {
+                BranchStore.BlockchainMetaInfo.BEST_BLOCK,
+                BranchStore.BlockchainMetaInfo.BEST_BLOCK_INDEX,
+                BranchStore.BlockchainMetaInfo.LAST_EXECUTE_BLOCK,
+                BranchStore.BlockchainMetaInfo.LAST_EXECUTE_BLOCK_INDEX,
+                BranchStore.BlockchainMetaInfo.GENESIS_BLOCK,
+                BranchStore.BlockchainMetaInfo.PRUNED_RECEIPTS,
+                BranchStore.BlockchainMetaInfo.PRUNED_LOGS,
+                BranchStore.BlockchainMetaInfo.PRUNED_BLOCK_BODIES,
+                BranchStore.BlockchainMetaInfo.SNAPSHOT_BLOCK_INDEX,
+                BranchStore.BlockchainMetaInfo.SNAPSHOT_IMPORT}) {
+            BLOCK_POINTERS.add(BRANCH_NAMESPACE + meta);
+        }
+    }
+
+    private StateSnapshot() {
+    }
+
+    /**
+     * Writes the state after the block. The state is iterated from a snapshot of the database opened
+     * when the block was the last one, so blocks can be added meanwhile.
+     *
+     * @param out stream of the snapshot file
+     * @param state values of the branch after the block
+     * @param stateRoot root of the state trie after the block
+     * @param genesis genesis block of the branch
+     * @param block last executed block
+     * @return number of the state rows written
+     */
+    public static long write(OutputStream out, Iterator<Map.Entry<String, JsonObject>> state, Sha3Hash stateRoot,
+                             ConsensusBlock<?> genesis, ConsensusBlock<?> block) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        JsonObject header = new JsonObject();
+        header.addProperty("branchId", block.getBranchId().toString());
+        header.addProperty("height", block.getIndex());
+        header.addProperty("blockHash", block.getHash().toString());
+        header.addProperty("stateRoot", stateRoot.toString());
+        data.writeUTF(header.toString());
+
+        ChunkWriter writer = new ChunkWriter(data);
+        Map<byte[], byte[]> blocks = new LinkedHashMap<>();
+        blocks.put(blockKey(genesis), genesis.toBinary());
+        if (block.getIndex() != genesis.getIndex()) {
+            blocks.put(blockKey(block), block.toBinary());
+        }
+        writer.write(BLOCK, blocks);
+
+        long stateRows = 0;
+        Map<byte[], byte[]> rows = new LinkedHashMap<>();
+        while (state.hasNext()) {
+            Map.Entry<String, JsonObject> value = state.next();
+            if (!BLOCK_POINTERS.contains(value.getKey())) {
+                rows.put(value.getKey().getBytes(), JsonBinaryCodec.encode(value.getValue()));
+            }
+            if (rows.size() == CHUNK_ROWS || !state.hasNext()) {
+                writer.write(STATE, rows);
+                stateRows += rows.size();
+                rows = new LinkedHashMap<>();
+            }
+        }
+        writer.end();
+        data.flush();
+        log.info("State snapshot of {} at {} written. rows={}", block.getBranchId(), block.getIndex(), stateRows);
+        return stateRows;
+    }
+
+    /**
+     * Loads the snapshot into the stores of a branch which has no block yet.
+     * The blocks between the genesis and the snapshot block are not stored, their history is taken as pruned,
+     * and the branch continues from the block after the snapshot. The versions of the state start there too.
+     * <p>
+     * Each chunk is written on its own, so the memory does not grow with the state. The branch is marked with
+     * the snapshot block before any row is written, and the genesis pointer written at last completes the import.
+     * A failed import is not cleaned up: the same snapshot is loaded again over it, another one is refused.
+     * <p>
+     * The genesis block must be the one of the branch, and the snapshot block must be signed by a quorum of
+     * the validators in the snapshot state. The state is not bound to a block by the consensus, a block header
+     * has no state root, so the file must come from a trusted source: a forged state with validators of its own
+     * passes these checks.
+     *
+     * @param in stream of the snapshot file
+     * @param branchId branch of the stores
+     * @param genesisHash hash of the genesis block of the branch
+     * @param store stores of the branch
+     * @param proofVerifier verifies the consensus proof of the snapshot block by the validators of the state
+     * @return height of the snapshot, or -1 if the snapshot is of another branch
+     */
+    public static long read(InputStream in, BranchId branchId, Sha3Hash genesisHash, BlockChainStore store,
+                            BiPredicate<ConsensusBlock<?>, ValidatorSet> proofVerifier) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = new byte[MAGIC.length];
+        data.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC) || data.readByte() != VERSION) {
+            throw new FailedOperationException("Not a state snapshot");
+        }
+        JsonObject header = JsonUtil.parseJsonObject(data.readUTF());
+        if (!branchId.toString().equals(header.get("branchId").getAsString())) {
+            return -1;
+        }
+        BranchStore branchStore = store.getBranchStore();
+        if (branchStore.getGenesisBlockHash() != null) {
+            throw new FailedOperationException("Branch " + branchId + " has blocks already");
+        }
+        String blockHash = header.get("blockHash").getAsString();
+        String unfinished = branchStore.getSnapshotImport();
+        if (unfinished != null && !unfinished.equals(blockHash)) {
+            throw new FailedOperationException("Branch " + branchId + " has an unfinished import of the snapshot "
+                    + unfinished + ", remove the database of the branch to import another one");
+        }
+        branchStore.setSnapshotImport(blockHash);
+
+        long height = header.get("height").getAsLong();
+        long rows = load(data, header, height, genesisHash, store, proofVerifier);
+        log.info("State snapshot of {} at {} loaded. rows={}", branchId, height, rows);
+        return height;
+    }
+
+    private static long load(DataInputStream data, JsonObject header, long height, Sha3Hash genesisHash,
+                             BlockChainStore store, BiPredicate<ConsensusBlock<?>, ValidatorSet> proofVerifier)
+            throws IOException {
+        ConsensusBlockStore<?> blockStore = store.getConsensusBlockStore();
+        StateStore stateStore = store.getStateStore();
+        StateTrie stateTrie = store.getContractStore().getStateTrie();
+        UnitOfWork unitOfWork = store.getUnitOfWork();
+        ChunkReader reader = new ChunkReader(data);
+        ConsensusBlock<?> block = null;
+        try {
+            Map<byte[], byte[]> rows;
+            while ((rows = reader.next()) != null) {
+                if (reader.type == BLOCK) {
+                    rows.forEach((key, binary) -> {
+                        ByteBuffer buffer = ByteBuffer.wrap(key);
+                        long index = buffer.getLong();
+                        byte[] hash = new byte[key.length - Long.BYTES];
+                        buffer.get(hash);
+                        blockStore.addBlock(index, Sha3Hash.createByHashed(hash), binary);
+                    });
+                    // checked before the state is read
+                    block = verifyBlock(blockStore, header, height, genesisHash);
+                } else {
+                    // the state rows and the trie nodes of a chunk are written at once
+                    unitOfWork.begin();
+                    try {
+                        loadState(stateStore, stateTrie, height, rows);
+                        unitOfWork.commit();
+                    } catch (RuntimeException e) {
+                        unitOfWork.rollback();
+                        throw e;
+                    }
+                }
+            }
+        } catch (EOFException e) {
+            throw new FailedOperationException("State snapshot is incomplete");
+        }
+        if (block == null) {
+            throw new FailedOperationException("State snapshot has no block");
+        }
+
+        Sha3Hash stateRoot = new Sha3Hash(header.get("stateRoot").getAsString());
+        if (!stateTrie.getRoot().equals(stateRoot)) {
+            throw new FailedOperationException("State root " + stateTrie.getRoot() + " is not " + stateRoot);
+        }
+        BranchStore branchStore = store.getBranchStore();
+        if (!proofVerifier.test(block, branchStore.getValidators())) {
+            throw new FailedOperationException("Consensus proof of the snapshot block " + height + " is not valid");
+        }
+        // the state at the snapshot block is the first version, the blocks before it are not executed
+        store.getContractStore().getStateHistory().putFirst(height,
+                consumer -> stateStore.forEach(BRANCH_KEYS, consumer));
+
+        ConsensusBlock<?> genesis = blockStore.getBlockByIndex(0);
+        unitOfWork.begin();
+        try {
+            store.getTxIndexStore().putBlock(genesis);
+            store.getTxIndexStore().putBlock(block);
+            branchStore.setPrunedBlockIndex(BranchStore.BlockchainMetaInfo.PRUNED_RECEIPTS, height - 1);
+            branchStore.setPrunedBlockIndex(BranchStore.BlockchainMetaInfo.PRUNED_LOGS, height - 1);
+            branchStore.setPrunedBlockIndex(BranchStore.BlockchainMetaInfo.PRUNED_BLOCK_BODIES, height - 1);
+            branchStore.setSnapshotBlockIndex(height);
+            branchStore.setLastExecuteBlock(block);
+            branchStore.setBestBlock(block);
+            // completes the import
+            branchStore.setGenesisBlockHash(genesis.getHash());
+            unitOfWork.commit();
+        } catch (RuntimeException e) {
+            unitOfWork.rollback();
+            throw e;
+        }
+        return reader.rows;
+    }
+
+    private static ConsensusBlock<?> verifyBlock(ConsensusBlockStore<?> blockStore, JsonObject header, long height,
+                                                 Sha3Hash genesisHash) {
+        ConsensusBlock<?> genesis = blockStore.getBlockByIndex(0);
+        ConsensusBlock<?> block = blockStore.getBlockByIndex(height);
+        if (block == null || genesis == null) {
+            throw new FailedOperationException("State snapshot has no block at " + height);
+        }
+        if (!genesis.getHash().equals(genesisHash)) {
+            throw new FailedOperationException("Genesis block " + genesis.getHash() + " is not " + genesisHash);
+        }
+        if (!block.getHash().toString().equals(header.get("blockHash").getAsString())) {
+            throw new FailedOperationException("Block " + block.getHash() + " is not the snapshot block");
+        }
+        return block;
+    }
+
+    private static void loadState(StateStore stateStore, StateTrie stateTrie, long height, Map<byte[], byte[]> rows) {
+        Map<String, JsonObject> values = new LinkedHashMap<>();
+        long added = 0;
+        for (Map.Entry<byte[], byte[]> row : rows.entrySet()) {
+            String key = new String(row.getKey());
+            if (!stateStore.contains(key)) {
+                added++;
+            }
+            values.put(key, JsonBinaryCodec.decode(row.getValue()).getAsJsonObject());
+        }
+        stateStore.putAll(values, added);
+        // The branch metadata is not a part of the trie
+        values.keySet().removeAll(BRANCH_KEYS);
+        if (!values.isEmpty()) {
+            stateTrie.update(height, values);
+        }
+    }
+
+    private static byte[] blockKey(ConsensusBlock<?> block) {
+        return Bytes.concat(Longs.toByteArray(block.getIndex()), block.getHash().getBytes());
+    }
+
+    private static class ChunkWriter {
+        private final DataOutputStream out;
+        private byte[] digest = new byte[0];
+        private long rows;
+
+        ChunkWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void write(byte type, Map<byte[], byte[]> chunk) throws IOException {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            DataOutputStream rowOut = new DataOutputStream(payload);
+            for (Map.Entry<byte[], byte[]> row : chunk.entrySet()) {
+                rowOut.writeInt(row.getKey().length);
+                rowOut.write(row.getKey());
+                rowOut.writeInt(row.getValue().length);
+                rowOut.write(row.getValue());
+            }
+            byte[] bytes = payload.toByteArray();
+            byte[] checksum = HashUtil.sha3(bytes);
+            out.writeByte(type);
+            out.writeInt(chunk.size());
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.write(checksum);
+            digest = HashUtil.sha3(Bytes.concat(digest, checksum));
+            rows += chunk.size();
+        }
+
+        void end() throws IOException {
+            out.writeByte(END);
+            out.writeLong(rows);
+            out.write(digest);
+        }
+    }
+
+    private static class ChunkReader {
+        private final DataInputStream in;
+        private byte[] digest = new byte[0];
+        private long rows;
+        private byte type;
+
+        ChunkReader(DataInputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Returns the rows of the next chunk after verifying its checksum, or null at the end.
+         */
+        Map<byte[], byte[]> next() throws IOException {
+            type = in.readByte();
+            if (type == END) {
+                long totalRows = in.readLong();
+                if (totalRows != rows || !Arrays.equals(readBytes(in, CHECKSUM_LENGTH), digest)) {
+                    throw new FailedOperationException("State snapshot is incomplete");
+                }
+                return null;
+            } else if (type != BLOCK && type != STATE) {
+                throw new FailedOperationException("Unknown chunk type " + type);
+            }
+            int count = in.readInt();
+            int length = in.readInt();
+            if (count < 0 || length < 0 || length > MAX_CHUNK_LENGTH) {
+                throw new FailedOperationException("Invalid chunk of " + count + " rows in " + length + " bytes");
+            }
+            byte[] payload = readBytes(in, length);
+            byte[] checksum = readBytes(in, CHECKSUM_LENGTH);
+            if (!Arrays.equals(HashUtil.sha3(payload), checksum)) {
+                throw new FailedOperationException("Checksum of the chunk after row " + rows + " does not match");
+            }
+            Map<byte[], byte[]> chunk = new LinkedHashMap<>();
+            DataInputStream rowIn = new DataInputStream(new ByteArrayInputStream(payload));
+            for (int i = 0; i < count; i++) {
+                byte[] key = readBytes(rowIn, rowIn.readInt());
+                chunk.put(key, readBytes(rowIn, rowIn.readInt()));
+            }
+            digest = HashUtil.sha3(Bytes.concat(digest, checksum));
+            rows += count;
+            return chunk;
+        }
+
+        private static byte[] readBytes(DataInputStream in, int length) throws IOException {
+            if (length < 0 || length > MAX_CHUNK_LENGTH) {
+                throw new FailedOperationException("Invalid length " + length);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.JsonObject;
+import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.crypto.HashUtil;
+import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.common.store.datasource.DbSource;
+import io.yggdrash.common.utils.JsonBinaryCodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Sparse Merkle tree over the state keyspace.
+ * The path of a key is sha3(key) and a leaf sits at the shallowest depth where its path is unique,
+ * so the root depends only on the stored values, not on the order they were written.
+ * Nodes are stored by their hash, and an update touches only the nodes on the paths of the changed keys.
+ */
+public class StateTrie {
+    private static final int HASH_LENGTH = 32;
+    private static final int NODE_LENGTH = 1 + HASH_LENGTH * 2;
+    private static final byte LEAF = 0;
+    private static final byte BRANCH = 1;
+    private static final byte[] EMPTY = new byte[HASH_LENGTH];
+    private static final byte[] ROOT_KEY = "STATE_ROOT".getBytes();
+    private static final byte ROOT_BY_HEIGHT = 'R';
+    private static final int NODE_CACHE_ENTRIES = 50_000;
+
+    private final DbSource<byte[], byte[]> db;
+    private final Cache<ByteBuffer, byte[]> nodeCache = CacheBuilder.newBuilder()
+            .maximumSize(NODE_CACHE_ENTRIES)
+            .build();
+    private byte[] root;
+
+    public StateTrie(DbSource<byte[], byte[]> dbSource) {
+        this.db = dbSource.init();
+        reload();
+    }
+
+    /**
+     * Reads the root of the last committed update again, e.g. after the block writes are rolled back.
+     */
+    public synchronized void reload() {
+        byte[] storedRoot = db.get(ROOT_KEY);
+        this.root = storedRoot == null ? EMPTY : storedRoot;
+    }
+
+    public synchronized boolean isEmpty() {
+        return Arrays.equals(root, EMPTY);
+    }
+
+    public synchronized Sha3Hash getRoot() {
+        return Sha3Hash.createByHashed(root);
+    }
+
+    public Sha3Hash getRoot(long height) {
+        byte[] found = db.get(rootKey(height));
+        return found == null ? null : Sha3Hash.createByHashed(found);
+    }
+
+    /**
+     * Applies the changed values of a block. A null value removes the key.
+     *
+     * @param height block height of the changes
+     * @param changes changed state values
+     * @return new state root
+     */
+    public Sha3Hash update(long height, Map<String, JsonObject> changes) {
+        return update(height, changes::forEach);
+    }
+
+    /**
+     * Applies the changed values passed by the source one at a time, so they are not held in memory together,
+     * e.g. the whole state written before the trie.
+     *
+     * @param height block height of the changes
+     * @param source passes each changed value to the given consumer
+     * @return new state root
+     */
+    public synchronized Sha3Hash update(long height, Consumer<BiConsumer<String, JsonObject>> source) {
+        Map<ByteBuffer, byte[]> created = new HashMap<>();
+        byte[][] rootHolder = {root};
+        source.accept((key, value) -> {
+            byte[] path = HashUtil.sha3(key.getBytes(StandardCharsets.UTF_8));
+            if (value == null) {
+                rootHolder[0] = delete(rootHolder[0], 0, path, created);
+            } else {
+                byte[] valueHash = HashUtil.sha3(JsonBinaryCodec.encode(value));
+                rootHolder[0] = insert(rootHolder[0], 0, path, valueHash, created);
+            }
+        });
+        byte[] newRoot = rootHolder[0];
+
+        // Only the nodes reachable from the new root are written
+        Map<byte[], byte[]> rows = new HashMap<>();
+        collect(newRoot, created, rows);
+        rows.put(ROOT_KEY, newRoot);
+        rows.put(rootKey(height), newRoot);
+        db.updateByBatch(rows);
+        rows.forEach((key, node) -> {
+            if (key.length == HASH_LENGTH) {
+                nodeCache.put(ByteBuffer.wrap(key), node);
+            }
+        });
+        this.root = newRoot;
+        return Sha3Hash.createByHashed(newRoot);
+    }
+
+    private byte[] insert(byte[] hash, int depth, byte[] path, byte[] valueHash, Map<ByteBuffer, byte[]> created) {
+        if (Arrays.equals(hash, EMPTY)) {
+            return putNode(LEAF, path, valueHash, created);
+        }
+        byte[] node = getNode(hash, created);
+        byte[] first = Arrays.copyOfRange(node, 1, 1 + HASH_LENGTH);
+        byte[] second = Arrays.copyOfRange(node, 1 + HASH_LENGTH, NODE_LENGTH);
+        if (node[0] == LEAF) {
+            if (Arrays.equals(first, path)) {
+                return putNode(LEAF, path, valueHash, created);
+            }
+            byte[] leaf = putNode(LEAF, path, valueHash, created);
+            return split(depth, hash, first, leaf, path, created);
+        }
+        if (bit(path, depth) == 0) {
+            return putNode(BRANCH, insert(first, depth + 1, path, valueHash, created), second, created);
+        } else {
+            return putNode(BRANCH, first, insert(second, depth + 1, path, valueHash, created), created);
+        }
+    }
+
+    private byte[] split(int depth, byte[] leafA, byte[] pathA, byte[] leafB, byte[] pathB,
+                         Map<ByteBuffer, byte[]> created) {
+        int bitA = bit(pathA, depth);
+        if (bitA == bit(pathB, depth)) {
+            byte[] child = split(depth + 1, leafA, pathA, leafB, pathB, created);
+            return bitA == 0 ? putNode(BRANCH, child, EMPTY, created) : putNode(BRANCH, EMPTY, child, created);
+        }
+        return bitA == 0 ? putNode(BRANCH, leafA, leafB, created) : putNode(BRANCH, leafB, leafA, created);
+    }
+
+    private byte[] delete(byte[] hash, int depth, byte[] path, Map<ByteBuffer, byte[]> created) {
+        if (Arrays.equals(hash, EMPTY)) {
+            return EMPTY;
+        }
+        byte[] node = getNode(hash, created);
+        byte[] first = Arrays.copyOfRange(node, 1, 1 + HASH_LENGTH);
+        byte[] second = Arrays.copyOfRange(node, 1 + HASH_LENGTH, NODE_LENGTH);
+        if (node[0] == LEAF) {
+            return Arrays.equals(first, path) ? EMPTY : hash;
+        }
+        if (bit(path, depth) == 0) {
+            first = delete(first, depth + 1, path, created);
+        } else {
+            second = delete(second, depth + 1, path, created);
+        }
+        // A leaf left alone in a subtree moves up, so the shape does not depend on the history
+        if (Arrays.equals(second, EMPTY) && (Arrays.equals(first, EMPTY) || isLeaf(first, created))) {
+            return first;
+        }
+        if (Arrays.equals(first, EMPTY) && isLeaf(second, created)) {
+            return second;
+        }
+        return putNode(BRANCH, first, second, created);
+    }
+
+    private boolean isLeaf(byte[] hash, Map<ByteBuffer, byte[]> created) {
+        return getNode(hash, created)[0] == LEAF;
+    }
+
+    private void collect(byte[] hash, Map<ByteBuffer, byte[]> created, Map<byte[], byte[]> rows) {
+        byte[] node = created.get(ByteBuffer.wrap(hash));
+        if (node == null) {
+            // empty, or already stored
+            return;
+        }
+        rows.put(hash, node);
+        if (node[0] == BRANCH) {
+            collect(Arrays.copyOfRange(node, 1, 1 + HASH_LENGTH), created, rows);
+            collect(Arrays.copyOfRange(node, 1 + HASH_LENGTH, NODE_LENGTH), created, rows);
+        }
+    }
+
+    private byte[] putNode(byte type, byte[] first, byte[] second, Map<ByteBuffer, byte[]> created) {
+        byte[] node = ByteBuffer.allocate(NODE_LENGTH).put(type).put(first).put(second).array();
+        byte[] hash = HashUtil.sha3(node);
+        created.put(ByteBuffer.wrap(hash), node);
+        return hash;
+    }
+
+    private byte[] getNode(byte[] hash, Map<ByteBuffer, byte[]> created) {
+        ByteBuffer key = ByteBuffer.wrap(hash);
+        byte[] node = created.get(key);
+        if (node == null) {
+            node = nodeCache.getIfPresent(key);
+        }
+        if (node == null) {
+            node = db.get(hash);
+            if (node == null) {
+                throw new FailedOperationException("State trie node not found " + Sha3Hash.createByHashed(hash));
+            }
+            nodeCache.put(key, node);
+        }
+        return node;
+    }
+
+    private static int bit(byte[] path, int depth) {
+        return (path[depth / 8] >> (7 - depth % 8)) & 1;
+    }
+
+    private static byte[] rootKey(long height) {
+        return ByteBuffer.allocate(1 + Long.BYTES).put(ROOT_BY_HEIGHT).putLong(height).array();
+    }
+}
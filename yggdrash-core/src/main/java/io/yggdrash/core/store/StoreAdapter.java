@@ -3,6 +3,9 @@ package io.yggdrash.core.store;
 import com.google.gson.JsonObject;
 import io.yggdrash.contract.core.store.ReadWriterStore;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class StoreAdapter implements ReadWriterStore<String, JsonObject> {
     private final ReadWriterStore<String, JsonObject> stateStore;
     private final String nameSpace;
@@ -35,4 +38,30 @@ public class StoreAdapter implements ReadWriterStore<String, JsonObject> {
     public JsonObject get(String key) {
         return this.stateStore.get(getNameSpaceKey(key));
     }
+
+    @Override
+    public Map<String, JsonObject> scan(String from, String to, boolean reverse) {
+        String start = getNameSpaceKey(from == null ? "" : from);
+        String end = to == null ? getNameSpaceEnd() : getNameSpaceKey(to);
+        return removeNameSpace(this.stateStore.scan(start, end, reverse));
+    }
+
+    @Override
+    public Map<String, JsonObject> prefix(String prefix) {
+        return removeNameSpace(this.stateStore.prefix(getNameSpaceKey(prefix)));
+    }
+
+    private String getNameSpaceEnd() {
+        if (nameSpace.isEmpty()) {
+            return null;
+        }
+        int last = nameSpace.length() - 1;
+        return nameSpace.substring(0, last) + (char) (nameSpace.charAt(last) + 1);
+    }
+
+    private Map<String, JsonObject> removeNameSpace(Map<String, JsonObject> values) {
+        Map<String, JsonObject> result = new LinkedHashMap<>();
+        values.forEach((key, value) -> result.put(key.substring(nameSpace.length()), value));
+        return result;
+    }
 }
@@ -17,33 +17,53 @@
 package io.yggdrash.core.store;
 
 import com.google.gson.JsonObject;
-import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.store.StateStore;
 import io.yggdrash.contract.core.store.ReadWriterStore;
 
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 
 public class TempStateStore implements ReadWriterStore<String, JsonObject> {
     private final ReadWriterStore<String, JsonObject> stateStore;
     private final Map<String, JsonObject> tempStore = new LinkedHashMap<>();
-
-    // TODO check State root
-    Sha3Hash stateRoot;
+    private final BooleanSupplier bypassed;
 
     public TempStateStore(ReadWriterStore<String, JsonObject> originStore) {
+        this(originStore, () -> false);
+    }
+
+    /**
+     * Reads at a block height on the current thread go straight to the historical store, so they never see
+     * (or race with) the values the block being executed keeps here.
+     */
+    public TempStateStore(HistoricalStateStore originStore) {
+        this(originStore, originStore::isReadingAt);
+    }
+
+    private TempStateStore(ReadWriterStore<String, JsonObject> originStore, BooleanSupplier bypassed) {
         this.stateStore = originStore;
+        this.bypassed = bypassed;
     }
 
     @Override
     public void put(String key, JsonObject value) {
-        tempStore.put(key, value);
-        // TODO calculate State Root
+        if (bypassed.getAsBoolean()) {
+            stateStore.put(key, value);
+        } else {
+            tempStore.put(key, value);
+        }
     }
 
     @Override
     public JsonObject get(String key) {
-        if (tempStore.get(key) != null) {
+        if (bypassed.getAsBoolean()) {
+            return stateStore.get(key);
+        } else if (tempStore.get(key) != null) {
             return tempStore.get(key);
         } else {
             return stateStore.get(key);
@@ -52,13 +72,43 @@ public class TempStateStore implements ReadWriterStore<String, JsonObject> {
 
     @Override
     public boolean contains(String key) {
-        if (tempStore.containsKey(key)) {
+        if (bypassed.getAsBoolean()) {
+            return stateStore.contains(key);
+        } else if (tempStore.containsKey(key)) {
             return true;
         } else {
             return stateStore.contains(key);
         }
     }
 
+    @Override
+    public Map<String, JsonObject> scan(String from, String to, boolean reverse) {
+        Predicate<String> inRange = key -> (from == null || StateStore.KEY_ORDER.compare(key, from) >= 0)
+                && (to == null || StateStore.KEY_ORDER.compare(key, to) < 0);
+        return mergeTempValues(stateStore.scan(from, to, reverse), inRange, reverse);
+    }
+
+    @Override
+    public Map<String, JsonObject> prefix(String prefix) {
+        return mergeTempValues(stateStore.prefix(prefix), key -> key.startsWith(prefix), false);
+    }
+
+    private Map<String, JsonObject> mergeTempValues(Map<String, JsonObject> values, Predicate<String> inRange,
+                                                    boolean reverse) {
+        if (bypassed.getAsBoolean() || tempStore.isEmpty()) {
+            return values;
+        }
+        Comparator<String> order = reverse ? StateStore.KEY_ORDER.reversed() : StateStore.KEY_ORDER;
+        Map<String, JsonObject> result = new TreeMap<>(order);
+        result.putAll(values);
+        tempStore.forEach((key, value) -> {
+            if (value != null && inRange.test(key)) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
     @Override
     public void close() {
         tempStore.clear();
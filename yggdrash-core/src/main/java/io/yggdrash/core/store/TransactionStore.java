@@ -18,21 +18,22 @@ package io.yggdrash.core.store;
 
 import com.google.common.collect.EvictingQueue;
 import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.config.Constants.Limit;
 import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.common.store.datasource.DbIterator;
 import io.yggdrash.common.store.datasource.DbSource;
+import io.yggdrash.common.store.datasource.UnitOfWork;
 import io.yggdrash.contract.core.store.ReadWriterStore;
 import io.yggdrash.core.blockchain.Transaction;
 import io.yggdrash.core.blockchain.TransactionImpl;
-import org.ehcache.Cache;
-import org.ehcache.config.builders.CacheConfigurationBuilder;
-import org.ehcache.config.builders.CacheManagerBuilder;
-import org.ehcache.config.builders.ResourcePoolsBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -40,27 +41,36 @@ import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Committed txs of a branch and its pool of pending txs.
+ * Pending txs are admitted by the pool on its own. The lock of the store only orders the commits of blocks
+ * with the recent txs, so the branches never wait for each other.
+ */
 public class TransactionStore implements ReadWriterStore<Sha3Hash, Transaction> {
     private static final Logger log = LoggerFactory.getLogger(TransactionStore.class);
-    private static final Lock LOCK = new ReentrantLock();
 
     private static final int CACHE_SIZE = 500;
-    private long countOfTxs = 0;
+    private static final int HASH_LENGTH = 32;
+    // a committed tx whose body is pruned
+    private static final byte[] PRUNED = new byte[0];
+    private volatile long countOfTxs = 0;
 
     private Queue<Transaction> readCache;
-    private final Cache<Sha3Hash, Transaction> pendingPool;
-    private final Set<Sha3Hash> pendingKeys = new HashSet<>();
+    private final TxPool pendingPool;
     private final DbSource<byte[], byte[]> db;
+    private final Lock lock = new ReentrantLock();
+    private final HashFilter hashFilter;
+    private UnitOfWork unitOfWork;
 
     public TransactionStore(DbSource<byte[], byte[]> db) {
+        this(db, new TxPool(Limit.TX_POOL_SIZE));
+    }
+
+    public TransactionStore(DbSource<byte[], byte[]> db, TxPool pendingPool) {
         this.db = db.init();
-        this.pendingPool = CacheManagerBuilder
-                .newCacheManagerBuilder().build(true)
-                .createCache("txPool", CacheConfigurationBuilder
-                        .newCacheConfigurationBuilder(Sha3Hash.class, Transaction.class,
-                                ResourcePoolsBuilder.heap(Long.MAX_VALUE)));
+        this.hashFilter = new HashFilter(this.db, "txs");
+        this.pendingPool = pendingPool;
         this.readCache = EvictingQueue.create(CACHE_SIZE);
-
     }
 
     TransactionStore(DbSource<byte[], byte[]> db, int cacheSize) {
@@ -68,65 +78,167 @@ public class TransactionStore implements ReadWriterStore<Sha3Hash, Transaction>
         this.readCache = EvictingQueue.create(cacheSize);
     }
 
+    /**
+     * Defers the pending pool, the count and the recent txs of a block until its writes are committed.
+     */
+    public void setUnitOfWork(UnitOfWork unitOfWork) {
+        this.unitOfWork = unitOfWork;
+    }
+
     public Collection<Transaction> getRecentTxs() {
-        return new ArrayList<>(readCache);
+        lock.lock();
+        try {
+            return new ArrayList<>(readCache);
+        } finally {
+            lock.unlock();
+        }
     }
 
+    /**
+     * Checks whether the tx is pending or committed, even if its body is pruned, so a tx is never replayed.
+     */
     @Override
     public boolean contains(Sha3Hash key) {
-        return pendingPool.containsKey(key) || db.get(key.getBytes()) != null;
+        return pendingPool.contains(key) || getCommitted(key) != null;
+    }
+
+    /**
+     * Checks whether the body of the tx is stored, which a pending tx is not until its block is.
+     */
+    public boolean isCommitted(Sha3Hash key) {
+        byte[] binary = getCommitted(key);
+        return binary != null && binary.length > 0;
+    }
+
+    private byte[] getCommitted(Sha3Hash key) {
+        // a new tx is usually not stored, the filter answers without reading the database
+        return hashFilter.mightContain(key.getBytes()) ? db.get(key.getBytes()) : null;
     }
 
     @Override
     public void close() {
+        hashFilter.save();
         db.close();
     }
 
+    /**
+     * Deletes the bodies of committed txs with one batch, when the history of old blocks is pruned.
+     * The hashes are kept, so the txs are still found by contains().
+     */
+    public void pruneBodies(Collection<Sha3Hash> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Map<byte[], byte[]> rows = new HashMap<>();
+        keys.forEach(key -> rows.put(key.getBytes(), PRUNED));
+        db.updateByBatch(rows);
+    }
+
+    public void compact() {
+        db.compact();
+    }
+
     @Override
     public void put(Sha3Hash key, Transaction tx) {
-        LOCK.lock();
-        pendingPool.put(key, tx);
-        if (pendingPool.containsKey(key)) {
-            pendingKeys.add(key);
-        } else {
-            log.warn("unconfirmedTxs size={}, ignore key={}", pendingKeys.size(), key);
+        if (!pendingPool.add(tx)) {
+            log.warn("unconfirmedTxs size={}, ignore key={}", pendingPool.size(), key);
         }
-        LOCK.unlock();
     }
 
     public void addTransaction(Transaction tx) {
         put(tx.getHash(), tx);
     }
 
+    /**
+     * Returns the pending or committed tx, or null if it is not stored or its body is pruned.
+     */
     @Override
     public Transaction get(Sha3Hash key) {
         Transaction item = pendingPool.get(key);
+        if (item != null) {
+            return item;
+        }
+        byte[] binary = db.get(key.getBytes());
+        if (binary == null || binary.length == 0) {
+            return null;
+        }
         try {
-            return item != null ? item : new TransactionImpl(db.get(key.getBytes()));
+            return new TransactionImpl(binary);
         } catch (Exception e) {
             throw new FailedOperationException(e);
         }
     }
 
+    /**
+     * Returns the committed txs in the order of their hash, the pending txs and the pruned txs are not scanned.
+     */
+    @Override
+    public Map<Sha3Hash, Transaction> scan(Sha3Hash from, Sha3Hash to, boolean reverse) {
+        return toTxs(db.scan(from == null ? null : from.getBytes(), to == null ? null : to.getBytes(), reverse));
+    }
+
+    @Override
+    public Map<Sha3Hash, Transaction> prefix(Sha3Hash prefix) {
+        return toTxs(db.prefix(prefix.getBytes()));
+    }
+
+    private Map<Sha3Hash, Transaction> toTxs(DbIterator<byte[], byte[]> iterator) {
+        Map<Sha3Hash, Transaction> result = new LinkedHashMap<>();
+        try (DbIterator<byte[], byte[]> rows = iterator) {
+            rows.forEachRemaining(row -> {
+                // the rows of the hash filter and the pruned txs are not txs
+                if (row.getKey().length == HASH_LENGTH && row.getValue().length > 0) {
+                    result.put(Sha3Hash.createByHashed(row.getKey()), new TransactionImpl(row.getValue()));
+                }
+            });
+        }
+        return result;
+    }
+
     public void batch(Set<Sha3Hash> keys) {
+        batch(keys, Collections.emptyList());
+    }
+
+    /**
+     * Stores the pending txs of a block and removes them from the pending pool.
+     *
+     * @param keys hashes of the txs in the block
+     * @param blockTxs txs of the block stored even if they are not pending, e.g. evicted from the pool
+     */
+    public void batch(Set<Sha3Hash> keys, Collection<Transaction> blockTxs) {
         if (keys.isEmpty()) {
             return;
         }
-        LOCK.lock();
-        Map<Sha3Hash, Transaction> map = pendingPool.getAll(keys);
-        int countOfBatchedTxs = map.size();
+        Map<Sha3Hash, Transaction> map = new LinkedHashMap<>();
+        for (Sha3Hash key : keys) {
+            Transaction pendingTx = pendingPool.get(key);
+            if (pendingTx != null) {
+                map.put(key, pendingTx);
+            }
+        }
+        blockTxs.forEach(tx -> map.put(tx.getHash(), tx));
         for (Map.Entry<Sha3Hash, Transaction> entry : map.entrySet()) {
-            Transaction foundTx = entry.getValue();
-            if (foundTx != null) {
-                db.put(entry.getKey().getBytes(), foundTx.toBinary());
-                addReadCache(foundTx);
-            } else {
-                countOfBatchedTxs -= 1;
+            db.put(entry.getKey().getBytes(), entry.getValue().toBinary());
+            // a rolled back tx only turns into a false positive of the filter
+            hashFilter.put(entry.getKey().getBytes());
+        }
+        Runnable committed = () -> {
+            lock.lock();
+            try {
+                map.values().forEach(this::addReadCache);
+                this.countOfTxs += map.size();
+                // removed once stored, so a tx of the block is always found by contains()
+                pendingPool.removeAll(keys);
+            } finally {
+                lock.unlock();
             }
+            log.debug("flushSize={} remainPendingSize={}", keys.size(), pendingPool.size());
+        };
+        if (unitOfWork != null) {
+            unitOfWork.afterCommit(committed);
+        } else {
+            committed.run();
         }
-        this.countOfTxs += countOfBatchedTxs;
-        this.flush(keys);
-        LOCK.unlock();
     }
 
     private void addReadCache(Transaction tx) {
@@ -137,42 +249,32 @@ public class TransactionStore implements ReadWriterStore<Sha3Hash, Transaction>
         return this.countOfTxs;
     }
 
+    /**
+     * Returns the pending txs in the order of their timestamp, up to the size limit.
+     */
     public List<Transaction> getUnconfirmedTxsWithLimit(long limit) {
-        LOCK.lock();
-        long bodySizeSum = 0;
-        List<Transaction> unconfirmedTxs = new ArrayList<>(pendingKeys.size());
-        for (Sha3Hash key : pendingKeys) {
-            Transaction tx = pendingPool.get(key);
-            if (tx != null) {
-                bodySizeSum += tx.getLength();
-                if (bodySizeSum > limit) {
-                    break;
-                }
-                unconfirmedTxs.add(tx);
-            }
-        }
-        LOCK.unlock();
-        return unconfirmedTxs;
+        return pendingPool.select(limit);
     }
 
     public Collection<Transaction> getUnconfirmedTxs() {
-        LOCK.lock();
-        Collection<Transaction> unconfirmedTxs = pendingPool.getAll(pendingKeys).values();
+        Collection<Transaction> unconfirmedTxs = pendingPool.getAll();
         if (!unconfirmedTxs.isEmpty()) {
-            log.debug("unconfirmedKeys={} unconfirmedTxs={}", pendingKeys.size(), unconfirmedTxs.size());
+            log.debug("unconfirmedTxs={} bytes={}", unconfirmedTxs.size(), pendingPool.getBytes());
         }
-        LOCK.unlock();
         return unconfirmedTxs;
     }
 
-    private void flush(Set<Sha3Hash> keys) {
-        pendingPool.removeAll(keys);
-        pendingKeys.removeAll(keys);
-        log.debug("flushSize={} remainPendingSize={}", keys.size(), pendingKeys.size());
+    public TxPool.Stats getPendingPoolStats() {
+        return pendingPool.getStats();
     }
 
     public void updateCache(List<Transaction> body) {
-        this.countOfTxs += body.size();
-        this.readCache.addAll(body);
+        lock.lock();
+        try {
+            this.countOfTxs += body.size();
+            this.readCache.addAll(body);
+        } finally {
+            lock.unlock();
+        }
     }
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import com.google.common.primitives.Longs;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.store.datasource.DbIterator;
+import io.yggdrash.common.store.datasource.DbSource;
+import io.yggdrash.core.blockchain.Block;
+import io.yggdrash.core.blockchain.Transaction;
+import io.yggdrash.core.blockchain.TxLocation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Location of the committed transactions. A tx hash maps to the height, the hash and the position
+ * of its block, and the position maps back to the tx hash, so that a tx is found without decoding its block.
+ * The hash of an indexed block maps to its height.
+ * Optionally the txs are also indexed by the address of the sender and of the recipients in the params
+ * ("to", "from"), ordered by block height and position for paging.
+ */
+public class TxIndexStore {
+    private static final byte LOCATION_PREFIX = 'L';
+    private static final byte POSITION_PREFIX = 'P';
+    private static final byte ADDRESS_PREFIX = 'A';
+    private static final byte BLOCK_PREFIX = 'B';
+    private static final byte[] INDEXED_KEY = "indexed".getBytes();
+    private static final byte[] ADDRESS_INDEXED_KEY = "addressIndexed".getBytes();
+    private static final String[] RECIPIENT_PARAMS = {"to", "from"};
+    private static final Pattern ADDRESS = Pattern.compile("[0-9a-f]{40}");
+    private static final int HASH_LENGTH = 32;
+    private static final int LOCATION_LENGTH = Long.BYTES + HASH_LENGTH + Integer.BYTES;
+
+    private final DbSource<byte[], byte[]> db;
+    private final boolean addressIndex;
+
+    public TxIndexStore(DbSource<byte[], byte[]> db) {
+        this(db, false);
+    }
+
+    public TxIndexStore(DbSource<byte[], byte[]> db, boolean addressIndex) {
+        this.db = db.init();
+        this.addressIndex = addressIndex;
+    }
+
+    /**
+     * Indexes every tx of the block with one batch, which also moves the indexed height to the block.
+     */
+    public void putBlock(Block block) {
+        List<Transaction> txs = block.getBody().getTransactionList();
+        byte[] blockHash = block.getHash().getBytes();
+        Map<byte[], byte[]> rows = new HashMap<>();
+        for (int i = 0; i < txs.size(); i++) {
+            byte[] txHash = txs.get(i).getHash().getBytes();
+            rows.put(locationKey(txHash), ByteBuffer.allocate(LOCATION_LENGTH)
+                    .putLong(block.getIndex()).put(blockHash).putInt(i).array());
+            rows.put(positionKey(block.getIndex(), i), txHash);
+            if (addressIndex) {
+                for (String address : addressesOf(txs.get(i))) {
+                    rows.put(addressKey(address, block.getIndex(), i), txHash);
+                }
+            }
+        }
+        rows.put(blockKey(blockHash), Longs.toByteArray(block.getIndex()));
+        rows.put(INDEXED_KEY, Longs.toByteArray(block.getIndex()));
+        if (addressIndex) {
+            rows.put(ADDRESS_INDEXED_KEY, Longs.toByteArray(block.getIndex()));
+        }
+        db.updateByBatch(rows);
+    }
+
+    /**
+     * Returns the height of the last indexed block, or -1 if no block is indexed.
+     */
+    public long getIndexedHeight() {
+        long indexed = getHeight(INDEXED_KEY);
+        // The address index is enabled after blocks were indexed
+        return addressIndex ? Math.min(indexed, getHeight(ADDRESS_INDEXED_KEY)) : indexed;
+    }
+
+    /**
+     * Returns the txs sent or received by the address, starting from the position.
+     *
+     * @param address address in hex
+     * @param fromBlock height of the block to start from
+     * @param fromTxIndex position in the block to start from
+     * @param limit maximum number of txs
+     * @return tx hashes ordered by block height and position
+     */
+    public List<Sha3Hash> getTxHashesByAddress(String address, long fromBlock, int fromTxIndex, int limit) {
+        List<Sha3Hash> txHashes = new ArrayList<>();
+        String key = address.toLowerCase();
+        try (DbIterator<byte[], byte[]> iterator = db.scan(
+                addressKey(key, fromBlock, fromTxIndex), addressKey(key, Long.MAX_VALUE, Integer.MAX_VALUE), false)) {
+            while (iterator.hasNext() && txHashes.size() < limit) {
+                txHashes.add(Sha3Hash.createByHashed(iterator.next().getValue()));
+            }
+        }
+        return txHashes;
+    }
+
+    /**
+     * Returns the location of the tx, or null if it is not in a committed block.
+     */
+    public TxLocation get(Sha3Hash txHash) {
+        byte[] location = db.get(locationKey(txHash.getBytes()));
+        if (location == null) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(location);
+        long blockIndex = buffer.getLong();
+        byte[] blockHash = new byte[HASH_LENGTH];
+        buffer.get(blockHash);
+        return new TxLocation(blockIndex, Sha3Hash.createByHashed(blockHash), buffer.getInt());
+    }
+
+    /**
+     * Returns the hash of the tx at the position of the block, or null if there is none.
+     */
+    public Sha3Hash getTxHash(long blockIndex, int txIndex) {
+        byte[] txHash = db.get(positionKey(blockIndex, txIndex));
+        return txHash != null ? Sha3Hash.createByHashed(txHash) : null;
+    }
+
+    /**
+     * Returns the height of the block, or -1 if it was not indexed, e.g. it was indexed before its hash was.
+     */
+    public long getBlockIndex(Sha3Hash blockHash) {
+        return getHeight(blockKey(blockHash.getBytes()));
+    }
+
+    public boolean contains(Sha3Hash txHash) {
+        return db.get(locationKey(txHash.getBytes())) != null;
+    }
+
+    public void close() {
+        this.db.close();
+    }
+
+    private long getHeight(byte[] key) {
+        byte[] height = db.get(key);
+        return height != null ? Longs.fromByteArray(height) : -1;
+    }
+
+    private static Set<String> addressesOf(Transaction tx) {
+        Set<String> addresses = new LinkedHashSet<>();
+        addresses.add(tx.getAddress().toString());
+        JsonElement params = tx.getBody().getBody().get("params");
+        if (params != null && params.isJsonObject()) {
+            JsonObject paramsObject = params.getAsJsonObject();
+            for (String name : RECIPIENT_PARAMS) {
+                JsonElement value = paramsObject.get(name);
+                if (value != null && value.isJsonPrimitive()
+                        && ADDRESS.matcher(value.getAsString().toLowerCase()).matches()) {
+                    addresses.add(value.getAsString().toLowerCase());
+                }
+            }
+        }
+        return addresses;
+    }
+
+    // A + address length + address + block index + position
+    private static byte[] addressKey(String address, long blockIndex, int txIndex) {
+        byte[] bytes = address.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + Integer.BYTES + bytes.length + Long.BYTES + Integer.BYTES)
+                .put(ADDRESS_PREFIX).putInt(bytes.length).put(bytes).putLong(blockIndex).putInt(txIndex).array();
+    }
+
+    private static byte[] locationKey(byte[] txHash) {
+        return ByteBuffer.allocate(1 + txHash.length).put(LOCATION_PREFIX).put(txHash).array();
+    }
+
+    private static byte[] blockKey(byte[] blockHash) {
+        return ByteBuffer.allocate(1 + blockHash.length).put(BLOCK_PREFIX).put(blockHash).array();
+    }
+
+    private static byte[] positionKey(long blockIndex, int txIndex) {
+        return ByteBuffer.allocate(1 + Long.BYTES + Integer.BYTES)
+                .put(POSITION_PREFIX).putLong(blockIndex).putInt(txIndex).array();
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.util.TimeUtils;
+import io.yggdrash.core.blockchain.Transaction;
+import io.yggdrash.core.wallet.Address;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pending txs of a branch, bounded by their total size.
+ * Txs are selected for a block in the order of their timestamp, so the txs of a sender stay in order.
+ * When the pool is full, the txs out of the verification window expire first. Then the latest tx of the sender
+ * with the most pending bytes is evicted, so a flooding sender does not push out the txs of the others.
+ * Each branch has its own pool. Lookups by hash take no lock, changes and selections hold the lock of the pool.
+ */
+public class TxPool {
+    private static final Logger log = LoggerFactory.getLogger(TxPool.class);
+    // the timestamp of a tx is verified within 1 hour of the node time
+    static final long EXPIRE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final long maxBytes;
+    private final Map<Sha3Hash, Entry> entries = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> queue = new TreeSet<>();
+    private final Map<Address, Sender> senders = new HashMap<>();
+    private final NavigableSet<Sender> sendersBySize = new TreeSet<>(
+            Comparator.comparingLong((Sender sender) -> sender.bytes).thenComparingLong(sender -> sender.id));
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder lockCount = new LongAdder();
+    private final LongAdder contendedCount = new LongAdder();
+    private final LongAdder lockWaitNanos = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    // written under the lock
+    private volatile long bytes;
+    private long sequence;
+
+    /**
+     * @param maxBytes total size of the pending txs
+     */
+    public TxPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Adds a pending tx, evicting other txs if the pool is full.
+     *
+     * @return false if the tx is not kept
+     */
+    public boolean add(Transaction tx) {
+        Sha3Hash key = tx.getHash();
+        if (entries.containsKey(key)) {
+            return true;
+        } else if (tx.getLength() > maxBytes) {
+            rejectedCount.increment();
+            return false;
+        }
+        // the sender is recovered from the signature before the lock
+        Entry entry = new Entry(tx);
+        boolean kept;
+        lock();
+        try {
+            if (entries.containsKey(key)) {
+                return true;
+            }
+            entry.arrival = sequence++;
+            insert(entry);
+            if (bytes > maxBytes) {
+                int expired = removeExpired(TimeUtils.time());
+                int evicted = 0;
+                while (bytes > maxBytes) {
+                    remove(sendersBySize.last().txs.last());
+                    evicted++;
+                }
+                evictedCount.add(evicted);
+                log.debug("txPool is full. expired={} evicted={} size={}", expired, evicted, entries.size());
+            }
+            kept = entries.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+        if (!kept) {
+            rejectedCount.increment();
+        }
+        return kept;
+    }
+
+    public Transaction get(Sha3Hash key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.tx : null;
+    }
+
+    public boolean contains(Sha3Hash key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Removes the txs, e.g. when they are included in a block.
+     *
+     * @return the removed txs
+     */
+    public List<Transaction> removeAll(Collection<Sha3Hash> keys) {
+        List<Transaction> removed = new ArrayList<>();
+        lock();
+        try {
+            for (Sha3Hash key : keys) {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    remove(entry);
+                    removed.add(entry.tx);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the pending txs of the next block in the order of their timestamp, up to the size limit.
+     * Expired txs are removed before, they would not pass the verification.
+     *
+     * @param byteLimit total size of the txs
+     */
+    public List<Transaction> select(long byteLimit) {
+        long sum = 0;
+        List<Transaction> selected = new ArrayList<>();
+        lock();
+        try {
+            removeExpired(TimeUtils.time());
+            for (Entry entry : queue) {
+                sum += entry.length;
+                if (sum > byteLimit) {
+                    break;
+                }
+                selected.add(entry.tx);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return selected;
+    }
+
+    public List<Transaction> getAll() {
+        lock();
+        try {
+            List<Transaction> txs = new ArrayList<>(queue.size());
+            queue.forEach(entry -> txs.add(entry.tx));
+            return txs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public Stats getStats() {
+        return new Stats(size(), getBytes(), lockCount.sum(), contendedCount.sum(),
+                TimeUnit.NANOSECONDS.toMillis(lockWaitNanos.sum()), rejectedCount.sum(), evictedCount.sum(),
+                expiredCount.sum());
+    }
+
+    /**
+     * Removes the txs whose timestamp is out of the verification window.
+     *
+     * @param now current time in milliseconds
+     * @return the number of txs removed
+     */
+    int expire(long now) {
+        lock();
+        try {
+            return removeExpired(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int removeExpired(long now) {
+        int expired = 0;
+        while (!queue.isEmpty() && queue.first().timestamp <= now - EXPIRE_MILLIS) {
+            remove(queue.first());
+            expired++;
+        }
+        expiredCount.add(expired);
+        return expired;
+    }
+
+    /**
+     * Takes the lock of the pool, counting how often and how long it is waited for.
+     */
+    private void lock() {
+        if (!lock.tryLock()) {
+            contendedCount.increment();
+            long start = System.nanoTime();
+            lock.lock();
+            lockWaitNanos.add(System.nanoTime() - start);
+        }
+        lockCount.increment();
+    }
+
+    private void insert(Entry entry) {
+        entries.put(entry.tx.getHash(), entry);
+        queue.add(entry);
+        Sender sender = senders.computeIfAbsent(entry.address, address -> new Sender(sequence++));
+        // the order of the sender changes with its size
+        sendersBySize.remove(sender);
+        sender.txs.add(entry);
+        sender.bytes += entry.length;
+        sendersBySize.add(sender);
+        entry.sender = sender;
+        bytes += entry.length;
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.tx.getHash());
+        queue.remove(entry);
+        Sender sender = entry.sender;
+        sendersBySize.remove(sender);
+        sender.txs.remove(entry);
+        sender.bytes -= entry.length;
+        if (sender.txs.isEmpty()) {
+            senders.remove(entry.address);
+        } else {
+            sendersBySize.add(sender);
+        }
+        bytes -= entry.length;
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private final Transaction tx;
+        private final long timestamp;
+        private final long length;
+        private final Address address;
+        private long arrival;
+        private Sender sender;
+
+        Entry(Transaction tx) {
+            this.tx = tx;
+            this.timestamp = tx.getHeader().getTimestamp();
+            this.length = tx.getLength();
+            this.address = tx.getAddress();
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int result = Long.compare(timestamp, o.timestamp);
+            return result != 0 ? result : Long.compare(arrival, o.arrival);
+        }
+    }
+
+    private static class Sender {
+        private final long id;
+        private final NavigableSet<Entry> txs = new TreeSet<>();
+        private long bytes;
+
+        Sender(long id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Counters of a pool since it was created.
+     */
+    public static final class Stats {
+        private final int size;
+        private final long bytes;
+        private final long lockCount;
+        private final long contendedCount;
+        private final long lockWaitMillis;
+        private final long rejectedCount;
+        private final long evictedCount;
+        private final long expiredCount;
+
+        Stats(int size, long bytes, long lockCount, long contendedCount, long lockWaitMillis,
+              long rejectedCount, long evictedCount, long expiredCount) {
+            this.size = size;
+            this.bytes = bytes;
+            this.lockCount = lockCount;
+            this.contendedCount = contendedCount;
+            this.lockWaitMillis = lockWaitMillis;
+            this.rejectedCount = rejectedCount;
+            this.evictedCount = evictedCount;
+            this.expiredCount = expiredCount;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long bytes() {
+            return bytes;
+        }
+
+        /**
+         * Number of times the lock of the pool was taken.
+         */
+        public long lockCount() {
+            return lockCount;
+        }
+
+        /**
+         * Number of times the lock of the pool was held by another thread.
+         */
+        public long contendedCount() {
+            return contendedCount;
+        }
+
+        /**
+         * Total time waited for the lock of the pool.
+         */
+        public long lockWaitMillis() {
+            return lockWaitMillis;
+        }
+
+        public long rejectedCount() {
+            return rejectedCount;
+        }
+
+        public long evictedCount() {
+            return evictedCount;
+        }
+
+        public long expiredCount() {
+            return expiredCount;
+        }
+    }
+}
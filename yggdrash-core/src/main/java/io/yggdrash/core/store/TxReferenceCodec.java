@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnknownFieldSet;
+import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.core.blockchain.Transaction;
+import io.yggdrash.core.blockchain.TransactionImpl;
+import io.yggdrash.proto.Proto;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Stores a consensus block with the hashes of its txs instead of their bodies, which are kept once
+ * by the transaction store. Embedded blocks, e.g. the block of a consensus message, are addressed by the path
+ * of field numbers from the consensus block, so that the codec does not depend on the consensus protocol.
+ * A tx which the transaction store does not keep, e.g. a failed tx received only with the block, stays inline.
+ * A pruned block keeps no tx at all, it is decoded without the transaction store.
+ */
+class TxReferenceCodec {
+    // Never starts a protobuf message nor a block file location
+    private static final byte COMPACT = 1;
+
+    private final List<int[]> blockPaths;
+    private final TransactionStore transactionStore;
+
+    TxReferenceCodec(List<int[]> blockPaths, TransactionStore transactionStore) {
+        this.blockPaths = blockPaths;
+        this.transactionStore = transactionStore;
+    }
+
+    static boolean isCompact(ByteBuffer binary) {
+        return binary.remaining() > 0 && binary.get(binary.position()) == COMPACT;
+    }
+
+    byte[] encode(byte[] binary) {
+        try {
+            Proto.CompactBlock.Builder compact = Proto.CompactBlock.newBuilder();
+            UnknownFieldSet block = UnknownFieldSet.parseFrom(binary);
+            for (int[] path : blockPaths) {
+                Proto.TxReferenceList.Builder references = Proto.TxReferenceList.newBuilder();
+                block = rewrite(block, path, 0, embedded -> {
+                    Proto.Block protoBlock = parseBlock(embedded);
+                    for (Proto.Transaction tx : protoBlock.getBody().getTransactionsList()) {
+                        references.addTxs(toReference(tx));
+                    }
+                    return protoBlock.toBuilder().clearBody().build().toByteString();
+                });
+                compact.addBodies(references);
+            }
+            byte[] encoded = compact.setBlock(block.toByteString()).build().toByteArray();
+            return ByteBuffer.allocate(1 + encoded.length).put(COMPACT).put(encoded).array();
+        } catch (InvalidProtocolBufferException e) {
+            throw new FailedOperationException(e);
+        }
+    }
+
+    /**
+     * Keeps only the header and the consensus proof of a block, its tx bodies and references are dropped.
+     * The decoded block has an empty body.
+     *
+     * @param binary stored binary, a compact record or a consensus block
+     * @return compact record without txs
+     */
+    byte[] stripBodies(ByteBuffer binary) {
+        try {
+            Proto.CompactBlock.Builder compact = Proto.CompactBlock.newBuilder();
+            ByteString block;
+            if (isCompact(binary)) {
+                ByteBuffer encoded = binary.duplicate();
+                encoded.position(encoded.position() + 1);
+                block = Proto.CompactBlock.parseFrom(encoded).getBlock();
+            } else {
+                UnknownFieldSet set = UnknownFieldSet.parseFrom(ByteString.copyFrom(binary.duplicate()));
+                for (int[] path : blockPaths) {
+                    set = rewrite(set, path, 0,
+                            embedded -> parseBlock(embedded).toBuilder().clearBody().build().toByteString());
+                }
+                block = set.toByteString();
+            }
+            blockPaths.forEach(path -> compact.addBodies(Proto.TxReferenceList.getDefaultInstance()));
+            byte[] encoded = compact.setBlock(block).build().toByteArray();
+            return ByteBuffer.allocate(1 + encoded.length).put(COMPACT).put(encoded).array();
+        } catch (InvalidProtocolBufferException e) {
+            throw new FailedOperationException(e);
+        }
+    }
+
+    /**
+     * Reassembles the binary of the consensus block, reading the tx bodies from the transaction store.
+     */
+    ByteBuffer decode(ByteBuffer binary) {
+        ByteBuffer encoded = binary.duplicate();
+        encoded.position(encoded.position() + 1);
+        try {
+            Proto.CompactBlock compact = Proto.CompactBlock.parseFrom(encoded);
+            UnknownFieldSet block = UnknownFieldSet.parseFrom(compact.getBlock());
+            for (int i = 0; i < Math.min(blockPaths.size(), compact.getBodiesCount()); i++) {
+                Proto.TxReferenceList references = compact.getBodies(i);
+                block = rewrite(block, blockPaths.get(i), 0, embedded -> {
+                    Proto.TransactionList.Builder body = Proto.TransactionList.newBuilder();
+                    references.getTxsList().forEach(reference -> body.addTransactions(toTransaction(reference)));
+                    return parseBlock(embedded).toBuilder().setBody(body).build().toByteString();
+                });
+            }
+            return ByteBuffer.wrap(block.toByteArray());
+        } catch (InvalidProtocolBufferException e) {
+            throw new FailedOperationException(e);
+        }
+    }
+
+    private Proto.TxReference toReference(Proto.Transaction tx) {
+        Sha3Hash hash = new TransactionImpl(tx).getHash();
+        Proto.TxReference.Builder reference = Proto.TxReference.newBuilder()
+                .setHash(ByteString.copyFrom(hash.getBytes()));
+        // The txs of the block are stored before it, except a failed tx which was not pending any more
+        if (!transactionStore.isCommitted(hash)) {
+            reference.setTx(tx);
+        }
+        return reference.build();
+    }
+
+    private Proto.Transaction toTransaction(Proto.TxReference reference) {
+        if (reference.hasTx()) {
+            return reference.getTx();
+        } else if (transactionStore == null) {
+            throw new FailedOperationException("Block holds tx references but the transaction store is not set");
+        }
+        Sha3Hash hash = Sha3Hash.createByHashed(reference.getHash().toByteArray());
+        Transaction tx = transactionStore.get(hash);
+        if (tx == null) {
+            throw new FailedOperationException("Referenced tx " + hash + " is not stored");
+        }
+        return tx.getInstance();
+    }
+
+    /**
+     * Replaces the single message at the path, a set without it is returned as it is.
+     */
+    private static UnknownFieldSet rewrite(UnknownFieldSet set, int[] path, int depth,
+                                           UnaryOperator<ByteString> rewriter)
+            throws InvalidProtocolBufferException {
+        int number = path[depth];
+        if (!set.hasField(number) || set.getField(number).getLengthDelimitedList().size() != 1) {
+            return set;
+        }
+        ByteString value = set.getField(number).getLengthDelimitedList().get(0);
+        ByteString rewritten = depth == path.length - 1
+                ? rewriter.apply(value)
+                : rewrite(UnknownFieldSet.parseFrom(value), path, depth + 1, rewriter).toByteString();
+        return UnknownFieldSet.newBuilder(set)
+                .clearField(number)
+                .mergeLengthDelimitedField(number, rewritten)
+                .build();
+    }
+
+    private static Proto.Block parseBlock(ByteString binary) {
+        try {
+            return Proto.Block.parseFrom(binary);
+        } catch (InvalidProtocolBufferException e) {
+            throw new FailedOperationException(e);
+        }
+    }
+}
@@ -166,13 +166,20 @@ public class BlockChainTestUtils {
     public static BlockChain createBlockChain(GenesisBlock genesis, boolean isProductionMode) {
         log.debug("createBlockChain isProdMode : {}", isProductionMode);
         log.debug("createBlockChain branchId : {}", genesis.getBranchId().toString());
+        return createBlockChain(genesis, createBlockChainStore(genesis, isProductionMode));
+    }
+
+    public static BlockChainStore createBlockChainStore(GenesisBlock genesis, boolean isProductionMode) {
         DefaultConfig config = new DefaultConfig();
         BlockChainStoreBuilder builder = BlockChainStoreBuilder.newBuilder(genesis.getBranchId())
                 .setBlockStoreFactory(PbftBlockStoreMock::new)
                 .withProductionMode(isProductionMode)
                 .withDataBasePath(config.getDatabasePath());
-        BlockChainStore bcStore = builder.build();
+        return builder.build();
+    }
 
+    public static BlockChain createBlockChain(GenesisBlock genesis, BlockChainStore bcStore) {
+        DefaultConfig config = new DefaultConfig();
         ContractStore contractStore = bcStore.getContractStore();
 
         BootFrameworkConfig bootFrameworkConfig = new BootFrameworkConfig(config, genesis.getBranchId());
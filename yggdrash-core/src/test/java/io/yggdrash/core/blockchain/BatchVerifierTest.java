@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.blockchain;
+
+import io.yggdrash.BlockChainTestUtils;
+import io.yggdrash.core.consensus.ConsensusBlock;
+import io.yggdrash.proto.PbftProto;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchVerifierTest {
+
+    private final BatchVerifier batchVerifier = new BatchVerifier(2);
+
+    @After
+    public void tearDown() {
+        batchVerifier.close();
+    }
+
+    @Test
+    public void shouldVerifyBlocksInOrder() {
+        List<ConsensusBlock<PbftProto.PbftBlock>> blockList = BlockChainTestUtils.createBlockListFilledWithTx(5, 10);
+
+        List<BatchVerifier.Result> results = batchVerifier.verify(blockList);
+
+        assertThat(results).hasSize(blockList.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).getIndex()).isEqualTo(blockList.get(i).getIndex());
+            assertThat(results.get(i).isValid()).isTrue();
+        }
+    }
+
+    @Test
+    public void shouldReportInvalidTx() {
+        Transaction validTx = BlockChainTestUtils.createTransferTx();
+        Transaction invalidTx = BlockChainTestUtils.createInvalidTransferTx();
+        ConsensusBlock<PbftProto.PbftBlock> block = BlockChainTestUtils.createNextBlock(
+                Arrays.asList(validTx, invalidTx), BlockChainTestUtils.genesisBlock());
+
+        BatchVerifier.Result result = batchVerifier.verify(block);
+
+        assertThat(result.isBlockSignatureValid()).isTrue();
+        assertThat(result.getInvalidTxs()).containsExactly(invalidTx.getHash());
+        assertThat(result.isValid()).isFalse();
+    }
+}
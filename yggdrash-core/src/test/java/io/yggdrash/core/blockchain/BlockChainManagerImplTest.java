@@ -14,7 +14,11 @@ package io.yggdrash.core.blockchain;
 
 import io.yggdrash.BlockChainTestUtils;
 import io.yggdrash.common.config.Constants;
+import io.yggdrash.contract.core.ExecuteStatus;
+import io.yggdrash.contract.core.Receipt;
+import io.yggdrash.contract.core.ReceiptImpl;
 import io.yggdrash.core.consensus.ConsensusBlock;
+import io.yggdrash.core.runtime.result.BlockRuntimeResult;
 import io.yggdrash.core.store.BlockChainStore;
 import io.yggdrash.core.store.BlockChainStoreBuilder;
 import io.yggdrash.core.store.BlockStoreFactory;
@@ -23,10 +27,13 @@ import io.yggdrash.proto.PbftProto;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class BlockChainManagerImplTest {
@@ -100,13 +107,85 @@ public class BlockChainManagerImplTest {
         assertEquals(32004, blockChainManager.verify(block)); // blockHeight > + invalid format, invalid merkleRoot
 
         ConsensusBlock<PbftProto.PbftBlock> blockWithInvalidTx = generateBlockWithTxs(false);
-        assertEquals(32000, blockChainManager.verify(blockWithInvalidTx));
+        assertEquals(32001, blockChainManager.verify(blockWithInvalidTx)); // untrusted tx
         blockChainManager.addBlock(blockWithInvalidTx);
         assertEquals(3, blockChainManager.countOfBlocks());
         assertEquals(20, blockChainManager.countOfTxs());
         assertEquals(20, blockChainManager.getRecentTxs().size()); //invalid tx was excluded
     }
 
+    @Test
+    public void rolledBackBlockTest() {
+        ConsensusBlock<PbftProto.PbftBlock> genesisBlock = BlockChainTestUtils.genesisBlock();
+        blockChainManager.addBlock(genesisBlock);
+        ConsensusBlock<PbftProto.PbftBlock> block = generateBlockWithTxs(true);
+
+        blockChainManager.getUnitOfWork().begin();
+        blockChainManager.addBlock(block);
+        blockChainManager.getUnitOfWork().rollback();
+
+        // neither the head nor the pending txs follow a block which is not stored
+        assertEquals(genesisBlock, blockChainManager.getLastConfirmedBlock());
+        assertEquals(10, blockChainManager.getUnconfirmedTxs().size());
+        assertEquals(0, blockChainManager.countOfTxs());
+        assertEquals(0, blockChainManager.getRecentTxs().size());
+    }
+
+    @Test
+    public void verifyWithVerifiedSignaturesTest() {
+        blockChainManager.addBlock(BlockChainTestUtils.genesisBlock());
+        ConsensusBlock<PbftProto.PbftBlock> block = generateBlockWithTxs(true);
+        BatchVerifier.Result signatures = new BatchVerifier.Result(
+                block.getIndex(), block.getHash(), true, Collections.singletonList(block.getHash()));
+
+        // the result is taken rather than the signatures
+        assertEquals(32001, blockChainManager.verify(block, signatures));
+        assertEquals(32000, blockChainManager.verify(block, null));
+    }
+
+    @Test
+    public void addBlockWithExecutionResultTest() {
+        blockChainManager.addBlock(BlockChainTestUtils.genesisBlock());
+        // Txs received only with the block, not by the tx api
+        List<Transaction> txs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            txs.add(BlockChainTestUtils.createTransferTx());
+        }
+        ConsensusBlock<PbftProto.PbftBlock> block =
+                BlockChainTestUtils.createNextBlock(txs, blockChainManager.getLastConfirmedBlock());
+
+        // No receipt is stored, the txs to store are taken from the result
+        BlockRuntimeResult result = new BlockRuntimeResult(block);
+        for (int i = 0; i < txs.size(); i++) {
+            Receipt receipt = new ReceiptImpl(txs.get(i).getHash().toString(), 0L, "issuer");
+            receipt.setStatus(i == 0 ? ExecuteStatus.ERROR : ExecuteStatus.SUCCESS);
+            result.addReceipt(receipt);
+        }
+        blockChainManager.addBlock(block, result);
+
+        assertEquals(2, blockChainManager.countOfBlocks());
+        assertEquals(2, blockChainManager.countOfTxs());
+        assertFalse(blockChainManager.contains(txs.get(0)));
+    }
+
+    @Test
+    public void getTxLocationTest() {
+        blockChainManager.addBlock(BlockChainTestUtils.genesisBlock());
+        ConsensusBlock<PbftProto.PbftBlock> block = generateBlockWithTxs(true);
+        blockChainManager.addBlock(block);
+
+        Transaction tx = block.getBody().getTransactionList().get(3);
+        TxLocation location = blockChainManager.getTxLocation(tx.getHash());
+        assertEquals(1, location.getBlockIndex());
+        assertEquals(block.getHash(), location.getBlockHash());
+        assertEquals(3, location.getTxIndex());
+        assertEquals(tx, blockChainManager.getTxByIndex(1, 3));
+        assertNull(blockChainManager.getTxByIndex(1, 10));
+        assertEquals(tx, blockChainManager.getTxByBlockHash(block.getHash(), 3));
+        assertNull(blockChainManager.getTxByBlockHash(tx.getHash(), 3));
+        assertNull(blockChainManager.getTxLocation(BlockChainTestUtils.createTransferTx().getHash()));
+    }
+
     private ConsensusBlock<PbftProto.PbftBlock> generateBlockWithTxs(Boolean valid) {
         for (int i = 0; i < 10; i++) {
             blockChainManager.addTransaction(BlockChainTestUtils.createTransferTx());
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.yggdrash.core.blockchain;
+
+import io.yggdrash.BlockChainTestUtils;
+import io.yggdrash.TestConstants;
+import io.yggdrash.core.blockchain.genesis.GenesisBlock;
+import io.yggdrash.core.consensus.ConsensusBlock;
+import io.yggdrash.core.store.BlockChainStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HistoryPrunerTest {
+    private BlockChain blockChain;
+    private BlockChainStore store;
+    private final List<Transaction> txs = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        GenesisBlock genesis = BlockChainTestUtils.getGenesis();
+        store = BlockChainTestUtils.createBlockChainStore(genesis, false);
+        blockChain = BlockChainTestUtils.createBlockChain(genesis, store);
+
+        ConsensusBlock prevBlock = blockChain.getBlockChainManager().getLastConfirmedBlock();
+        for (int i = 1; i <= 10; i++) {
+            Transaction tx = BlockChainTestUtils.createTransferTx(TestConstants.TRANSFER_TO, BigInteger.valueOf(i));
+            ConsensusBlock block = BlockChainTestUtils.createNextBlock(Collections.singletonList(tx), prevBlock);
+            assertThat(blockChain.addBlock(block, false)).isEmpty();
+            txs.add(tx);
+            prevBlock = block;
+        }
+    }
+
+    @Test
+    public void shouldPruneHistoryOutOfRetention() {
+        // receipts and logs of the last 5 blocks, tx bodies of the last 8 blocks
+        HistoryPruner pruner = new HistoryPruner(blockChain, store, new RetentionPolicy(5, 0, 8));
+
+        assertThat(pruner.prune(3)).isEqualTo(3 + 3 + 2);
+        assertThat(pruner.prune(3)).isEqualTo(2 + 2);
+        assertThat(pruner.prune(3)).isZero();
+
+        for (int i = 0; i < txs.size(); i++) {
+            String txId = txs.get(i).getHash().toString();
+            assertThat(store.getReceiptStore().contains(txId)).isEqualTo(i >= 5);
+            // a pruned tx keeps its hash, so it is never replayed
+            assertThat(store.getTransactionStore().contains(txs.get(i).getHash())).isTrue();
+            assertThat(store.getTransactionStore().get(txs.get(i).getHash()) != null).isEqualTo(i >= 2);
+        }
+        assertThat(blockChain.getBlockChainManager().getPrunedBodyIndex()).isEqualTo(2);
+
+        // a pruned block keeps its header
+        ConsensusBlock pruned = blockChain.getBlockChainManager().getBlockByIndex(1);
+        assertThat(pruned.getHash()).isEqualTo(blockChain.getBlockChainManager().getBlockByIndex(2).getPrevBlockHash());
+        assertThat(pruned.getBody().getTransactionList()).isEmpty();
+        assertThat(blockChain.getBlockChainManager().getBlockByIndex(3).getBody().getTransactionList()).hasSize(1);
+        assertThat(blockChain.getBlockChainManager().getBlockByIndex(0).getBody().getTransactionList()).isNotEmpty();
+    }
+
+    @Test
+    public void shouldNotPruneArchive() {
+        HistoryPruner pruner = new HistoryPruner(blockChain, store, RetentionPolicy.ARCHIVE);
+
+        assertThat(pruner.prune(100)).isZero();
+        assertThat(store.getReceiptStore().contains(txs.get(0).getHash().toString())).isTrue();
+    }
+}
@@ -23,7 +23,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -72,6 +74,45 @@ public class LogIndexerTest {
         }
     }
 
+    @Test
+    public void getLogsByFilterTest() {
+        Map<String, Receipt> block1 = new LinkedHashMap<>();
+        Receipt transfer = generateReceipt(BlockChainTestUtils.createTransferTx(), 2);
+        transfer.setMethod("transfer");
+        block1.put(transfer.getTxId(), transfer);
+        Receipt approve = generateReceipt(BlockChainTestUtils.createTransferTx(), 1);
+        approve.setMethod("approve");
+        block1.put(approve.getTxId(), approve);
+        Map<String, Receipt> block2 = new LinkedHashMap<>();
+        Receipt transfer2 = generateReceipt(BlockChainTestUtils.createTransferTx(), 3);
+        transfer2.setMethod("transfer");
+        block2.put(transfer2.getTxId(), transfer2);
+        Map<String, Receipt> blocks = new LinkedHashMap<>(block1);
+        blocks.putAll(block2);
+        blocks.values().forEach(receiptStore::put);
+
+        logIndexer.put(1, block1);
+        logIndexer.put(2, new LinkedHashMap<>());
+        logIndexer.put(3, block2);
+
+        String address = transfer.getIssuer();
+        assertEquals(6, logIndexer.getLogs(new LogFilter(null, null, null, 1, 3)).size());
+        assertEquals(3, logIndexer.getLogs(new LogFilter(null, null, null, 2, 3)).size());
+        assertEquals(0, logIndexer.getLogs(new LogFilter(null, null, null, 2, 2)).size());
+        assertEquals(5, logIndexer.getLogs(new LogFilter(null, "transfer", null, 0, 10)).size());
+        assertEquals(2, logIndexer.getLogs(new LogFilter(null, "transfer", null, 0, 2)).size());
+        assertEquals(5, logIndexer.getLogs(new LogFilter(null, "transfer", null, 0, Long.MAX_VALUE)).size());
+        assertEquals(2, logIndexer.getLogs(new LogFilter(null, "transfer", null, 0, 10, 2)).size());
+        assertEquals(4, logIndexer.getLogs(new LogFilter(null, null, null, 0, Long.MAX_VALUE, 4)).size());
+
+        // every tx is issued by the test wallet, block 3 is skipped by its Bloom filter
+        List<Log> logs = logIndexer.getLogs(new LogFilter(null, "approve", address, 0, 10));
+        assertEquals(1, logs.size());
+        assertEquals(102, logs.get(0).getNum());
+        assertEquals(approve.getTxId(), logs.get(0).getTxId());
+        assertTrue(logIndexer.getLogs(new LogFilter(null, "unknown", address, 0, 10)).isEmpty());
+    }
+
     private void init() {
         int size = 10;
 
@@ -25,11 +25,17 @@ import io.yggdrash.proto.PbftProto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+
 public class PbftBlockMock extends AbstractConsensusBlock<PbftProto.PbftBlock> {
     private static final Logger log = LoggerFactory.getLogger(PbftBlockMock.class);
 
     public PbftBlockMock(byte[] bytes) {
-        this(toProto(bytes));
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    public PbftBlockMock(ByteBuffer buffer) {
+        this(toProto(buffer));
     }
 
     public PbftBlockMock(Block block) {
@@ -66,9 +72,9 @@ public class PbftBlockMock extends AbstractConsensusBlock<PbftProto.PbftBlock> {
         throw new FailedOperationException("Not implemented");
     }
 
-    private static Block toProto(byte[] bytes) {
+    private static Block toProto(ByteBuffer buffer) {
         try {
-            return new BlockImpl(PbftProto.PbftBlock.parseFrom(bytes).getBlock());
+            return new BlockImpl(PbftProto.PbftBlock.parseFrom(buffer).getBlock());
         } catch (InvalidProtocolBufferException e) {
             throw new NotValidateException(e);
         }
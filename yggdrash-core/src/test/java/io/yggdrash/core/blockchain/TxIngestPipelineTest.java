@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.blockchain;
+
+import io.yggdrash.BlockChainTestUtils;
+import io.yggdrash.TestConstants;
+import io.yggdrash.common.contract.ContractVersion;
+import io.yggdrash.common.exception.FailedOperationException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TxIngestPipelineTest {
+    private static final String CONTRACT_VERSION = "8c65bc05e107aab9ceaa872bbbb2d96d57811de4";
+
+    private BranchGroup branchGroup;
+    private TxIngestPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        branchGroup = BlockChainTestUtils.createBranchGroup();
+        pipeline = new TxIngestPipeline(branchGroup, 2, 100);
+    }
+
+    @After
+    public void tearDown() {
+        pipeline.close();
+    }
+
+    @Test
+    public void shouldAdmitVerifiedTx() {
+        Transaction tx = BlockChainTestUtils.createContractProposeTx(CONTRACT_VERSION);
+
+        assertThat(pipeline.add(tx)).isEmpty();
+        assertThat(branchGroup.getUnconfirmedTxs(tx.getBranchId())).contains(tx);
+
+        Map<String, List<String>> errorLogs = pipeline.add(tx);
+        assertThat(errorLogs.get("BusinessError")).containsExactly("Duplicated");
+    }
+
+    @Test
+    public void shouldRejectTxOfUnknownBranch() {
+        Transaction tx = BlockChainTestUtils.createTransferTx(BranchId.NULL, ContractVersion.of(CONTRACT_VERSION));
+
+        assertThat(pipeline.add(tx)).containsKey("SystemError");
+
+        List<TxIngestPipeline.StageStats> stats = pipeline.getStats();
+        assertThat(stats).extracting(TxIngestPipeline.StageStats::getName)
+                .containsExactly("decode", "dedupe", "verify", "check");
+        assertThat(stats).extracting(TxIngestPipeline.StageStats::getQueueDepth).containsOnly(0);
+    }
+
+    @Test
+    public void shouldAdmitWaitingTxOfFullBranch() throws Exception {
+        TxIngestPipeline small = new TxIngestPipeline(branchGroup, 1, 1);
+        try {
+            CompletableFuture<Map<String, List<String>>> first =
+                    small.submit(BlockChainTestUtils.createTransferTx(TestConstants.TRANSFER_TO, BigInteger.ONE));
+            CompletableFuture<Map<String, List<String>>> second =
+                    small.submit(BlockChainTestUtils.createTransferTx(TestConstants.TRANSFER_TO, BigInteger.TEN));
+
+            assertThat(first.get(10, TimeUnit.SECONDS)).isNotNull();
+            assertThat(second.get(10, TimeUnit.SECONDS)).isNotNull();
+        } finally {
+            small.close();
+        }
+    }
+
+    @Test(expected = FailedOperationException.class)
+    public void shouldRejectTxAfterClose() {
+        pipeline.close();
+
+        pipeline.add(BlockChainTestUtils.createContractProposeTx(CONTRACT_VERSION));
+    }
+}
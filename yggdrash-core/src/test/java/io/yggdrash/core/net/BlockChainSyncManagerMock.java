@@ -13,6 +13,7 @@
 package io.yggdrash.core.net;
 
 import io.yggdrash.BlockChainTestUtils;
+import io.yggdrash.core.blockchain.BatchVerifier;
 import io.yggdrash.core.blockchain.BlockChainSyncManager;
 import io.yggdrash.core.blockchain.BranchGroup;
 import org.slf4j.Logger;
@@ -21,15 +22,17 @@ import org.slf4j.LoggerFactory;
 public class BlockChainSyncManagerMock {
     static final BranchGroup branchGroup = BlockChainTestUtils.createBranchGroup();
     static final NodeStatus nodeStatus = NodeStatusMock.mock;
+    // shared by the sync managers of the tests, as the node shares its verifier
+    static final BatchVerifier batchVerifier = new BatchVerifier(1);
     private static final Logger log = LoggerFactory.getLogger(BlockChainSyncManagerMock.class);
 
     public static final BlockChainSyncManager mock = new BlockChainSyncManager(nodeStatus,
-            PeerNetworkMock.mock, branchGroup);
+            PeerNetworkMock.mock, branchGroup, batchVerifier);
 
     public BlockChainSyncManager getMock() {
         log.debug("branch size : {}", branchGroup.getAllBranch().size());
         log.debug("nodeStatus : {}", nodeStatus.isUpStatus());
 
-        return new BlockChainSyncManager(nodeStatus, PeerNetworkMock.mock, branchGroup);
+        return new BlockChainSyncManager(nodeStatus, PeerNetworkMock.mock, branchGroup, batchVerifier);
     }
 }
\ No newline at end of file
@@ -18,14 +18,23 @@ package io.yggdrash.core.store;
 
 import io.yggdrash.BlockChainTestUtils;
 import io.yggdrash.StoreTestUtils;
+import io.yggdrash.common.crypto.HashUtil;
+import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.common.store.datasource.HashMapDbSource;
 import io.yggdrash.common.store.datasource.LevelDbDataSource;
+import io.yggdrash.common.store.datasource.UnitOfWork;
+import io.yggdrash.core.blockchain.Transaction;
 import io.yggdrash.core.consensus.ConsensusBlock;
 import io.yggdrash.proto.PbftProto;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class BlockStoreTest {
     private ConsensusBlockStore<PbftProto.PbftBlock> blockStore;
@@ -67,4 +76,151 @@ public class BlockStoreTest {
         assertThat(foundBlock).isEqualTo(block);
         assertThat(blockStore.size()).isEqualTo(1L);
     }
+
+    @Test
+    public void shouldNotKeepRolledBackBlock() {
+        UnitOfWork unitOfWork = new UnitOfWork();
+        ConsensusBlockStore<PbftProto.PbftBlock> store =
+                new PbftBlockStoreMock(unitOfWork.register(new HashMapDbSource()));
+        unitOfWork.onRollback(store::rollback);
+        ConsensusBlock<PbftProto.PbftBlock> block = BlockChainTestUtils.genesisBlock();
+
+        unitOfWork.begin();
+        store.addBlock(block);
+        assertThat(store.getBlockByIndex(block.getIndex())).isEqualTo(block);
+        unitOfWork.rollback();
+
+        assertThat(store.contains(block.getHash())).isFalse();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    public void shouldThrowWhenBlockIsNotWritten() {
+        ConsensusBlock<PbftProto.PbftBlock> block = BlockChainTestUtils.genesisBlock();
+        ConsensusBlockStore<PbftProto.PbftBlock> store = new PbftBlockStoreMock(new HashMapDbSource() {
+            @Override
+            public void put(byte[] key, byte[] value) {
+                if (Arrays.equals(key, block.getHash().getBytes())) {
+                    throw new IllegalStateException("Disk full");
+                }
+                super.put(key, value);
+            }
+        });
+
+        assertThatThrownBy(() -> store.addBlock(block)).isInstanceOf(FailedOperationException.class);
+        assertThat(store.contains(block.getHash())).isFalse();
+    }
+
+    @Test
+    public void shouldBeGotBlockFromCache() {
+        // arrange
+        ConsensusBlock<PbftProto.PbftBlock> block = BlockChainTestUtils.genesisBlock();
+        blockStore.addBlock(block);
+        // act
+        ConsensusBlock<PbftProto.PbftBlock> firstBlock = blockStore.getBlockByIndex(block.getIndex());
+        ConsensusBlock<PbftProto.PbftBlock> cachedBlock = blockStore.getBlockByIndex(block.getIndex());
+        // assert
+        assertThat(cachedBlock).isSameAs(firstBlock);
+        assertThat(blockStore.getCacheStats().missCount()).isEqualTo(2L);
+        assertThat(blockStore.getCacheStats().hitCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() {
+        // arrange
+        ConsensusBlock<PbftProto.PbftBlock> block = BlockChainTestUtils.genesisBlock();
+        blockStore.setCacheSize(0);
+        blockStore.put(block.getHash(), block);
+        // act
+        ConsensusBlock<PbftProto.PbftBlock> firstBlock = blockStore.get(block.getHash());
+        ConsensusBlock<PbftProto.PbftBlock> secondBlock = blockStore.get(block.getHash());
+        // assert
+        assertThat(secondBlock).isEqualTo(firstBlock).isNotSameAs(firstBlock);
+        assertThat(blockStore.getCacheStats().hitCount()).isZero();
+    }
+
+    @Test
+    public void shouldBeGotBlockFromBlockFile() {
+        // arrange
+        ConsensusBlock<PbftProto.PbftBlock> block = BlockChainTestUtils.genesisBlock();
+        blockStore.setCacheSize(0);
+        // a segment smaller than the block gets the size of the block
+        blockStore.setBlockFile(new SegmentedBlockFile(StoreTestUtils.getTestPath(), "block-file-test", 16));
+        // act
+        blockStore.addBlock(block);
+        blockStore.close();
+        blockStore = new PbftBlockStoreMock(
+                new LevelDbDataSource(StoreTestUtils.getTestPath(), "block-store-test"));
+        blockStore.setBlockFile(new SegmentedBlockFile(StoreTestUtils.getTestPath(), "block-file-test", 16));
+        // assert
+        assertThat(blockStore.getBlockByIndex(block.getIndex())).isEqualTo(block);
+        assertThat(blockStore.size()).isEqualTo(1L);
+    }
+
+    @Test
+    public void shouldWriteBlockFileFromCommittedTailAfterRollback() {
+        UnitOfWork unitOfWork = new UnitOfWork();
+        ConsensusBlockStore<PbftProto.PbftBlock> store =
+                new PbftBlockStoreMock(unitOfWork.register(new HashMapDbSource()));
+        unitOfWork.onRollback(store::rollback);
+        SegmentedBlockFile blockFile =
+                new SegmentedBlockFile(StoreTestUtils.getTestPath(), "block-file-rollback-test", 16);
+        store.setBlockFile(blockFile);
+        ConsensusBlock<PbftProto.PbftBlock> block = BlockChainTestUtils.genesisBlock();
+
+        unitOfWork.begin();
+        store.addBlock(block);
+        unitOfWork.rollback();
+        unitOfWork.begin();
+        store.addBlock(block);
+        unitOfWork.commit();
+
+        // the rolled back binary is overwritten in the first segment
+        assertThat(blockFile.getTail().toBinary())
+                .isEqualTo(new SegmentedBlockFile.Location(0, block.toBinary().length, 0).toBinary());
+        assertThat(store.getBlockByIndex(block.getIndex())).isEqualTo(block);
+        blockFile.close();
+    }
+
+    @Test
+    public void shouldBeGotBlockWithTxReferences() {
+        // arrange
+        Transaction storedTx = BlockChainTestUtils.createTransferTx();
+        Transaction pendingTx = BlockChainTestUtils.createTransferTx();
+        ConsensusBlock<PbftProto.PbftBlock> block = BlockChainTestUtils.createNextBlock(
+                Arrays.asList(storedTx, pendingTx), BlockChainTestUtils.genesisBlock());
+        TxPool pendingPool = new TxPool(1024 * 1024);
+        TransactionStore txStore = new TransactionStore(new HashMapDbSource(), pendingPool);
+        // the stored tx is referred to, the pending tx stays in the block as it may never be stored
+        txStore.addTransaction(storedTx);
+        txStore.batch(Collections.singleton(storedTx.getHash()));
+        txStore.addTransaction(pendingTx);
+        blockStore.setCacheSize(0);
+        blockStore.setTxReferences(txStore);
+        // act
+        blockStore.addBlock(block);
+        // e.g. a failed tx evicted from the pool
+        pendingPool.removeAll(Collections.singleton(pendingTx.getHash()));
+        // assert
+        assertThat(blockStore.getBlockByIndex(block.getIndex())).isEqualTo(block);
+        assertThat(blockStore.get(block.getHash()).getBody().getTransactionList())
+                .isEqualTo(block.getBody().getTransactionList());
+    }
+
+    @Test
+    public void shouldMigrateLegacyBlockIndex() {
+        // arrange
+        ConsensusBlock<PbftProto.PbftBlock> block = BlockChainTestUtils.genesisBlock();
+        blockStore.close();
+        LevelDbDataSource ds = new LevelDbDataSource(StoreTestUtils.getTestPath(), "block-store-legacy-test");
+        ds.init();
+        ds.put(block.getHash().getBytes(), block.toBinary());
+        ds.put(HashUtil.sha3("BLOCK_INDEX_0".getBytes()), block.getHash().getBytes());
+        ds.close();
+        // act
+        blockStore = new PbftBlockStoreMock(
+                new LevelDbDataSource(StoreTestUtils.getTestPath(), "block-store-legacy-test"));
+        // assert
+        assertThat(blockStore.getBlockByIndex(0)).isEqualTo(block);
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import io.yggdrash.common.crypto.HashUtil;
+import io.yggdrash.common.store.datasource.DbSource;
+import io.yggdrash.common.store.datasource.HashMapDbSource;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HashFilterTest {
+
+    @Test
+    public void shouldRebuildFromStoredKeys() {
+        DbSource<byte[], byte[]> db = new HashMapDbSource().init();
+        for (int i = 0; i < 100; i++) {
+            db.put(key(i), new byte[] {1});
+        }
+        HashFilter filter = new HashFilter(db, "test");
+        filter.rebuild();
+        assertThat(filter.isReady()).isTrue();
+
+        filter.put(key(100));
+        int falsePositives = 0;
+        for (int i = 0; i <= 100; i++) {
+            assertThat(filter.mightContain(key(i))).isTrue();
+            if (filter.mightContain(key(1000 + i))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(10);
+    }
+
+    @Test
+    public void shouldLoadSavedFilterOnce() {
+        DbSource<byte[], byte[]> db = new HashMapDbSource().init();
+        HashFilter filter = new HashFilter(db, "test");
+        filter.rebuild();
+        filter.put(key(1));
+        filter.save();
+
+        HashFilter loaded = new HashFilter(db, "test");
+        assertThat(loaded.isReady()).isTrue();
+        assertThat(loaded.mightContain(key(1))).isTrue();
+        // dropped once loaded, a crash before the next save rebuilds it
+        assertThat(db.get(HashFilter.FILTER_KEY)).isNull();
+    }
+
+    private static byte[] key(int i) {
+        return HashUtil.sha3(("key" + i).getBytes());
+    }
+}
@@ -20,6 +20,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -52,17 +53,17 @@ public class LogStoreTest {
 
         log.debug("\nput : {}\nput : {}\nput : {}", val0, val1, val2);
 
-        store.put(val0);
-        store.put(val1);
-        store.put(val2);
+        store.put(val0.getBytes());
+        store.put(val1.getBytes());
+        store.put(val2.getBytes());
 
         assertTrue(store.contains(curIndex));
         assertTrue(store.contains(curIndex + 1));
         assertTrue(store.contains(curIndex + 2));
 
-        assertEquals(val0, store.get(curIndex));
-        assertEquals(val1, store.get(curIndex + 1));
-        assertEquals(val2, store.get(curIndex + 2));
+        assertEquals(val0, new String(store.get(curIndex)));
+        assertEquals(val1, new String(store.get(curIndex + 1)));
+        assertEquals(val2, new String(store.get(curIndex + 2)));
 
         assertEquals(curIndex + 3, store.size());
 
@@ -5,7 +5,6 @@ import io.yggdrash.common.Sha3Hash;
 import io.yggdrash.common.store.datasource.DbSource;
 import io.yggdrash.core.blockchain.PbftBlockMock;
 import io.yggdrash.core.consensus.ConsensusBlock;
-import io.yggdrash.core.exception.NonExistObjectException;
 import io.yggdrash.proto.PbftProto;
 
 @VisibleForTesting
@@ -21,12 +20,6 @@ public class PbftBlockStoreMock extends AbstractBlockStore<PbftProto.PbftBlock>
 
     @Override
     public ConsensusBlock<PbftProto.PbftBlock> get(Sha3Hash key) {
-        lock.lock();
-        byte[] foundValue = db.get(key.getBytes());
-        lock.unlock();
-        if (foundValue != null) {
-            return new PbftBlockMock(foundValue);
-        }
-        throw new NonExistObjectException(key.toString());
+        return getBlock(key, PbftBlockMock::new);
     }
 }
\ No newline at end of file
@@ -16,6 +16,8 @@
 
 package io.yggdrash.core.store;
 
+import com.google.gson.Gson;
+import io.yggdrash.common.crypto.HashUtil;
 import io.yggdrash.common.store.datasource.HashMapDbSource;
 import io.yggdrash.contract.core.ExecuteStatus;
 import io.yggdrash.contract.core.Receipt;
@@ -23,14 +25,20 @@ import io.yggdrash.contract.core.ReceiptImpl;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.spongycastle.util.encoders.Hex;
+
+import java.util.Arrays;
+import java.util.List;
 
 public class ReceiptStoreTest {
 
+    private HashMapDbSource db;
     private ReceiptStore store;
 
     @Before
     public void setUp() {
-        store = new ReceiptStore(new HashMapDbSource());
+        db = new HashMapDbSource();
+        store = new ReceiptStore(db);
     }
 
     @Test
@@ -56,4 +64,48 @@ public class ReceiptStoreTest {
         Assert.assertEquals(receipt.getStatus(), receipt2.getStatus());
     }
 
+    @Test
+    public void shouldStoreReceiptUnderRawHash() {
+        String txId = Hex.toHexString(HashUtil.sha3("tx".getBytes()));
+        ReceiptImpl receipt = new ReceiptImpl(txId, 100L, "issuer");
+        receipt.addLog("transferred");
+        receipt.setStatus(ExecuteStatus.SUCCESS);
+        store.put(receipt);
+
+        Assert.assertNotNull(db.get(Hex.decode(txId)));
+        Receipt found = store.get(txId);
+        Assert.assertEquals(txId, found.getTxId());
+        Assert.assertEquals(Long.valueOf(100L), found.getTxSize());
+        Assert.assertNull(found.getBlockHeight());
+        Assert.assertNull(found.getMethod());
+        Assert.assertEquals(receipt.getLog(), found.getLog());
+        Assert.assertTrue(found.isSuccess());
+    }
+
+    @Test
+    public void shouldGetReceiptsOfBlock() {
+        String blockHash = Hex.toHexString(HashUtil.sha3("block".getBytes()));
+        Receipt blockReceipt = new ReceiptImpl("issuer", "branch", blockHash + 0, 10L, 0L);
+        Receipt txReceipt = new ReceiptImpl(Hex.toHexString(HashUtil.sha3("tx".getBytes())), 100L, "issuer");
+        store.put(blockReceipt.getBlockId(), blockReceipt);
+        store.putBlockReceipts(0L, Arrays.asList(txReceipt, blockReceipt));
+
+        List<Receipt> receipts = store.getBlockReceipts(0L);
+        Assert.assertEquals(2, receipts.size());
+        Assert.assertEquals(txReceipt.getTxId(), receipts.get(0).getTxId());
+        Assert.assertEquals(Long.valueOf(0L), receipts.get(1).getBlockHeight());
+        Assert.assertTrue(store.contains(blockReceipt.getBlockId()));
+        Assert.assertTrue(store.getBlockReceipts(1L).isEmpty());
+    }
+
+    @Test
+    public void shouldReadLegacyJsonReceipt() {
+        String txId = Hex.toHexString(HashUtil.sha3("legacy".getBytes()));
+        Receipt receipt = new ReceiptImpl(txId, 100L, "issuer");
+        receipt.setStatus(ExecuteStatus.ERROR);
+        db.put(txId.getBytes(), new Gson().toJson(receipt).getBytes());
+
+        Assert.assertTrue(store.contains(txId));
+        Assert.assertEquals(ExecuteStatus.ERROR, store.get(txId).getStatus());
+    }
 }
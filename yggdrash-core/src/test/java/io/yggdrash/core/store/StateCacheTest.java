@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import com.google.gson.JsonObject;
+import io.yggdrash.common.store.StateStore;
+import io.yggdrash.common.store.datasource.HashMapDbSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StateCacheTest {
+    private StateStore stateStore;
+    private StateCache stateCache;
+
+    @Before
+    public void setUp() {
+        stateStore = new StateStore(new HashMapDbSource());
+        stateCache = new StateCache(stateStore, 1024 * 1024);
+    }
+
+    @After
+    public void tearDown() {
+        stateCache.close();
+        stateStore.close();
+    }
+
+    @Test
+    public void shouldWriteBackOnFlush() {
+        stateCache.put("balance/a", balance("100"));
+
+        assertThat(stateCache.get("balance/a")).isEqualTo(balance("100"));
+        assertThat(stateStore.get("balance/a")).isNull();
+
+        stateCache.flush();
+        assertThat(stateStore.get("balance/a")).isEqualTo(balance("100"));
+        assertThat(stateStore.getStateSize()).isEqualTo(1L);
+
+        stateCache.put("balance/a", balance("50"));
+        stateCache.flush();
+        assertThat(stateStore.getStateSize()).isEqualTo(1L);
+    }
+
+    @Test
+    public void shouldServeReadsFromMemory() {
+        stateStore.put("balance/a", balance("100"));
+
+        stateCache.get("balance/a");
+        stateCache.get("balance/a");
+        stateCache.get("balance/b");
+        stateCache.get("balance/b");
+
+        assertThat(stateCache.getCacheStats().missCount()).isEqualTo(2L);
+        assertThat(stateCache.getCacheStats().hitCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void shouldNotShareValues() {
+        stateCache.put("balance/a", balance("100"));
+        stateCache.get("balance/a").addProperty("balance", "0");
+
+        assertThat(stateCache.get("balance/a")).isEqualTo(balance("100"));
+    }
+
+    @Test
+    public void shouldDropDirtyValuesOnInvalidate() {
+        stateCache.put("balance/a", balance("100"));
+        stateCache.invalidateAll();
+        stateCache.flush();
+
+        assertThat(stateCache.get("balance/a")).isNull();
+        assertThat(stateStore.getStateSize()).isZero();
+    }
+
+    @Test
+    public void shouldNotServeValuesWrittenToStore() {
+        stateCache.get("branch/a");
+        stateCache.put("balance/a", balance("100"));
+
+        stateStore.put("branch/a", balance("1"));
+        stateStore.put("balance/a", balance("0"));
+
+        assertThat(stateCache.get("branch/a")).isEqualTo(balance("1"));
+        assertThat(stateCache.get("balance/a")).isEqualTo(balance("100"));
+
+        stateCache.flush();
+        stateCache.get("balance/a");
+        assertThat(stateCache.getCacheStats().hitCount()).isEqualTo(1L);
+    }
+
+    private static JsonObject balance(String value) {
+        JsonObject balance = new JsonObject();
+        balance.addProperty("balance", value);
+        return balance;
+    }
+}
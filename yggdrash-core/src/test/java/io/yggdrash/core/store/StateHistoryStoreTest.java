@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import com.google.gson.JsonObject;
+import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.common.store.datasource.HashMapDbSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StateHistoryStoreTest {
+    private StateHistoryStore stateHistory;
+
+    @Before
+    public void setUp() {
+        stateHistory = new StateHistoryStore(new HashMapDbSource(), 3);
+        stateHistory.put(1, changes("a", 1, "b", 1));
+        stateHistory.put(2, changes("a", 2));
+        stateHistory.put(3, Collections.emptyMap());
+        stateHistory.put(4, changes("a", 4, "c", 4));
+    }
+
+    @Test
+    public void shouldBeGotValueAtHeight() {
+        assertThat(stateHistory.getOldestHeight()).isEqualTo(2);
+        assertThat(stateHistory.getLastHeight()).isEqualTo(4);
+
+        assertThat(stateHistory.get("a", 2)).isEqualTo(value(2));
+        assertThat(stateHistory.get("a", 3)).isEqualTo(value(2));
+        assertThat(stateHistory.get("a", 4)).isEqualTo(value(4));
+        // unchanged since the first height
+        assertThat(stateHistory.get("b", 4)).isEqualTo(value(1));
+        assertThat(stateHistory.contains("c", 3)).isFalse();
+        assertThat(stateHistory.get("c", 4)).isEqualTo(value(4));
+    }
+
+    @Test
+    public void shouldBeScannedAtHeight() {
+        assertThat(stateHistory.scan(null, null, false, 3)).containsOnlyKeys("a", "b");
+        assertThat(stateHistory.scan("b", null, true, 4).keySet()).containsExactly("c", "b");
+        assertThat(stateHistory.prefix("a", 3)).containsEntry("a", value(2));
+    }
+
+    @Test
+    public void shouldPruneVersionsOutOfRetention() {
+        Map<String, JsonObject> deleted = new HashMap<>();
+        deleted.put("b", null);
+        stateHistory.put(5, deleted);
+        stateHistory.put(6, changes("a", 6));
+
+        assertThat(stateHistory.getOldestHeight()).isEqualTo(4);
+        assertThat(stateHistory.get("a", 4)).isEqualTo(value(4));
+        assertThat(stateHistory.get("b", 4)).isEqualTo(value(1));
+        assertThat(stateHistory.get("b", 5)).isNull();
+        assertThat(stateHistory.prefix("", 6)).containsOnlyKeys("a", "c");
+    }
+
+    @Test
+    public void shouldStartOverAfterSkippedBlocks() {
+        stateHistory.put(7, changes("a", 7));
+
+        assertThat(stateHistory.getOldestHeight()).isEqualTo(7);
+        assertThat(stateHistory.isAvailable(5)).isFalse();
+        assertThat(stateHistory.get("a", 7)).isEqualTo(value(7));
+    }
+
+    @Test(expected = FailedOperationException.class)
+    public void shouldNotBeGotPrunedHeight() {
+        stateHistory.get("a", 1);
+    }
+
+    private static Map<String, JsonObject> changes(String key, int value) {
+        Map<String, JsonObject> changes = new HashMap<>();
+        changes.put(key, value(value));
+        return changes;
+    }
+
+    private static Map<String, JsonObject> changes(String key, int value, String otherKey, int otherValue) {
+        Map<String, JsonObject> changes = changes(key, value);
+        changes.put(otherKey, value(otherValue));
+        return changes;
+    }
+
+    private static JsonObject value(int value) {
+        JsonObject json = new JsonObject();
+        json.addProperty("balance", value);
+        return json;
+    }
+}
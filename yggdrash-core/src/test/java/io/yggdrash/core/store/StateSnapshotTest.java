@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.yggdrash.core.store;
+
+import io.yggdrash.BlockChainTestUtils;
+import io.yggdrash.TestConstants;
+import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.exception.FailedOperationException;
+import io.yggdrash.core.blockchain.BlockChain;
+import io.yggdrash.core.blockchain.BlockChainManagerImpl;
+import io.yggdrash.core.blockchain.BranchGroup;
+import io.yggdrash.core.blockchain.Transaction;
+import io.yggdrash.core.blockchain.genesis.GenesisBlock;
+import io.yggdrash.core.consensus.ConsensusBlock;
+import io.yggdrash.core.exception.NonExistObjectException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StateSnapshotTest {
+    private GenesisBlock genesis;
+    private BlockChainStore store;
+    private BlockChain blockChain;
+    private BranchGroup branchGroup;
+
+    @Before
+    public void setUp() {
+        genesis = BlockChainTestUtils.getGenesis();
+        store = BlockChainTestUtils.createBlockChainStore(genesis, false);
+        blockChain = BlockChainTestUtils.createBlockChain(genesis, store);
+        branchGroup = new BranchGroup();
+        branchGroup.addBranch(blockChain);
+
+        ConsensusBlock prevBlock = blockChain.getBlockChainManager().getLastConfirmedBlock();
+        for (int i = 1; i <= 5; i++) {
+            Transaction tx = BlockChainTestUtils.createTransferTx(TestConstants.TRANSFER_TO, BigInteger.valueOf(i));
+            ConsensusBlock block = BlockChainTestUtils.createNextBlock(Collections.singletonList(tx), prevBlock);
+            assertThat(blockChain.addBlock(block, false)).isEmpty();
+            prevBlock = block;
+        }
+    }
+
+    @Test
+    public void shouldLoadExportedSnapshot() throws IOException {
+        byte[] snapshot = export(5);
+
+        BlockChainStore newStore = BlockChainStoreBuilder.newBuilder(genesis.getBranchId())
+                .setBlockStoreFactory(PbftBlockStoreMock::new)
+                .withStateHistory(10)
+                .build();
+        assertThat(read(snapshot, newStore)).isEqualTo(5);
+
+        assertThat(newStore.getContractStore().getStateTrie().getRoot())
+                .isEqualTo(store.getContractStore().getStateTrie().getRoot());
+        assertThat(countContractState(newStore)).isEqualTo(countContractState(store));
+        assertThat(newStore.getBranchStore().getBranchContacts())
+                .hasSameSizeAs(store.getBranchStore().getBranchContacts());
+        assertThat(newStore.getBranchStore().getSnapshotBlockIndex()).isEqualTo(5);
+        // the state at the snapshot block is the first version
+        assertThat(newStore.getContractStore().getStateHistory().getOldestHeight()).isEqualTo(5);
+
+        // the chain continues from the snapshot block
+        BlockChainManagerImpl blockChainManager = new BlockChainManagerImpl(newStore);
+        blockChainManager.loadTransaction();
+        assertThat(blockChainManager.getLastConfirmedBlock().getHash())
+                .isEqualTo(blockChain.getBlockChainManager().getLastHash());
+        assertThat(blockChainManager.getBlockByIndex(0).getHash()).isEqualTo(genesis.getBlock().getHash());
+    }
+
+    @Test
+    public void shouldExportOnlyTheLastBlock() {
+        assertThatThrownBy(() -> export(3)).isInstanceOf(NonExistObjectException.class);
+    }
+
+    @Test
+    public void shouldRejectCorruptedSnapshot() throws IOException {
+        byte[] snapshot = export(5);
+        snapshot[snapshot.length - 100] ^= 0x01;
+
+        BlockChainStore newStore = BlockChainTestUtils.createBlockChainStore(genesis, false);
+        assertThatThrownBy(() -> read(snapshot, newStore)).isInstanceOf(FailedOperationException.class);
+        // the import is not completed
+        assertThat(newStore.getBranchStore().getGenesisBlockHash()).isNull();
+        assertThat(newStore.getBranchStore().getSnapshotImport()).isNotNull();
+    }
+
+    @Test
+    public void shouldLoadSameSnapshotOverUnfinishedImport() throws IOException {
+        byte[] snapshot = export(5);
+        byte[] corrupted = snapshot.clone();
+        corrupted[corrupted.length - 100] ^= 0x01;
+
+        BlockChainStore newStore = BlockChainTestUtils.createBlockChainStore(genesis, false);
+        assertThatThrownBy(() -> read(corrupted, newStore)).isInstanceOf(FailedOperationException.class);
+
+        assertThat(read(snapshot, newStore)).isEqualTo(5);
+        assertThat(newStore.getContractStore().getStateTrie().getRoot())
+                .isEqualTo(store.getContractStore().getStateTrie().getRoot());
+        assertThat(newStore.getBranchStore().getGenesisBlockHash()).isEqualTo(genesis.getBlock().getHash());
+    }
+
+    @Test
+    public void shouldRejectSnapshotOfAnotherGenesis() throws IOException {
+        byte[] snapshot = export(5);
+
+        BlockChainStore newStore = BlockChainTestUtils.createBlockChainStore(genesis, false);
+        Sha3Hash otherGenesis = new Sha3Hash("other genesis".getBytes());
+        assertThatThrownBy(() -> StateSnapshot.read(new ByteArrayInputStream(snapshot), genesis.getBranchId(),
+                otherGenesis, newStore, (block, validators) -> true))
+                .isInstanceOf(FailedOperationException.class);
+        assertThat(newStore.getBranchStore().getGenesisBlockHash()).isNull();
+    }
+
+    @Test
+    public void shouldRejectSnapshotBlockWithoutValidProof() throws IOException {
+        byte[] snapshot = export(5);
+
+        BlockChainStore newStore = BlockChainTestUtils.createBlockChainStore(genesis, false);
+        assertThatThrownBy(() -> StateSnapshot.read(new ByteArrayInputStream(snapshot), genesis.getBranchId(),
+                genesis.getBlock().getHash(), newStore, (block, validators) -> false))
+                .isInstanceOf(FailedOperationException.class);
+        // the chain does not start from the snapshot
+        assertThat(newStore.getBranchStore().getGenesisBlockHash()).isNull();
+        assertThat(newStore.getBranchStore().getSnapshotBlockIndex()).isEqualTo(-1);
+    }
+
+    private long read(byte[] snapshot, BlockChainStore newStore) throws IOException {
+        return StateSnapshot.read(new ByteArrayInputStream(snapshot), genesis.getBranchId(),
+                genesis.getBlock().getHash(), newStore, (block, validators) -> true);
+    }
+
+    private static long countContractState(BlockChainStore blockChainStore) {
+        long[] count = {0};
+        blockChainStore.getStateStore().forEach(BlockChainStoreBuilder.BRANCH_KEYS, (key, value) -> count[0]++);
+        return count[0];
+    }
+
+    private byte[] export(long height) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        branchGroup.exportSnapshot(genesis.getBranchId(), height, out);
+        return out.toByteArray();
+    }
+}
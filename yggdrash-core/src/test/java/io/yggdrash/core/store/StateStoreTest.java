@@ -16,17 +16,28 @@
 
 package io.yggdrash.core.store;
 
+import com.google.common.primitives.Longs;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import io.yggdrash.common.store.StateStore;
+import io.yggdrash.common.store.datasource.DbSource;
 import io.yggdrash.common.store.datasource.HashMapDbSource;
+import io.yggdrash.common.utils.JsonBinaryCodec;
+import io.yggdrash.common.utils.SerializationUtil;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class StateStoreTest {
     private static final Logger log = LoggerFactory.getLogger(StateStoreTest.class);
@@ -70,5 +81,41 @@ public class StateStoreTest {
         assertEquals(1L, this.stateStore.getStateSize());
     }
 
+    @Test
+    public void getStateByPrefix() {
+        stateStore.put("balance/b", new JsonObject());
+        stateStore.put("balance/a", new JsonObject());
+        stateStore.put("allowance/a", new JsonObject());
+
+        Map<String, JsonObject> balances = stateStore.prefix("balance/");
+        assertEquals(2, balances.size());
+        assertEquals("balance/a", balances.keySet().iterator().next());
+    }
+
+    @Test
+    public void forEachShouldSkipOnlyExcludedKeys() {
+        stateStore.put("balance/a", new JsonObject());
+        stateStore.put("branchBEST_BLOCK", new JsonObject());
+        stateStore.put("branchless", new JsonObject());
+        stateStore.put("stake/a", new JsonObject());
 
-}
\ No newline at end of file
+        List<String> keys = new ArrayList<>();
+        stateStore.forEach(Collections.singleton("branchBEST_BLOCK"), (key, value) -> keys.add(key));
+        assertEquals(Arrays.asList("balance/a", "branchless", "stake/a"), keys);
+    }
+
+    @Test
+    public void readAndMigrateLegacyJsonValue() {
+        JsonObject obj = new JsonParser().parse("{\"balance\":\"100\",\"nonce\":1,\"rate\":0.5}")
+                .getAsJsonObject();
+        DbSource<byte[], byte[]> db = new HashMapDbSource().init();
+        db.put("DATABASE_SIZE".getBytes(), Longs.toByteArray(1L));
+        db.put("balance/a".getBytes(), SerializationUtil.serializeJson(obj));
+
+        // migrated when the store is opened
+        StateStore legacyStore = new StateStore(db);
+        assertTrue(JsonBinaryCodec.isEncoded(db.get("balance/a".getBytes())));
+        assertEquals(obj, legacyStore.get("balance/a"));
+        assertEquals(1, legacyStore.prefix("").size());
+    }
+}
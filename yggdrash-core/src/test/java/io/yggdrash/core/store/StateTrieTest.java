@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import com.google.gson.JsonObject;
+import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.store.datasource.HashMapDbSource;
+import io.yggdrash.common.store.datasource.UnitOfWork;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StateTrieTest {
+
+    @Test
+    public void rootShouldNotDependOnWriteOrder() {
+        StateTrie forward = new StateTrie(new HashMapDbSource());
+        StateTrie backward = new StateTrie(new HashMapDbSource());
+
+        for (int i = 0; i < 100; i++) {
+            forward.update(i, Collections.singletonMap("balance/" + i, balance(i)));
+            backward.update(i, Collections.singletonMap("balance/" + (99 - i), balance(99 - i)));
+        }
+
+        assertThat(forward.getRoot()).isEqualTo(backward.getRoot());
+    }
+
+    @Test
+    public void deleteShouldRestorePreviousRoot() {
+        StateTrie stateTrie = new StateTrie(new HashMapDbSource());
+        Map<String, JsonObject> changes = new LinkedHashMap<>();
+        changes.put("balance/a", balance(1));
+        changes.put("balance/b", balance(2));
+        Sha3Hash root = stateTrie.update(0, changes);
+
+        stateTrie.update(1, Collections.singletonMap("balance/c", balance(3)));
+        assertThat(stateTrie.getRoot()).isNotEqualTo(root);
+
+        Sha3Hash restored = stateTrie.update(2, Collections.singletonMap("balance/c", null));
+        assertThat(restored).isEqualTo(root);
+        assertThat(stateTrie.getRoot(0)).isEqualTo(root);
+    }
+
+    @Test
+    public void shouldReloadRootOnRollback() {
+        UnitOfWork unitOfWork = new UnitOfWork();
+        StateTrie stateTrie = new StateTrie(unitOfWork.register(new HashMapDbSource()));
+        unitOfWork.onRollback(stateTrie::reload);
+        Sha3Hash root = stateTrie.update(0, Collections.singletonMap("balance/a", balance(1)));
+
+        unitOfWork.begin();
+        stateTrie.update(1, Collections.singletonMap("balance/b", balance(2)));
+        unitOfWork.rollback();
+
+        assertThat(stateTrie.getRoot()).isEqualTo(root);
+        assertThat(stateTrie.getRoot(1)).isNull();
+    }
+
+    private static JsonObject balance(long value) {
+        JsonObject balance = new JsonObject();
+        balance.addProperty("balance", value);
+        return balance;
+    }
+}
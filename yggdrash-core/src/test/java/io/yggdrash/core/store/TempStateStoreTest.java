@@ -24,6 +24,8 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+
 public class TempStateStoreTest {
 
     private StateStore stateStore;
@@ -55,4 +57,25 @@ public class TempStateStoreTest {
 
         Assert.assertEquals(originObj, store.get("TEST"));
     }
+
+    @Test
+    public void shouldMergeTempValuesInDatabaseOrder() {
+        String bmp = "\uFF01";
+        String supplementary = "\uD83D\uDE00";
+        stateStore.put("a", new JsonObject());
+        stateStore.put(supplementary, new JsonObject());
+        TempStateStore store = new TempStateStore(stateStore);
+        store.put(bmp, new JsonObject());
+
+        StateStore expected = new StateStore(new HashMapDbSource());
+        expected.put("a", new JsonObject());
+        expected.put(supplementary, new JsonObject());
+        expected.put(bmp, new JsonObject());
+
+        Assert.assertEquals(new ArrayList<>(expected.scan(null, null, false).keySet()),
+                new ArrayList<>(store.scan(null, null, false).keySet()));
+        Assert.assertEquals(new ArrayList<>(expected.scan(null, null, true).keySet()),
+                new ArrayList<>(store.scan(null, null, true).keySet()));
+        expected.close();
+    }
 }
@@ -106,6 +106,17 @@ public class TransactionStoreTest {
         assertThat(ts.getUnconfirmedTxs()).isNotEmpty();
     }
 
+    @Test
+    public void shouldScanCommittedTxsInHashOrder() {
+        ts.put(tx.getHash(), tx);
+        batch();
+        Transaction pendingTx = BlockChainTestUtils.createTransferTx();
+        ts.put(pendingTx.getHash(), pendingTx);
+
+        assertThat(ts.scan(null, null, false)).containsOnlyKeys(tx.getHash());
+        assertThat(ts.prefix(tx.getHash())).containsValue(tx);
+    }
+
     private void batch() {
         Set<Sha3Hash> keys = ts.getUnconfirmedTxs().stream().map(Transaction::getHash).collect(Collectors.toSet());
         ts.batch(keys);
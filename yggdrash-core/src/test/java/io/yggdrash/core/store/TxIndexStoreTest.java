@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import io.yggdrash.BlockChainTestUtils;
+import io.yggdrash.TestConstants;
+import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.store.datasource.HashMapDbSource;
+import io.yggdrash.core.blockchain.Transaction;
+import io.yggdrash.core.blockchain.TxLocation;
+import io.yggdrash.core.consensus.ConsensusBlock;
+import io.yggdrash.proto.PbftProto;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TxIndexStoreTest {
+    private TxIndexStore txIndexStore;
+    private List<Transaction> txs;
+    private ConsensusBlock<PbftProto.PbftBlock> block;
+
+    @Before
+    public void setUp() {
+        txIndexStore = new TxIndexStore(new HashMapDbSource(), true);
+        txs = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            txs.add(BlockChainTestUtils.createTransferTx());
+        }
+        block = BlockChainTestUtils.createNextBlock(txs, BlockChainTestUtils.genesisBlock());
+        txIndexStore.putBlock(block);
+    }
+
+    @Test
+    public void shouldBeGotTxLocation() {
+        TxLocation location = txIndexStore.get(txs.get(2).getHash());
+
+        assertThat(location.getBlockIndex()).isEqualTo(block.getIndex());
+        assertThat(location.getBlockHash()).isEqualTo(block.getHash());
+        assertThat(location.getTxIndex()).isEqualTo(2);
+        assertThat(txIndexStore.getTxHash(block.getIndex(), 2)).isEqualTo(txs.get(2).getHash());
+        assertThat(txIndexStore.getIndexedHeight()).isEqualTo(block.getIndex());
+    }
+
+    @Test
+    public void shouldPageTxsOfAddress() {
+        String sender = txs.get(0).getAddress().toString();
+        List<Sha3Hash> firstPage = txIndexStore.getTxHashesByAddress(sender, 0, 0, 2);
+        assertThat(firstPage).containsExactly(txs.get(0).getHash(), txs.get(1).getHash());
+
+        // the next page starts after the last tx of the page
+        List<Sha3Hash> nextPage = txIndexStore.getTxHashesByAddress(sender, block.getIndex(), 2, 2);
+        assertThat(nextPage).containsExactly(txs.get(2).getHash());
+
+        assertThat(txIndexStore.getTxHashesByAddress(TestConstants.TRANSFER_TO, 0, 0, 10)).hasSize(3);
+        assertThat(txIndexStore.getTxHashesByAddress(TestConstants.TRANSFER_TO, block.getIndex() + 1, 0, 10))
+                .isEmpty();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.core.store;
+
+import io.yggdrash.ContractTestUtils;
+import io.yggdrash.TestConstants;
+import io.yggdrash.common.util.TimeUtils;
+import io.yggdrash.core.blockchain.Transaction;
+import io.yggdrash.core.blockchain.TransactionBuilder;
+import io.yggdrash.core.wallet.Wallet;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TxPoolTest {
+
+    @Test
+    public void shouldSelectByTimestamp() {
+        long now = TimeUtils.time();
+        TxPool pool = new TxPool(1024 * 1024);
+        Transaction later = createTx(TestConstants.wallet(), now);
+        Transaction earlier = createTx(TestConstants.transferWallet(), now - 1000);
+        pool.add(later);
+        pool.add(earlier);
+
+        assertThat(pool.select(Long.MAX_VALUE)).containsExactly(earlier, later);
+        assertThat(pool.select(earlier.getLength())).containsExactly(earlier);
+
+        assertThat(pool.removeAll(Collections.singleton(earlier.getHash()))).containsExactly(earlier);
+        assertThat(pool.contains(earlier.getHash())).isFalse();
+        assertThat(pool.getAll()).containsExactly(later);
+        assertThat(pool.getBytes()).isEqualTo(later.getLength());
+    }
+
+    @Test
+    public void shouldEvictLatestTxOfLargestSender() {
+        long now = TimeUtils.time();
+        Transaction other = createTx(TestConstants.wallet(), now);
+        long length = other.getLength();
+        TxPool pool = new TxPool(length * 3);
+        pool.add(other);
+        Transaction first = createTx(TestConstants.transferWallet(), now + 1);
+        Transaction second = createTx(TestConstants.transferWallet(), now + 2);
+        pool.add(first);
+        pool.add(second);
+
+        // the flooding sender loses its latest tx, the tx of the other sender stays
+        Transaction third = createTx(TestConstants.transferWallet(), now + 3);
+        assertThat(pool.add(third)).isFalse();
+        assertThat(pool.getAll()).containsExactly(other, first, second);
+
+        // an older tx of the same sender takes the place of its latest one
+        Transaction older = createTx(TestConstants.transferWallet(), now - 1);
+        assertThat(pool.add(older)).isTrue();
+        assertThat(pool.getAll()).containsExactly(older, other, first);
+    }
+
+    @Test
+    public void shouldExpireOldTxs() {
+        long now = TimeUtils.time();
+        TxPool pool = new TxPool(1024 * 1024);
+        Transaction old = createTx(TestConstants.wallet(), now - TxPool.EXPIRE_MILLIS + 1000);
+        Transaction recent = createTx(TestConstants.wallet(), now);
+        pool.add(old);
+        pool.add(recent);
+
+        assertThat(pool.expire(now)).isZero();
+        assertThat(pool.expire(now + 1000)).isEqualTo(1);
+        assertThat(pool.getAll()).containsExactly(recent);
+        assertThat(pool.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldAdmitTxsConcurrently() throws InterruptedException {
+        long now = TimeUtils.time();
+        List<Transaction> txs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            txs.add(createTx(i % 2 == 0 ? TestConstants.wallet() : TestConstants.transferWallet(), now + i));
+        }
+        TxPool pool = new TxPool(1024 * 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        txs.forEach(tx -> executor.execute(() -> pool.add(tx)));
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(pool.getAll()).containsExactlyElementsOf(txs);
+        TxPool.Stats stats = pool.getStats();
+        assertThat(stats.size()).isEqualTo(100);
+        assertThat(stats.lockCount()).isGreaterThanOrEqualTo(100);
+        assertThat(stats.contendedCount()).isLessThanOrEqualTo(stats.lockCount());
+        assertThat(stats.rejectedCount()).isZero();
+    }
+
+    private static Transaction createTx(Wallet wallet, long timestamp) {
+        return new TransactionBuilder()
+                .setTxBody(ContractTestUtils.transferTxBodyJson(TestConstants.TRANSFER_TO, BigInteger.ONE))
+                .setWallet(wallet)
+                .setBranchId(TestConstants.yggdrash())
+                .setTimeStamp(timestamp)
+                .build();
+    }
+}
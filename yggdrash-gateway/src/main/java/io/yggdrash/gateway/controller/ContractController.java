@@ -41,11 +41,16 @@ public class ContractController {
 
     @GetMapping("/{branchId}/query")
     public Object query(@PathVariable(name = "branchId") String branchId, String contract,
-                        String method, @RequestParam(name = "params", required = false) String params) {
+                        String method, @RequestParam(name = "params", required = false) String params,
+                        @RequestParam(name = "atHeight", required = false) Long atHeight) {
         JsonObject jsonParam = params != null ? JsonUtil.parseJsonObject(params) : null;
         Object result = null;
         try {
-            result = branchGroup.query(BranchId.of(branchId), contract, method, jsonParam);
+            if (atHeight == null) {
+                result = branchGroup.query(BranchId.of(branchId), contract, method, jsonParam);
+            } else {
+                result = branchGroup.query(BranchId.of(branchId), contract, method, jsonParam, atHeight);
+            }
         } catch (Exception e) { // TODO: check more exceptions and logics
             log.debug("Invalid branch {}", branchId);
         }
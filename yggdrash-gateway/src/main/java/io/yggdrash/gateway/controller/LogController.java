@@ -14,6 +14,7 @@ package io.yggdrash.gateway.controller;
 
 import io.yggdrash.core.blockchain.BranchGroup;
 import io.yggdrash.core.blockchain.BranchId;
+import io.yggdrash.core.blockchain.LogFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -49,6 +50,17 @@ public class LogController {
                 .getLogs(start, offset));
     }
 
+    @GetMapping("/filter")
+    public ResponseEntity getLogsByFilter(@PathVariable(name = BRANCH_ID) String branchId,
+                                          @RequestParam(name = "contract", required = false) String contract,
+                                          @RequestParam(name = "topic", required = false) String topic,
+                                          @RequestParam(name = "address", required = false) String address,
+                                          @RequestParam(name = "fromBlock") long fromBlock,
+                                          @RequestParam(name = "toBlock") long toBlock) {
+        return ResponseEntity.ok(branchGroup.getBranch(BranchId.of(branchId)).getContractManager()
+                .getLogs(new LogFilter(contract, topic, address, fromBlock, toBlock)));
+    }
+
     @GetMapping("/last")
     public ResponseEntity curIndex(@PathVariable(name = BRANCH_ID) String branchId) {
         return ResponseEntity.ok(branchGroup.getBranch(BranchId.of(branchId)).getContractManager().getCurLogIndex());
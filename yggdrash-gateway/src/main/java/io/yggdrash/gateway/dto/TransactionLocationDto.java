@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019 Akashic Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.yggdrash.gateway.dto;
+
+import io.yggdrash.core.blockchain.Transaction;
+import io.yggdrash.core.blockchain.TxLocation;
+
+public class TransactionLocationDto {
+
+    public TransactionDto transaction;
+    public String blockId;
+    public long blockHeight;
+    public int txIndexPosition;
+
+    public static TransactionLocationDto createBy(Transaction tx, TxLocation location) {
+        TransactionLocationDto locationDto = new TransactionLocationDto();
+        locationDto.transaction = TransactionDto.createBy(tx);
+        locationDto.blockId = location.getBlockHash().toString();
+        locationDto.blockHeight = location.getBlockIndex();
+        locationDto.txIndexPosition = location.getTxIndex();
+        return locationDto;
+    }
+}
@@ -16,13 +16,17 @@
 
 package io.yggdrash.node;
 
+import com.google.common.cache.CacheStats;
 import io.yggdrash.common.config.Constants;
 import io.yggdrash.common.config.DefaultConfig;
 import io.yggdrash.core.blockchain.BlockChain;
+import io.yggdrash.core.blockchain.BlockChainManager;
 import io.yggdrash.core.blockchain.BranchGroup;
 import io.yggdrash.core.blockchain.BranchId;
+import io.yggdrash.core.blockchain.TxIngestPipeline;
 import io.yggdrash.core.net.NodeStatus;
 import io.yggdrash.core.p2p.PeerDialer;
+import io.yggdrash.core.store.TxPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +36,8 @@ import org.springframework.boot.actuate.health.Status;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -45,6 +51,10 @@ public class NodeHealthIndicator implements HealthIndicator, NodeStatus {
     private final BranchGroup branchGroup;
     private final PeerDialer peerDialer;
 
+    @SuppressWarnings("SpringJavaAutowiredFieldsWarningInspection")
+    @Autowired(required = false)
+    TxIngestPipeline txIngestPipeline;
+
     @Autowired
     public NodeHealthIndicator(DefaultConfig defaultConfig, BranchGroup branchGroup,
                                PeerDialer peerDialer) {
@@ -84,12 +94,56 @@ public class NodeHealthIndicator implements HealthIndicator, NodeStatus {
         builder.withDetail("network", defaultConfig.getNetwork());
         // Add Node BranchIds and block index
         Map<BranchId, Long> branches = new HashMap<>();
+        Map<BranchId, Map<String, Object>> blockCache = new HashMap<>();
+        Map<BranchId, Map<String, Object>> txPool = new HashMap<>();
         for (BlockChain blockChain : branchGroup.getAllBranch()) {
-            branches.put(blockChain.getBranchId(), blockChain.getBlockChainManager().getLastIndex());
+            BlockChainManager blockChainManager = blockChain.getBlockChainManager();
+            branches.put(blockChain.getBranchId(), blockChainManager.getLastIndex());
+            blockCache.put(blockChain.getBranchId(), cacheDetail(blockChainManager.getBlockCacheStats()));
+            txPool.put(blockChain.getBranchId(), txPoolDetail(blockChainManager.getTxPoolStats()));
         }
 
         builder.withDetail("branches", branches);
+        builder.withDetail("blockCache", blockCache);
+        builder.withDetail("txPool", txPool);
+        if (txIngestPipeline != null) {
+            builder.withDetail("txIngest", txIngestDetail(txIngestPipeline.getStats()));
+        }
         builder.withDetail("activePeers", peerDialer.handlerCount());
         health.set(builder.build());
     }
+
+    private Map<String, Object> cacheDetail(CacheStats stats) {
+        Map<String, Object> detail = new HashMap<>();
+        detail.put("hitCount", stats.hitCount());
+        detail.put("missCount", stats.missCount());
+        detail.put("hitRate", stats.hitRate());
+        detail.put("evictionCount", stats.evictionCount());
+        return detail;
+    }
+
+    private Map<String, Object> txIngestDetail(List<TxIngestPipeline.StageStats> stages) {
+        Map<String, Object> detail = new LinkedHashMap<>();
+        for (TxIngestPipeline.StageStats stats : stages) {
+            Map<String, Object> stage = new HashMap<>();
+            stage.put("queueDepth", stats.getQueueDepth());
+            stage.put("processedCount", stats.getProcessedCount());
+            stage.put("averageLatencyMicros", stats.getAverageLatencyMicros());
+            detail.put(stats.getName(), stage);
+        }
+        return detail;
+    }
+
+    private Map<String, Object> txPoolDetail(TxPool.Stats stats) {
+        Map<String, Object> detail = new HashMap<>();
+        detail.put("size", stats.size());
+        detail.put("bytes", stats.bytes());
+        detail.put("lockCount", stats.lockCount());
+        detail.put("contendedCount", stats.contendedCount());
+        detail.put("lockWaitMillis", stats.lockWaitMillis());
+        detail.put("rejectedCount", stats.rejectedCount());
+        detail.put("evictedCount", stats.evictedCount());
+        detail.put("expiredCount", stats.expiredCount());
+        return detail;
+    }
 }
@@ -10,6 +10,8 @@ import io.yggdrash.common.crypto.HexUtil;
 import io.yggdrash.common.utils.ByteUtil;
 import io.yggdrash.common.utils.FileUtil;
 import io.yggdrash.common.utils.JsonUtil;
+import io.yggdrash.core.blockchain.BranchGroup;
+import io.yggdrash.core.blockchain.BranchId;
 import io.yggdrash.core.wallet.Wallet;
 import io.yggdrash.gateway.dto.AdminDto;
 import org.slf4j.Logger;
@@ -21,7 +23,11 @@ import org.springframework.cloud.context.restart.RestartEndpoint;
 import org.springframework.stereotype.Service;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.attribute.PosixFilePermission;
 import java.security.SecureRandom;
@@ -60,16 +66,19 @@ public class AdminApiImpl implements AdminApi {
     private final Wallet wallet;
     private final HttpServletRequest request;
     private final RestartEndpoint restartEndpoint;
+    private final BranchGroup branchGroup;
 
     @Autowired
     public AdminApiImpl(DefaultConfig defaultConfig,
                         Wallet wallet,
                         HttpServletRequest request,
-                        RestartEndpoint restartEndpoint) {
+                        RestartEndpoint restartEndpoint,
+                        BranchGroup branchGroup) {
         this.defaultConfig = defaultConfig;
         this.wallet = wallet;
         this.request = request;
         this.restartEndpoint = restartEndpoint;
+        this.branchGroup = branchGroup;
 
         this.adminMode = defaultConfig.getString(Constants.YGGDRASH_ADMIN_MODE);
         this.adminIp = defaultConfig.getString(Constants.YGGDRASH_ADMIN_IP);
@@ -169,6 +178,7 @@ public class AdminApiImpl implements AdminApi {
 
         // execute command
         String methodCommand = body.get(0).getAsJsonObject().get("method").getAsString();
+        String result = null;
 
         switch (methodCommand) {
             case "restart":
@@ -201,6 +211,15 @@ public class AdminApiImpl implements AdminApi {
                 // restart
                 restartSpringDaemon();
 
+                break;
+            case "exportSnapshot":
+                try {
+                    result = exportSnapshot(body.get(0).getAsJsonObject().get("params").getAsString());
+                } catch (Exception e) {
+                    log.error("Export snapshot failed. {}", e.getMessage());
+                    return "Error. " + e.getMessage();
+                }
+
                 break;
             default:
                 return "Error. Command is not valid.";
@@ -210,6 +229,9 @@ public class AdminApiImpl implements AdminApi {
         // create body
         JsonObject bodyObject = new JsonObject();
         bodyObject.addProperty("method", "responseCommand");
+        if (result != null) {
+            bodyObject.addProperty("result", result);
+        }
         JsonArray body = new JsonArray();
         body.add(bodyObject);
 
@@ -250,6 +272,31 @@ public class AdminApiImpl implements AdminApi {
         return returnObject.toString();
     }
 
+    /**
+     * Writes the state snapshot of a branch to the snapshot directory.
+     *
+     * @param params branchId and height in JSON
+     * @return path of the snapshot file
+     */
+    private String exportSnapshot(String params) throws IOException {
+        JsonObject snapshot = JsonUtil.parseJsonObject(params);
+        BranchId branchId = BranchId.of(snapshot.get("branchId").getAsString());
+        long height = snapshot.get("height").getAsLong();
+
+        File dir = new File(defaultConfig.getSnapshotPath());
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Can't create " + dir);
+        }
+        File file = new File(dir, branchId + "-" + height + ".snapshot");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            branchGroup.exportSnapshot(branchId, height, out);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+        return file.getPath();
+    }
+
     private boolean verifyAdminDto(AdminDto command) {
 
         // null check
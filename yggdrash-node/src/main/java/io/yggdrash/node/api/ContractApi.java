@@ -27,4 +27,23 @@ public interface ContractApi {
                  @JsonRpcParam(value = "method") String method,
                  @JsonRpcParam(value = "params") Map params);
 
+    /**
+     * Handles a query against the state after the block of the height was executed.
+     * The heights kept are configured by yggdrash.database.stateHistory.retention
+     *
+     * @param branchId branch id of contract
+     * @param method query method
+     * @param params query params
+     * @param atHeight block height
+     * @return result of query
+     */
+    @JsonRpcErrors({
+            @JsonRpcError(exception = NonExistObjectException.class,
+                    code = NonExistObjectException.CODE)})
+    Object query(@JsonRpcParam(value = "branchId") String branchId,
+                 @JsonRpcParam(value = "contractVersion") String contractVersion,
+                 @JsonRpcParam(value = "method") String method,
+                 @JsonRpcParam(value = "params") Map params,
+                 @JsonRpcParam(value = "atHeight") long atHeight);
+
 }
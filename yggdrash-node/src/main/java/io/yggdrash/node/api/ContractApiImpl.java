@@ -6,6 +6,7 @@ import com.googlecode.jsonrpc4j.spring.AutoJsonRpcServiceImpl;
 import io.yggdrash.common.utils.JsonUtil;
 import io.yggdrash.core.blockchain.BranchGroup;
 import io.yggdrash.core.blockchain.BranchId;
+import io.yggdrash.core.exception.NonExistObjectException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,29 +31,48 @@ public class ContractApiImpl implements ContractApi {
 
     @Override
     public Object query(String branchId, String contractVersion, String method, Map params) {
-        JsonObject jsonParams = null;
-
-        if (params != null && !params.isEmpty()) {
-            jsonParams = JsonUtil.convertMapToJson(params);
-        }
-
         Object result = null;
         try {
-            result = branchGroup.query(BranchId.of(branchId), contractVersion, method, jsonParams);
-            if (result instanceof JsonElement) {
-                return JsonUtil.convertJsonToMap((JsonElement) result);
-            } else if (result instanceof BigInteger) {
-                return String.valueOf(result);
-            } else if (result instanceof HashSet) {
-                Set<Map> mapSet = new HashSet<>();
-                Set<JsonElement> obj = (Set<JsonElement>) result;
-                obj.stream().map(JsonUtil::convertJsonToMap).forEach(mapSet::add);
-                return mapSet;
-            }
+            result = branchGroup.query(BranchId.of(branchId), contractVersion, method, toJson(params));
         } catch (Exception e) { // TODO: check more exceptions and logics
             log.debug("Invalid query branch {}", branchId);
         }
 
+        return toResult(result);
+    }
+
+    @Override
+    public Object query(String branchId, String contractVersion, String method, Map params, long atHeight) {
+        Object result = null;
+        try {
+            result = branchGroup.query(BranchId.of(branchId), contractVersion, method, toJson(params), atHeight);
+        } catch (NonExistObjectException e) {
+            throw e;
+        } catch (Exception e) {
+            log.debug("Invalid query branch {} at {}", branchId, atHeight);
+        }
+
+        return toResult(result);
+    }
+
+    private static JsonObject toJson(Map params) {
+        if (params != null && !params.isEmpty()) {
+            return JsonUtil.convertMapToJson(params);
+        }
+        return null;
+    }
+
+    private static Object toResult(Object result) {
+        if (result instanceof JsonElement) {
+            return JsonUtil.convertJsonToMap((JsonElement) result);
+        } else if (result instanceof BigInteger) {
+            return String.valueOf(result);
+        } else if (result instanceof HashSet) {
+            Set<Map> mapSet = new HashSet<>();
+            Set<JsonElement> obj = (Set<JsonElement>) result;
+            obj.stream().map(JsonUtil::convertJsonToMap).forEach(mapSet::add);
+            return mapSet;
+        }
         return result;
     }
 
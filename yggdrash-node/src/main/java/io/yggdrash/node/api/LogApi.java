@@ -67,6 +67,26 @@ public interface LogApi {
                       @JsonRpcParam(value = "start") long start,
                       @JsonRpcParam(value = "offset") long offset);
 
+    /**
+     * Returns the logs of the blocks matching every given condition, read from the log index
+     *
+     * @param branchId  branchId
+     * @param contract  contract version, or null for any
+     * @param topic     method of the tx or type of the contract event, or null for any
+     * @param address   issuer of the tx, or null for any
+     * @param fromBlock start block index
+     * @param toBlock   end block index (inclusive)
+     * @return the first corresponding filtered logs, at most LogFilter.MAX_LIMIT
+     */
+    @JsonRpcErrors(
+            {@JsonRpcError(exception = NonExistObjectException.class, code = NonExistObjectException.CODE)})
+    List<Log> getLogsByFilter(@JsonRpcParam(value = BRANCH_ID) String branchId,
+                              @JsonRpcParam(value = "contract") String contract,
+                              @JsonRpcParam(value = "topic") String topic,
+                              @JsonRpcParam(value = "address") String address,
+                              @JsonRpcParam(value = "fromBlock") long fromBlock,
+                              @JsonRpcParam(value = "toBlock") long toBlock);
+
     /**
      * Returns the current index of logStore
      *
@@ -16,6 +16,7 @@ import com.googlecode.jsonrpc4j.spring.AutoJsonRpcServiceImpl;
 import io.yggdrash.core.blockchain.BranchGroup;
 import io.yggdrash.core.blockchain.BranchId;
 import io.yggdrash.core.blockchain.Log;
+import io.yggdrash.core.blockchain.LogFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -46,11 +47,19 @@ public class LogApiImpl implements LogApi {
 
     @Override
     public List<Log> getLogs(String branchId, String regex, long start, long offset) {
+        Pattern pattern = Pattern.compile(regex);
         return getLogs(branchId, start, offset).stream()
-                .filter(l -> Pattern.compile(regex).matcher(l.getMsg()).find())
+                .filter(l -> pattern.matcher(l.getMsg()).find())
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Log> getLogsByFilter(String branchId, String contract, String topic, String address,
+                                     long fromBlock, long toBlock) {
+        return branchGroup.getBranch(BranchId.of(branchId)).getContractManager()
+                .getLogs(new LogFilter(contract, topic, address, fromBlock, toBlock));
+    }
+
     @Override
     public long curIndex(String branchId) {
         return branchGroup.getBranch(BranchId.of(branchId)).getContractManager().getCurLogIndex();
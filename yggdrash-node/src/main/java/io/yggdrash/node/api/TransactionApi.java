@@ -8,6 +8,7 @@ import io.yggdrash.common.exception.FailedOperationException;
 import io.yggdrash.core.exception.NonExistObjectException;
 import io.yggdrash.core.exception.RejectedAccessException;
 import io.yggdrash.gateway.dto.TransactionDto;
+import io.yggdrash.gateway.dto.TransactionLocationDto;
 import io.yggdrash.gateway.dto.TransactionReceiptDto;
 import io.yggdrash.gateway.dto.TransactionResponseDto;
 
@@ -54,6 +55,34 @@ public interface TransactionApi {
     TransactionDto getTransactionByHash(@JsonRpcParam(value = BRANCH_ID) String branchId,
                                          @JsonRpcParam(value = TX_ID) String txId);
 
+    /**
+     * Returns a transaction with the hash, height and position of the block which includes it.
+     *
+     * @param txId hash of transaction
+     */
+    @JsonRpcErrors({
+            @JsonRpcError(exception = NonExistObjectException.class,
+                    code = NonExistObjectException.CODE)})
+    TransactionLocationDto getTransactionWithLocation(@JsonRpcParam(value = BRANCH_ID) String branchId,
+                                                      @JsonRpcParam(value = TX_ID) String txId);
+
+    /**
+     * Returns a page of the transactions sent or received by the address, in block order.
+     * The next page starts from the position after the last transaction of the page.
+     * Requires the address index of the node. A transaction that can't be read any more is left out.
+     *
+     * @param address         address of the sender or a recipient
+     * @param fromBlock       block number to start from
+     * @param txIndexPosition transaction index position in the block to start from
+     * @param limit           maximum number of transactions
+     */
+    List<TransactionLocationDto> getTransactionsByAddress(
+            @JsonRpcParam(value = BRANCH_ID) String branchId,
+            @JsonRpcParam(value = "address") String address,
+            @JsonRpcParam(value = "fromBlock") long fromBlock,
+            @JsonRpcParam(value = "txIndexPosition") int txIndexPosition,
+            @JsonRpcParam(value = "limit") int limit);
+
     /**
      * Returns information about a transaction by block hash and transaction index position.
      *
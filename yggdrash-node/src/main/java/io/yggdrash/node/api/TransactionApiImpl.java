@@ -1,16 +1,20 @@
 package io.yggdrash.node.api;
 
 import com.googlecode.jsonrpc4j.spring.AutoJsonRpcServiceImpl;
+import io.yggdrash.common.Sha3Hash;
 import io.yggdrash.common.crypto.HexUtil;
 import io.yggdrash.contract.core.Receipt;
 import io.yggdrash.core.blockchain.BranchGroup;
 import io.yggdrash.core.blockchain.BranchId;
 import io.yggdrash.core.blockchain.Transaction;
 import io.yggdrash.core.blockchain.TransactionImpl;
+import io.yggdrash.core.blockchain.TxIngestPipeline;
+import io.yggdrash.core.blockchain.TxLocation;
 import io.yggdrash.core.consensus.ConsensusBlock;
 import io.yggdrash.core.exception.NonExistObjectException;
 import io.yggdrash.core.exception.NotValidateException;
 import io.yggdrash.gateway.dto.TransactionDto;
+import io.yggdrash.gateway.dto.TransactionLocationDto;
 import io.yggdrash.gateway.dto.TransactionReceiptDto;
 import io.yggdrash.gateway.dto.TransactionResponseDto;
 import org.slf4j.Logger;
@@ -20,6 +24,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -28,12 +33,22 @@ import java.util.stream.Collectors;
 @AutoJsonRpcServiceImpl
 public class TransactionApiImpl implements TransactionApi {
     private static final Logger log = LoggerFactory.getLogger(TransactionApiImpl.class);
+    private static final int MAX_PAGE_SIZE = 100;
 
     private final BranchGroup branchGroup;
+    private final TxIngestPipeline txIngestPipeline;
 
-    @Autowired
     public TransactionApiImpl(BranchGroup branchGroup) {
+        this(branchGroup, null);
+    }
+
+    /**
+     * @param txIngestPipeline stages verifying the sent txs, or null to add them on the calling thread
+     */
+    @Autowired
+    public TransactionApiImpl(BranchGroup branchGroup, TxIngestPipeline txIngestPipeline) {
         this.branchGroup = branchGroup;
+        this.txIngestPipeline = txIngestPipeline;
     }
 
     /* get */
@@ -58,20 +73,62 @@ public class TransactionApiImpl implements TransactionApi {
         return TransactionDto.createBy(tx);
     }
 
+    @Override
+    public TransactionLocationDto getTransactionWithLocation(String branchId, String txId) {
+        BranchId id = BranchId.of(branchId);
+        TxLocation location = branchGroup.getTxLocation(id, txId);
+        Transaction tx = location != null ? getTx(id, txId, location) : null;
+        if (tx == null) {
+            throw new NonExistObjectException("Transaction");
+        }
+        return TransactionLocationDto.createBy(tx, location);
+    }
+
+    /**
+     * Reads the committed tx by its hash. A tx that was not stored, e.g. a failed tx, is read from its block.
+     */
+    private Transaction getTx(BranchId id, String txId, TxLocation location) {
+        Transaction tx = branchGroup.getTxByHash(id, txId);
+        return tx != null ? tx : branchGroup.getTxByIndex(id, location.getBlockIndex(), location.getTxIndex());
+    }
+
+    @Override
+    public List<TransactionLocationDto> getTransactionsByAddress(String branchId, String address, long fromBlock,
+                                                                 int txIndexPosition, int limit) {
+        BranchId id = BranchId.of(branchId);
+        List<TransactionLocationDto> txs = new ArrayList<>();
+        for (Sha3Hash txHash : branchGroup.getTxHashesByAddress(id, address, Math.max(fromBlock, 0),
+                Math.max(txIndexPosition, 0), Math.min(Math.max(limit, 0), MAX_PAGE_SIZE))) {
+            TxLocation location = branchGroup.getTxLocation(id, txHash.toString());
+            Transaction tx = location != null ? getTx(id, txHash.toString(), location) : null;
+            if (tx == null) {
+                // indexed by a block being committed or pruned meanwhile
+                log.debug("Tx {} of {} is not found", txHash, address);
+                continue;
+            }
+            txs.add(TransactionLocationDto.createBy(tx, location));
+        }
+        return txs;
+    }
+
     @Override
     public TransactionDto getTransactionByBlockHash(String branchId, String blockId,
                                                      int txIndexPosition) {
-        ConsensusBlock block = branchGroup.getBlockByHash(BranchId.of(branchId), blockId);
-        List<Transaction> txList = block.getBody().getTransactionList();
-        return TransactionDto.createBy(txList.get(txIndexPosition));
+        Transaction tx = branchGroup.getTxByBlockHash(BranchId.of(branchId), blockId, txIndexPosition);
+        if (tx == null) {
+            throw new NonExistObjectException("Transaction");
+        }
+        return TransactionDto.createBy(tx);
     }
 
     @Override
     public TransactionDto getTransactionByBlockNumber(String branchId, long blockNumber,
                                                        int txIndexPosition) {
-        ConsensusBlock block = branchGroup.getBlockByIndex(BranchId.of(branchId), blockNumber);
-        List<Transaction> txList = block.getBody().getTransactionList();
-        return TransactionDto.createBy(txList.get(txIndexPosition));
+        Transaction tx = branchGroup.getTxByIndex(BranchId.of(branchId), blockNumber, txIndexPosition);
+        if (tx == null) {
+            throw new NonExistObjectException("Transaction");
+        }
+        return TransactionDto.createBy(tx);
     }
 
     @Override
@@ -88,7 +145,7 @@ public class TransactionApiImpl implements TransactionApi {
     @Override
     public TransactionResponseDto sendTransaction(TransactionDto tx) {
         Transaction transaction = TransactionDto.of(tx);
-        Map<String, List<String>> errorLogs = branchGroup.addTransaction(transaction);
+        Map<String, List<String>> errorLogs = addTransaction(transaction);
 
         if (errorLogs.size() > 0) {
             log.warn("SendTransaction Error : {}", errorLogs);
@@ -102,7 +159,7 @@ public class TransactionApiImpl implements TransactionApi {
     @Override
     public byte[] sendRawTransaction(byte[] bytes) {
         Transaction transaction = TransactionImpl.parseFromRaw(bytes);
-        Map<String, List<String>> errorLogs = branchGroup.addTransaction(transaction);
+        Map<String, List<String>> errorLogs = addTransaction(transaction);
 
         if (errorLogs.size() > 0) {
             log.warn("SendRawTransaction Error : {}", errorLogs);
@@ -115,6 +172,10 @@ public class TransactionApiImpl implements TransactionApi {
                 : transaction.getHash().getBytes();
     }
 
+    private Map<String, List<String>> addTransaction(Transaction tx) {
+        return txIngestPipeline != null ? txIngestPipeline.add(tx) : branchGroup.addTransaction(tx);
+    }
+
     /* filter */
     @Override
     public int newPendingTransactionFilter(String branchId) {
@@ -18,13 +18,17 @@ package io.yggdrash.node.config;
 
 import io.yggdrash.common.config.Constants.ActiveProfiles;
 import io.yggdrash.common.config.DefaultConfig;
+import io.yggdrash.common.exception.FailedOperationException;
 import io.yggdrash.core.blockchain.BlockChain;
 import io.yggdrash.core.blockchain.BlockChainBuilder;
 import io.yggdrash.core.blockchain.BlockChainManager;
 import io.yggdrash.core.blockchain.BlockChainManagerImpl;
 import io.yggdrash.core.blockchain.BranchGroup;
 import io.yggdrash.core.blockchain.BranchId;
+import io.yggdrash.core.blockchain.HistoryPruner;
+import io.yggdrash.core.blockchain.RetentionPolicy;
 import io.yggdrash.core.blockchain.SystemProperties;
+import io.yggdrash.core.blockchain.TxIngestPipeline;
 import io.yggdrash.core.blockchain.genesis.BranchLoader;
 import io.yggdrash.core.blockchain.genesis.GenesisBlock;
 import io.yggdrash.core.blockchain.osgi.ContractManager;
@@ -38,7 +42,9 @@ import io.yggdrash.core.blockchain.osgi.framework.FrameworkLauncher;
 import io.yggdrash.core.consensus.Consensus;
 import io.yggdrash.core.store.BlockChainStore;
 import io.yggdrash.core.store.BlockChainStoreBuilder;
+import io.yggdrash.core.store.BranchStore;
 import io.yggdrash.core.store.ContractStore;
+import io.yggdrash.core.store.StateSnapshot;
 import io.yggdrash.node.service.ValidatorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,7 +54,14 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Configuration
 @EnableScheduling
@@ -56,6 +69,7 @@ public class BranchConfiguration {
     private static final Logger log = LoggerFactory.getLogger(BranchConfiguration.class);
 
     private final DefaultConfig defaultConfig;
+    private final List<HistoryPruner> pruners = new CopyOnWriteArrayList<>();
 
     @SuppressWarnings("SpringJavaAutowiredFieldsWarningInspection")
     @Autowired(required = false)
@@ -66,11 +80,22 @@ public class BranchConfiguration {
         this.defaultConfig = defaultConfig;
     }
 
+    @PreDestroy
+    public void stopPruners() {
+        pruners.forEach(HistoryPruner::stop);
+    }
+
     @Bean
     BranchGroup branchGroup() {
         return new BranchGroup();
     }
 
+    @Bean(destroyMethod = "close")
+    TxIngestPipeline txIngestPipeline(BranchGroup branchGroup) {
+        return new TxIngestPipeline(branchGroup, defaultConfig.getTxIngestVerifyThreads(),
+                defaultConfig.getTxIngestCapacity());
+    }
+
     @Bean
     BranchLoader branchLoader(DefaultConfig defaultConfig, BranchGroup branchGroup, Environment env) {
 
@@ -105,6 +130,16 @@ public class BranchConfiguration {
             BranchId branchId = genesis.getBranch().getBranchId();
             BlockChainStoreBuilder builder = BlockChainStoreBuilder.newBuilder(branchId)
                     .withDataBasePath(defaultConfig.getDatabasePath())
+                    .withBlockCacheSize(defaultConfig.getBlockCacheSize(branchId.toString()))
+                    .withStateCacheSize(defaultConfig.getStateCacheSize())
+                    .withTxPoolSize(defaultConfig.getTxPoolSize())
+                    .withDatabaseMemory(defaultConfig.getDatabaseCacheSize(),
+                            defaultConfig.getDatabaseWriteBufferSize())
+                    .withAppendOnlyStores(defaultConfig.getAppendOnlyStores())
+                    .withBlockFile(defaultConfig.getBlockFileSegmentSize())
+                    .withTxReferences(defaultConfig.isTxReferences())
+                    .withAddressIndex(defaultConfig.isAddressIndex())
+                    .withStateHistory(defaultConfig.getStateHistoryRetention())
                     .withProductionMode(defaultConfig.isProductionMode())
                     .setBlockStoreFactory(ValidatorService.blockStoreFactory())
                     .setConsensusAlgorithm(consensus.getAlgorithm())
@@ -112,6 +147,10 @@ public class BranchConfiguration {
             BlockChainStore blockChainStore = builder.build();
             BlockChain blockChain =
                     getBlockChain(defaultConfig, genesis, blockChainStore, branchId, systemProperties);
+            HistoryPruner pruner = startPruner(defaultConfig, blockChain, blockChainStore);
+            if (pruner != null) {
+                pruners.add(pruner);
+            }
 
             log.info("Branch is Ready {}", blockChain.getBranchId());
 
@@ -128,6 +167,7 @@ public class BranchConfiguration {
                                     BranchId branchId,
                                     SystemProperties systemProperties) {
 
+        importSnapshot(config, blockChainStore, genesis);
         ContractStore contractStore = blockChainStore.getContractStore();
 
         BlockChainManager blockChainManager = new BlockChainManagerImpl(blockChainStore);
@@ -154,9 +194,60 @@ public class BranchConfiguration {
                 .build();
 
         blockChain.addListener(contractManager);
+
         return blockChain;
     }
 
+    /**
+     * Starts pruning the history of the branch if it is not an archive.
+     *
+     * @return the pruner to stop on shutdown, or null
+     */
+    static HistoryPruner startPruner(DefaultConfig config, BlockChain blockChain, BlockChainStore blockChainStore) {
+        String branchId = blockChain.getBranchId().toString();
+        RetentionPolicy retentionPolicy = new RetentionPolicy(
+                config.getPruningRetention(branchId, "receipts"),
+                config.getPruningRetention(branchId, "logs"),
+                config.getPruningRetention(branchId, "blockBodies"));
+        if (retentionPolicy.isArchive()) {
+            return null;
+        }
+        HistoryPruner pruner = new HistoryPruner(blockChain, blockChainStore, retentionPolicy);
+        pruner.start(config.getPruningBatchSize(), config.getPruningInterval());
+        return pruner;
+    }
+
+    /**
+     * Loads the configured state snapshot into a branch which has no block yet.
+     * The snapshot file must come from a trusted source, see StateSnapshot.read.
+     */
+    private static void importSnapshot(DefaultConfig config, BlockChainStore blockChainStore, GenesisBlock genesis) {
+        BranchStore branchStore = blockChainStore.getBranchStore();
+        if (branchStore.getGenesisBlockHash() != null) {
+            return;
+        }
+        BranchId branchId = genesis.getBranchId();
+        String snapshot = config.getSnapshotImport();
+        if (snapshot == null) {
+            if (branchStore.getSnapshotImport() != null) {
+                // the partly loaded state must not be taken as the state of the genesis
+                throw new FailedOperationException("Branch " + branchId + " has an unfinished snapshot import, "
+                        + "import the snapshot again or remove the database of the branch");
+            }
+            return;
+        }
+        String algorithm = new Consensus(genesis.getBranch().getConsensus()).getAlgorithm();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(snapshot))) {
+            long height = StateSnapshot.read(in, branchId, genesis.getBlock().getHash(), blockChainStore,
+                    ValidatorService.proofVerifier(algorithm));
+            if (height >= 0) {
+                log.info("Branch {} is loaded from the state snapshot at {}", branchId, height);
+            }
+        } catch (IOException e) {
+            throw new FailedOperationException(e);
+        }
+    }
+
     @Bean
     Downloader downloader(DefaultConfig defaultConfig) {
         return new Downloader(defaultConfig);
@@ -18,6 +18,8 @@ package io.yggdrash.node.config;
 
 import io.grpc.BindableService;
 import io.yggdrash.common.config.Constants;
+import io.yggdrash.common.config.DefaultConfig;
+import io.yggdrash.core.blockchain.BatchVerifier;
 import io.yggdrash.core.blockchain.BlockChain;
 import io.yggdrash.core.blockchain.BlockChainSyncManager;
 import io.yggdrash.core.blockchain.BranchGroup;
@@ -82,8 +84,14 @@ public class NetworkConfiguration {
     }
 
     @Bean
-    public SyncManager syncManager(NodeStatus nodeStatus, PeerNetwork peerNetwork, BranchGroup branchGroup) {
-        return new BlockChainSyncManager(nodeStatus, peerNetwork, branchGroup);
+    public SyncManager syncManager(NodeStatus nodeStatus, PeerNetwork peerNetwork, BranchGroup branchGroup,
+                                   BatchVerifier batchVerifier) {
+        return new BlockChainSyncManager(nodeStatus, peerNetwork, branchGroup, batchVerifier);
+    }
+
+    @Bean(destroyMethod = "close")
+    BatchVerifier batchVerifier(DefaultConfig defaultConfig) {
+        return new BatchVerifier(defaultConfig.getSyncVerifyThreads());
     }
 
     @Profile({Constants.ActiveProfiles.NODE, Constants.ActiveProfiles.BOOTSTRAP})
@@ -8,6 +8,7 @@ import io.yggdrash.common.config.Constants.ActiveProfiles;
 import io.yggdrash.common.config.DefaultConfig;
 import io.yggdrash.core.blockchain.BlockChain;
 import io.yggdrash.core.blockchain.BranchId;
+import io.yggdrash.core.blockchain.HistoryPruner;
 import io.yggdrash.core.blockchain.SystemProperties;
 import io.yggdrash.core.blockchain.genesis.BranchLoader;
 import io.yggdrash.core.blockchain.genesis.GenesisBlock;
@@ -22,6 +23,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -29,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Profile(ActiveProfiles.VALIDATOR)
 @Configuration
@@ -36,10 +39,17 @@ public class ValidatorConfiguration {
 
     private static final Logger log = LoggerFactory.getLogger(ValidatorConfiguration.class);
 
+    private final List<HistoryPruner> pruners = new CopyOnWriteArrayList<>();
+
     @SuppressWarnings("SpringJavaAutowiredFieldsWarningInspection")
     @Autowired(required = false)
     SystemProperties systemProperties;
 
+    @PreDestroy
+    public void stopPruners() {
+        pruners.forEach(HistoryPruner::stop);
+    }
+
     @Bean
     public Map<BranchId, List<ValidatorService>> validatorServiceMap(BranchLoader branchLoader,
                                                                      DefaultConfig defaultConfig) {
@@ -101,6 +111,16 @@ public class ValidatorConfiguration {
 
                 BlockChainStoreBuilder builder = BlockChainStoreBuilder.newBuilder(branchId);
                 builder.withDataBasePath(mergedConfig.getDatabasePath())
+                        .withBlockCacheSize(mergedConfig.getBlockCacheSize(branchId.toString()))
+                        .withStateCacheSize(mergedConfig.getStateCacheSize())
+                        .withTxPoolSize(mergedConfig.getTxPoolSize())
+                        .withDatabaseMemory(mergedConfig.getDatabaseCacheSize(),
+                                mergedConfig.getDatabaseWriteBufferSize())
+                        .withAppendOnlyStores(mergedConfig.getAppendOnlyStores())
+                        .withBlockFile(mergedConfig.getBlockFileSegmentSize())
+                        .withTxReferences(mergedConfig.isTxReferences())
+                        .withAddressIndex(mergedConfig.isAddressIndex())
+                        .withStateHistory(mergedConfig.getStateHistoryRetention())
                         .withProductionMode(mergedConfig.isProductionMode())
                         .setBlockStoreFactory(ValidatorService.blockStoreFactory())
                         .setConsensusAlgorithm(consensus.getAlgorithm())
@@ -109,6 +129,10 @@ public class ValidatorConfiguration {
 
                 BlockChain blockChain = BranchConfiguration.getBlockChain(defaultConfig,
                         genesis, blockChainStore, branchId, systemProperties);
+                HistoryPruner pruner = BranchConfiguration.startPruner(defaultConfig, blockChain, blockChainStore);
+                if (pruner != null) {
+                    pruners.add(pruner);
+                }
 
                 validatorServiceList.add(new ValidatorService(mergedConfig, blockChain));
             } catch (Exception e) {
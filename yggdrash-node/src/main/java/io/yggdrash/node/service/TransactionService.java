@@ -17,11 +17,13 @@
 package io.yggdrash.node.service;
 
 import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import io.yggdrash.core.blockchain.BranchGroup;
 import io.yggdrash.core.blockchain.BranchId;
 import io.yggdrash.core.blockchain.Transaction;
 import io.yggdrash.core.blockchain.TransactionImpl;
+import io.yggdrash.core.blockchain.TxIngestPipeline;
 import io.yggdrash.node.springboot.grpc.GrpcService;
 import io.yggdrash.proto.CommonProto;
 import io.yggdrash.proto.Proto;
@@ -38,11 +40,23 @@ public class TransactionService extends TransactionServiceGrpc.TransactionServic
     private static final Logger log = LoggerFactory.getLogger(TransactionService.class);
     private static final CommonProto.Empty EMPTY = CommonProto.Empty.getDefaultInstance();
 
+    // txs of a broadcast stream in the pipeline at once
+    private static final int STREAM_WINDOW = 64;
+
     private final BranchGroup branchGroup;
+    private final TxIngestPipeline txIngestPipeline;
 
-    @Autowired
     public TransactionService(BranchGroup branchGroup) {
+        this(branchGroup, null);
+    }
+
+    /**
+     * @param txIngestPipeline stages verifying the broadcast txs, or null to add them on the gRPC thread
+     */
+    @Autowired
+    public TransactionService(BranchGroup branchGroup, TxIngestPipeline txIngestPipeline) {
         this.branchGroup = branchGroup;
+        this.txIngestPipeline = txIngestPipeline;
     }
 
     /**
@@ -78,7 +92,8 @@ public class TransactionService extends TransactionServiceGrpc.TransactionServic
 
         Proto.TransactionResponse.Builder builder = Proto.TransactionResponse.newBuilder();
         Transaction transaction = new TransactionImpl(tx);
-        Map<String, List<String>> errorLogs = branchGroup.addTransaction(transaction);
+        Map<String, List<String>> errorLogs = txIngestPipeline != null
+                ? txIngestPipeline.add(transaction) : branchGroup.addTransaction(transaction);
 
         if (errorLogs.size() > 0) {
             log.debug("Received sendTx error occurred : {}", errorLogs);
@@ -101,16 +116,37 @@ public class TransactionService extends TransactionServiceGrpc.TransactionServic
 
     @Override
     public StreamObserver<Proto.Transaction> broadcastTx(StreamObserver<CommonProto.Empty> responseObserver) {
+        // The next txs of the stream are requested as the pipeline admits the previous ones
+        ServerCallStreamObserver<CommonProto.Empty> call = txIngestPipeline != null
+                && responseObserver instanceof ServerCallStreamObserver
+                ? (ServerCallStreamObserver<CommonProto.Empty>) responseObserver : null;
+        if (call != null) {
+            call.disableAutoInboundFlowControl();
+            call.request(STREAM_WINDOW);
+        }
         return new StreamObserver<Proto.Transaction>() {
             @Override
             public void onNext(Proto.Transaction protoTx) {
                 Transaction tx = new TransactionImpl(protoTx);
-                log.trace("Received transaction: hash={}", tx.getHash());
-                try {
-                    branchGroup.addTransaction(tx);
-                } catch (Exception e) {
-                    log.warn(e.getMessage());
+                if (txIngestPipeline == null) {
+                    log.trace("Received transaction: hash={}", tx.getHash());
+                    try {
+                        branchGroup.addTransaction(tx);
+                    } catch (Exception e) {
+                        log.warn(e.getMessage());
+                    }
+                    return;
                 }
+                txIngestPipeline.submit(tx).whenComplete((errorLogs, e) -> {
+                    if (e != null) {
+                        log.warn(e.getMessage());
+                    } else if (!errorLogs.isEmpty()) {
+                        log.trace("Broadcast tx rejected: {}", errorLogs);
+                    }
+                    if (call != null) {
+                        call.request(1);
+                    }
+                });
             }
 
             @Override
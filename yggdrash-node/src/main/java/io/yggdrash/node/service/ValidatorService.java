@@ -5,9 +5,11 @@ import io.grpc.Server;
 import io.grpc.ServerBuilder;
 import io.yggdrash.common.config.Constants;
 import io.yggdrash.common.config.DefaultConfig;
+import io.yggdrash.common.contract.vo.dpoa.ValidatorSet;
 import io.yggdrash.core.blockchain.BlockChainBuilder;
 import io.yggdrash.core.blockchain.BlockChainImpl;
 import io.yggdrash.core.consensus.Consensus;
+import io.yggdrash.core.consensus.ConsensusBlock;
 import io.yggdrash.core.consensus.ConsensusBlockChain;
 import io.yggdrash.core.exception.NotValidateException;
 import io.yggdrash.core.store.BlockStoreFactory;
@@ -17,6 +19,7 @@ import io.yggdrash.proto.PbftProto;
 import io.yggdrash.validator.data.ebft.EbftBlock;
 import io.yggdrash.validator.data.pbft.PbftBlock;
 import io.yggdrash.validator.data.pbft.PbftMessageSet;
+import io.yggdrash.validator.data.pbft.PbftVerifier;
 import io.yggdrash.validator.service.ebft.EbftServerStub;
 import io.yggdrash.validator.service.ebft.EbftService;
 import io.yggdrash.validator.service.node.TransactionServiceStub;
@@ -30,6 +33,7 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.scheduling.support.CronTrigger;
 
 import java.io.IOException;
+import java.util.function.BiPredicate;
 
 public class ValidatorService {
     private static final String NOT_VALID_MSG = "Algorithm is not valid.";
@@ -133,6 +137,23 @@ public class ValidatorService {
         };
     }
 
+    /**
+     * Verifies a block with its consensus proof signed by a quorum of the validators,
+     * e.g. the block of a state snapshot which is not synced.
+     */
+    public static BiPredicate<ConsensusBlock<?>, ValidatorSet> proofVerifier(String consensusAlgorithm) {
+        switch (consensusAlgorithm) {
+            case "pbft":
+                return (block, validators) -> block instanceof PbftBlock && validators != null
+                        && PbftVerifier.INSTANCE.verifyQuorum((PbftBlock) block, validators.getValidatorMap().keySet());
+            case "ebft":
+                return (block, validators) -> block instanceof EbftBlock && validators != null
+                        && EbftBlock.verifyQuorum((EbftBlock) block, validators.getValidatorMap().keySet());
+            default:
+        }
+        throw new NotValidateException(NOT_VALID_MSG);
+    }
+
     public void shutdown() {
         grpcServer.shutdown();
     }
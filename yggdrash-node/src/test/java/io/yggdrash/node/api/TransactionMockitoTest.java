@@ -27,8 +27,10 @@ import io.yggdrash.core.blockchain.BranchId;
 import io.yggdrash.core.blockchain.Transaction;
 import io.yggdrash.core.blockchain.TransactionHeader;
 import io.yggdrash.core.blockchain.TransactionImpl;
+import io.yggdrash.core.blockchain.TxLocation;
 import io.yggdrash.core.consensus.ConsensusBlock;
 import io.yggdrash.gateway.dto.TransactionDto;
+import io.yggdrash.gateway.dto.TransactionLocationDto;
 import io.yggdrash.gateway.dto.TransactionReceiptDto;
 import io.yggdrash.gateway.dto.TransactionResponseDto;
 import org.apache.commons.codec.binary.Hex;
@@ -41,6 +43,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
@@ -106,7 +109,7 @@ public class TransactionMockitoTest {
 
     @Test
     public void getTransactionByBlockHashTest() {
-        when(branchGroupMock.getBlockByHash(tx.getBranchId(), blockId)).thenReturn(block);
+        when(branchGroupMock.getTxByBlockHash(tx.getBranchId(), blockId, 0)).thenReturn(tx);
         TransactionDto res = txApiImpl.getTransactionByBlockHash(
                 tx.getBranchId().toString(), blockId, 0);
         assertEquals(res.txId, txId);
@@ -114,7 +117,7 @@ public class TransactionMockitoTest {
 
     @Test
     public void getTransactionByLatestBlockTest() {
-        when(branchGroupMock.getBlockByIndex(branchId, 0L)).thenReturn(block);
+        when(branchGroupMock.getTxByIndex(branchId, 0L, 0)).thenReturn(tx);
         when(branchGroupMock.getLastIndex(branchId)).thenReturn(0L);
         TransactionDto res = txApiImpl.getTransactionByBlockNumber(
                 branchId.toString(), 0, 0);
@@ -123,6 +126,31 @@ public class TransactionMockitoTest {
         assertEquals(res.txId, res2.txId);
     }
 
+    @Test
+    public void getTransactionWithLocationTest() {
+        when(branchGroupMock.getTxLocation(branchId, txId)).thenReturn(new TxLocation(1L, block.getHash(), 2));
+        when(branchGroupMock.getTxByHash(branchId, txId)).thenReturn(tx);
+        TransactionLocationDto res = txApiImpl.getTransactionWithLocation(branchId.toString(), txId);
+        assertEquals(txId, res.transaction.txId);
+        assertEquals(blockId, res.blockId);
+        assertEquals(1L, res.blockHeight);
+        assertEquals(2, res.txIndexPosition);
+    }
+
+    @Test
+    public void getTransactionsByAddressShouldSkipMissingTx() {
+        Transaction missingTx = BlockChainTestUtils.createTransferTx();
+        String address = tx.getAddress().toString();
+        when(branchGroupMock.getTxHashesByAddress(branchId, address, 0L, 0, 10))
+                .thenReturn(Arrays.asList(missingTx.getHash(), tx.getHash()));
+        when(branchGroupMock.getTxLocation(branchId, txId)).thenReturn(new TxLocation(1L, block.getHash(), 2));
+        when(branchGroupMock.getTxByHash(branchId, txId)).thenReturn(tx);
+
+        List<TransactionLocationDto> res = txApiImpl.getTransactionsByAddress(branchId.toString(), address, 0, 0, 10);
+        assertEquals(1, res.size());
+        assertEquals(txId, res.get(0).transaction.txId);
+    }
+
     @Test
     public void getTransactionReceiptTest() {
         when(branchGroupMock.getReceipt(branchId, txId))
@@ -12,14 +12,20 @@
 
 package io.yggdrash.validator.data;
 
+import com.google.common.cache.CacheStats;
 import io.yggdrash.common.Sha3Hash;
+import io.yggdrash.common.store.datasource.UnitOfWork;
 import io.yggdrash.contract.core.Receipt;
+import io.yggdrash.core.blockchain.BatchVerifier;
 import io.yggdrash.core.blockchain.Block;
 import io.yggdrash.core.blockchain.BlockChainManager;
 import io.yggdrash.core.blockchain.BlockChainManagerImpl;
 import io.yggdrash.core.blockchain.Transaction;
+import io.yggdrash.core.blockchain.TxLocation;
 import io.yggdrash.core.consensus.ConsensusBlock;
+import io.yggdrash.core.runtime.result.BlockRuntimeResult;
 import io.yggdrash.core.store.BlockChainStore;
+import io.yggdrash.core.store.TxPool;
 
 import java.util.Collection;
 import java.util.List;
@@ -47,6 +53,11 @@ public class BlockChainManagerMock<T> implements BlockChainManager<T> {
         return blockChainManager.verify(block);
     }
 
+    @Override
+    public int verify(ConsensusBlock<T> block, BatchVerifier.Result signatures) {
+        return blockChainManager.verify(block, signatures);
+    }
+
     @Override
     public int verify(Transaction transaction) {
         return blockChainManager.verify(transaction);
@@ -57,6 +68,11 @@ public class BlockChainManagerMock<T> implements BlockChainManager<T> {
         blockChainManager.addBlock(nextBlock);
     }
 
+    @Override
+    public void addBlock(ConsensusBlock<T> nextBlock, BlockRuntimeResult result) {
+        blockChainManager.addBlock(nextBlock, result);
+    }
+
     @Override
     public void addTransaction(Transaction tx) {
         blockChainManager.addTransaction(tx);
@@ -87,6 +103,26 @@ public class BlockChainManagerMock<T> implements BlockChainManager<T> {
         return blockChainManager.getTxByHash(hash);
     }
 
+    @Override
+    public TxLocation getTxLocation(Sha3Hash hash) {
+        return blockChainManager.getTxLocation(hash);
+    }
+
+    @Override
+    public Transaction getTxByIndex(long blockIndex, int txIndex) {
+        return blockChainManager.getTxByIndex(blockIndex, txIndex);
+    }
+
+    @Override
+    public Transaction getTxByBlockHash(Sha3Hash blockHash, int txIndex) {
+        return blockChainManager.getTxByBlockHash(blockHash, txIndex);
+    }
+
+    @Override
+    public List<Sha3Hash> getTxHashesByAddress(String address, long fromBlock, int fromTxIndex, int limit) {
+        return blockChainManager.getTxHashesByAddress(address, fromBlock, fromTxIndex, limit);
+    }
+
     @Override
     public Collection<Transaction> getRecentTxs() {
         return blockChainManager.getRecentTxs();
@@ -127,6 +163,11 @@ public class BlockChainManagerMock<T> implements BlockChainManager<T> {
         return blockChainManager.countOfBlocks();
     }
 
+    @Override
+    public long getPrunedBodyIndex() {
+        return blockChainManager.getPrunedBodyIndex();
+    }
+
     @Override
     public boolean containsBlockHash(Sha3Hash blockHash) {
         return blockChainManager.containsBlockHash(blockHash);
@@ -147,6 +188,21 @@ public class BlockChainManagerMock<T> implements BlockChainManager<T> {
         return blockChainManager.contains(transaction);
     }
 
+    @Override
+    public UnitOfWork getUnitOfWork() {
+        return blockChainManager.getUnitOfWork();
+    }
+
+    @Override
+    public CacheStats getBlockCacheStats() {
+        return blockChainManager.getBlockCacheStats();
+    }
+
+    @Override
+    public TxPool.Stats getTxPoolStats() {
+        return blockChainManager.getTxPoolStats();
+    }
+
     @Override
     public void close() {
         blockChainManager.close();
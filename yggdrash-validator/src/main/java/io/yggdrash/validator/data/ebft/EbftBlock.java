@@ -25,13 +25,18 @@ import io.yggdrash.core.blockchain.Block;
 import io.yggdrash.core.blockchain.BlockImpl;
 import io.yggdrash.core.consensus.AbstractConsensusBlock;
 import io.yggdrash.core.exception.NotValidateException;
+import io.yggdrash.core.wallet.Wallet;
 import io.yggdrash.proto.EbftProto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.spongycastle.util.encoders.Hex;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class EbftBlock extends AbstractConsensusBlock<EbftProto.EbftBlock> {
     private static final Logger log = LoggerFactory.getLogger(EbftBlock.class);
@@ -42,6 +47,10 @@ public class EbftBlock extends AbstractConsensusBlock<EbftProto.EbftBlock> {
         this(toProto(bytes));
     }
 
+    public EbftBlock(ByteBuffer buffer) {
+        this(toProto(buffer));
+    }
+
     public EbftBlock(EbftProto.EbftBlock block) {
         this(new BlockImpl(block.getBlock()), block.getConsensusList().getConsensusList());
     }
@@ -111,6 +120,32 @@ public class EbftBlock extends AbstractConsensusBlock<EbftProto.EbftBlock> {
         return VerifierUtils.verify(ebftBlock.getBlock());
     }
 
+    /**
+     * Checks that the block hash is signed by more than half of the validators.
+     *
+     * @param ebftBlock block with its consensus signatures
+     * @param validators addresses of the validators
+     */
+    public static boolean verifyQuorum(EbftBlock ebftBlock, Set<String> validators) {
+        if (validators.isEmpty() || !verify(ebftBlock)) {
+            return false;
+        }
+        byte[] blockHash = ebftBlock.getHash().getBytes();
+        Set<String> signers = new HashSet<>();
+        for (ByteString consensus : ebftBlock.getConsensusMessages()) {
+            byte[] signature = consensus.toByteArray();
+            try {
+                if (Wallet.verify(blockHash, signature, true)) {
+                    signers.add(Hex.toHexString(Wallet.calculateAddress(blockHash, signature, true)));
+                }
+            } catch (RuntimeException e) {
+                log.debug("Invalid consensus of {}. {}", ebftBlock.getIndex(), e.getMessage());
+            }
+        }
+        signers.retainAll(validators);
+        return signers.size() >= validators.size() / 2 + 1;
+    }
+
     private static EbftProto.EbftBlock toProto(byte[] bytes) {
         try {
             return EbftProto.EbftBlock.parseFrom(bytes);
@@ -119,6 +154,14 @@ public class EbftBlock extends AbstractConsensusBlock<EbftProto.EbftBlock> {
         }
     }
 
+    private static EbftProto.EbftBlock toProto(ByteBuffer buffer) {
+        try {
+            return EbftProto.EbftBlock.parseFrom(buffer);
+        } catch (InvalidProtocolBufferException e) {
+            throw new NotValidateException(e);
+        }
+    }
+
     @Override
     public void loggingBlock() {
         try {
@@ -26,6 +26,8 @@ import io.yggdrash.proto.PbftProto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
+
 public class PbftBlock extends AbstractConsensusBlock<PbftProto.PbftBlock> {
     private static final Logger log = LoggerFactory.getLogger(PbftBlock.class);
 
@@ -35,6 +37,10 @@ public class PbftBlock extends AbstractConsensusBlock<PbftProto.PbftBlock> {
         this(toProto(bytes));
     }
 
+    public PbftBlock(ByteBuffer buffer) {
+        this(toProto(buffer));
+    }
+
     public PbftBlock(PbftProto.PbftBlock block) {
         this(new BlockImpl(block.getBlock()), new PbftMessageSet(block.getPbftMessageSet()));
     }
@@ -94,6 +100,14 @@ public class PbftBlock extends AbstractConsensusBlock<PbftProto.PbftBlock> {
         }
     }
 
+    private static PbftProto.PbftBlock toProto(ByteBuffer buffer) {
+        try {
+            return PbftProto.PbftBlock.parseFrom(buffer);
+        } catch (InvalidProtocolBufferException e) {
+            throw new NotValidateException(e);
+        }
+    }
+
     @Override
     public void loggingBlock() {
         try {
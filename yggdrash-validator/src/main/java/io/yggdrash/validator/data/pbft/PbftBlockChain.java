@@ -102,7 +102,7 @@ public class PbftBlockChain implements ConsensusBlockChain<PbftProto.PbftBlock,
             nextPbftBlock = (PbftBlock) blockChainManagerMock.getBlockByHash(
                     Sha3Hash.createByHashed(blockKeyStore.get(l)));
             if (prevPbftBlock.getHash().equals(nextPbftBlock.getPrevBlockHash())) {
-                prevPbftBlock.clear();
+                // blocks are shared with the block cache, do not clear them
                 prevPbftBlock = nextPbftBlock;
             } else {
                 return false;
@@ -22,6 +22,7 @@ import io.yggdrash.proto.PbftProto;
 
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Set;
 
 public class PbftVerifier implements ConsensusVerifier<PbftProto.PbftBlock, PbftMessage> {
 
@@ -93,6 +94,27 @@ public class PbftVerifier implements ConsensusVerifier<PbftProto.PbftBlock, Pbft
         return true;
     }
 
+    /**
+     * Checks that the block is committed by 2f + 1 of the validators, after the messages are verified.
+     *
+     * @param pbftBlock block with its consensus messages
+     * @param validators addresses of the validators
+     */
+    public boolean verifyQuorum(ConsensusBlock<PbftProto.PbftBlock> pbftBlock, Set<String> validators) {
+        if (validators.isEmpty() || !verify(pbftBlock) || pbftBlock.getConsensusMessages() == null) {
+            return false;
+        }
+        byte[] blockHash = pbftBlock.getHash().getBytes();
+        long committers = ((PbftMessageSet) pbftBlock.getConsensusMessages()).getCommitMap().values().stream()
+                .filter(commit -> Arrays.equals(commit.getHash(), blockHash))
+                .map(PbftMessage::getAddressHex)
+                .filter(validators::contains)
+                .distinct()
+                .count();
+        int bftCount = (validators.size() - 1) / 3;
+        return committers >= bftCount * 2 + 1;
+    }
+
     @Override
     public Boolean verify(ConsensusBlock<PbftProto.PbftBlock> pbftBlock) {
         if (pbftBlock == null || pbftBlock.getBlock() == null) {
@@ -3,12 +3,15 @@ package io.yggdrash.validator.store.ebft;
 import io.yggdrash.common.config.Constants;
 import io.yggdrash.common.store.datasource.DbSource;
 import io.yggdrash.common.utils.ByteUtil;
+import io.yggdrash.core.store.BlockIndexKey;
 import io.yggdrash.core.store.BlockKeyStore;
 import org.iq80.leveldb.CompressionType;
 import org.iq80.leveldb.Options;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static io.yggdrash.common.config.Constants.LEVELDB_SIZE_KEY;
@@ -32,6 +35,7 @@ public class EbftBlockKeyStore implements BlockKeyStore<Long, byte[]> {
         options.verifyChecksums(true);
         options.maxOpenFiles(32);
         this.db = dbSource.init(options);
+        BlockIndexKey.migrate(db, ByteUtil::longToBytes);
         this.size = loadSize();
     }
 
@@ -45,7 +49,7 @@ public class EbftBlockKeyStore implements BlockKeyStore<Long, byte[]> {
         lock.lock();
         try {
             if (!contains(key)) {
-                db.put(ByteUtil.longToBytes(key), value);
+                db.put(BlockIndexKey.of(key), value);
                 size++;
                 db.put(LEVELDB_SIZE_KEY, ByteUtil.longToBytes(size));
             }
@@ -66,7 +70,7 @@ public class EbftBlockKeyStore implements BlockKeyStore<Long, byte[]> {
         lock.lock();
         try {
             log.trace("get " + "({})", key);
-            return db.get(ByteUtil.longToBytes(key));
+            return db.get(BlockIndexKey.of(key));
         } catch (Exception e) {
             log.debug(e.getMessage());
             return null;
@@ -75,13 +79,27 @@ public class EbftBlockKeyStore implements BlockKeyStore<Long, byte[]> {
         }
     }
 
+    @Override
+    public Map<Long, byte[]> scan(Long from, Long to, boolean reverse) {
+        return BlockIndexKey.scan(db, from, to, reverse);
+    }
+
+    /**
+     * A height is a whole key, so only the height itself matches.
+     */
+    @Override
+    public Map<Long, byte[]> prefix(Long prefix) {
+        byte[] value = get(prefix);
+        return value == null ? Collections.emptyMap() : Collections.singletonMap(prefix, value);
+    }
+
     @Override
     public boolean contains(Long key) {
         if (key < 0) {
             return false;
         }
 
-        return db.get(ByteUtil.longToBytes(key)) != null;
+        return db.get(BlockIndexKey.of(key)) != null;
     }
 
     @Override
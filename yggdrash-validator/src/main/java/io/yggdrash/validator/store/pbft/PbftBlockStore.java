@@ -2,11 +2,13 @@ package io.yggdrash.validator.store.pbft;
 
 import io.yggdrash.common.Sha3Hash;
 import io.yggdrash.common.store.datasource.DbSource;
-import io.yggdrash.core.exception.NonExistObjectException;
 import io.yggdrash.core.store.AbstractBlockStore;
 import io.yggdrash.proto.PbftProto;
 import io.yggdrash.validator.data.pbft.PbftBlock;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class PbftBlockStore extends AbstractBlockStore<PbftProto.PbftBlock> {
 
     public PbftBlockStore(DbSource<byte[], byte[]> dbSource) {
@@ -15,12 +17,14 @@ public class PbftBlockStore extends AbstractBlockStore<PbftProto.PbftBlock> {
 
     @Override
     public PbftBlock get(Sha3Hash key) {
-        lock.lock();
-        byte[] foundValue = db.get(key.getBytes());
-        lock.unlock();
-        if (foundValue != null) {
-            return new PbftBlock(foundValue);
-        }
-        throw new NonExistObjectException(key.toString());
+        return getBlock(key, PbftBlock::new);
+    }
+
+    /**
+     * The pre-prepare message of the block set carries the block once more.
+     */
+    @Override
+    protected List<int[]> embeddedBlockPaths() {
+        return Arrays.asList(new int[] {1}, new int[] {2, 1, 7});
     }
 }
\ No newline at end of file